@@ -0,0 +1,231 @@
+package org.grgodgames.lib;
+
+/**
+ * The type Attribute encoder. Conversions between doubles and the compact vertex encodings, every encode has a
+ * matching decode so the round trip error can be checked.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+@Utility
+public final class AttributeEncoder {
+	private static final int    SNORM10_MAX  = 511;
+	private static final int    SNORM2_MAX   = 1;
+	private static final int    SNORM16_MAX  = Short.MAX_VALUE;
+	private static final int    UNORM8_MAX   = 0xFF;
+	private static final int    HALF_BIAS    = 15;
+	private static final int    FLOAT_BIAS   = 127;
+	private static final double HALF_SUBNORMAL = 1.0 / (1 << 24);
+
+	/** Instantiates a new Attribute encoder. */
+	private AttributeEncoder() {
+	}
+
+	/**
+	 * To half, rounding to nearest even.
+	 *
+	 * @param value
+	 *   the value
+	 *
+	 * @return the IEEE 754 binary16 bits
+	 */
+	public static short toHalf(float value) {
+		int bits = Float.floatToRawIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int exponent = (bits >>> 23) & 0xFF;
+		int mantissa = bits & 0x7FFFFF;
+		if(exponent == 0xFF) {
+			return (short) (sign | 0x7C00 | ((mantissa != 0) ? 0x200 : 0));
+		}
+		int halfExponent = (exponent - FLOAT_BIAS) + HALF_BIAS;
+		if(halfExponent >= 0x1F) {
+			return (short) (sign | 0x7C00);
+		}
+		if(halfExponent <= 0) {
+			if(halfExponent < -10) {
+				return (short) sign;
+			}
+			mantissa |= 0x800000;
+			int shift = 14 - halfExponent;
+			return (short) (sign | round(mantissa >> shift, mantissa & ((1 << shift) - 1), 1 << (shift - 1)));
+		}
+		return (short) (sign | round((halfExponent << 10) | (mantissa >> 13), mantissa & 0x1FFF, 0x1000));
+	}
+
+	/**
+	 * From half.
+	 *
+	 * @param half
+	 *   the IEEE 754 binary16 bits
+	 *
+	 * @return the value
+	 */
+	public static float fromHalf(short half) {
+		int bits = half & 0xFFFF;
+		int sign = (bits & 0x8000) << 16;
+		int exponent = (bits >>> 10) & 0x1F;
+		int mantissa = bits & 0x3FF;
+		if(exponent == 0) {
+			float value = (float) (mantissa * HALF_SUBNORMAL);
+			return (sign == 0) ? value : -value;
+		}
+		if(exponent == 0x1F) {
+			return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+		}
+		return Float.intBitsToFloat(sign | (((exponent - HALF_BIAS) + FLOAT_BIAS) << 23) | (mantissa << 13));
+	}
+
+	/**
+	 * Pack snorm 10 10 10 2, in the bit order of GL_INT_2_10_10_10_REV. The error of x, y and z is at most
+	 * 1 / 1022.
+	 *
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 * @param w
+	 *   the w
+	 *
+	 * @return the packed value
+	 */
+	public static int packSnorm1010102(double x, double y, double z, double w) {
+		return (toSnorm(x, SNORM10_MAX) & 0x3FF) | ((toSnorm(y, SNORM10_MAX) & 0x3FF) << 10) |
+		       ((toSnorm(z, SNORM10_MAX) & 0x3FF) << 20) | ((toSnorm(w, SNORM2_MAX) & 0x3) << 30);
+	}
+
+	/**
+	 * Unpack snorm 10 10 10 2.
+	 *
+	 * @param packed
+	 *   the packed value
+	 * @param values
+	 *   the x, y, z and w
+	 */
+	public static void unpackSnorm1010102(int packed, double[] values) {
+		values[0] = fromSnorm((packed << 22) >> 22, SNORM10_MAX);
+		values[1] = fromSnorm((packed << 12) >> 22, SNORM10_MAX);
+		values[2] = fromSnorm((packed << 2) >> 22, SNORM10_MAX);
+		values[3] = fromSnorm(packed >> 30, SNORM2_MAX);
+	}
+
+	/**
+	 * Encode octahedral. Maps a unit vector onto the octahedron and stores it as two snorm16 values, the
+	 * angular error is below 0.005 degrees.
+	 *
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 *
+	 * @return u in the low and v in the high 16 bits
+	 */
+	public static int encodeOctahedral(double x, double y, double z) {
+		double length = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		if(length == 0.0) {
+			return 0;
+		}
+		double u = x / length;
+		double v = y / length;
+		if(z < 0.0) {
+			double wrappedU = (1.0 - Math.abs(v)) * signum(u);
+			v = (1.0 - Math.abs(u)) * signum(v);
+			u = wrappedU;
+		}
+		return (toSnorm16(u) & 0xFFFF) | (toSnorm16(v) << 16);
+	}
+
+	/**
+	 * Decode octahedral.
+	 *
+	 * @param encoded
+	 *   the encoded value
+	 * @param values
+	 *   the normalised x, y and z
+	 */
+	public static void decodeOctahedral(int encoded, double[] values) {
+		double u = fromSnorm16((short) encoded);
+		double v = fromSnorm16((short) (encoded >> 16));
+		double z = 1.0 - Math.abs(u) - Math.abs(v);
+		if(z < 0.0) {
+			double wrappedU = (1.0 - Math.abs(v)) * signum(u);
+			v = (1.0 - Math.abs(u)) * signum(v);
+			u = wrappedU;
+		}
+		double length = Math.sqrt((u * u) + (v * v) + (z * z));
+		values[0] = u / length;
+		values[1] = v / length;
+		values[2] = z / length;
+	}
+
+	/**
+	 * To snorm 16.
+	 *
+	 * @param value
+	 *   the value in [-1, 1]
+	 *
+	 * @return the snorm 16
+	 */
+	public static short toSnorm16(double value) {
+		return (short) toSnorm(value, SNORM16_MAX);
+	}
+
+	/**
+	 * From snorm 16.
+	 *
+	 * @param value
+	 *   the snorm 16
+	 *
+	 * @return the value
+	 */
+	public static double fromSnorm16(short value) {
+		return fromSnorm(value, SNORM16_MAX);
+	}
+
+	/**
+	 * To unorm 8.
+	 *
+	 * @param value
+	 *   the value in [0, 1]
+	 *
+	 * @return the unorm 8
+	 */
+	public static byte toUnorm8(double value) {
+		return (byte) Math.round(Math.max(0.0, Math.min(1.0, value)) * UNORM8_MAX);
+	}
+
+	/**
+	 * From unorm 8.
+	 *
+	 * @param value
+	 *   the unorm 8
+	 *
+	 * @return the value
+	 */
+	public static double fromUnorm8(byte value) {
+		return (value & 0xFF) / (double) UNORM8_MAX;
+	}
+
+	private static int round(int truncated, int remainder, int halfway) {
+		if((remainder > halfway) || ((remainder == halfway) && ((truncated & 1) != 0))) {
+			return truncated + 1;
+		}
+		return truncated;
+	}
+
+	private static int toSnorm(double value, int max) {
+		return (int) Math.round(Math.max(-1.0, Math.min(1.0, value)) * max);
+	}
+
+	private static double fromSnorm(int value, int max) {
+		return Math.max(-1.0, value / (double) max);
+	}
+
+	private static double signum(double value) {
+		return (value < 0.0) ? -1.0 : 1.0;
+	}
+}
@@ -0,0 +1,79 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * The interface Buffer provider. The buffer object calls of {@link MeshBuffers} and of the partial uploads of a
+ * {@link Render}, so they can run against a stand in without a context.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public interface BufferProvider {
+	/**
+	 * Create a buffer object holding the data.
+	 *
+	 * @param target
+	 *   GL_ARRAY_BUFFER or GL_ELEMENT_ARRAY_BUFFER
+	 * @param data
+	 *   the data, from its position to its limit
+	 * @param usage
+	 *   the usage
+	 *
+	 * @return the buffer name
+	 */
+	int create(int target, ByteBuffer data, BufferUsage usage);
+
+	/**
+	 * Replace part of a buffer object's data, leaving the buffer bound to the target.
+	 *
+	 * @param target
+	 *   the target the buffer is bound to
+	 * @param buffer
+	 *   the buffer name
+	 * @param offset
+	 *   the offset in bytes of the first byte replaced
+	 * @param data
+	 *   the data, from its position to its limit
+	 */
+	void update(int target, int buffer, long offset, ByteBuffer data);
+
+	/**
+	 * Replace part of a buffer object's data, leaving the buffer bound to the target.
+	 *
+	 * @param target
+	 *   the target the buffer is bound to
+	 * @param buffer
+	 *   the buffer name
+	 * @param offset
+	 *   the offset in bytes of the first byte replaced
+	 * @param data
+	 *   the data, from its position to its limit
+	 */
+	void update(int target, int buffer, long offset, ShortBuffer data);
+
+	/**
+	 * Replace part of a buffer object's data, leaving the buffer bound to the target.
+	 *
+	 * @param target
+	 *   the target the buffer is bound to
+	 * @param buffer
+	 *   the buffer name
+	 * @param offset
+	 *   the offset in bytes of the first byte replaced
+	 * @param data
+	 *   the data, from its position to its limit
+	 */
+	void update(int target, int buffer, long offset, DoubleBuffer data);
+
+	/**
+	 * Delete a buffer object.
+	 *
+	 * @param buffer
+	 *   the buffer name
+	 */
+	void delete(int buffer);
+}
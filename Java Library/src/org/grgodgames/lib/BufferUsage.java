@@ -0,0 +1,37 @@
+package org.grgodgames.lib;
+
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * The enum Buffer usage.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public enum BufferUsage {
+	/** Written once, or rarely, and drawn many times. */
+	STATIC(GL_STATIC_DRAW),
+	/** Partly rewritten now and then, see {@link Render#setVertexRange(int, double[])}. */
+	DYNAMIC(GL_DYNAMIC_DRAW),
+	/**
+	 * Rewritten every frame. The vertexes are packed into a ring of {@link Render#STREAM_FRAMES} segments of one
+	 * buffer, so the next frame is written while the GPU still reads the last one.
+	 */
+	STREAM(GL_STREAM_DRAW);
+
+	private final int glUsage;
+
+	BufferUsage(int glUsage) {
+		this.glUsage = glUsage;
+	}
+
+	/**
+	 * Gets gL usage.
+	 *
+	 * @return the gL usage
+	 */
+	public int getGLUsage() {
+		return glUsage;
+	}
+}
@@ -0,0 +1,160 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The type Byte line iterator. Walks the lines of a buffer in place: each {@link #next()} only moves the bounds of
+ * the current line, so nothing is allocated per line. Lines end at {@code \n}, {@code \r\n} or {@code \r}, and the
+ * line ends are not part of the line.
+ * <p>
+ * The bounds are absolute indexes into the buffer, so the line can be read with {@link ByteBuffer#get(int)} or
+ * parsed in place.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ByteLineIterator {
+	private final ByteBuffer bytes;
+	private final int        limit;
+	private       int        next;
+	private       int        start;
+	private       int        end;
+	private       long       lineNumber;
+
+	/**
+	 * Instantiates a new Byte line iterator.
+	 *
+	 * @param bytes
+	 *   the bytes, read from their position to their limit without moving the position
+	 */
+	public ByteLineIterator(ByteBuffer bytes) {
+		this.bytes = bytes;
+		this.limit = bytes.limit();
+		this.next = bytes.position();
+		this.start = next;
+		this.end = next;
+	}
+
+	/**
+	 * Move to the next line.
+	 *
+	 * @return whether there was another line
+	 */
+	public boolean next() {
+		if(next >= limit) {
+			return false;
+		}
+		start = next;
+		int i = start;
+		while(i < limit) {
+			byte b = bytes.get(i);
+			if((b == '\n') || (b == '\r')) {
+				break;
+			}
+			i++;
+		}
+		end = i;
+		if(i < limit) {
+			i += ((bytes.get(i) == '\r') && ((i + 1) < limit) && (bytes.get(i + 1) == '\n')) ? 2 : 1;
+		}
+		next = i;
+		lineNumber++;
+		return true;
+	}
+
+	/**
+	 * Gets start.
+	 *
+	 * @return the index of the line's first byte
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Gets end.
+	 *
+	 * @return the index after the line's last byte
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Length.
+	 *
+	 * @return the line's length in bytes
+	 */
+	public int length() {
+		return end - start;
+	}
+
+	/**
+	 * Byte at.
+	 *
+	 * @param index
+	 *   the index within the line
+	 *
+	 * @return the byte
+	 */
+	public byte byteAt(int index) {
+		if((index < 0) || (index >= (end - start))) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return bytes.get(start + index);
+	}
+
+	/**
+	 * Starts with.
+	 *
+	 * @param prefix
+	 *   the prefix, as bytes
+	 *
+	 * @return whether the line starts with the prefix
+	 */
+	public boolean startsWith(byte[] prefix) {
+		if(prefix.length > (end - start)) {
+			return false;
+		}
+		for(int i = 0; i < prefix.length; i++) {
+			if(bytes.get(start + i) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets line number.
+	 *
+	 * @return the current line's number, from 1, or 0 before the first line
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Gets line. This allocates, so it is for lines that are kept or logged.
+	 *
+	 * @return the line, decoded
+	 */
+	public String getLine() {
+		byte[] line = new byte[end - start];
+		for(int i = 0; i < line.length; i++) {
+			line[i] = bytes.get(start + i);
+		}
+		return new String(line, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ByteLineIterator{");
+		sb.append("lineNumber=").append(lineNumber);
+		sb.append(", start=").append(start);
+		sb.append(", end=").append(end);
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,459 @@
+package org.grgodgames.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The type Chunked deflate. Compresses large assets as independent Deflate chunks, so they can be inflated on every
+ * core at once rather than on one thread.
+ * <p>
+ * The file is little endian, a {@value #HEADER_SIZE} byte header, the chunk table and the chunks:
+ * <pre>
+ * 0   magic "GGCHUNK" and a zero byte
+ * 8   int version, int chunk size
+ * 16  long inflated size
+ * 24  int chunk count, int reserved
+ * 32  chunk count + 1 longs, the offset of each chunk then the end of the last
+ * ..  the chunks, each a whole zlib stream of chunk size bytes, the last one possibly shorter
+ * </pre>
+ * Chunks are inflated by fork join tasks straight into their place in one direct buffer sized from the header. Each
+ * task inflates a run of chunks with one {@link Inflater}, and there are a few runs per worker so the pool stays
+ * busy when some chunks are slower than others.
+ * <p>
+ * The throughput counters cover every read since the last {@link #resetMetrics()}, and can be read from any thread.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ChunkedDeflate {
+	/** The format version written. */
+	public static final  int          VERSION            = 1;
+	/** The header size. */
+	public static final  int          HEADER_SIZE        = 32;
+	/** The default chunk size. */
+	public static final  int          DEFAULT_CHUNK_SIZE = 1 << 18;
+	private static final GameLogger   LOGGER             =
+		GameLogger.loggerOf(Logger.getLogger(ChunkedDeflate.class.getName()));
+	private static final byte[]       MAGIC              = {'G', 'G', 'C', 'H', 'U', 'N', 'K', 0};
+	private static final ByteOrder    ORDER              = ByteOrder.LITTLE_ENDIAN;
+	private static final int          RUNS_PER_WORKER    = 4;
+	private final        ForkJoinPool pool;
+	private final        AtomicLong   reads              = new AtomicLong();
+	private final        AtomicLong   compressedBytes    = new AtomicLong();
+	private final        AtomicLong   inflatedBytes      = new AtomicLong();
+	private final        AtomicLong   inflateNanos       = new AtomicLong();
+
+	/** Instantiates a new Chunked deflate on the common pool. */
+	public ChunkedDeflate() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Instantiates a new Chunked deflate.
+	 *
+	 * @param pool
+	 *   the pool chunks are compressed and inflated on
+	 */
+	public ChunkedDeflate(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Is chunked.
+	 *
+	 * @param source
+	 *   the file
+	 *
+	 * @return whether the file starts like a chunked file
+	 *
+	 * @throws IOException
+	 *   if the file can not be read
+	 */
+	public static boolean isChunked(File source) throws IOException {
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+			while(magic.hasRemaining()) {
+				if(channel.read(magic, magic.position()) < 0) {
+					return false;
+				}
+			}
+			for(int i = 0; i < MAGIC.length; i++) {
+				if(magic.get(i) != MAGIC[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Compress bytes into a chunked file of {@value #DEFAULT_CHUNK_SIZE} byte chunks at the default level.
+	 *
+	 * @param data
+	 *   the bytes, from their position to their limit, the position is not moved
+	 * @param target
+	 *   the file to create or replace
+	 *
+	 * @throws IOException
+	 *   if the file can not be written
+	 */
+	public void write(ByteBuffer data, File target) throws IOException {
+		write(data, target, DEFAULT_CHUNK_SIZE, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Compress bytes into a chunked file, compressing the chunks in parallel.
+	 *
+	 * @param data
+	 *   the bytes, from their position to their limit, the position is not moved
+	 * @param target
+	 *   the file to create or replace
+	 * @param chunkSize
+	 *   the inflated size of each chunk
+	 * @param level
+	 *   the {@link Deflater} level
+	 *
+	 * @throws IOException
+	 *   if the file can not be written
+	 */
+	public void write(ByteBuffer data, File target, int chunkSize, int level) throws IOException {
+		if(chunkSize < 1) {
+			throw new IllegalArgumentException("The chunk size is not positive");
+		}
+		int size = data.remaining();
+		int count = (int) ((size + (chunkSize - 1L)) / chunkSize);
+		byte[][] chunks = new byte[count][];
+		invoke(new Deflate(data.duplicate(), chunkSize, level, chunks, 0, count, grain(count)));
+
+		long[] offsets = new long[count + 1];
+		offsets[0] = HEADER_SIZE + ((count + 1L) * Long.BYTES);
+		for(int c = 0; c < count; c++) {
+			offsets[c + 1] = offsets[c] + chunks[c].length;
+		}
+		ByteBuffer head = ByteBuffer.allocate((int) offsets[0]).order(ORDER);
+		head.put(MAGIC);
+		head.putInt(VERSION);
+		head.putInt(chunkSize);
+		head.putLong(size);
+		head.putInt(count);
+		head.putInt(0);
+		for(long offset : offsets) {
+			head.putLong(offset);
+		}
+		head.clear();
+		try(FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+		                                           StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeFully(channel, head, 0L);
+			for(int c = 0; c < count; c++) {
+				writeFully(channel, ByteBuffer.wrap(chunks[c]), offsets[c]);
+			}
+		}
+	}
+
+	/**
+	 * Read a chunked file, inflating its chunks in parallel.
+	 *
+	 * @param source
+	 *   the file
+	 *
+	 * @return the inflated bytes, in a new direct buffer positioned at the first
+	 *
+	 * @throws IOException
+	 *   if the file can not be read, is not a valid chunked file or does not inflate to its size
+	 */
+	public ByteBuffer read(File source) throws IOException {
+		long start = System.nanoTime();
+		MappedByteBuffer file;
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw invalid(source, "it is larger than one mapping can be");
+			}
+			// the mapping outlives the channel
+			file = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+		}
+		file.order(ORDER);
+		if(file.capacity() < HEADER_SIZE) {
+			throw invalid(source, "it is shorter than the header");
+		}
+		for(int i = 0; i < MAGIC.length; i++) {
+			if(file.get(i) != MAGIC[i]) {
+				throw invalid(source, "it is not a chunked file");
+			}
+		}
+		int version = file.getInt(8);
+		if(version != VERSION) {
+			throw invalid(source, MessageFormat.format("version {0} is not supported", version));
+		}
+		int chunkSize = file.getInt(12);
+		long size = file.getLong(16);
+		int count = file.getInt(24);
+		long table = HEADER_SIZE + ((count + 1L) * Long.BYTES);
+		if((chunkSize < 1) || (size < 0L) || (size > Integer.MAX_VALUE) || (table > file.capacity())
+		   || (count != ((size + (chunkSize - 1)) / chunkSize))) {
+			throw invalid(source, "the header does not describe the chunks");
+		}
+		long[] offsets = new long[count + 1];
+		for(int c = 0; c <= count; c++) {
+			offsets[c] = file.getLong(HEADER_SIZE + (c * Long.BYTES));
+			if((offsets[c] < table) || (offsets[c] > file.capacity()) || ((c > 0) && (offsets[c] < offsets[c - 1]))) {
+				throw invalid(source, "a chunk lies outside the file");
+			}
+		}
+
+		ByteBuffer out = ByteBuffer.allocateDirect((int) size);
+		invoke(new Inflate(source, file, offsets, out, chunkSize, 0, count, grain(count)));
+
+		long nanos = System.nanoTime() - start;
+		reads.incrementAndGet();
+		compressedBytes.addAndGet(file.capacity());
+		inflatedBytes.addAndGet(size);
+		inflateNanos.addAndGet(nanos);
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Inflated {0} in {1} chunks, {2,number,#.#} MB/s", source, count,
+			                                     (size / 1.0e6) / (nanos / 1.0e9)));
+		}
+		return out;
+	}
+
+	/** Run a task on the pool, rethrowing the IO exception it failed with. */
+	private void invoke(RecursiveAction task) throws IOException {
+		try {
+			pool.invoke(task);
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/** The number of chunks each task works through, a few tasks per worker. */
+	private int grain(int count) {
+		return Math.max(1, count / (pool.getParallelism() * RUNS_PER_WORKER));
+	}
+
+	private static IOException invalid(File source, String reason) {
+		return new IOException(MessageFormat.format("Invalid chunked file {0}: {1}", source, reason));
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long at = position;
+		while(buffer.hasRemaining()) {
+			at += channel.write(buffer, at);
+		}
+	}
+
+	/**
+	 * Gets read count.
+	 *
+	 * @return the number of files read
+	 */
+	public long getReadCount() {
+		return reads.get();
+	}
+
+	/**
+	 * Gets compressed bytes.
+	 *
+	 * @return the bytes of the files read
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes.get();
+	}
+
+	/**
+	 * Gets inflated bytes.
+	 *
+	 * @return the bytes the files read inflated to
+	 */
+	public long getInflatedBytes() {
+		return inflatedBytes.get();
+	}
+
+	/**
+	 * Gets inflate nanos.
+	 *
+	 * @return the time spent reading, in nanoseconds
+	 */
+	public long getInflateNanos() {
+		return inflateNanos.get();
+	}
+
+	/**
+	 * Gets throughput.
+	 *
+	 * @return the inflated bytes per second, or 0 before any read
+	 */
+	public double getThroughput() {
+		long nanos = inflateNanos.get();
+		return (nanos == 0L) ? 0.0 : (inflatedBytes.get() * 1.0e9) / nanos;
+	}
+
+	/** Reset the metrics. */
+	public void resetMetrics() {
+		reads.set(0L);
+		compressedBytes.set(0L);
+		inflatedBytes.set(0L);
+		inflateNanos.set(0L);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ChunkedDeflate{");
+		sb.append("reads=").append(reads.get());
+		sb.append(", compressedBytes=").append(compressedBytes.get());
+		sb.append(", inflatedBytes=").append(inflatedBytes.get());
+		sb.append(", throughput=").append(getThroughput());
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/** Compresses a run of chunks, splitting it while it is longer than the grain. */
+	private static final class Deflate extends RecursiveAction {
+		private static final long       serialVersionUID = 1L;
+		private final        ByteBuffer data;
+		private final        int        chunkSize;
+		private final        int        level;
+		private final        byte[][]   chunks;
+		private final        int        from;
+		private final        int        to;
+		private final        int        grain;
+
+		Deflate(ByteBuffer data, int chunkSize, int level, byte[][] chunks, int from, int to, int grain) {
+			this.data = data;
+			this.chunkSize = chunkSize;
+			this.level = level;
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if((to - from) > grain) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Deflate(data, chunkSize, level, chunks, from, middle, grain),
+				          new Deflate(data, chunkSize, level, chunks, middle, to, grain));
+				return;
+			}
+			// each task reads through its own view, the positions are not shared
+			ByteBuffer view = data.duplicate();
+			int base = view.position();
+			int largest = Math.min(chunkSize, view.remaining());
+			byte[] in = new byte[largest];
+			byte[] out = new byte[largest + (largest >>> 8) + 64];
+			Deflater deflater = new Deflater(level);
+			try {
+				for(int c = from; c < to; c++) {
+					int start = base + (c * chunkSize);
+					int length = Math.min(chunkSize, data.limit() - start);
+					view.limit(start + length).position(start);
+					view.get(in, 0, length);
+					deflater.reset();
+					deflater.setInput(in, 0, length);
+					deflater.finish();
+					int written = 0;
+					while(!deflater.finished()) {
+						if(written == out.length) {
+							out = Arrays.copyOf(out, out.length * 2);
+						}
+						written += deflater.deflate(out, written, out.length - written);
+					}
+					chunks[c] = Arrays.copyOf(out, written);
+				}
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+
+	/** Inflates a run of chunks into their place in the output, splitting it while it is longer than the grain. */
+	private static final class Inflate extends RecursiveAction {
+		private static final long       serialVersionUID = 1L;
+		private final        File       source;
+		private final        ByteBuffer file;
+		private final        long[]     offsets;
+		private final        ByteBuffer out;
+		private final        int        chunkSize;
+		private final        int        from;
+		private final        int        to;
+		private final        int        grain;
+
+		Inflate(File source, ByteBuffer file, long[] offsets, ByteBuffer out, int chunkSize, int from, int to,
+		        int grain) {
+			this.source = source;
+			this.file = file;
+			this.offsets = offsets;
+			this.out = out;
+			this.chunkSize = chunkSize;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if((to - from) > grain) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Inflate(source, file, offsets, out, chunkSize, from, middle, grain),
+				          new Inflate(source, file, offsets, out, chunkSize, middle, to, grain));
+				return;
+			}
+			// Inflater only reads and writes arrays before Java 11, so each chunk passes through two
+			ByteBuffer in = file.duplicate();
+			ByteBuffer target = out.duplicate();
+			byte[] compressed = new byte[0];
+			// the chunk size comes from the file, only the output size bounds it
+			byte[] inflated = new byte[Math.min(chunkSize, out.capacity())];
+			Inflater inflater = new Inflater();
+			try {
+				for(int c = from; c < to; c++) {
+					int length = (int) (offsets[c + 1] - offsets[c]);
+					if(compressed.length < length) {
+						compressed = new byte[length];
+					}
+					in.limit((int) offsets[c + 1]).position((int) offsets[c]);
+					in.get(compressed, 0, length);
+					int expected = Math.min(chunkSize, out.capacity() - (c * chunkSize));
+					inflater.reset();
+					inflater.setInput(compressed, 0, length);
+					int read = 0;
+					while((read < expected) && !inflater.finished()) {
+						int n = inflater.inflate(inflated, read, expected - read);
+						if((n == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+							break;
+						}
+						read += n;
+					}
+					if((read != expected) || !inflater.finished()) {
+						throw new IOException(MessageFormat.format("Chunk {0} of {1} did not inflate to its size", c,
+						                                           source));
+					}
+					target.limit((c * chunkSize) + expected).position(c * chunkSize);
+					target.put(inflated, 0, expected);
+				}
+			} catch(DataFormatException e) {
+				throw new UncheckedIOException(new IOException(
+					MessageFormat.format("Chunk of {0} is not valid Deflate data", source), e));
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				inflater.end();
+			}
+		}
+	}
+}
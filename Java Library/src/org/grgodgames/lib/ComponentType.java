@@ -0,0 +1,80 @@
+package org.grgodgames.lib;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.GL_HALF_FLOAT;
+import static org.lwjgl.opengl.GL33.GL_INT_2_10_10_10_REV;
+
+/**
+ * The enum Component type.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public enum ComponentType {
+	DOUBLE(GL_DOUBLE, 8, 0),
+	FLOAT(GL_FLOAT, 4, 0),
+	HALF_FLOAT(GL_HALF_FLOAT, 2, 0),
+	INT(GL_INT, 4, Integer.MAX_VALUE),
+	SHORT(GL_SHORT, 2, Short.MAX_VALUE),
+	UNSIGNED_SHORT(GL_UNSIGNED_SHORT, 2, 0xFFFF),
+	BYTE(GL_BYTE, 1, Byte.MAX_VALUE),
+	UNSIGNED_BYTE(GL_UNSIGNED_BYTE, 1, 0xFF),
+	/** Three signed normalized 10 bit components and a 2 bit one packed into a single int. */
+	INT_2_10_10_10_REV(GL_INT_2_10_10_10_REV, 4, 511);
+
+	private final int    glType;
+	private final int    size;
+	private final double maxValue;
+
+	ComponentType(int glType, int size, double maxValue) {
+		this.glType = glType;
+		this.size = size;
+		this.maxValue = maxValue;
+	}
+
+	/**
+	 * Gets gL type.
+	 *
+	 * @return the gL type
+	 */
+	public int getGLType() {
+		return glType;
+	}
+
+	/**
+	 * Gets size.
+	 *
+	 * @return the size in bytes of one component, or of all components if the type is packed
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Is integer.
+	 *
+	 * @return the boolean
+	 */
+	public boolean isInteger() {
+		return maxValue != 0;
+	}
+
+	/**
+	 * Is packed.
+	 *
+	 * @return the boolean
+	 */
+	public boolean isPacked() {
+		return this == INT_2_10_10_10_REV;
+	}
+
+	/**
+	 * Gets max value.
+	 *
+	 * @return the value an integer type maps 1.0 to when normalized
+	 */
+	double getMaxValue() {
+		return maxValue;
+	}
+}
@@ -0,0 +1,218 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+
+/**
+ * The type Dirty ranges. A sorted set of disjoint half open ranges, ranges that overlap or touch are merged as
+ * they are added.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class DirtyRanges {
+	/** Past this many ranges a single covering range is cheaper than the extra upload calls. */
+	private static final int MAX_RANGES = 32;
+	private int[] starts = new int[4];
+	private int[] ends   = new int[4];
+	private int size;
+
+	/**
+	 * Add void.
+	 *
+	 * @param start
+	 *   the first index
+	 * @param end
+	 *   one past the last index
+	 */
+	void add(int start, int end) {
+		if(start >= end) {
+			return;
+		}
+		int first = 0;
+		while((first < size) && (ends[first] < start)) {
+			first++;
+		}
+		int last = first;
+		int newStart = start;
+		int newEnd = end;
+		while((last < size) && (starts[last] <= end)) {
+			newStart = Math.min(newStart, starts[last]);
+			newEnd = Math.max(newEnd, ends[last]);
+			last++;
+		}
+		int removed = last - first;
+		if(removed == 0) {
+			if(size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			System.arraycopy(starts, first, starts, first + 1, size - first);
+			System.arraycopy(ends, first, ends, first + 1, size - first);
+			size++;
+		} else if(removed > 1) {
+			System.arraycopy(starts, last, starts, first + 1, size - last);
+			System.arraycopy(ends, last, ends, first + 1, size - last);
+			size -= removed - 1;
+		}
+		starts[first] = newStart;
+		ends[first] = newEnd;
+
+		if(size > MAX_RANGES) {
+			ends[0] = ends[size - 1];
+			size = 1;
+		}
+	}
+
+	/**
+	 * Add all.
+	 *
+	 * @param ranges
+	 *   the ranges
+	 */
+	void addAll(DirtyRanges ranges) {
+		for(int i = 0; i < ranges.size; i++) {
+			add(ranges.starts[i], ranges.ends[i]);
+		}
+	}
+
+	/**
+	 * Upload the ranges of a store to the array buffer it mirrors, one update per range.
+	 *
+	 * @param provider
+	 *   the provider making the GL calls
+	 * @param buffer
+	 *   the buffer name
+	 * @param store
+	 *   the store, cleared afterwards
+	 * @param components
+	 *   the number of values per index
+	 *
+	 * @return the number of bytes sent
+	 */
+	long upload(BufferProvider provider, int buffer, DoubleBuffer store, int components) {
+		long bytes = 0L;
+		for(int i = 0; i < size; i++) {
+			store.limit(ends[i] * components).position(starts[i] * components);
+			bytes += (long) store.remaining() * Double.BYTES;
+			provider.update(GL_ARRAY_BUFFER, buffer, (long) store.position() * Double.BYTES, store);
+		}
+		store.clear();
+		return bytes;
+	}
+
+	/**
+	 * Upload the ranges of a store to the array buffer it mirrors, one update per range.
+	 *
+	 * @param provider
+	 *   the provider making the GL calls
+	 * @param buffer
+	 *   the buffer name
+	 * @param store
+	 *   the store, cleared afterwards
+	 * @param components
+	 *   the number of values per index
+	 *
+	 * @return the number of bytes sent
+	 */
+	long upload(BufferProvider provider, int buffer, ShortBuffer store, int components) {
+		long bytes = 0L;
+		for(int i = 0; i < size; i++) {
+			store.limit(ends[i] * components).position(starts[i] * components);
+			bytes += (long) store.remaining() * Short.BYTES;
+			provider.update(GL_ARRAY_BUFFER, buffer, (long) store.position() * Short.BYTES, store);
+		}
+		store.clear();
+		return bytes;
+	}
+
+	/**
+	 * Upload the ranges of a store to the array buffer it mirrors, one update per range.
+	 *
+	 * @param provider
+	 *   the provider making the GL calls
+	 * @param buffer
+	 *   the buffer name
+	 * @param store
+	 *   the store, cleared afterwards
+	 * @param stride
+	 *   the number of bytes per index
+	 *
+	 * @return the number of bytes sent
+	 */
+	long upload(BufferProvider provider, int buffer, ByteBuffer store, int stride) {
+		long bytes = 0L;
+		for(int i = 0; i < size; i++) {
+			store.limit(ends[i] * stride).position(starts[i] * stride);
+			bytes += store.remaining();
+			provider.update(GL_ARRAY_BUFFER, buffer, store.position(), store);
+		}
+		store.clear();
+		return bytes;
+	}
+
+	/** Clear void. */
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Is empty.
+	 *
+	 * @return the boolean
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Size int.
+	 *
+	 * @return the number of ranges
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets start.
+	 *
+	 * @param index
+	 *   the index
+	 *
+	 * @return the first index of the range
+	 */
+	int getStart(int index) {
+		return starts[index];
+	}
+
+	/**
+	 * Gets end.
+	 *
+	 * @param index
+	 *   the index
+	 *
+	 * @return one past the last index of the range
+	 */
+	int getEnd(int index) {
+		return ends[index];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		for(int i = 0; i < size; i++) {
+			if(i > 0) {
+				sb.append(", ");
+			}
+			sb.append('[').append(starts[i]).append(", ").append(ends[i]).append(')');
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,46 @@
+package org.grgodgames.lib;
+
+/**
+ * The interface Fence source. Creates and checks GPU fences for a {@link StreamRing}.
+ *
+ * @param <F>
+ *   the fence type
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public interface FenceSource<F> {
+	/**
+	 * Insert a fence after the commands issued so far.
+	 *
+	 * @return the fence
+	 */
+	F insert();
+
+	/**
+	 * Is signaled.
+	 *
+	 * @param fence
+	 *   the fence
+	 *
+	 * @return whether the commands before the fence have completed
+	 */
+	boolean isSignaled(F fence);
+
+	/**
+	 * Await void. Blocks until the fence is signaled.
+	 *
+	 * @param fence
+	 *   the fence
+	 */
+	void await(F fence);
+
+	/**
+	 * Delete void.
+	 *
+	 * @param fence
+	 *   the fence
+	 */
+	void delete(F fence);
+}
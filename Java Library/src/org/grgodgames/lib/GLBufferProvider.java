@@ -0,0 +1,48 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * The type GL buffer provider, backed by the buffer objects of the current context.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class GLBufferProvider implements BufferProvider {
+	@Override
+	public int create(int target, ByteBuffer data, BufferUsage usage) {
+		int buffer = glGenBuffers();
+		glBindBuffer(target, buffer);
+		glBufferData(target, data, usage.getGLUsage());
+		glBindBuffer(target, 0);
+		return buffer;
+	}
+
+	@Override
+	public void update(int target, int buffer, long offset, ByteBuffer data) {
+		glBindBuffer(target, buffer);
+		glBufferSubData(target, offset, data);
+	}
+
+	@Override
+	public void update(int target, int buffer, long offset, ShortBuffer data) {
+		glBindBuffer(target, buffer);
+		glBufferSubData(target, offset, data);
+	}
+
+	@Override
+	public void update(int target, int buffer, long offset, DoubleBuffer data) {
+		glBindBuffer(target, buffer);
+		glBufferSubData(target, offset, data);
+	}
+
+	@Override
+	public void delete(int buffer) {
+		glDeleteBuffers(buffer);
+	}
+}
@@ -0,0 +1,41 @@
+package org.grgodgames.lib;
+
+import org.lwjgl.opengl.GLSync;
+
+import static org.lwjgl.opengl.GL32.*;
+
+/**
+ * The type GL fence source, backed by sync objects.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class GLFenceSource implements FenceSource<GLSync> {
+	/** Waits are made in slices so a lost context can not hang the render thread. */
+	private static final long WAIT_NANOS = 1000000L;
+
+	@Override
+	public GLSync insert() {
+		return glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+	}
+
+	@Override
+	public boolean isSignaled(GLSync fence) {
+		int result = glClientWaitSync(fence, 0, 0);
+		return (result == GL_ALREADY_SIGNALED) || (result == GL_CONDITION_SATISFIED);
+	}
+
+	@Override
+	public void await(GLSync fence) {
+		int result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_NANOS);
+		while(result == GL_TIMEOUT_EXPIRED) {
+			result = glClientWaitSync(fence, 0, WAIT_NANOS);
+		}
+	}
+
+	@Override
+	public void delete(GLSync fence) {
+		glDeleteSync(fence);
+	}
+}
@@ -0,0 +1,80 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.opengl.GL11.GL_TRIANGLES;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL20.glDisableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glEnableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
+import static org.lwjgl.opengl.GL31.glDrawArraysInstanced;
+import static org.lwjgl.opengl.GL31.glDrawElementsInstanced;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+
+/**
+ * The type GL instance provider, backed by the current context.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class GLInstanceProvider implements InstanceProvider {
+	private final BufferProvider buffers = new GLBufferProvider();
+
+	@Override
+	public int create(int target, ByteBuffer data, BufferUsage usage) {
+		return buffers.create(target, data, usage);
+	}
+
+	@Override
+	public void update(int target, int buffer, long offset, ByteBuffer data) {
+		buffers.update(target, buffer, offset, data);
+	}
+
+	@Override
+	public void update(int target, int buffer, long offset, ShortBuffer data) {
+		buffers.update(target, buffer, offset, data);
+	}
+
+	@Override
+	public void update(int target, int buffer, long offset, DoubleBuffer data) {
+		buffers.update(target, buffer, offset, data);
+	}
+
+	@Override
+	public void delete(int buffer) {
+		buffers.delete(buffer);
+	}
+
+	@Override
+	public void setInstancePointer(int buffer, int location, int size, int type, boolean normalized, int stride,
+	                               long offset) {
+		glBindBuffer(GL_ARRAY_BUFFER, buffer);
+		glVertexAttribPointer(location, size, type, normalized, stride, offset);
+		glVertexAttribDivisor(location, 1);
+	}
+
+	@Override
+	public void setAttributesEnabled(int location, int count, boolean enabled) {
+		for(int i = 0; i < count; i++) {
+			if(enabled) {
+				glEnableVertexAttribArray(location + i);
+			} else {
+				glDisableVertexAttribArray(location + i);
+			}
+		}
+	}
+
+	@Override
+	public void drawArraysInstanced(int vertexCount, int instances) {
+		glDrawArraysInstanced(GL_TRIANGLES, 0, vertexCount, instances);
+	}
+
+	@Override
+	public void drawElementsInstanced(int indexCount, int indexType, long offset, int instances) {
+		glDrawElementsInstanced(GL_TRIANGLES, indexCount, indexType, offset, instances);
+	}
+}
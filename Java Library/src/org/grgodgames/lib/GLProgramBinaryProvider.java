@@ -0,0 +1,72 @@
+package org.grgodgames.lib;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GLContext;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.GL_LINK_STATUS;
+import static org.lwjgl.opengl.GL20.glGetProgrami;
+import static org.lwjgl.opengl.GL41.*;
+
+/**
+ * The type GL program binary provider, backed by GL 4.1 or ARB_get_program_binary.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class GLProgramBinaryProvider implements ProgramBinaryProvider {
+	private final IntBuffer length = BufferUtils.createIntBuffer(1);
+	private final IntBuffer format = BufferUtils.createIntBuffer(1);
+
+	@Override
+	public boolean isSupported() {
+		ContextCapabilities capabilities = GLContext.getCapabilities();
+		return (capabilities.OpenGL41 || capabilities.GL_ARB_get_program_binary)
+		       && (glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0);
+	}
+
+	@Override
+	public String getDriver() {
+		StringBuilder sb = new StringBuilder(128);
+		sb.append(glGetString(GL_VENDOR)).append('\n');
+		sb.append(glGetString(GL_RENDERER)).append('\n');
+		sb.append(glGetString(GL_VERSION));
+		return sb.toString();
+	}
+
+	@Override
+	public void setRetrievable(int program) {
+		glProgramParameteri(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+	}
+
+	@Override
+	public ProgramBinary getBinary(int program) {
+		int size = glGetProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+		if(size <= 0) {
+			return null;
+		}
+		ByteBuffer data = BufferUtils.createByteBuffer(size);
+		length.clear();
+		format.clear();
+		glGetProgramBinary(program, length, format, data);
+		data.limit(length.get(0));
+		return new ProgramBinary(format.get(0), data);
+	}
+
+	@Override
+	public boolean loadBinary(int program, ProgramBinary binary) {
+		ByteBuffer data = binary.getData();
+		if(!data.isDirect()) {
+			ByteBuffer direct = BufferUtils.createByteBuffer(data.remaining());
+			direct.put(data).flip();
+			data = direct;
+		}
+		glProgramBinary(program, binary.getFormat(), data);
+		return glGetProgrami(program, GL_LINK_STATUS) == GL_TRUE;
+	}
+}
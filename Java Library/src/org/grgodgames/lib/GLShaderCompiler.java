@@ -0,0 +1,100 @@
+package org.grgodgames.lib;
+
+import org.lwjgl.opengl.GLContext;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.GL_NUM_EXTENSIONS;
+import static org.lwjgl.opengl.GL30.glGetStringi;
+
+/**
+ * The type GL shader compiler, polling with KHR_parallel_shader_compile or ARB_parallel_shader_compile when the
+ * driver has either.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class GLShaderCompiler implements ShaderCompiler {
+	/** GL_COMPLETION_STATUS_KHR, the same value as the ARB one, LWJGL 2 predates both. */
+	private static final int      GL_COMPLETION_STATUS = 0x91B1;
+	private static final String[] EXTENSIONS           =
+		{"GL_KHR_parallel_shader_compile", "GL_ARB_parallel_shader_compile"};
+	private              Boolean  parallel;
+
+	@Override
+	public boolean isParallel() {
+		if(parallel == null) {
+			parallel = hasExtension();
+		}
+		return parallel;
+	}
+
+	private static boolean hasExtension() {
+		if(GLContext.getCapabilities().OpenGL30) {
+			int count = glGetInteger(GL_NUM_EXTENSIONS);
+			for(int i = 0; i < count; i++) {
+				String extension = glGetStringi(GL_EXTENSIONS, i);
+				for(String wanted : EXTENSIONS) {
+					if(wanted.equals(extension)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		String extensions = ' ' + glGetString(GL_EXTENSIONS) + ' ';
+		for(String wanted : EXTENSIONS) {
+			if(extensions.contains(' ' + wanted + ' ')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int compileShader(int type, CharSequence source) {
+		int shader = glCreateShader(type);
+		glShaderSource(shader, source);
+		glCompileShader(shader);
+		return shader;
+	}
+
+	@Override
+	public void linkProgram(int program, int... shaders) {
+		for(int shader : shaders) {
+			glAttachShader(program, shader);
+		}
+		glLinkProgram(program);
+	}
+
+	@Override
+	public boolean isComplete(int program) {
+		return glGetProgrami(program, GL_COMPLETION_STATUS) == GL_TRUE;
+	}
+
+	@Override
+	public boolean getCompileStatus(int shader) {
+		return glGetShaderi(shader, GL_COMPILE_STATUS) == GL_TRUE;
+	}
+
+	@Override
+	public boolean getLinkStatus(int program) {
+		return glGetProgrami(program, GL_LINK_STATUS) == GL_TRUE;
+	}
+
+	@Override
+	public String getShaderLog(int shader) {
+		return glGetShaderInfoLog(shader, glGetShaderi(shader, GL_INFO_LOG_LENGTH));
+	}
+
+	@Override
+	public String getProgramLog(int program) {
+		return glGetProgramInfoLog(program, glGetProgrami(program, GL_INFO_LOG_LENGTH));
+	}
+
+	@Override
+	public void deleteShader(int shader) {
+		glDeleteShader(shader);
+	}
+}
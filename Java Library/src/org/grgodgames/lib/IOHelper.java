@@ -2,7 +2,15 @@ package org.grgodgames.lib;
 
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.logging.Logger;
@@ -14,10 +22,14 @@ import java.util.logging.Logger;
  */
 @Utility
 public final class IOHelper {
-	private static final GameLogger LOGGER         = GameLogger.loggerOf(Logger.getLogger(IOHelper.class.getName()));
-	private static final char       FILE_SEPARATOR = File.separatorChar;
-	public static final  String     LINE_SEPARATOR = System.lineSeparator();
-	public static final  Locale     LOCALE         = Locale.getDefault();
+	private static final GameLogger     LOGGER         =
+		GameLogger.loggerOf(Logger.getLogger(IOHelper.class.getName()));
+	private static final char           FILE_SEPARATOR = File.separatorChar;
+	public static final  String         LINE_SEPARATOR = System.lineSeparator();
+	public static final  Locale         LOCALE         = Locale.getDefault();
+	/** Files at least this long are mapped rather than read onto the heap. */
+	public static final  int            MAP_THRESHOLD  = 1 << 20;
+	private static final ChunkedDeflate CHUNKED        = new ChunkedDeflate();
 
 	private IOHelper() {}
 
@@ -58,6 +70,127 @@ public final class IOHelper {
 		return builder;
 	}
 
+	/**
+	 * Read a file's bytes, mapping it when it is at least {@link #MAP_THRESHOLD} bytes long.
+	 *
+	 * @param source
+	 *   the source
+	 *
+	 * @return the bytes, a read only mapping or a heap buffer
+	 *
+	 * @throws IOException
+	 *   if the file can not be read
+	 */
+	public static ByteBuffer readBytes(File source) throws IOException {
+		return readBytes(source, MAP_THRESHOLD);
+	}
+
+	/**
+	 * Read a file's bytes.
+	 *
+	 * @param source
+	 *   the source
+	 * @param mapThreshold
+	 *   the length from which the file is mapped
+	 *
+	 * @return the bytes, a read only mapping or a heap buffer
+	 *
+	 * @throws IOException
+	 *   if the file can not be read
+	 */
+	public static ByteBuffer readBytes(File source, long mapThreshold) throws IOException {
+		if(mapThreshold < 0L) {
+			throw new IllegalArgumentException("The map threshold is negative");
+		}
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size > Integer.MAX_VALUE) {
+				throw new IOException(MessageFormat.format("{0} is larger than one buffer can be", source));
+			}
+			if(size >= mapThreshold) {
+				// the mapping outlives the channel
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+			}
+		}
+		return ByteBuffer.wrap(Files.readAllBytes(source.toPath()));
+	}
+
+	/**
+	 * Read a file's bytes, inflating it first if it is a {@link ChunkedDeflate} file.
+	 *
+	 * @param source
+	 *   the source
+	 *
+	 * @return the bytes, a new direct buffer for a chunked file, otherwise as {@link #readBytes(File)}
+	 *
+	 * @throws IOException
+	 *   if the file can not be read or a chunked file is not valid
+	 */
+	public static ByteBuffer readInflated(File source) throws IOException {
+		return ChunkedDeflate.isChunked(source) ? CHUNKED.read(source) : readBytes(source);
+	}
+
+	/**
+	 * Gets chunked deflate.
+	 *
+	 * @return the chunked deflate {@link #readInflated(File)} reads with, with its throughput metrics
+	 */
+	public static ChunkedDeflate getChunkedDeflate() {
+		return CHUNKED;
+	}
+
+	/**
+	 * Read a UTF-8 text file in one pass, into a buffer sized from the file's length. The file is never mapped, as the
+	 * decoder is fastest from a heap array. Malformed bytes become replacement characters, as they do in
+	 * {@link #readFile(File, String)}, but line separators are left as they are.
+	 *
+	 * @param source
+	 *   the source
+	 *
+	 * @return the text
+	 *
+	 * @throws IOException
+	 *   if the file can not be read
+	 */
+	public static CharSequence readText(File source) throws IOException {
+		return decode(readBytes(source, Long.MAX_VALUE));
+	}
+
+	/**
+	 * Decode UTF-8 bytes in one pass. Each byte decodes to at most one char, so the result never grows.
+	 *
+	 * @param bytes
+	 *   the bytes, read from their position to their limit without moving the position
+	 *
+	 * @return the text
+	 */
+	public static CharBuffer decode(ByteBuffer bytes) {
+		ByteBuffer in = bytes.duplicate();
+		CharBuffer out = CharBuffer.allocate(in.remaining());
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+		decoder.onMalformedInput(CodingErrorAction.REPLACE);
+		decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CoderResult result = decoder.decode(in, out, true);
+		if(!result.isUnderflow()) {
+			throw new IllegalStateException(MessageFormat.format("Decoding stopped early: {0}", result));
+		}
+		decoder.flush(out);
+		out.flip();
+		return out;
+	}
+
+	/**
+	 * Iterate over the lines of a buffer without an object per line.
+	 *
+	 * @param bytes
+	 *   the bytes, read from their position to their limit without moving the position
+	 *
+	 * @return the iterator, before the first line
+	 */
+	public static ByteLineIterator lines(ByteBuffer bytes) {
+		return new ByteLineIterator(bytes);
+	}
+
 	/**
 	 * Close reader.
 	 *
@@ -0,0 +1,314 @@
+package org.grgodgames.lib;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+
+/**
+ * The type Instance buffer. The per instance data of an {@link InstancedRender}, an affine transform, a color and
+ * four floats of custom data each, and the buffer object it is drawn from.
+ * <p>
+ * Only the instances changed since the last draw are uploaded, the buffer object is only made again when the data
+ * outgrew it. Every GL call goes through an {@link InstanceProvider}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class InstanceBuffer {
+	/** The size in bytes of one instance. */
+	static final         int         STRIDE           = 68;
+	/** The number of generic attributes an instance takes, the transform rows, the color and the custom data. */
+	static final         int         ATTRIBUTES       = 5;
+	private static final int         TRANSFORM_ROWS   = 3;
+	private static final int         ROW_SIZE         = 4;
+	private static final int         TRANSFORM_SIZE   = TRANSFORM_ROWS * ROW_SIZE;
+	private static final int         COLOR_OFFSET     = TRANSFORM_SIZE * Float.BYTES;
+	private static final int         CUSTOM_OFFSET    = COLOR_OFFSET + 4;
+	private static final int         COLOR_ATTRIBUTE  = TRANSFORM_ROWS;
+	private static final int         CUSTOM_ATTRIBUTE = TRANSFORM_ROWS + 1;
+	private static final float[]     IDENTITY         = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0};
+	private final        DirtyRanges ranges           = new DirtyRanges();
+	private              ByteBuffer  data;
+	private              int         count;
+	private              int         buffer;
+	private              boolean     reallocate       = true;
+	private              int         uploadCount;
+	private              long        uploadedBytes;
+
+	/**
+	 * Instantiates a new Instance buffer.
+	 *
+	 * @param capacity
+	 *   the number of instances to make room for, the buffer grows as needed
+	 */
+	InstanceBuffer(int capacity) {
+		data = BufferUtils.createByteBuffer(Math.max(1, capacity) * STRIDE);
+	}
+
+	/**
+	 * Add an instance, with the identity transform, white and zeroed custom data.
+	 *
+	 * @return the instance index
+	 */
+	int add() {
+		if(((count + 1) * STRIDE) > data.capacity()) {
+			ByteBuffer grown = BufferUtils.createByteBuffer(data.capacity() * 2);
+			data.clear();
+			grown.put(data);
+			grown.clear();
+			data = grown;
+			reallocate = true;
+		}
+		int instance = count++;
+		setTransform(instance, IDENTITY, 0);
+		setColor(instance, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF);
+		setCustom(instance, 0, 0, 0, 0);
+		return instance;
+	}
+
+	/**
+	 * Remove an instance. The last instance is moved into its place.
+	 *
+	 * @param instance
+	 *   the instance
+	 *
+	 * @return the index the moved instance had, or -1 if none was moved
+	 */
+	int remove(int instance) {
+		check(instance);
+		int last = --count;
+		if(instance == last) {
+			return -1;
+		}
+		for(int i = 0; i < STRIDE; i++) {
+			data.put((instance * STRIDE) + i, data.get((last * STRIDE) + i));
+		}
+		ranges.add(instance, instance + 1);
+		return last;
+	}
+
+	/**
+	 * Sets transform.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param rows
+	 *   the first three rows of the row major model matrix
+	 * @param offset
+	 *   the offset of the first value in {@code rows}
+	 */
+	void setTransform(int instance, float[] rows, int offset) {
+		check(instance);
+		int position = instance * STRIDE;
+		for(int i = 0; i < TRANSFORM_SIZE; i++) {
+			data.putFloat(position + (i * Float.BYTES), rows[offset + i]);
+		}
+		ranges.add(instance, instance + 1);
+	}
+
+	/**
+	 * Sets translation, keeping the rest of the transform.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 */
+	void setTranslation(int instance, float x, float y, float z) {
+		check(instance);
+		int position = instance * STRIDE;
+		int translation = (ROW_SIZE - 1) * Float.BYTES;
+		data.putFloat(position + translation, x);
+		data.putFloat(position + (ROW_SIZE * Float.BYTES) + translation, y);
+		data.putFloat(position + (2 * ROW_SIZE * Float.BYTES) + translation, z);
+		ranges.add(instance, instance + 1);
+	}
+
+	/**
+	 * Sets color.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param red
+	 *   the red
+	 * @param green
+	 *   the green
+	 * @param blue
+	 *   the blue
+	 * @param alpha
+	 *   the alpha
+	 */
+	void setColor(int instance, byte red, byte green, byte blue, byte alpha) {
+		check(instance);
+		int position = (instance * STRIDE) + COLOR_OFFSET;
+		data.put(position, red);
+		data.put(position + 1, green);
+		data.put(position + 2, blue);
+		data.put(position + 3, alpha);
+		ranges.add(instance, instance + 1);
+	}
+
+	/**
+	 * Sets custom.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 * @param w
+	 *   the w
+	 */
+	void setCustom(int instance, float x, float y, float z, float w) {
+		check(instance);
+		int position = (instance * STRIDE) + CUSTOM_OFFSET;
+		data.putFloat(position, x);
+		data.putFloat(position + Float.BYTES, y);
+		data.putFloat(position + (2 * Float.BYTES), z);
+		data.putFloat(position + (3 * Float.BYTES), w);
+		ranges.add(instance, instance + 1);
+	}
+
+	/**
+	 * Gets translation.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param axis
+	 *   0, 1 or 2 for x, y or z
+	 *
+	 * @return the translation along the axis
+	 */
+	float getTranslation(int instance, int axis) {
+		check(instance);
+		return data.getFloat((instance * STRIDE) + (((axis * ROW_SIZE) + ROW_SIZE - 1) * Float.BYTES));
+	}
+
+	/**
+	 * Gets count.
+	 *
+	 * @return the instance count
+	 */
+	int getCount() {
+		return count;
+	}
+
+	/**
+	 * Draw every instance with the vertexes, and indexes if any, already bound. Uploads the changed instances
+	 * first.
+	 *
+	 * @param provider
+	 *   the provider making the GL calls
+	 * @param location
+	 *   the first generic attribute location of the instance data
+	 * @param indexCount
+	 *   the index count, 0 to draw the vertexes in order
+	 * @param indexType
+	 *   the index type
+	 * @param vertexCount
+	 *   the vertex count
+	 */
+	void draw(InstanceProvider provider, int location, int indexCount, int indexType, int vertexCount) {
+		if(count == 0) {
+			return;
+		}
+		upload(provider, location);
+		provider.setAttributesEnabled(location, ATTRIBUTES, true);
+		if(indexCount > 0) {
+			provider.drawElementsInstanced(indexCount, indexType, 0L, count);
+		} else {
+			provider.drawArraysInstanced(vertexCount, count);
+		}
+		provider.setAttributesEnabled(location, ATTRIBUTES, false);
+	}
+
+	/** Upload. Makes the buffer object and points the attributes at it when the data grew, else sends the changes. */
+	private void upload(InstanceProvider provider, int location) {
+		if(reallocate) {
+			reallocate = false;
+			ranges.clear();
+			if(buffer != 0) {
+				provider.delete(buffer);
+			}
+			data.clear();
+			buffer = provider.create(GL_ARRAY_BUFFER, data, BufferUsage.DYNAMIC);
+			uploadCount++;
+			uploadedBytes += data.capacity();
+
+			for(int row = 0; row < TRANSFORM_ROWS; row++) {
+				provider.setInstancePointer(buffer, location + row, ROW_SIZE, GL_FLOAT, false, STRIDE,
+				                            (long) row * ROW_SIZE * Float.BYTES);
+			}
+			provider.setInstancePointer(buffer, location + COLOR_ATTRIBUTE, 4, GL_UNSIGNED_BYTE, true, STRIDE,
+			                            COLOR_OFFSET);
+			provider.setInstancePointer(buffer, location + CUSTOM_ATTRIBUTE, 4, GL_FLOAT, false, STRIDE,
+			                            CUSTOM_OFFSET);
+			return;
+		}
+		uploadCount += ranges.size();
+		uploadedBytes += ranges.upload(provider, buffer, data, STRIDE);
+		ranges.clear();
+	}
+
+	/**
+	 * Delete the buffer object. Does nothing if it was never made.
+	 *
+	 * @param provider
+	 *   the provider that made it
+	 */
+	void delete(InstanceProvider provider) {
+		if(buffer != 0) {
+			provider.delete(buffer);
+			buffer = 0;
+			reallocate = true;
+		}
+	}
+
+	/**
+	 * Gets upload count.
+	 *
+	 * @return the number of buffer uploads made
+	 */
+	int getUploadCount() {
+		return uploadCount;
+	}
+
+	/**
+	 * Gets uploaded bytes.
+	 *
+	 * @return the number of bytes uploaded
+	 */
+	long getUploadedBytes() {
+		return uploadedBytes;
+	}
+
+	private void check(int instance) {
+		if((instance < 0) || (instance >= count)) {
+			throw new IllegalArgumentException(MessageFormat.format("Instance {0} does not exist", instance));
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("InstanceBuffer{");
+		sb.append("count=").append(count);
+		sb.append(", capacity=").append(data.capacity() / STRIDE);
+		sb.append(", buffer=").append(buffer);
+		sb.append(", ranges=").append(ranges);
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,68 @@
+package org.grgodgames.lib;
+
+/**
+ * The interface Instance provider. The GL calls an {@link InstancedRender} makes for its instance data and its
+ * instanced draws, so they can run against a stand in without a context.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public interface InstanceProvider extends BufferProvider {
+	/**
+	 * Point a generic attribute at a buffer, advancing once per instance.
+	 *
+	 * @param buffer
+	 *   the buffer name
+	 * @param location
+	 *   the attribute location
+	 * @param size
+	 *   the number of components
+	 * @param type
+	 *   the component type
+	 * @param normalized
+	 *   whether integer components are normalized
+	 * @param stride
+	 *   the bytes between instances
+	 * @param offset
+	 *   the offset in bytes of the first component
+	 */
+	void setInstancePointer(int buffer, int location, int size, int type, boolean normalized, int stride,
+	                        long offset);
+
+	/**
+	 * Enable or disable consecutive generic attributes.
+	 *
+	 * @param location
+	 *   the first location
+	 * @param count
+	 *   the number of locations
+	 * @param enabled
+	 *   whether they are read
+	 */
+	void setAttributesEnabled(int location, int count, boolean enabled);
+
+	/**
+	 * Draw triangles from the bound vertexes, once per instance.
+	 *
+	 * @param vertexCount
+	 *   the vertex count
+	 * @param instances
+	 *   the instance count
+	 */
+	void drawArraysInstanced(int vertexCount, int instances);
+
+	/**
+	 * Draw indexed triangles from the bound buffers, once per instance.
+	 *
+	 * @param indexCount
+	 *   the index count
+	 * @param indexType
+	 *   GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+	 * @param offset
+	 *   the offset in bytes of the first index
+	 * @param instances
+	 *   the instance count
+	 */
+	void drawElementsInstanced(int indexCount, int indexType, long offset, int instances);
+}
@@ -0,0 +1,171 @@
+package org.grgodgames.lib;
+
+import org.grgodgames.lib.game.GameHelper;
+
+import java.util.logging.Logger;
+
+/**
+ * The type Instanced render. Draws one mesh many times with a single instanced draw call, each instance has an
+ * affine transform, a color and four floats of custom data, {@value #INSTANCE_STRIDE} bytes in all.
+ * <p>
+ * The instance data is read by the shader from {@value #INSTANCE_ATTRIBUTES} generic attributes starting at
+ * {@link #getInstanceLocation()}: the three rows of the transform as vec4s, the color as a normalized vec4 and
+ * the custom data as a vec4. Only the instances changed since the last frame are uploaded, see
+ * {@link InstanceBuffer}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public abstract class InstancedRender extends Render {
+	/** The size in bytes of one instance. */
+	public static final  int              INSTANCE_STRIDE     = InstanceBuffer.STRIDE;
+	/** The number of generic attributes the instance data takes, the transform rows, the color and the custom data. */
+	public static final  int              INSTANCE_ATTRIBUTES = InstanceBuffer.ATTRIBUTES;
+	private static final GameLogger       LOGGER              =
+		GameLogger.loggerOf(Logger.getLogger(InstancedRender.class.getName()));
+	private static final InstanceProvider GL_PROVIDER         = new GLInstanceProvider();
+	private final        InstanceBuffer   instances;
+
+	/**
+	 * Instantiates a new Instanced render.
+	 *
+	 * @param capacity
+	 *   the number of instances to make room for, the buffer grows as needed
+	 */
+	protected InstancedRender(int capacity) {
+		instances = new InstanceBuffer(capacity);
+	}
+
+	/**
+	 * Add instance, with the identity transform, white and zeroed custom data.
+	 *
+	 * @return the instance index
+	 */
+	public final int addInstance() {
+		return instances.add();
+	}
+
+	/**
+	 * Remove instance. The last instance is moved into its place.
+	 *
+	 * @param instance
+	 *   the instance
+	 *
+	 * @return the index the moved instance had, or -1 if none was moved
+	 */
+	public final int removeInstance(int instance) {
+		return instances.remove(instance);
+	}
+
+	/**
+	 * Sets transform.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param rows
+	 *   the first three rows of the row major model matrix
+	 * @param offset
+	 *   the offset of the first value in {@code rows}
+	 */
+	public final void setTransform(int instance, float[] rows, int offset) {
+		instances.setTransform(instance, rows, offset);
+	}
+
+	/**
+	 * Sets translation, keeping the rest of the transform.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 */
+	public final void setTranslation(int instance, float x, float y, float z) {
+		instances.setTranslation(instance, x, y, z);
+	}
+
+	/**
+	 * Sets color.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param red
+	 *   the red
+	 * @param green
+	 *   the green
+	 * @param blue
+	 *   the blue
+	 * @param alpha
+	 *   the alpha
+	 */
+	public final void setColor(int instance, byte red, byte green, byte blue, byte alpha) {
+		instances.setColor(instance, red, green, blue, alpha);
+	}
+
+	/**
+	 * Sets custom.
+	 *
+	 * @param instance
+	 *   the instance
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 * @param w
+	 *   the w
+	 */
+	public final void setCustom(int instance, float x, float y, float z, float w) {
+		instances.setCustom(instance, x, y, z, w);
+	}
+
+	/**
+	 * Gets instance count.
+	 *
+	 * @return the instance count
+	 */
+	public final int getInstanceCount() {
+		return instances.getCount();
+	}
+
+	/**
+	 * Gets instance location.
+	 *
+	 * @return the first of the {@value #INSTANCE_ATTRIBUTES} generic attribute locations the shader reads instance
+	 *   data from
+	 */
+	protected abstract int getInstanceLocation();
+
+	/**
+	 * Is cullable. The stored vertexes only bound one instance, so instanced renders are never culled.
+	 *
+	 * @return false
+	 */
+	@Override
+	protected boolean isCullable() {
+		return false;
+	}
+
+	@Override
+	final void drawTriangles() {
+		if(instances.getCount() == 0) {
+			return;
+		}
+		int uploads = instances.getUploadCount();
+		long bytes = instances.getUploadedBytes();
+		instances.draw(GL_PROVIDER, getInstanceLocation(), getIndexCount(), getIndexType(), getStoredVertexCount());
+		countUploads(instances.getUploadCount() - uploads, instances.getUploadedBytes() - bytes);
+
+		GameHelper.checkForError(LOGGER, InstancedRender.class, "drawTriangles");
+	}
+
+	@Override
+	final void destroyBuffers() {
+		instances.delete(GL_PROVIDER);
+	}
+}
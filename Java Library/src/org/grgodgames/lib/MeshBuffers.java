@@ -0,0 +1,303 @@
+package org.grgodgames.lib;
+
+import org.grgodgames.lib.mesh.Mesh;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * The type Mesh buffers. A mesh packed into one interleaved vertex buffer and one index buffer, for meshes loaded
+ * once and drawn by many objects.
+ * <p>
+ * Packing is plain Java and can run on any thread, {@link #upload(BufferProvider)} then only creates the buffer
+ * objects on the render thread and drops the packed copy, and {@link #delete()} deletes them again.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class MeshBuffers {
+	private static final GameLogger     LOGGER          =
+		GameLogger.loggerOf(Logger.getLogger(MeshBuffers.class.getName()));
+	private static final BufferProvider GL_PROVIDER     = new GLBufferProvider();
+	private static final int            MAX_SHORT_INDEX = 0xFFFF;
+	private final        Mesh           mesh;
+	private final        VertexFormat   format;
+	private final        BufferUsage    usage;
+	private final        int            indexCount;
+	private final        int            indexType;
+	private              ByteBuffer     vertexes;
+	private              ByteBuffer     indexes;
+	private              BufferProvider provider;
+	private              int            vertexBuffer;
+	private              int            indexBuffer;
+	private              long           gpuSize;
+	private              boolean        uploaded;
+
+	private MeshBuffers(Mesh mesh, VertexFormat format, BufferUsage usage, ByteBuffer vertexes, ByteBuffer indexes,
+	                    int indexCount, int indexType) {
+		this.mesh = mesh;
+		this.format = format;
+		this.usage = usage;
+		this.vertexes = vertexes;
+		this.indexes = indexes;
+		this.indexCount = indexCount;
+		this.indexType = indexType;
+	}
+
+	/**
+	 * Pack a mesh in its compact format, see {@link #formatOf(Mesh)}.
+	 *
+	 * @param mesh
+	 *   the mesh
+	 *
+	 * @return the packed buffers, not yet uploaded
+	 */
+	public static MeshBuffers pack(Mesh mesh) {
+		return pack(mesh, formatOf(mesh), BufferUsage.STATIC);
+	}
+
+	/**
+	 * Pack a mesh.
+	 *
+	 * @param mesh
+	 *   the mesh
+	 * @param format
+	 *   the vertex format, attributes it leaves out are not packed
+	 * @param usage
+	 *   the usage the buffers are created with
+	 *
+	 * @return the packed buffers, not yet uploaded
+	 */
+	public static MeshBuffers pack(Mesh mesh, VertexFormat format, BufferUsage usage) {
+		int vertexCount = mesh.getVertexCount();
+		ByteBuffer vertexes = BufferUtils.createByteBuffer(vertexCount * format.getStride());
+		for(int i = 0; i < format.getElementCount(); i++) {
+			switch(format.getElement(i).getAttribute()) {
+				case POSITION:
+					VertexPacker.pack(format, i, DoubleBuffer.wrap(mesh.getPositions()), mesh.getPositionSize(), 0,
+					                  vertexCount, vertexes);
+					break;
+				case NORMAL:
+					VertexPacker.pack(format, i, DoubleBuffer.wrap(mesh.getNormals()), Mesh.NORMAL_SIZE, 0,
+					                  vertexCount, vertexes);
+					break;
+				case COLOR:
+					VertexPacker.pack(format, i, ByteBuffer.wrap(mesh.getColors()), mesh.getColorSize(), 0,
+					                  vertexCount, vertexes);
+					break;
+				case TEX_COORD:
+					VertexPacker.pack(format, i, ShortBuffer.wrap(mesh.getTexCoords()), mesh.getTexCoordSize(), 0,
+					                  vertexCount, vertexes);
+					break;
+			}
+		}
+
+		int[] source = mesh.getIndexes();
+		if(source == null) {
+			return new MeshBuffers(mesh, format, usage, vertexes, null, 0, GL_UNSIGNED_INT);
+		}
+		boolean shortIndexes = vertexCount <= (MAX_SHORT_INDEX + 1);
+		ByteBuffer indexes = BufferUtils.createByteBuffer(source.length * (shortIndexes ? Short.BYTES :
+		                                                                   Integer.BYTES));
+		for(int i = 0; i < source.length; i++) {
+			if((source[i] < 0) || (source[i] >= vertexCount)) {
+				throw new IllegalArgumentException(MessageFormat.format("Index {0} is out of range", source[i]));
+			}
+			if(shortIndexes) {
+				indexes.putShort(i * Short.BYTES, (short) source[i]);
+			} else {
+				indexes.putInt(i * Integer.BYTES, source[i]);
+			}
+		}
+		return new MeshBuffers(mesh, format, usage, vertexes, indexes, source.length,
+		                       shortIndexes ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT);
+	}
+
+	/**
+	 * Format of a mesh. Float positions, normals packed into 10 bit snorm components, normalized byte colors and
+	 * short tex coords, as {@link VertexFormat#compact(int, int, int)}, leaving out the attributes the mesh does not
+	 * have.
+	 *
+	 * @param mesh
+	 *   the mesh
+	 *
+	 * @return the vertex format
+	 */
+	public static VertexFormat formatOf(Mesh mesh) {
+		List<VertexElement> elements = new ArrayList<>(4);
+		elements.add(new VertexElement(VertexAttribute.POSITION, ComponentType.FLOAT, mesh.getPositionSize()));
+		elements.add(new VertexElement(VertexAttribute.NORMAL, ComponentType.INT_2_10_10_10_REV, Mesh.NORMAL_SIZE));
+		if(mesh.getColorSize() > 0) {
+			elements.add(new VertexElement(VertexAttribute.COLOR, ComponentType.UNSIGNED_BYTE, mesh.getColorSize()));
+		}
+		if(mesh.getTexCoordSize() > 0) {
+			elements.add(new VertexElement(VertexAttribute.TEX_COORD, ComponentType.SHORT, mesh.getTexCoordSize()));
+		}
+		return new VertexFormat(elements.toArray(new VertexElement[0]));
+	}
+
+	/** Upload the buffers to the current context, on the render thread. */
+	public void upload() {
+		upload(GL_PROVIDER);
+	}
+
+	/**
+	 * Upload the buffers, on the render thread. Only the buffer objects are made here, the packing was done before.
+	 *
+	 * @param provider
+	 *   the provider making the GL calls
+	 */
+	public void upload(BufferProvider provider) {
+		if(vertexes == null) {
+			throw new IllegalStateException("The mesh buffers were already uploaded");
+		}
+		this.provider = provider;
+		vertexBuffer = provider.create(GL_ARRAY_BUFFER, vertexes, usage);
+		gpuSize = vertexes.remaining();
+		if(indexes != null) {
+			indexBuffer = provider.create(GL_ELEMENT_ARRAY_BUFFER, indexes, usage);
+			gpuSize += indexes.remaining();
+		}
+		uploaded = true;
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Uploaded {0} and {1} bytes of vertexes and indexes",
+			                                     vertexes.capacity(), (indexes == null) ? 0 : indexes.capacity()));
+		}
+		// the GL holds the data now
+		vertexes = null;
+		indexes = null;
+	}
+
+	/** Delete the buffer objects on the render thread, with the provider that made them. Does nothing if none exist. */
+	public void delete() {
+		if(!uploaded) {
+			return;
+		}
+		provider.delete(vertexBuffer);
+		if(indexBuffer != 0) {
+			provider.delete(indexBuffer);
+		}
+		vertexBuffer = 0;
+		indexBuffer = 0;
+		gpuSize = 0L;
+		uploaded = false;
+	}
+
+	/**
+	 * Draw the mesh with the fixed function client states, or the generic attribute of an octahedral normal. Call on
+	 * the render thread with no vertex array of a {@link Render} bound, for example from a render's
+	 * {@code preDraw()}.
+	 */
+	public void draw() {
+		if(!uploaded) {
+			throw new IllegalStateException("The mesh buffers are not uploaded");
+		}
+		glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer);
+		Render.setInterleavedPointers(format, 0);
+		Render.setClientStates(format, true);
+		if(indexBuffer != 0) {
+			glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+			glDrawElements(GL_TRIANGLES, indexCount, indexType, 0);
+			glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+		} else {
+			glDrawArrays(GL_TRIANGLES, 0, mesh.getVertexCount());
+		}
+		Render.setClientStates(format, false);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Gets mesh.
+	 *
+	 * @return the mesh the buffers were packed from
+	 */
+	public Mesh getMesh() {
+		return mesh;
+	}
+
+	/**
+	 * Gets format.
+	 *
+	 * @return the vertex format
+	 */
+	public VertexFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Gets index count.
+	 *
+	 * @return the index count, 0 if the mesh is not indexed
+	 */
+	public int getIndexCount() {
+		return indexCount;
+	}
+
+	/**
+	 * Gets index type.
+	 *
+	 * @return GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+	 */
+	public int getIndexType() {
+		return indexType;
+	}
+
+	/**
+	 * Gets vertex buffer.
+	 *
+	 * @return the vertex buffer name, 0 until uploaded
+	 */
+	public int getVertexBuffer() {
+		return vertexBuffer;
+	}
+
+	/**
+	 * Gets index buffer.
+	 *
+	 * @return the index buffer name, 0 until uploaded or if the mesh is not indexed
+	 */
+	public int getIndexBuffer() {
+		return indexBuffer;
+	}
+
+	/**
+	 * Gets gpu size.
+	 *
+	 * @return the bytes given to the buffer objects, 0 while they do not exist
+	 */
+	public long getGpuSize() {
+		return gpuSize;
+	}
+
+	/**
+	 * Is uploaded.
+	 *
+	 * @return whether the buffer objects exist, false again once deleted
+	 */
+	public boolean isUploaded() {
+		return uploaded;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("MeshBuffers{");
+		sb.append("format=").append(format);
+		sb.append(", vertexCount=").append(mesh.getVertexCount());
+		sb.append(", indexCount=").append(indexCount);
+		sb.append(", vertexBuffer=").append(vertexBuffer);
+		sb.append(", indexBuffer=").append(indexBuffer);
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,55 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The type Program binary. A linked program as the driver saved it, only meaningful to the same driver.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ProgramBinary {
+	private final int        format;
+	private final ByteBuffer data;
+
+	/**
+	 * Instantiates a new Program binary.
+	 *
+	 * @param format
+	 *   the driver's binary format
+	 * @param data
+	 *   the binary, from its position to its limit
+	 */
+	public ProgramBinary(int format, ByteBuffer data) {
+		this.format = format;
+		this.data = data;
+	}
+
+	/**
+	 * Gets format.
+	 *
+	 * @return the driver's binary format
+	 */
+	public int getFormat() {
+		return format;
+	}
+
+	/**
+	 * Gets data.
+	 *
+	 * @return a view of the binary, from its position to its limit
+	 */
+	public ByteBuffer getData() {
+		return data.slice();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ProgramBinary{");
+		sb.append("format=").append(format);
+		sb.append(", size=").append(data.remaining());
+		sb.append('}');
+		return sb.toString();
+	}
+}
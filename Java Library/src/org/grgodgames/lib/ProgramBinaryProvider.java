@@ -0,0 +1,55 @@
+package org.grgodgames.lib;
+
+/**
+ * The interface Program binary provider. The GL calls a {@link ShaderBinaryCache} makes, so the cache can run
+ * against a stand in without a context.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public interface ProgramBinaryProvider {
+	/**
+	 * Is supported.
+	 *
+	 * @return whether program binaries can be saved and loaded
+	 */
+	boolean isSupported();
+
+	/**
+	 * Gets driver.
+	 *
+	 * @return the vendor, renderer and version strings, a binary is only valid for the driver that made it
+	 */
+	String getDriver();
+
+	/**
+	 * Ask for the program's binary to be kept when it is linked.
+	 *
+	 * @param program
+	 *   the program, not yet linked
+	 */
+	void setRetrievable(int program);
+
+	/**
+	 * Gets binary.
+	 *
+	 * @param program
+	 *   the linked program
+	 *
+	 * @return the binary, or null if the driver gave none
+	 */
+	ProgramBinary getBinary(int program);
+
+	/**
+	 * Load a binary into a program.
+	 *
+	 * @param program
+	 *   the program
+	 * @param binary
+	 *   the binary, possibly in a heap buffer
+	 *
+	 * @return whether the program linked, false if the driver rejected the binary
+	 */
+	boolean loadBinary(int program, ProgramBinary binary);
+}
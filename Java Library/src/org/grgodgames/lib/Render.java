@@ -1,16 +1,28 @@
 package org.grgodgames.lib;
 
+import org.grgodgames.lib.game.BoundsSet;
+import org.grgodgames.lib.game.Game;
 import org.grgodgames.lib.game.GameHelper;
+import org.grgodgames.lib.mesh.LevelOfDetail;
+import org.grgodgames.lib.mesh.MappedMesh;
+import org.grgodgames.lib.mesh.Mesh;
 
 import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GLSync;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.DoubleBuffer;
 import java.nio.ShortBuffer;
+import java.text.MessageFormat;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.glDisableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glEnableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
 import static org.lwjgl.opengl.GL30.*;
 
 /**
@@ -21,24 +33,53 @@ import static org.lwjgl.opengl.GL30.*;
  * @since CORE
  */
 public abstract class Render implements IdObject {
-	private static final GameLogger LOGGER      = GameLogger.loggerOf(Logger.getLogger(Render.class.getName()));
-	private static final int        NORMAL_SIZE = 3;
+	private static final GameLogger     LOGGER            =
+		GameLogger.loggerOf(Logger.getLogger(Render.class.getName()));
+	private static final BufferProvider GL_PROVIDER       = new GLBufferProvider();
+	/** The number of frames a {@link BufferUsage#STREAM} render keeps in flight. */
+	public static final  int            STREAM_FRAMES     = 3;
+	private static final int            NORMAL_SIZE       = 3;
+	private static final int            MAX_SHORT_INDEX   = 0xFFFF;
+	/** Streamed segments start on a multiple of the largest GL_MIN_MAP_BUFFER_ALIGNMENT drivers report. */
+	private static final int            SEGMENT_ALIGNMENT = 64;
 	private final int vaoHandler;
 	private final int vboVertexHandler;
 	private final int vboColorHandler;
 	private final int vboTexCoordHandler;
 	private final int vboNormalHandler;
-	private boolean different = true;
-	private byte[][]     colors;
-	private double[][]   normals;
-	private short[][]    texCoords;
-	private double[][]   vertexes;
+	private final int iboHandler;
+	private final DirtyRanges vertexRanges      = new DirtyRanges();
+	private final DirtyRanges colorRanges       = new DirtyRanges();
+	private final DirtyRanges normalRanges      = new DirtyRanges();
+	private final DirtyRanges texCoordRanges    = new DirtyRanges();
+	private final DirtyRanges interleavedRanges = new DirtyRanges();
+	private boolean reallocate = true;
+	private int          uploadCount;
+	private long         uploadedBytes;
 	private int          vertexCount;
+	private int          vertexSize;
+	private int          colorSize;
+	private int          texCoordSize;
 	private ByteBuffer   colorBuffer;
 	private DoubleBuffer normalBuffer;
 	private ShortBuffer  texCoordBuffer;
 	private DoubleBuffer vertexBuffer;
+	private VertexFormat format;
+	private ByteBuffer   interleavedBuffer;
+	private ByteBuffer   indexBuffer;
+	private int          indexCount;
+	private int          indexType;
+	private boolean      indexesChanged;
+	private BufferUsage  usage;
+	private StaticBatch  batch;
+	private StreamRing<GLSync> ring;
+	private boolean            mapFailed;
 	private boolean initVAO = true;
+	private int     boundsSlot = -1;
+	private boolean boundsDirty;
+	private LevelOfDetail levels;
+	private int[]         levelFirsts;
+	private int           level;
 
 	/** Instantiates a new Render. */
 	protected Render() {
@@ -48,6 +89,7 @@ public abstract class Render implements IdObject {
 		vboColorHandler = glGenBuffers();
 		vboTexCoordHandler = glGenBuffers();
 		vboNormalHandler = glGenBuffers();
+		iboHandler = glGenBuffers();
 
 		addToHandler();
 		GameHelper.checkForError(LOGGER, Render.class);
@@ -65,54 +107,95 @@ public abstract class Render implements IdObject {
 		if(LOGGER.isDebugEnabled()) {
 		LOGGER.logDebug("Creating new double buffer");
 		}
-		DoubleBuffer buffer = BufferUtils.createDoubleBuffer(length);
-		buffer.flip();
-		return buffer;
+		return BufferUtils.createDoubleBuffer(length);
 	}
 
 	private static ByteBuffer newByteBuffer(int length) {
 		if(LOGGER.isDebugEnabled()) {
 		LOGGER.logDebug("Creating new byte buffer");
 		}
-		ByteBuffer buffer = BufferUtils.createByteBuffer(length);
-		buffer.flip();
-		return buffer;
+		return BufferUtils.createByteBuffer(length);
 	}
 
 	private static ShortBuffer newShortBuffer(int length) {
 		if(LOGGER.isDebugEnabled()) {
 			LOGGER.logDebug("Creating new short buffer");
 		}
-		ShortBuffer buffer = BufferUtils.createShortBuffer(length);
-		buffer.flip();
-		return buffer;
+		return BufferUtils.createShortBuffer(length);
 	}
 
-	private static void copyToDoubleBuffer(double[][] doubles, DoubleBuffer buffer) {
-		buffer.flip();
-		buffer.clear();
-		for(double[] aDouble : doubles) {
-			buffer.put(aDouble);
+	/** Copies a store the first time it is written to if it is a read only view, such as a mapped mesh file. */
+	private static DoubleBuffer writable(DoubleBuffer store) {
+		if(!store.isReadOnly()) {
+			return store;
 		}
-		buffer.flip();
+		DoubleBuffer copy = newDoubleBuffer(store.capacity());
+		copy.put(store.duplicate()).clear();
+		return copy;
 	}
 
-	private static void copyToShortBuffer(short[][] shorts, ShortBuffer buffer) {
-		buffer.flip();
-		buffer.clear();
-		for(short[] aShort : shorts) {
-			buffer.put(aShort);
+	private static ByteBuffer writable(ByteBuffer store) {
+		if(!store.isReadOnly()) {
+			return store;
 		}
-		buffer.flip();
+		ByteBuffer copy = newByteBuffer(store.capacity());
+		copy.put(store.duplicate()).clear();
+		return copy;
 	}
 
-	private static void copyToByteBuffer(byte[][] bytes, ByteBuffer buffer) {
-		buffer.flip();
-		buffer.clear();
-		for(byte[] aByte : bytes) {
-			buffer.put(aByte);
+	private static ShortBuffer writable(ShortBuffer store) {
+		if(!store.isReadOnly()) {
+			return store;
 		}
-		buffer.flip();
+		ShortBuffer copy = newShortBuffer(store.capacity());
+		copy.put(store.duplicate()).clear();
+		return copy;
+	}
+
+	private static void checkCount(int count, int expected, String name) {
+		if(count != expected) {
+			throw new IllegalArgumentException(MessageFormat.format("The number of {0} is incorrect", name));
+		}
+	}
+
+	private static void checkSize(int size, int expected, String name) {
+		if(size != expected) {
+			throw new IllegalArgumentException(MessageFormat.format("The {0} size is incorrect", name));
+		}
+	}
+
+	private int checkRange(int first, int length, int size, String name) {
+		if(((length % size) != 0) || (first < 0) || ((first + (length / size)) > vertexCount)) {
+			throw new IllegalArgumentException(MessageFormat.format("The {0} range is incorrect", name));
+		}
+		return length / size;
+	}
+
+	private static void copyRows(double[][] rows, int size, DoubleBuffer store, String name) {
+		store.clear();
+		for(double[] row : rows) {
+			checkSize(row.length, size, name);
+			store.put(row);
+		}
+		store.clear();
+	}
+
+	private static void copyRows(byte[][] rows, int size, ByteBuffer store, String name) {
+		store.clear();
+		for(byte[] row : rows) {
+			checkSize(row.length, size, name);
+			store.put(row);
+		}
+		store.clear();
+	}
+
+	private static void copyRows(short[][] rows, int size, ShortBuffer store, String name) {
+		store.clear();
+		for(short[] row : rows) {
+			checkSize(row.length, size, name);
+			store.put(row);
+		}
+		store.clear();
 	}
 
 	private static void unbindBuffers() {
@@ -123,16 +206,27 @@ public abstract class Render implements IdObject {
 	public final void init() {
 		reset();
 		initVAO();
-		initVBO();
+		if(batch == null) {
+			initVBO();
+		}
 		doInit();
 	}
 
 	@Override
 	public final void destroy() {
+		if(ring != null) {
+			ring.clear();
+		}
 		glDeleteBuffers(vboVertexHandler);
 		glDeleteBuffers(vboColorHandler);
 		glDeleteBuffers(vboNormalHandler);
 		glDeleteBuffers(vboTexCoordHandler);
+		glDeleteBuffers(iboHandler);
+		destroyBuffers();
+		if(boundsSlot >= 0) {
+			GameHelper.getActiveGame().getBounds().remove(boundsSlot);
+			boundsSlot = -1;
+		}
 
 		glDeleteVertexArrays(vaoHandler);
 	}
@@ -140,8 +234,29 @@ public abstract class Render implements IdObject {
 	@Override
 	public final void update(double delta) {
 		doUpdate(delta);
+		if(batch != null) {
+			return;
+		}
+		if(isCullable() && !isVisible()) {
+			return;
+		}
+		if(levels != null) {
+			selectLevel();
+		}
+		if(isQueued()) {
+			GameHelper.getActiveGame().getRenderQueue().submit(getSortKey(), this);
+			return;
+		}
+		render();
+	}
+
+	/** Render void. Binds, draws and unbinds this render. */
+	final void render() {
 		bindBuffers();
 		draw();
+		if(ring != null) {
+			ring.release();
+		}
 		unbindBuffers();
 	}
 
@@ -168,31 +283,73 @@ public abstract class Render implements IdObject {
 	public final String toString() {
 		StringBuilder sb = new StringBuilder("Render{");
 		sb.append("vertex count=").append(vertexCount);
+		sb.append(", index count=").append(indexCount);
 		sb.append(", vbo handler=").append(vboVertexHandler);
 		sb.append('}');
 		return sb.toString();
 	}
 
-	/** Reset void. */
+	/**
+	 * Reset void.
+	 *
+	 * Each attribute is held in one flat direct buffer of {@code vertexCount * size} components, the
+	 * buffers are only reallocated when the vertex count or an attribute size changes.
+	 */
 	protected final void reset() {
-		different = true;
+		reallocate = true;
 
-		vertexCount = getVertexCount();
-
-		vertexBuffer = newDoubleBuffer(getVertexCount() * getVertexSize());
-		colorBuffer = newByteBuffer(getVertexCount() * getColorSize());
-		normalBuffer = newDoubleBuffer(getVertexCount() * NORMAL_SIZE);
-		texCoordBuffer = newShortBuffer(getVertexCount() * getTexCoordSize());
+		int count = getVertexCount();
+		BufferUsage bufferUsage = getBufferUsage();
+		VertexFormat vertexFormat = getVertexFormat();
+		if((vertexFormat == null) && (bufferUsage == BufferUsage.STREAM)) {
+			vertexFormat = VertexFormat.standard(getVertexSize(), getColorSize(), getTexCoordSize());
+		}
+		if((vertexBuffer == null) || (count != vertexCount) || (getVertexSize() != vertexSize) ||
+		   (getColorSize() != colorSize) || (getTexCoordSize() != texCoordSize) || !isFormat(vertexFormat) ||
+		   (bufferUsage != usage)) {
+			vertexCount = count;
+			vertexSize = getVertexSize();
+			colorSize = getColorSize();
+			texCoordSize = getTexCoordSize();
+
+			vertexBuffer = newDoubleBuffer(vertexCount * vertexSize);
+			colorBuffer = newByteBuffer(vertexCount * colorSize);
+			normalBuffer = newDoubleBuffer(vertexCount * NORMAL_SIZE);
+			texCoordBuffer = newShortBuffer(vertexCount * texCoordSize);
+
+			format = vertexFormat;
+			usage = bufferUsage;
+			if(ring != null) {
+				ring.clear();
+				ring = null;
+			}
+			if(usage == BufferUsage.STREAM) {
+				int segmentSize = (((vertexCount * format.getStride()) + SEGMENT_ALIGNMENT) - 1) & -SEGMENT_ALIGNMENT;
+				ring = new StreamRing<>(new GLFenceSource(), STREAM_FRAMES, segmentSize);
+				interleavedBuffer = null;
+			} else {
+				interleavedBuffer = (format == null) ? null : newByteBuffer(vertexCount * format.getStride());
+			}
+		}
 
-		vertexes = new double[vertexCount][getVertexSize()];
-		colors = new byte[vertexCount][getColorSize()];
-		normals = new double[vertexCount][NORMAL_SIZE];
-		texCoords = new short[vertexCount][getTexCoordSize()];
+		double[][] vertexes = newVertexes();
+		if(vertexes != null) {
+			setVertexes(vertexes);
+		}
+		byte[][] colors = newColors();
+		if(colors != null) {
+			setColors(colors);
+		}
+		double[][] normals = newNormals();
+		if(normals != null) {
+			setNormals(normals);
+		}
+		short[][] texCoords = newTexCoords();
+		if(texCoords != null) {
+			setTexCoords(texCoords);
+		}
 
-		setVertexes(newVertexes());
-		setColors(newColors());
-		setNormals(newNormals());
-		setTexCoords(newTexCoords());
+		doReset();
 	}
 
 	/**
@@ -201,19 +358,62 @@ public abstract class Render implements IdObject {
 	 * @param vertexes
 	 *   the vertexes
 	 */
-	final void setVertexes(double[][] vertexes) {
-		if(vertexes.length != this.vertexes.length) {
-			throw new IllegalArgumentException("The number of vertexes is incorrect");
-		}
-		if(vertexes.length > 0) {
-			if(vertexes[0].length != this.vertexes[0].length) {
-				throw new IllegalArgumentException("The vertex size is incorrect");
-			}
-		}
-		for(int i = 0; i < this.vertexes.length; i++) {
-			System.arraycopy(vertexes[i], 0, this.vertexes[i], 0, this.vertexes[i].length);
-		}
-		different = true;
+	protected final void setVertexes(double[][] vertexes) {
+		vertexBuffer = writable(vertexBuffer);
+		checkCount(vertexes.length, vertexCount, "vertexes");
+		copyRows(vertexes, vertexSize, vertexBuffer, "vertex");
+		boundsDirty = true;
+		vertexRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets vertexes from a flat array of {@code vertex count * vertex size} values.
+	 *
+	 * @param vertexes
+	 *   the vertexes
+	 */
+	protected final void setVertexes(double[] vertexes) {
+		vertexBuffer = writable(vertexBuffer);
+		checkCount(vertexes.length, vertexBuffer.capacity(), "vertex values");
+		vertexBuffer.clear();
+		vertexBuffer.put(vertexes);
+		vertexBuffer.clear();
+		boundsDirty = true;
+		vertexRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets vertexes from the remaining values of a buffer, the buffer's position is not changed.
+	 *
+	 * @param vertexes
+	 *   the vertexes
+	 */
+	protected final void setVertexes(DoubleBuffer vertexes) {
+		vertexBuffer = writable(vertexBuffer);
+		checkCount(vertexes.remaining(), vertexBuffer.capacity(), "vertex values");
+		vertexBuffer.clear();
+		vertexBuffer.put(vertexes.duplicate());
+		vertexBuffer.clear();
+		boundsDirty = true;
+		vertexRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets a range of vertexes, only the changed vertexes are uploaded on the next draw.
+	 *
+	 * @param first
+	 *   the first vertex
+	 * @param vertexes
+	 *   the flat values of one or more vertexes
+	 */
+	protected final void setVertexRange(int first, double[] vertexes) {
+		vertexBuffer = writable(vertexBuffer);
+		int count = checkRange(first, vertexes.length, vertexSize, "vertex");
+		vertexBuffer.position(first * vertexSize);
+		vertexBuffer.put(vertexes);
+		vertexBuffer.clear();
+		boundsDirty = true;
+		vertexRanges.add(first, first + count);
 	}
 
 	/**
@@ -222,19 +422,58 @@ public abstract class Render implements IdObject {
 	 * @param colors
 	 *   the colors
 	 */
-	final void setColors(byte[][] colors) {
-		if(colors.length != this.colors.length) {
-			throw new IllegalArgumentException("The number of colors is incorrect");
-		}
-		if(colors.length > 0) {
-			if(colors[0].length != this.colors[0].length) {
-				throw new IllegalArgumentException("The color size is incorrect");
-			}
-		}
-		for(int i = 0; i < this.colors.length; i++) {
-			System.arraycopy(colors[i], 0, this.colors[i], 0, this.colors[i].length);
-		}
-		different = true;
+	protected final void setColors(byte[][] colors) {
+		colorBuffer = writable(colorBuffer);
+		checkCount(colors.length, vertexCount, "colors");
+		copyRows(colors, colorSize, colorBuffer, "color");
+		colorRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets colors from a flat array of {@code vertex count * color size} values.
+	 *
+	 * @param colors
+	 *   the colors
+	 */
+	protected final void setColors(byte[] colors) {
+		colorBuffer = writable(colorBuffer);
+		checkCount(colors.length, colorBuffer.capacity(), "color values");
+		colorBuffer.clear();
+		colorBuffer.put(colors);
+		colorBuffer.clear();
+		colorRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets colors from the remaining values of a buffer, the buffer's position is not changed.
+	 *
+	 * @param colors
+	 *   the colors
+	 */
+	protected final void setColors(ByteBuffer colors) {
+		colorBuffer = writable(colorBuffer);
+		checkCount(colors.remaining(), colorBuffer.capacity(), "color values");
+		colorBuffer.clear();
+		colorBuffer.put(colors.duplicate());
+		colorBuffer.clear();
+		colorRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets a range of colors, only the changed colors are uploaded on the next draw.
+	 *
+	 * @param first
+	 *   the first vertex
+	 * @param colors
+	 *   the flat values of one or more colors
+	 */
+	protected final void setColorRange(int first, byte[] colors) {
+		colorBuffer = writable(colorBuffer);
+		int count = checkRange(first, colors.length, colorSize, "color");
+		colorBuffer.position(first * colorSize);
+		colorBuffer.put(colors);
+		colorBuffer.clear();
+		colorRanges.add(first, first + count);
 	}
 
 	/**
@@ -243,19 +482,58 @@ public abstract class Render implements IdObject {
 	 * @param normals
 	 *   the normals
 	 */
-	final void setNormals(double[][] normals) {
-		if(normals.length != this.normals.length) {
-			throw new IllegalArgumentException("The number of normals is incorrect");
-		}
-		if(normals.length > 0) {
-			if(normals[0].length != this.normals[0].length) {
-				throw new IllegalArgumentException("The normal size is incorrect");
-			}
-		}
-		for(int i = 0; i < this.normals.length; i++) {
-			System.arraycopy(normals[i], 0, this.normals[i], 0, this.normals[i].length);
-		}
-		different = true;
+	protected final void setNormals(double[][] normals) {
+		normalBuffer = writable(normalBuffer);
+		checkCount(normals.length, vertexCount, "normals");
+		copyRows(normals, NORMAL_SIZE, normalBuffer, "normal");
+		normalRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets normals from a flat array of {@code vertex count * 3} values.
+	 *
+	 * @param normals
+	 *   the normals
+	 */
+	protected final void setNormals(double[] normals) {
+		normalBuffer = writable(normalBuffer);
+		checkCount(normals.length, normalBuffer.capacity(), "normal values");
+		normalBuffer.clear();
+		normalBuffer.put(normals);
+		normalBuffer.clear();
+		normalRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets normals from the remaining values of a buffer, the buffer's position is not changed.
+	 *
+	 * @param normals
+	 *   the normals
+	 */
+	protected final void setNormals(DoubleBuffer normals) {
+		normalBuffer = writable(normalBuffer);
+		checkCount(normals.remaining(), normalBuffer.capacity(), "normal values");
+		normalBuffer.clear();
+		normalBuffer.put(normals.duplicate());
+		normalBuffer.clear();
+		normalRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets a range of normals, only the changed normals are uploaded on the next draw.
+	 *
+	 * @param first
+	 *   the first vertex
+	 * @param normals
+	 *   the flat values of one or more normals
+	 */
+	protected final void setNormalRange(int first, double[] normals) {
+		normalBuffer = writable(normalBuffer);
+		int count = checkRange(first, normals.length, NORMAL_SIZE, "normal");
+		normalBuffer.position(first * NORMAL_SIZE);
+		normalBuffer.put(normals);
+		normalBuffer.clear();
+		normalRanges.add(first, first + count);
 	}
 
 	/**
@@ -264,19 +542,228 @@ public abstract class Render implements IdObject {
 	 * @param texCoords
 	 *   the texCoords
 	 */
-	final void setTexCoords(short[][] texCoords) {
-		if(texCoords.length != this.texCoords.length) {
-			throw new IllegalArgumentException("The number of texture coordinates is incorrect");
+	protected final void setTexCoords(short[][] texCoords) {
+		texCoordBuffer = writable(texCoordBuffer);
+		checkCount(texCoords.length, vertexCount, "texture coordinates");
+		copyRows(texCoords, texCoordSize, texCoordBuffer, "texture coordinate");
+		texCoordRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets tex coords from a flat array of {@code vertex count * tex coord size} values.
+	 *
+	 * @param texCoords
+	 *   the texCoords
+	 */
+	protected final void setTexCoords(short[] texCoords) {
+		texCoordBuffer = writable(texCoordBuffer);
+		checkCount(texCoords.length, texCoordBuffer.capacity(), "texture coordinate values");
+		texCoordBuffer.clear();
+		texCoordBuffer.put(texCoords);
+		texCoordBuffer.clear();
+		texCoordRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets tex coords from the remaining values of a buffer, the buffer's position is not changed.
+	 *
+	 * @param texCoords
+	 *   the texCoords
+	 */
+	protected final void setTexCoords(ShortBuffer texCoords) {
+		texCoordBuffer = writable(texCoordBuffer);
+		checkCount(texCoords.remaining(), texCoordBuffer.capacity(), "texture coordinate values");
+		texCoordBuffer.clear();
+		texCoordBuffer.put(texCoords.duplicate());
+		texCoordBuffer.clear();
+		texCoordRanges.add(0, vertexCount);
+	}
+
+	/**
+	 * Sets a range of tex coords, only the changed tex coords are uploaded on the next draw.
+	 *
+	 * @param first
+	 *   the first vertex
+	 * @param texCoords
+	 *   the flat values of one or more tex coords
+	 */
+	protected final void setTexCoordRange(int first, short[] texCoords) {
+		texCoordBuffer = writable(texCoordBuffer);
+		int count = checkRange(first, texCoords.length, texCoordSize, "texture coordinate");
+		texCoordBuffer.position(first * texCoordSize);
+		texCoordBuffer.put(texCoords);
+		texCoordBuffer.clear();
+		texCoordRanges.add(first, first + count);
+	}
+
+	/**
+	 * Sets indexes. Draws the vertexes as indexed triangles, 16 bit indexes are uploaded when every vertex can be
+	 * reached with them.
+	 *
+	 * @param indexes
+	 *   the triangle indexes, or null to draw every three vertexes as a triangle
+	 */
+	protected final void setIndexes(int[] indexes) {
+		indexesChanged = true;
+		levels = null;
+		if(indexes == null) {
+			indexCount = 0;
+			indexBuffer = null;
+			return;
 		}
-		if(texCoords.length > 0) {
-			if(texCoords[0].length != this.texCoords[0].length) {
-				throw new IllegalArgumentException("The texture coordinate size is incorrect");
+		checkCount(indexes.length % 3, 0, "indexes");
+		boolean shortIndexes = vertexCount <= (MAX_SHORT_INDEX + 1);
+		int indexSize = shortIndexes ? Short.BYTES : Integer.BYTES;
+		if((indexBuffer == null) || indexBuffer.isReadOnly() ||
+		   (indexBuffer.capacity() != (indexes.length * indexSize))) {
+			indexBuffer = newByteBuffer(indexes.length * indexSize);
+		}
+		for(int i = 0; i < indexes.length; i++) {
+			if((indexes[i] < 0) || (indexes[i] >= vertexCount)) {
+				throw new IllegalArgumentException(MessageFormat.format("Index {0} is out of range", indexes[i]));
+			}
+			if(shortIndexes) {
+				indexBuffer.putShort(i * Short.BYTES, (short) indexes[i]);
+			} else {
+				indexBuffer.putInt(i * Integer.BYTES, indexes[i]);
 			}
 		}
-		for(int i = 0; i < this.texCoords.length; i++) {
-			System.arraycopy(texCoords[i], 0, this.texCoords[i], 0, this.texCoords[i].length);
+		indexCount = indexes.length;
+		indexType = shortIndexes ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+	}
+
+	/**
+	 * Sets every attribute and the indexes from a mesh, usually called from {@link #doReset()}.
+	 *
+	 * @param mesh
+	 *   the mesh, with as many vertexes as {@link #getVertexCount()}
+	 */
+	protected final void setMesh(Mesh mesh) {
+		setVertexes(mesh.getPositions());
+		setNormals(mesh.getNormals());
+		setColors(mesh.getColors());
+		setTexCoords(mesh.getTexCoords());
+		setIndexes(mesh.getIndexes());
+	}
+
+	/**
+	 * Sets every attribute and the indexes from a mapped mesh file, usually called from {@link #doReset()}. The
+	 * read only mapped blocks replace this render's own stores, so the upload reads straight from the mapping; a
+	 * block is copied only if a setter later writes to it.
+	 *
+	 * @param mesh
+	 *   the mesh, with the vertex count and attribute sizes this render reports
+	 */
+	protected final void setMesh(MappedMesh mesh) {
+		checkCount(mesh.getVertexCount(), vertexCount, "vertexes");
+		checkSize(mesh.getPositionSize(), vertexSize, "vertex");
+		checkSize(mesh.getColorSize(), colorSize, "color");
+		checkSize(mesh.getTexCoordSize(), texCoordSize, "tex coord");
+		vertexBuffer = mesh.getPositions();
+		normalBuffer = mesh.getNormals();
+		colorBuffer = mesh.getColors();
+		texCoordBuffer = mesh.getTexCoords();
+		boundsDirty = true;
+		vertexRanges.add(0, vertexCount);
+		normalRanges.add(0, vertexCount);
+		colorRanges.add(0, vertexCount);
+		texCoordRanges.add(0, vertexCount);
+
+		indexesChanged = true;
+		levels = null;
+		indexBuffer = mesh.getIndexes();
+		indexCount = mesh.getIndexCount();
+		indexType = mesh.hasShortIndexes() ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+		if(indexBuffer == null) {
+			indexCount = 0;
+		} else if(!mesh.hasShortIndexes() && (vertexCount <= (MAX_SHORT_INDEX + 1))) {
+			// narrow 32 bit indexes a writer kept for a small mesh, as setIndexes would
+			ByteBuffer narrow = newByteBuffer(indexCount * Short.BYTES);
+			for(int i = 0; i < indexCount; i++) {
+				narrow.putShort(i * Short.BYTES, (short) indexBuffer.getInt(i * Integer.BYTES));
+			}
+			indexBuffer = narrow;
+			indexType = GL_UNSIGNED_SHORT;
+		}
+	}
+
+	/**
+	 * Sets every attribute from the full mesh of a level of detail, and the indexes of every level one after
+	 * another, so the level drawn can change each frame without an upload.
+	 *
+	 * @param levelOfDetail
+	 *   the level of detail, with as many vertexes as {@link #getVertexCount()}
+	 */
+	protected final void setLevels(LevelOfDetail levelOfDetail) {
+		Mesh mesh = levelOfDetail.getMesh();
+		setVertexes(mesh.getPositions());
+		setNormals(mesh.getNormals());
+		setColors(mesh.getColors());
+		setTexCoords(mesh.getTexCoords());
+
+		int total = 0;
+		int[] firsts = new int[levelOfDetail.getLevelCount() + 1];
+		for(int l = 0; l < levelOfDetail.getLevelCount(); l++) {
+			firsts[l] = total;
+			total += levelOfDetail.getIndexes(l).length;
+		}
+		firsts[levelOfDetail.getLevelCount()] = total;
+		int[] indexes = new int[total];
+		for(int l = 0; l < levelOfDetail.getLevelCount(); l++) {
+			int[] levelIndexes = levelOfDetail.getIndexes(l);
+			System.arraycopy(levelIndexes, 0, indexes, firsts[l], levelIndexes.length);
 		}
-		different = true;
+		setIndexes(indexes);
+		levels = levelOfDetail;
+		levelFirsts = firsts;
+		level = 0;
+	}
+
+	/**
+	 * Gets level.
+	 *
+	 * @return the level of detail drawn last, 0 without levels
+	 */
+	public final int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Is visible. The bounds are recomputed from the vertexes only after they have changed.
+	 *
+	 * @return whether this render's bounds intersect the active game's frustum
+	 */
+	public final boolean isVisible() {
+		Game game = GameHelper.getActiveGame();
+		BoundsSet bounds = game.getBounds();
+		if(boundsSlot < 0) {
+			boundsSlot = bounds.add();
+			boundsDirty = true;
+		}
+		if(boundsDirty) {
+			boundsDirty = false;
+			updateBounds(bounds);
+			bounds.cull(boundsSlot, game.getFrustum());
+		}
+		return bounds.isVisible(boundsSlot);
+	}
+
+	/**
+	 * Gets upload count.
+	 *
+	 * @return the number of buffer uploads made since this render was created
+	 */
+	public final int getUploadCount() {
+		return uploadCount;
+	}
+
+	/**
+	 * Gets uploaded bytes.
+	 *
+	 * @return the number of bytes uploaded since this render was created
+	 */
+	public final long getUploadedBytes() {
+		return uploadedBytes;
 	}
 
 	/**
@@ -303,28 +790,28 @@ public abstract class Render implements IdObject {
 	/**
 	 * New vertexes.
 	 *
-	 * @return the double [vertexes] [values]
+	 * @return the double [vertexes] [values], or null if the vertexes are set flat in {@link #doReset()}
 	 */
 	protected abstract double[][] newVertexes();
 
 	/**
 	 * New colors.
 	 *
-	 * @return the double [colors] [values]
+	 * @return the double [colors] [values], or null if the colors are set flat in {@link #doReset()}
 	 */
 	protected abstract byte[][] newColors();
 
 	/**
 	 * New normals.
 	 *
-	 * @return the double [normals] [values]
+	 * @return the double [normals] [values], or null if the normals are set flat in {@link #doReset()}
 	 */
 	protected abstract double[][] newNormals();
 
 	/**
 	 * New tex coords.
 	 *
-	 * @return the double [tex coords] [values]
+	 * @return the double [tex coords] [values], or null if the tex coords are set flat in {@link #doReset()}
 	 */
 	protected abstract short[][] newTexCoords();
 
@@ -359,15 +846,133 @@ public abstract class Render implements IdObject {
 	/** Do init. */
 	protected abstract void doInit();
 
+	/**
+	 * Gets vertex format. Returning a format packs every attribute it declares into a single interleaved buffer,
+	 * encoded as each element declares, attributes it leaves out are not drawn.
+	 * {@link VertexFormat#compact(int, int, int)} is a good default for large static meshes.
+	 *
+	 * @return the vertex format, or null to upload each attribute to its own buffer
+	 */
+	protected VertexFormat getVertexFormat() {
+		return null;
+	}
+
+	/**
+	 * Gets buffer usage. A {@link BufferUsage#STREAM} render without a vertex format is streamed in
+	 * {@link VertexFormat#standard(int, int, int)}.
+	 *
+	 * @return the buffer usage
+	 */
+	protected BufferUsage getBufferUsage() {
+		return BufferUsage.STATIC;
+	}
+
+	/**
+	 * Is queued.
+	 *
+	 * @return whether this render is drawn through the game's {@link RenderQueue} in {@link #getSortKey()} order,
+	 * rather than as soon as its handler updates it
+	 */
+	protected boolean isQueued() {
+		return false;
+	}
+
+	/**
+	 * Gets sort key, asked each frame of a queued render.
+	 *
+	 * @return the sort key, see {@link SortKey}
+	 */
+	protected long getSortKey() {
+		return 0L;
+	}
+
+	/**
+	 * Gets level tolerance.
+	 *
+	 * @return the largest error, in pixels, a level of detail may show on screen
+	 */
+	protected double getLevelTolerance() {
+		return 1.0;
+	}
+
+	/**
+	 * Is cullable. Off unless a subclass opts in: bounds are taken from the vertexes as given, so only a render
+	 * whose vertexes are already where it is drawn, not moved in {@link #preDraw()}, should return true.
+	 *
+	 * @return whether this render is skipped while outside the frustum, false by default
+	 */
+	protected boolean isCullable() {
+		return false;
+	}
+
+	/** Do reset. Called once the attribute buffers are ready, subclasses may fill them with the flat setters. */
+	protected void doReset() {
+	}
+
+	/** Picks the coarsest level whose error, projected at the nearest point of the bounding sphere, is tolerable. */
+	private void selectLevel() {
+		Game game = GameHelper.getActiveGame();
+		BoundsSet bounds = game.getBounds();
+		if((boundsSlot < 0) || boundsDirty) {
+			isVisible();
+		}
+		float depth = game.getFrustum().getDepth(bounds.getCenterX(boundsSlot), bounds.getCenterY(boundsSlot),
+		                                         bounds.getCenterZ(boundsSlot)) - bounds.getRadius(boundsSlot);
+		if(depth <= 0.0f) {
+			level = 0;
+			return;
+		}
+		level = levels.select(game.getPixelScale() / depth, getLevelTolerance());
+	}
+
+	private void updateBounds(BoundsSet bounds) {
+		double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0};
+		double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0};
+		if(vertexSize > 2) {
+			min[2] = Double.POSITIVE_INFINITY;
+			max[2] = Double.NEGATIVE_INFINITY;
+		}
+		int axes = Math.min(vertexSize, 3);
+		for(int v = 0; v < vertexCount; v++) {
+			int offset = v * vertexSize;
+			for(int a = 0; a < axes; a++) {
+				double value = vertexBuffer.get(offset + a);
+				min[a] = Math.min(min[a], value);
+				max[a] = Math.max(max[a], value);
+			}
+		}
+		if(vertexCount == 0) {
+			Arrays.fill(min, 0.0);
+			Arrays.fill(max, 0.0);
+		}
+
+		double[] center = new double[3];
+		for(int a = 0; a < 3; a++) {
+			center[a] = (min[a] + max[a]) / 2.0;
+		}
+		double radiusSquared = 0.0;
+		for(int v = 0; v < vertexCount; v++) {
+			int offset = v * vertexSize;
+			double distanceSquared = 0.0;
+			for(int a = 0; a < axes; a++) {
+				double delta = vertexBuffer.get(offset + a) - center[a];
+				distanceSquared += delta * delta;
+			}
+			radiusSquared = Math.max(radiusSquared, distanceSquared);
+		}
+		bounds.set(boundsSlot, (float) center[0], (float) center[1], (float) center[2],
+		           Math.nextUp((float) ((max[0] - min[0]) / 2.0)), Math.nextUp((float) ((max[1] - min[1]) / 2.0)),
+		           Math.nextUp((float) ((max[2] - min[2]) / 2.0)), Math.nextUp((float) Math.sqrt(radiusSquared)));
+	}
+
 	/** Add to handler. */
 	private void addToHandler() {
 		getHandler().addObject(this);
 	}
 
 	private void bindBuffers() {
-		if(different) {
+		if(reallocate || indexesChanged || isDirty()) {
 			initVBO();
-			different = false;
 		}
 		glBindVertexArray(vaoHandler);
 
@@ -378,17 +983,11 @@ public abstract class Render implements IdObject {
 	private void draw() {
 		preDraw();
 
-		glEnableClientState(GL_VERTEX_ARRAY);
-		glEnableClientState(GL_COLOR_ARRAY);
-		glEnableClientState(GL_TEXTURE_COORD_ARRAY);
-		glEnableClientState(GL_NORMAL_ARRAY);
+		setClientStates(format, true);
 
-		glDrawArrays(GL_TRIANGLES, 0, getVertexCount());
+		drawTriangles();
 
-		glDisableClientState(GL_VERTEX_ARRAY);
-		glDisableClientState(GL_COLOR_ARRAY);
-		glDisableClientState(GL_NORMAL_ARRAY);
-		glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+		setClientStates(format, false);
 
 		glBindBuffer(GL_ARRAY_BUFFER, 0);
 
@@ -397,6 +996,23 @@ public abstract class Render implements IdObject {
 		GameHelper.checkForError(LOGGER, Render.class, "draw");
 	}
 
+	/** Draw triangles. Issues the draw call with the vertex array bound and the client states enabled. */
+	void drawTriangles() {
+		if(levels != null) {
+			int indexSize = (indexType == GL_UNSIGNED_SHORT) ? Short.BYTES : Integer.BYTES;
+			glDrawElements(GL_TRIANGLES, levelFirsts[level + 1] - levelFirsts[level], indexType,
+			               (long) levelFirsts[level] * indexSize);
+		} else if(indexCount > 0) {
+			glDrawElements(GL_TRIANGLES, indexCount, indexType, 0);
+		} else {
+			glDrawArrays(GL_TRIANGLES, 0, vertexCount);
+		}
+	}
+
+	/** Destroy buffers. Deletes any buffers a subclass in this package adds. */
+	void destroyBuffers() {
+	}
+
 	private void initVAO() {
 		if(initVAO){
 		initVAO=false;
@@ -407,38 +1023,401 @@ public abstract class Render implements IdObject {
 		//todo vao stuff, too tired at time
 	}
 
+	/**
+	 * Sets client states.
+	 *
+	 * @param format
+	 *   the format, or null for the four separate buffers
+	 * @param enable
+	 *   the enable
+	 */
+	static void setClientStates(VertexFormat format, boolean enable) {
+		if(format == null) {
+			for(VertexAttribute attribute : VertexAttribute.values()) {
+				setClientState(attribute.getClientState(), enable);
+			}
+			return;
+		}
+		for(int i = 0; i < format.getElementCount(); i++) {
+			VertexElement element = format.getElement(i);
+			if(element.isOctahedral()) {
+				if(enable) {
+					glEnableVertexAttribArray(element.getAttribute().getLocation());
+				} else {
+					glDisableVertexAttribArray(element.getAttribute().getLocation());
+				}
+			} else {
+				setClientState(element.getAttribute().getClientState(), enable);
+			}
+		}
+	}
+
+	private static void setClientState(int state, boolean enable) {
+		if(enable) {
+			glEnableClientState(state);
+		} else {
+			glDisableClientState(state);
+		}
+	}
+
+	private boolean isDirty() {
+		return !(vertexRanges.isEmpty() && colorRanges.isEmpty() && normalRanges.isEmpty() &&
+		         texCoordRanges.isEmpty());
+	}
+
 	private void initVBO() {
 		glBindVertexArray(vaoHandler);
 
-		copyToDoubleBuffer(vertexes, vertexBuffer);
-		copyToByteBuffer(colors, colorBuffer);
-		copyToDoubleBuffer(normals, normalBuffer);
-		copyToShortBuffer(texCoords, texCoordBuffer);
+		if(usage == BufferUsage.STREAM) {
+			uploadStream();
+		} else if(!reallocate) {
+			uploadRanges();
+		} else if(format == null) {
+			initSeparateVBO();
+		} else {
+			initInterleavedVBO();
+		}
+		reallocate = false;
+
+		if(indexesChanged) {
+			uploadIndexes();
+		}
 
+		vertexRanges.clear();
+		colorRanges.clear();
+		normalRanges.clear();
+		texCoordRanges.clear();
+
+		GameHelper.checkForError(LOGGER, Render.class, "initVBO");
+	}
+
+	private void initSeparateVBO() {
 		glBindBuffer(GL_ARRAY_BUFFER, vboVertexHandler);
-		glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STATIC_DRAW);
-		glVertexPointer(getVertexSize(), GL_DOUBLE, 0, 0);
+		glBufferData(GL_ARRAY_BUFFER, vertexBuffer, usage.getGLUsage());
+		glVertexPointer(vertexSize, GL_DOUBLE, 0, 0);
+		countUpload(vertexBuffer.capacity() * Double.BYTES);
 
 		GameHelper.checkForError(LOGGER, Render.class, "vertex");
 
 		glBindBuffer(GL_ARRAY_BUFFER, vboNormalHandler);
-		glBufferData(GL_ARRAY_BUFFER, normalBuffer, GL_STATIC_DRAW);
+		glBufferData(GL_ARRAY_BUFFER, normalBuffer, usage.getGLUsage());
 		glNormalPointer(GL_DOUBLE, 0, 0);
+		countUpload(normalBuffer.capacity() * Double.BYTES);
 
 		GameHelper.checkForError(LOGGER, Render.class, "normal");
 
 		glBindBuffer(GL_ARRAY_BUFFER, vboColorHandler);
-		glBufferData(GL_ARRAY_BUFFER, colorBuffer, GL_STATIC_DRAW);
-		glColorPointer(getColorSize(), GL_UNSIGNED_BYTE, 0, 0);
+		glBufferData(GL_ARRAY_BUFFER, colorBuffer, usage.getGLUsage());
+		glColorPointer(colorSize, GL_UNSIGNED_BYTE, 0, 0);
+		countUpload(colorBuffer.capacity());
 
 		GameHelper.checkForError(LOGGER, Render.class, "color");
 
 		glBindBuffer(GL_ARRAY_BUFFER, vboTexCoordHandler);
-		glBufferData(GL_ARRAY_BUFFER, texCoordBuffer, GL_STATIC_DRAW);
-		glTexCoordPointer(getTexCoordSize(), GL_SHORT, 0, 0);
+		glBufferData(GL_ARRAY_BUFFER, texCoordBuffer, usage.getGLUsage());
+		glTexCoordPointer(texCoordSize, GL_SHORT, 0, 0);
+		countUpload(texCoordBuffer.capacity() * Short.BYTES);
 
 		GameHelper.checkForError(LOGGER, Render.class, "texCoord");
+	}
 
-		GameHelper.checkForError(LOGGER, Render.class, "initVBO");
+	private void initInterleavedVBO() {
+		packVertexes(0, vertexCount, interleavedBuffer);
+
+		glBindBuffer(GL_ARRAY_BUFFER, vboVertexHandler);
+		glBufferData(GL_ARRAY_BUFFER, interleavedBuffer, usage.getGLUsage());
+		countUpload(interleavedBuffer.capacity());
+
+		setInterleavedPointers(format, 0);
+
+		GameHelper.checkForError(LOGGER, Render.class, "interleaved");
+	}
+
+	/**
+	 * Upload stream. Packs every vertex straight into the next segment of the ring through an unsynchronized
+	 * mapping, the ring's fences keep the GPU from reading a segment while it is written. If the driver gives no
+	 * mapping the segment is filled with glBufferSubData from a packed copy for that frame instead.
+	 */
+	private void uploadStream() {
+		glBindBuffer(GL_ARRAY_BUFFER, vboVertexHandler);
+		if(reallocate) {
+			glBufferData(GL_ARRAY_BUFFER, ring.getSize(), usage.getGLUsage());
+		}
+		if(vertexCount == 0) {
+			return;
+		}
+
+		int segment = ring.acquire(vertexCount * format.getStride());
+		ByteBuffer mapped = glMapBufferRange(GL_ARRAY_BUFFER, ring.getOffset(segment), ring.getSegmentSize(),
+		                                     GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_RANGE_BIT | GL_MAP_UNSYNCHRONIZED_BIT,
+		                                     null);
+		if(mapped != null) {
+			packVertexes(0, vertexCount, mapped.order(ByteOrder.nativeOrder()));
+			glUnmapBuffer(GL_ARRAY_BUFFER);
+			countUpload(ring.getSegmentSize());
+		} else {
+			if(!mapFailed && LOGGER.isWarningEnabled()) {
+				LOGGER.logWarning(MessageFormat.format("Mapping the stream buffer of {0} failed, falling back to " +
+				                                       "glBufferSubData", this), null);
+			}
+			mapFailed = true;
+			// made on the first failure only, streams do not keep a packed copy otherwise
+			if(interleavedBuffer == null) {
+				interleavedBuffer = newByteBuffer(vertexCount * format.getStride());
+			}
+			packVertexes(0, vertexCount, interleavedBuffer);
+			glBufferSubData(GL_ARRAY_BUFFER, ring.getOffset(segment), interleavedBuffer);
+			countUpload(interleavedBuffer.capacity());
+		}
+
+		setInterleavedPointers(format, ring.getOffset(segment));
+
+		GameHelper.checkForError(LOGGER, Render.class, "stream");
+	}
+
+	/**
+	 * Sets interleaved pointers into the bound array buffer.
+	 *
+	 * @param format
+	 *   the format
+	 * @param base
+	 *   the offset in bytes of the first vertex
+	 */
+	static void setInterleavedPointers(VertexFormat format, long base) {
+		int stride = format.getStride();
+		for(int i = 0; i < format.getElementCount(); i++) {
+			VertexElement element = format.getElement(i);
+			int type = element.getType().getGLType();
+			long offset = base + format.getOffset(i);
+			if(element.isOctahedral()) {
+				glVertexAttribPointer(element.getAttribute().getLocation(), element.getCount(), type, true, stride,
+				                      offset);
+				continue;
+			}
+			switch(element.getAttribute()) {
+				case POSITION:
+					glVertexPointer(element.getCount(), type, stride, offset);
+					break;
+				case NORMAL:
+					glNormalPointer(type, stride, offset);
+					break;
+				case COLOR:
+					glColorPointer(element.getCount(), type, stride, offset);
+					break;
+				case TEX_COORD:
+					glTexCoordPointer(element.getCount(), type, stride, offset);
+					break;
+			}
+		}
+	}
+
+	private void uploadIndexes() {
+		indexesChanged = false;
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboHandler);
+		if(indexBuffer == null) {
+			glBufferData(GL_ELEMENT_ARRAY_BUFFER, 0, usage.getGLUsage());
+			return;
+		}
+		glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer, usage.getGLUsage());
+		countUpload(indexBuffer.capacity());
+
+		GameHelper.checkForError(LOGGER, Render.class, "indexes");
+	}
+
+	/** Upload ranges. Sends only the dirty spans with glBufferSubData, attributes that did not change are skipped. */
+	private void uploadRanges() {
+		if(format == null) {
+			uploadRanges(vboVertexHandler, vertexRanges, vertexBuffer, vertexSize);
+			uploadRanges(vboNormalHandler, normalRanges, normalBuffer, NORMAL_SIZE);
+			uploadRanges(vboColorHandler, colorRanges, colorBuffer, colorSize);
+			uploadRanges(vboTexCoordHandler, texCoordRanges, texCoordBuffer, texCoordSize);
+			return;
+		}
+
+		interleavedRanges.clear();
+		interleavedRanges.addAll(vertexRanges);
+		interleavedRanges.addAll(normalRanges);
+		interleavedRanges.addAll(colorRanges);
+		interleavedRanges.addAll(texCoordRanges);
+		for(int i = 0; i < interleavedRanges.size(); i++) {
+			int start = interleavedRanges.getStart(i);
+			packVertexes(start, interleavedRanges.getEnd(i) - start, interleavedBuffer);
+		}
+		uploadRanges(vboVertexHandler, interleavedRanges, interleavedBuffer, format.getStride());
+	}
+
+	private void uploadRanges(int vbo, DirtyRanges ranges, DoubleBuffer store, int size) {
+		countUploads(ranges.size(), ranges.upload(GL_PROVIDER, vbo, store, size));
+	}
+
+	private void uploadRanges(int vbo, DirtyRanges ranges, ShortBuffer store, int size) {
+		countUploads(ranges.size(), ranges.upload(GL_PROVIDER, vbo, store, size));
+	}
+
+	private void uploadRanges(int vbo, DirtyRanges ranges, ByteBuffer store, int size) {
+		countUploads(ranges.size(), ranges.upload(GL_PROVIDER, vbo, store, size));
+	}
+
+	/**
+	 * Count upload.
+	 *
+	 * @param bytes
+	 *   the bytes sent
+	 */
+	final void countUpload(long bytes) {
+		uploadCount++;
+		uploadedBytes += bytes;
+	}
+
+	/**
+	 * Count uploads.
+	 *
+	 * @param count
+	 *   the number of uploads
+	 * @param bytes
+	 *   the bytes they sent
+	 */
+	final void countUploads(int count, long bytes) {
+		uploadCount += count;
+		uploadedBytes += bytes;
+	}
+
+	/**
+	 * Sets batch. A render in a batch is drawn by the batch and no longer draws itself, so its own buffers are
+	 * emptied while it is batched and filled again the next time it draws itself.
+	 *
+	 * @param batch
+	 *   the batch, or null
+	 */
+	final void setBatch(StaticBatch batch) {
+		if((batch != null) && (this.batch == null)) {
+			releaseStorage();
+		}
+		this.batch = batch;
+	}
+
+	/** Release storage. Drops the data of the buffers but keeps their names, the attribute buffers keep a copy. */
+	private void releaseStorage() {
+		if(usage == null) {
+			// not initialised, nothing was uploaded
+			return;
+		}
+		if(ring != null) {
+			ring.clear();
+		}
+		glBindVertexArray(0);
+		int[] buffers = {vboVertexHandler, vboColorHandler, vboNormalHandler, vboTexCoordHandler};
+		for(int buffer : buffers) {
+			glBindBuffer(GL_ARRAY_BUFFER, buffer);
+			glBufferData(GL_ARRAY_BUFFER, 0, usage.getGLUsage());
+		}
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboHandler);
+		glBufferData(GL_ELEMENT_ARRAY_BUFFER, 0, usage.getGLUsage());
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+		reallocate = true;
+		indexesChanged = true;
+
+		GameHelper.checkForError(LOGGER, Render.class, "releaseStorage");
+	}
+
+	/**
+	 * Gets batch format.
+	 *
+	 * @return the declared vertex format, or the standard format of the separate buffers
+	 */
+	final VertexFormat getBatchFormat() {
+		return (format == null) ? VertexFormat.standard(vertexSize, colorSize, texCoordSize) : format;
+	}
+
+	/**
+	 * Gets stored vertex count.
+	 *
+	 * @return the number of vertexes in the attribute buffers
+	 */
+	final int getStoredVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Gets index count.
+	 *
+	 * @return the index count of the full mesh, 0 if the render is not indexed
+	 */
+	final int getIndexCount() {
+		return (levels == null) ? indexCount : levelFirsts[1];
+	}
+
+	/**
+	 * Gets index type.
+	 *
+	 * @return GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+	 */
+	final int getIndexType() {
+		return indexType;
+	}
+
+	/**
+	 * Gets index.
+	 *
+	 * @param i
+	 *   the position in the index list
+	 *
+	 * @return the index
+	 */
+	final int getIndex(int i) {
+		if(indexType == GL_UNSIGNED_SHORT) {
+			return indexBuffer.getShort(i * Short.BYTES) & MAX_SHORT_INDEX;
+		}
+		return indexBuffer.getInt(i * Integer.BYTES);
+	}
+
+	/**
+	 * Pack vertexes in the given format.
+	 *
+	 * @param packFormat
+	 *   the format
+	 * @param first
+	 *   the first vertex
+	 * @param count
+	 *   the vertex count
+	 * @param target
+	 *   the interleaved buffer, vertex {@code i} is written at {@code i * stride}
+	 */
+	final void packVertexes(VertexFormat packFormat, int first, int count, ByteBuffer target) {
+		for(int i = 0; i < packFormat.getElementCount(); i++) {
+			switch(packFormat.getElement(i).getAttribute()) {
+				case POSITION:
+					VertexPacker.pack(packFormat, i, vertexBuffer, vertexSize, first, count, target);
+					break;
+				case NORMAL:
+					VertexPacker.pack(packFormat, i, normalBuffer, NORMAL_SIZE, first, count, target);
+					break;
+				case COLOR:
+					VertexPacker.pack(packFormat, i, colorBuffer, colorSize, first, count, target);
+					break;
+				case TEX_COORD:
+					VertexPacker.pack(packFormat, i, texCoordBuffer, texCoordSize, first, count, target);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Pack vertexes.
+	 *
+	 * @param first
+	 *   the first vertex
+	 * @param count
+	 *   the vertex count
+	 * @param target
+	 *   the interleaved buffer, vertex {@code i} is written at {@code i * stride}
+	 */
+	final void packVertexes(int first, int count, ByteBuffer target) {
+		packVertexes(format, first, count, target);
+	}
+
+	private boolean isFormat(VertexFormat vertexFormat) {
+		return (format == null) ? (vertexFormat == null) : format.equals(vertexFormat);
 	}
 }
@@ -0,0 +1,167 @@
+package org.grgodgames.lib;
+
+import java.util.Arrays;
+
+/**
+ * The type Render queue. Collects the renders submitted during a frame with their {@link SortKey} and draws them
+ * in key order, so draws that share a shader and texture follow each other and translucent draws come last.
+ * <p>
+ * Keys are sorted with an eight pass least significant digit radix sort over preallocated arrays, passes where
+ * every key has the same byte are skipped. Nothing is allocated once the queue has grown to the frame's size.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class RenderQueue {
+	private static final int RADIX  = 256;
+	private static final int DIGITS = Long.BYTES;
+	private final int[] histogram = new int[RADIX * DIGITS];
+	private long[]   keys;
+	private long[]   scratchKeys;
+	private int[]    order;
+	private int[]    scratchOrder;
+	private Render[] renders;
+	private int      size;
+
+	/**
+	 * Instantiates a new Render queue.
+	 *
+	 * @param capacity
+	 *   the number of draws to make room for
+	 */
+	public RenderQueue(int capacity) {
+		int length = Math.max(1, capacity);
+		keys = new long[length];
+		scratchKeys = new long[length];
+		order = new int[length];
+		scratchOrder = new int[length];
+		renders = new Render[length];
+	}
+
+	/**
+	 * Submit a render for this frame.
+	 *
+	 * @param key
+	 *   the key
+	 * @param render
+	 *   the render
+	 */
+	public void submit(long key, Render render) {
+		if(size == keys.length) {
+			grow();
+		}
+		keys[size] = key;
+		order[size] = size;
+		renders[size] = render;
+		size++;
+	}
+
+	/**
+	 * Size int.
+	 *
+	 * @return the number of draws submitted
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Sort the submitted draws by key. */
+	public void sort() {
+		Arrays.fill(histogram, 0);
+		for(int i = 0; i < size; i++) {
+			long key = keys[i];
+			for(int d = 0; d < DIGITS; d++) {
+				histogram[(d * RADIX) + (int) ((key >>> (d * Byte.SIZE)) & 0xFF)]++;
+			}
+		}
+
+		for(int d = 0; d < DIGITS; d++) {
+			int base = d * RADIX;
+			int shift = d * Byte.SIZE;
+			if(histogram[base + (int) ((keys[0] >>> shift) & 0xFF)] == size) {
+				continue;
+			}
+			int total = 0;
+			for(int b = base; b < (base + RADIX); b++) {
+				int count = histogram[b];
+				histogram[b] = total;
+				total += count;
+			}
+			for(int i = 0; i < size; i++) {
+				long key = keys[i];
+				int slot = histogram[base + (int) ((key >>> shift) & 0xFF)]++;
+				scratchKeys[slot] = key;
+				scratchOrder[slot] = order[i];
+			}
+			long[] swapKeys = keys;
+			keys = scratchKeys;
+			scratchKeys = swapKeys;
+			int[] swapOrder = order;
+			order = scratchOrder;
+			scratchOrder = swapOrder;
+		}
+	}
+
+	/**
+	 * Gets key.
+	 *
+	 * @param index
+	 *   the position in draw order, after {@link #sort()}
+	 *
+	 * @return the key
+	 */
+	public long getKey(int index) {
+		return keys[index];
+	}
+
+	/**
+	 * Gets render.
+	 *
+	 * @param index
+	 *   the position in draw order, after {@link #sort()}
+	 *
+	 * @return the render
+	 */
+	public Render getRender(int index) {
+		return renders[order[index]];
+	}
+
+	/**
+	 * Gets submission.
+	 *
+	 * @param index
+	 *   the position in draw order, after {@link #sort()}
+	 *
+	 * @return the order the draw was submitted in, draws with equal keys keep their submission order
+	 */
+	int getSubmission(int index) {
+		return order[index];
+	}
+
+	/** Flush void. Sorts and draws every submitted render, then empties the queue. */
+	public void flush() {
+		if(size > 0) {
+			sort();
+			for(int i = 0; i < size; i++) {
+				getRender(i).render();
+			}
+		}
+		clear();
+	}
+
+	/** Clear void. */
+	public void clear() {
+		Arrays.fill(renders, 0, size, null);
+		size = 0;
+	}
+
+	private void grow() {
+		int length = keys.length * 2;
+		keys = Arrays.copyOf(keys, length);
+		scratchKeys = new long[length];
+		order = Arrays.copyOf(order, length);
+		scratchOrder = new int[length];
+		renders = Arrays.copyOf(renders, length);
+	}
+}
@@ -2,12 +2,20 @@ package org.grgodgames.lib;
 
 import org.grgodgames.lib.game.GameHelper;
 
+import org.lwjgl.BufferUtils;
+
 import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
 import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
-import static org.grgodgames.lib.IOHelper.readFile;
-import static org.lwjgl.opengl.GL11.GL_TRUE;
 import static org.lwjgl.opengl.GL20.*;
 
 /**
@@ -19,19 +27,34 @@ import static org.lwjgl.opengl.GL20.*;
  */
 public abstract class Shader implements IdObject {
 	/** The constant LOGGER. */
-	private static final GameLogger LOGGER         = GameLogger.loggerOf(Logger.getLogger(Shader.class.getName()));
-	/** The IdObject. */
-	private final        int        programID      = glCreateProgram();
-	/** The Fragment shader. */
-	private final        int        fragmentShader = glCreateShader(GL_FRAGMENT_SHADER);
-	/** The VertexCoord shader. */
-	private final        int        vertexShader   = glCreateShader(GL_VERTEX_SHADER);
+	private static final GameLogger         LOGGER       =
+		GameLogger.loggerOf(Logger.getLogger(Shader.class.getName()));
+	/** The matrix buffer, shaders are only used on the render thread. */
+	private static final FloatBuffer        MATRIX       = BufferUtils.createFloatBuffer(UniformTable.SLOTS);
+	/** The preprocessor every shader's sources are expanded by. */
+	private static final ShaderPreprocessor PREPROCESSOR = new ShaderPreprocessor();
+	/** Compiles and links at once for shaders initialized without a compile queue. */
+	private static final ShaderCompileQueue IMMEDIATE    = new ShaderCompileQueue();
+	/** The binary cache, or null to always compile. */
+	private static       ShaderBinaryCache  binaryCache;
+	/** The compile queue, or null to compile at once. */
+	private static       ShaderCompileQueue compileQueue;
+	/** The program in use, so binding it again makes no GL call. */
+	private static       int                boundProgram;
 	/** The VertexCoord source. */
-	private final File vertexSource;
+	private final File                      vertexSource;
 	/** The Fragment source. */
-	private final File fragmentSource;
+	private final File                      fragmentSource;
+	/** The Defines. */
+	private final SortedMap<String, String> defines;
+	/** The Uniforms. */
+	private final UniformTable              uniforms = new UniformTable();
+	/** The IdObject, created in init and replaced by each successful reload. */
+	private int              programID = 0;
 	/** The Fail. */
-	private boolean fail = false;
+	private boolean          fail      = false;
+	/** The build still compiling, or null. */
+	private ShaderCompileJob pending;
 
 	/**
 	 * Instantiates a new Shader.
@@ -42,50 +65,404 @@ public abstract class Shader implements IdObject {
 	 *   the frag
 	 */
 	protected Shader(File vert, File frag) {
+		this(vert, frag, Collections.<String, String>emptyMap());
+	}
+
+	/**
+	 * Instantiates a new Shader variant, see {@link ShaderPermutations} to share variants.
+	 *
+	 * @param vert
+	 *   the vert
+	 * @param frag
+	 *   the frag
+	 * @param defines
+	 *   the defines put at the top of both sources
+	 */
+	protected Shader(File vert, File frag, Map<String, String> defines) {
 		this.vertexSource = vert;
 		this.fragmentSource = frag;
+		this.defines = ShaderPreprocessor.toDefines(defines);
 		addToHandler();
 	}
 
-	@Override
-	public final void init() {
-		StringBuilder vertexCode = readFile(vertexSource, "\n");
-		StringBuilder fragmentCode = readFile(fragmentSource, "\n");
+	/**
+	 * Sets binary cache. Shaders initialized afterwards load their programs from it when they can.
+	 *
+	 * @param cache
+	 *   the cache, or null to always compile from source
+	 */
+	public static void setBinaryCache(ShaderBinaryCache cache) {
+		binaryCache = cache;
+	}
+
+	/**
+	 * Gets binary cache.
+	 *
+	 * @return the binary cache, or null
+	 */
+	public static ShaderBinaryCache getBinaryCache() {
+		return binaryCache;
+	}
+
+	/**
+	 * Sets compile queue. Shaders initialized or reloaded afterwards compile through it, becoming
+	 * {@link #isReady() ready} on a later frame, rather than stalling the frame they are initialized on.
+	 *
+	 * @param queue
+	 *   the queue, or null to compile at once
+	 */
+	public static void setCompileQueue(ShaderCompileQueue queue) {
+		compileQueue = queue;
+	}
 
-		glShaderSource(vertexShader, vertexCode);
-		glShaderSource(fragmentShader, fragmentCode);
+	/**
+	 * Gets compile queue.
+	 *
+	 * @return the compile queue, or null
+	 */
+	public static ShaderCompileQueue getCompileQueue() {
+		return compileQueue;
+	}
 
-		glCompileShader(vertexShader);
-		glCompileShader(fragmentShader);
+	/**
+	 * Gets preprocessor.
+	 *
+	 * @return the preprocessor every shader's sources are expanded by
+	 */
+	public static ShaderPreprocessor getPreprocessor() {
+		return PREPROCESSOR;
+	}
 
-		if(glGetShaderi(vertexShader, GL_COMPILE_STATUS) != GL_TRUE) {
-			if(LOGGER.isWarningEnabled()) {
-				LOGGER.logWarning(MessageFormat.format("Failed to compile shader: {0}", vertexSource), null);
-			}
-			fail = true;
-		}
-		if(glGetShaderi(fragmentShader, GL_COMPILE_STATUS) != GL_TRUE) {
+	@Override
+	public final void init() {
+		programID = glCreateProgram();
+		try {
+			CharSequence[] sources = readSources();
+			build(programID, sources[0], sources[1], false);
+		} catch(IOException e) {
 			if(LOGGER.isWarningEnabled()) {
-				LOGGER.logWarning(MessageFormat.format("Failed to compile shader: {0}", fragmentSource), null);
+				LOGGER.logWarning(MessageFormat.format("Failed to preprocess shader: {0}", vertexSource), e);
 			}
 			fail = true;
 		}
+	}
 
-		glAttachShader(programID, vertexShader);
-		glAttachShader(programID, fragmentShader);
+	/**
+	 * Reload the shader from new sources on the render thread. The new program replaces the current one once it
+	 * links, until then and if it fails the current one keeps being used.
+	 *
+	 * @param vertexCode
+	 *   the vertex code
+	 * @param fragmentCode
+	 *   the fragment code
+	 */
+	final void reload(CharSequence vertexCode, CharSequence fragmentCode) {
+		if(programID == 0) {
+			return;
+		}
+		build(glCreateProgram(), vertexCode, fragmentCode, true);
+	}
 
-		glLinkProgram(programID);
+	/**
+	 * Build a program, from the binary cache when it can, otherwise through the compile queue. Without a queue the
+	 * program is compiled and linked before this returns. A build still compiling is cancelled by the next one.
+	 */
+	private void build(int program, CharSequence vertexCode, CharSequence fragmentCode, boolean reload) {
+		if(pending != null) {
+			pending.cancel();
+		}
+		ShaderBinaryCache cache = binaryCache;
+		String key = null;
+		if((cache != null) && cache.isSupported()) {
+			key = cache.key(vertexCode, fragmentCode);
+			if(cache.load(program, key)) {
+				built(program, ShaderCompileState.LINKED, cache, null, reload);
+				return;
+			}
+			cache.prepare(program);
+		}
 
-		glValidateProgram(programID);
+		ShaderCompileQueue queue = compileQueue;
+		String name = MessageFormat.format("{0}, {1}", vertexSource, fragmentSource);
+		ShaderCompileJob job = ((queue == null) ? IMMEDIATE : queue).submit(name, program, vertexCode, fragmentCode);
+		pending = job;
+		job.toStage().thenAccept(new Built(job, cache, key, reload));
+		if(queue == null) {
+			IMMEDIATE.finish(job);
+		}
+	}
 
+	/** Use a built program, or drop it. */
+	private void built(int program, ShaderCompileState state, ShaderBinaryCache cache, String key, boolean reload) {
+		boolean linked = state == ShaderCompileState.LINKED;
+		if(reload) {
+			if(!linked) {
+				glDeleteProgram(program);
+				if((state == ShaderCompileState.FAILED) && LOGGER.isWarningEnabled()) {
+					LOGGER.logWarning(MessageFormat.format("Kept the previous program of {0}", this), null);
+				}
+				return;
+			}
+			boolean bound = boundProgram == programID;
+			glDeleteProgram(programID);
+			programID = program;
+			if(bound) {
+				boundProgram = 0;
+				bind();
+			}
+			if(LOGGER.isDebugEnabled()) {
+				LOGGER.logDebug(MessageFormat.format("Reloaded {0}, {1}", vertexSource, fragmentSource));
+			}
+		}
+		fail = !linked;
+		if(linked) {
+			uniforms.introspect(program);
+			if(key != null) {
+				cache.store(program, key);
+			}
+		}
 		GameHelper.checkForError(LOGGER, Shader.class);
 	}
 
 	@Override
 	public final void destroy() {
-		glDeleteShader(vertexShader);
-		glDeleteShader(fragmentShader);
-		glDeleteProgram(programID);
+		if(pending != null) {
+			pending.cancel();
+		}
+		if(programID != 0) {
+			if(boundProgram == programID) {
+				boundProgram = 0;
+			}
+			glDeleteProgram(programID);
+			programID = 0;
+		}
+	}
+
+	/** Use the program, unless it is already in use. */
+	public final void bind() {
+		if(boundProgram != programID) {
+			glUseProgram(programID);
+			boundProgram = programID;
+		}
+	}
+
+	/** Stop using any program, going back to the fixed function pipeline. */
+	public static void unbind() {
+		if(boundProgram != 0) {
+			glUseProgram(0);
+			boundProgram = 0;
+		}
+	}
+
+	/**
+	 * Gets a uniform's handle. Look it up once and keep it, it stays valid across reloads.
+	 *
+	 * @param name
+	 *   the uniform name
+	 *
+	 * @return the handle, setting an inactive uniform does nothing
+	 */
+	public final int getUniform(String name) {
+		return uniforms.handle(name);
+	}
+
+	/**
+	 * Is uniform active.
+	 *
+	 * @param uniform
+	 *   the uniform handle
+	 *
+	 * @return whether the current program uses the uniform
+	 */
+	public final boolean isUniformActive(int uniform) {
+		return uniforms.getLocation(uniform) >= 0;
+	}
+
+	/**
+	 * Sets an int or sampler uniform. This and the other setters need the shader bound, and make no GL call when
+	 * the value is unchanged.
+	 *
+	 * @param uniform
+	 *   the uniform handle
+	 * @param value
+	 *   the value
+	 */
+	public final void setUniform(int uniform, int value) {
+		if(uniforms.set(uniform, -1, value, 0, 0, 0)) {
+			glUniform1i(uniforms.getLocation(uniform), value);
+		}
+	}
+
+	/**
+	 * Sets a float uniform.
+	 *
+	 * @param uniform
+	 *   the uniform handle
+	 * @param x
+	 *   the value
+	 */
+	public final void setUniform(int uniform, float x) {
+		if(uniforms.set(uniform, 1, Float.floatToRawIntBits(x), 0, 0, 0)) {
+			glUniform1f(uniforms.getLocation(uniform), x);
+		}
+	}
+
+	/**
+	 * Sets a vec2 uniform.
+	 *
+	 * @param uniform
+	 *   the uniform handle
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 */
+	public final void setUniform(int uniform, float x, float y) {
+		if(uniforms.set(uniform, 2, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), 0, 0)) {
+			glUniform2f(uniforms.getLocation(uniform), x, y);
+		}
+	}
+
+	/**
+	 * Sets a vec3 uniform.
+	 *
+	 * @param uniform
+	 *   the uniform handle
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 */
+	public final void setUniform(int uniform, float x, float y, float z) {
+		if(uniforms.set(uniform, 3, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), Float.floatToRawIntBits(z),
+		                0)) {
+			glUniform3f(uniforms.getLocation(uniform), x, y, z);
+		}
+	}
+
+	/**
+	 * Sets a vec4 uniform.
+	 *
+	 * @param uniform
+	 *   the uniform handle
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 * @param w
+	 *   the w
+	 */
+	public final void setUniform(int uniform, float x, float y, float z, float w) {
+		if(uniforms.set(uniform, 4, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), Float.floatToRawIntBits(z),
+		                Float.floatToRawIntBits(w))) {
+			glUniform4f(uniforms.getLocation(uniform), x, y, z, w);
+		}
+	}
+
+	/**
+	 * Sets a mat4 uniform.
+	 *
+	 * @param uniform
+	 *   the uniform handle
+	 * @param matrix
+	 *   the matrix, 16 values in column major order
+	 */
+	public final void setUniformMatrix4(int uniform, float[] matrix) {
+		if(matrix.length != UniformTable.SLOTS) {
+			throw new IllegalArgumentException("A 4x4 matrix has 16 values");
+		}
+		if(uniforms.set(uniform, matrix)) {
+			MATRIX.clear();
+			MATRIX.put(matrix).flip();
+			glUniformMatrix4(uniforms.getLocation(uniform), false, MATRIX);
+		}
+	}
+
+	/**
+	 * Bind a uniform block to a binding point, such as a {@link UniformBuffer}'s, and again after every reload.
+	 *
+	 * @param name
+	 *   the block name
+	 * @param binding
+	 *   the binding point
+	 *
+	 * @return whether the current program has the block
+	 */
+	public final boolean bindUniformBlock(String name, int binding) {
+		return uniforms.bindBlock(programID, name, binding);
+	}
+
+	/**
+	 * Read and expand both sources. Makes no GL calls, so any thread can do it.
+	 *
+	 * @return the vertex and fragment code
+	 *
+	 * @throws IOException
+	 *   if a source or an included file can not be read
+	 */
+	final CharSequence[] readSources() throws IOException {
+		return new CharSequence[]{PREPROCESSOR.get(vertexSource, defines), PREPROCESSOR.get(fragmentSource, defines)};
+	}
+
+	/**
+	 * Read and expand both sources past the preprocessor's cache, for a reload after a change. Makes no GL calls.
+	 *
+	 * @return the vertex and fragment code
+	 *
+	 * @throws IOException
+	 *   if a source or an included file can not be read
+	 */
+	final CharSequence[] rereadSources() throws IOException {
+		return new CharSequence[]{PREPROCESSOR.refresh(vertexSource, defines),
+		                          PREPROCESSOR.refresh(fragmentSource, defines)};
+	}
+
+	/**
+	 * Gets files.
+	 *
+	 * @return the sources and every file they included when last read
+	 *
+	 * @throws IOException
+	 *   if a source path can not be made canonical
+	 */
+	final Collection<File> getFiles() throws IOException {
+		Collection<File> files = new LinkedHashSet<>(8);
+		files.add(vertexSource);
+		files.add(fragmentSource);
+		files.addAll(PREPROCESSOR.getFiles(vertexSource, defines));
+		files.addAll(PREPROCESSOR.getFiles(fragmentSource, defines));
+		return files;
+	}
+
+	/**
+	 * Gets defines.
+	 *
+	 * @return the defines, sorted by name
+	 */
+	public final SortedMap<String, String> getDefines() {
+		return defines;
+	}
+
+	/**
+	 * Gets vertex source.
+	 *
+	 * @return the vertex source
+	 */
+	final File getVertexSource() {
+		return vertexSource;
+	}
+
+	/**
+	 * Gets fragment source.
+	 *
+	 * @return the fragment source
+	 */
+	final File getFragmentSource() {
+		return fragmentSource;
 	}
 
 	@Override
@@ -104,6 +481,25 @@ public abstract class Shader implements IdObject {
 		return fail;
 	}
 
+	/**
+	 * Is ready. A shader still compiling must not be drawn with, while a reload is compiling the previous program
+	 * is used.
+	 *
+	 * @return whether the program linked
+	 */
+	public final boolean isReady() {
+		return (programID != 0) && !fail && ((pending == null) || (pending.getProgram() != programID));
+	}
+
+	/**
+	 * Gets compile job.
+	 *
+	 * @return the build still compiling, or null
+	 */
+	public final ShaderCompileJob getCompileJob() {
+		return pending;
+	}
+
 	/**
 	 * Gets handler.
 	 *
@@ -115,4 +511,27 @@ public abstract class Shader implements IdObject {
 	private void addToHandler() {
 		getHandler().addObject(this);
 	}
+
+	/** Finishes a build on the render thread once its job is done. */
+	private final class Built implements Consumer<ShaderCompileJob> {
+		private final ShaderCompileJob  job;
+		private final ShaderBinaryCache cache;
+		private final String            key;
+		private final boolean           reload;
+
+		private Built(ShaderCompileJob job, ShaderBinaryCache cache, String key, boolean reload) {
+			this.job = job;
+			this.cache = cache;
+			this.key = key;
+			this.reload = reload;
+		}
+
+		@Override
+		public void accept(ShaderCompileJob done) {
+			if(pending == job) {
+				pending = null;
+			}
+			built(job.getProgram(), job.getState(), cache, key, reload);
+		}
+	}
 }
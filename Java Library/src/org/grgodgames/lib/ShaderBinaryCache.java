@@ -0,0 +1,345 @@
+package org.grgodgames.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The type Shader binary cache. Keeps linked programs on disk so a {@link Shader} only compiles its sources the
+ * first time they, or the driver, change.
+ * <p>
+ * Entries are keyed by a SHA-256 of the driver's vendor, renderer and version strings and every source. Each file
+ * is a header (magic, version, key, binary format, size and CRC-32) followed by the binary; it is written to a
+ * temporary file and moved into place, so a crash can leave a stale file but never a torn one. A file that fails
+ * any check is deleted, as is a binary the driver rejects, and the program is compiled from source and stored again.
+ * <p>
+ * Caches are used from the render thread.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ShaderBinaryCache {
+	/** The file extension of entries. */
+	public static final  String                EXTENSION   = ".bin";
+	private static final GameLogger            LOGGER      =
+		GameLogger.loggerOf(Logger.getLogger(ShaderBinaryCache.class.getName()));
+	/** "GSPB", GrGod shader program binary. */
+	private static final int                   MAGIC       = 0x47535042;
+	private static final int                   VERSION     = 1;
+	private static final int                   KEY_SIZE    = 32;
+	private static final int                   HEADER_SIZE = (5 * Integer.BYTES) + KEY_SIZE;
+	private static final char[]                HEX         = "0123456789abcdef".toCharArray();
+	private final        File                  directory;
+	private final        ProgramBinaryProvider provider;
+	private              Boolean               supported;
+	private              String                driver;
+	private              int                   hits;
+	private              int                   misses;
+	private              int                   rejections;
+
+	/**
+	 * Instantiates a new Shader binary cache for the current context.
+	 *
+	 * @param directory
+	 *   the directory, made when the first entry is stored
+	 */
+	public ShaderBinaryCache(File directory) {
+		this(directory, new GLProgramBinaryProvider());
+	}
+
+	/**
+	 * Instantiates a new Shader binary cache.
+	 *
+	 * @param directory
+	 *   the directory, made when the first entry is stored
+	 * @param provider
+	 *   the provider making the GL calls
+	 */
+	public ShaderBinaryCache(File directory, ProgramBinaryProvider provider) {
+		this.directory = directory;
+		this.provider = provider;
+	}
+
+	/**
+	 * Derive a key for a driver. Not an overload of {@link #key(CharSequence...)}, which string sources would resolve
+	 * to this instead.
+	 *
+	 * @param driver
+	 *   the driver strings
+	 * @param sources
+	 *   the sources, in the order they are compiled
+	 *
+	 * @return the key, 64 lowercase hex digits
+	 */
+	public static String keyOf(String driver, CharSequence... sources) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every Java platform has SHA-256", e);
+		}
+		update(digest, driver);
+		for(CharSequence source : sources) {
+			update(digest, source);
+		}
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+		for(int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			hex[(i * 2) + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/** Length prefixed, so moving text from the end of one source to the start of the next changes the key. */
+	private static void update(MessageDigest digest, CharSequence text) {
+		ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+		digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.remaining()).array());
+		digest.update(bytes);
+	}
+
+	private static byte[] toBytes(String key) {
+		if(key.length() != (KEY_SIZE * 2)) {
+			throw new IllegalArgumentException(MessageFormat.format("{0} is not a shader binary key", key));
+		}
+		byte[] bytes = new byte[KEY_SIZE];
+		for(int i = 0; i < KEY_SIZE; i++) {
+			bytes[i] = (byte) Integer.parseInt(key.substring(i * 2, (i * 2) + 2), 16);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Is supported. Asked once, then remembered.
+	 *
+	 * @return whether the driver can save and load program binaries
+	 */
+	public boolean isSupported() {
+		if(supported == null) {
+			supported = provider.isSupported();
+		}
+		return supported;
+	}
+
+	/**
+	 * Derive the key of sources for the current driver.
+	 *
+	 * @param sources
+	 *   the sources, in the order they are compiled
+	 *
+	 * @return the key
+	 */
+	public String key(CharSequence... sources) {
+		if(driver == null) {
+			driver = provider.getDriver();
+		}
+		return keyOf(driver, sources);
+	}
+
+	/**
+	 * Gets file.
+	 *
+	 * @param key
+	 *   the key
+	 *
+	 * @return the file the entry is stored in
+	 */
+	public File getFile(String key) {
+		return new File(directory, key + EXTENSION);
+	}
+
+	/**
+	 * Prepare a program that missed the cache, call before linking it so its binary can be stored.
+	 *
+	 * @param program
+	 *   the program
+	 */
+	public void prepare(int program) {
+		provider.setRetrievable(program);
+	}
+
+	/**
+	 * Load a program from the cache.
+	 *
+	 * @param program
+	 *   the program, with nothing attached
+	 * @param key
+	 *   the key
+	 *
+	 * @return whether the program is linked, if not compile it from source and {@link #store(int, String)} it
+	 */
+	public boolean load(int program, String key) {
+		File file = getFile(key);
+		if(!file.isFile()) {
+			misses++;
+			return false;
+		}
+		ProgramBinary binary;
+		try {
+			binary = read(file, key);
+		} catch(IOException e) {
+			if(LOGGER.isWarningEnabled()) {
+				LOGGER.logWarning(MessageFormat.format("Discarding shader binary {0}", file), e);
+			}
+			delete(file.toPath());
+			misses++;
+			return false;
+		}
+		if(!provider.loadBinary(program, binary)) {
+			if(LOGGER.isDebugEnabled()) {
+				LOGGER.logDebug(MessageFormat.format("The driver rejected shader binary {0}", file));
+			}
+			// evicted even if the binary compiled next cannot be stored, so it is not offered again
+			delete(file.toPath());
+			rejections++;
+			return false;
+		}
+		hits++;
+		return true;
+	}
+
+	private static ProgramBinary read(File file, String key) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		if(buffer.remaining() < HEADER_SIZE) {
+			throw new IOException("The header is truncated");
+		}
+		if((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)) {
+			throw new IOException("The file is not a shader binary of this version");
+		}
+		byte[] stored = new byte[KEY_SIZE];
+		buffer.get(stored);
+		if(!Arrays.equals(stored, toBytes(key))) {
+			throw new IOException("The file holds another key");
+		}
+		int format = buffer.getInt();
+		int size = buffer.getInt();
+		int checksum = buffer.getInt();
+		if(size != buffer.remaining()) {
+			throw new IOException(MessageFormat.format("The binary is {0} bytes, not {1}", buffer.remaining(), size));
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate());
+		if((int) crc.getValue() != checksum) {
+			throw new IOException("The checksum does not match");
+		}
+		return new ProgramBinary(format, buffer.slice());
+	}
+
+	/**
+	 * Store a linked program, replacing any entry with the key.
+	 *
+	 * @param program
+	 *   the program, prepared before it was linked
+	 * @param key
+	 *   the key
+	 *
+	 * @return whether it was stored
+	 */
+	public boolean store(int program, String key) {
+		byte[] keyBytes = toBytes(key);
+		ProgramBinary binary = provider.getBinary(program);
+		if(binary == null) {
+			return false;
+		}
+		ByteBuffer data = binary.getData();
+		CRC32 crc = new CRC32();
+		crc.update(data.duplicate());
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).put(keyBytes);
+		header.putInt(binary.getFormat()).putInt(data.remaining()).putInt((int) crc.getValue());
+		header.flip();
+
+		Path target = getFile(key).toPath();
+		Path temp = null;
+		try {
+			Files.createDirectories(directory.toPath());
+			temp = Files.createTempFile(directory.toPath(), key, ".tmp");
+			try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while(header.hasRemaining()) {
+					channel.write(header);
+				}
+				while(data.hasRemaining()) {
+					channel.write(data);
+				}
+				channel.force(true);
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} catch(IOException e) {
+			if(LOGGER.isWarningEnabled()) {
+				LOGGER.logWarning(MessageFormat.format("Failed to store shader binary {0}", target), e);
+			}
+			if(temp != null) {
+				delete(temp);
+			}
+			return false;
+		}
+	}
+
+	private static void delete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch(IOException e) {
+			if(LOGGER.isWarningEnabled()) {
+				LOGGER.logWarning(MessageFormat.format("Failed to delete {0}", path), e);
+			}
+		}
+	}
+
+	/**
+	 * Gets hit count.
+	 *
+	 * @return the number of programs loaded from the cache
+	 */
+	public int getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Gets miss count.
+	 *
+	 * @return the number of loads with no valid entry
+	 */
+	public int getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Gets rejection count.
+	 *
+	 * @return the number of valid entries the driver rejected
+	 */
+	public int getRejectionCount() {
+		return rejections;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ShaderBinaryCache{");
+		sb.append("directory=").append(directory);
+		sb.append(", hits=").append(hits);
+		sb.append(", misses=").append(misses);
+		sb.append(", rejections=").append(rejections);
+		sb.append('}');
+		return sb.toString();
+	}
+}
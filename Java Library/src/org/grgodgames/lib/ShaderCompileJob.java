@@ -0,0 +1,191 @@
+package org.grgodgames.lib;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The type Shader compile job. One program compiling through a {@link ShaderCompileQueue}, usable once it is
+ * {@link #isReady() ready}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ShaderCompileJob {
+	private final    String                              name;
+	private final    int                                 program;
+	private final    CompletableFuture<ShaderCompileJob> future = new CompletableFuture<>();
+	private          CharSequence                        vertexCode;
+	private          CharSequence                        fragmentCode;
+	private          int                                 vertexShader;
+	private          int                                 fragmentShader;
+	private          String                              log    = "";
+	private volatile ShaderCompileState                  state  = ShaderCompileState.QUEUED;
+
+	/**
+	 * Instantiates a new Shader compile job.
+	 *
+	 * @param name
+	 *   the name used in logs
+	 * @param program
+	 *   the program, with nothing attached
+	 * @param vertexCode
+	 *   the vertex code
+	 * @param fragmentCode
+	 *   the fragment code
+	 */
+	ShaderCompileJob(String name, int program, CharSequence vertexCode, CharSequence fragmentCode) {
+		this.name = name;
+		this.program = program;
+		this.vertexCode = vertexCode;
+		this.fragmentCode = fragmentCode;
+	}
+
+	/**
+	 * Gets name.
+	 *
+	 * @return the name used in logs
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets program.
+	 *
+	 * @return the program
+	 */
+	public int getProgram() {
+		return program;
+	}
+
+	/**
+	 * Gets state.
+	 *
+	 * @return the state
+	 */
+	public ShaderCompileState getState() {
+		return state;
+	}
+
+	/**
+	 * Is ready.
+	 *
+	 * @return whether the program linked, so using it will not wait for the driver
+	 */
+	public boolean isReady() {
+		return state == ShaderCompileState.LINKED;
+	}
+
+	/**
+	 * Is done.
+	 *
+	 * @return whether the job linked, failed or was cancelled
+	 */
+	public boolean isDone() {
+		return state.isDone();
+	}
+
+	/**
+	 * Gets log.
+	 *
+	 * @return the compile and link logs once done, empty if the driver had nothing to say
+	 */
+	public String getLog() {
+		return log;
+	}
+
+	/**
+	 * To stage.
+	 *
+	 * @return a stage completed with the job on the render thread once it is done, however it ended
+	 */
+	public CompletionStage<ShaderCompileJob> toStage() {
+		return future;
+	}
+
+	/**
+	 * Cancel the job on the render thread. Its shaders are deleted, the program is left to its owner.
+	 *
+	 * @return whether it was cancelled, false if it was already done
+	 */
+	public boolean cancel() {
+		if(state.isDone()) {
+			return false;
+		}
+		finish(ShaderCompileState.CANCELLED, log);
+		return true;
+	}
+
+	/**
+	 * Issue the compiles and the link.
+	 *
+	 * @param compiler
+	 *   the compiler
+	 */
+	void issue(ShaderCompiler compiler) {
+		vertexShader = compiler.compileShader(ShaderCompileQueue.VERTEX_SHADER, vertexCode);
+		fragmentShader = compiler.compileShader(ShaderCompileQueue.FRAGMENT_SHADER, fragmentCode);
+		vertexCode = null;
+		fragmentCode = null;
+		compiler.linkProgram(program, vertexShader, fragmentShader);
+		state = ShaderCompileState.COMPILING;
+	}
+
+	/**
+	 * Resolve an issued job, waiting for the driver if it is not done. The shaders are deleted either way.
+	 *
+	 * @param compiler
+	 *   the compiler
+	 */
+	void resolve(ShaderCompiler compiler) {
+		if(compiler.getLinkStatus(program)) {
+			release(compiler);
+			finish(ShaderCompileState.LINKED, "");
+			return;
+		}
+		StringBuilder sb = new StringBuilder(256);
+		if(!compiler.getCompileStatus(vertexShader)) {
+			sb.append("Vertex shader: ").append(compiler.getShaderLog(vertexShader)).append('\n');
+		}
+		if(!compiler.getCompileStatus(fragmentShader)) {
+			sb.append("Fragment shader: ").append(compiler.getShaderLog(fragmentShader)).append('\n');
+		}
+		sb.append("Program: ").append(compiler.getProgramLog(program));
+		release(compiler);
+		finish(ShaderCompileState.FAILED, sb.toString());
+	}
+
+	/**
+	 * Release the shaders of an issued job.
+	 *
+	 * @param compiler
+	 *   the compiler
+	 */
+	void release(ShaderCompiler compiler) {
+		if(vertexShader != 0) {
+			compiler.deleteShader(vertexShader);
+			vertexShader = 0;
+		}
+		if(fragmentShader != 0) {
+			compiler.deleteShader(fragmentShader);
+			fragmentShader = 0;
+		}
+	}
+
+	private void finish(ShaderCompileState next, String message) {
+		log = message;
+		state = next;
+		future.complete(this);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ShaderCompileJob{");
+		sb.append("name=").append(name);
+		sb.append(", program=").append(program);
+		sb.append(", state=").append(state);
+		sb.append('}');
+		return sb.toString();
+	}
+}
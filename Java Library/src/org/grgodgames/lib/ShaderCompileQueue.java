@@ -0,0 +1,175 @@
+package org.grgodgames.lib;
+
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL20.GL_FRAGMENT_SHADER;
+import static org.lwjgl.opengl.GL20.GL_VERTEX_SHADER;
+
+/**
+ * The type Shader compile queue. Compiles programs without the render thread waiting on the driver.
+ * <p>
+ * Asking for a compile or link status makes the driver finish that work there and then, so compiling shaders one
+ * by one stalls the frame once per shader. Instead {@link #update(long)} runs once a frame and first polls the jobs
+ * issued on earlier frames, then issues the compiles and links of queued jobs without asking for any status. With
+ * KHR_parallel_shader_compile or ARB_parallel_shader_compile the driver compiles in the background and polling
+ * never waits. Without them, the driver has had at least a frame to work through each job before it is resolved.
+ * The resolving then stays within the frame's time budget, except that at least one job is resolved each frame so
+ * the queue always moves.
+ * <p>
+ * A queue is used from the render thread only.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ShaderCompileQueue {
+	/** The default time a frame spends on compiles, in nanoseconds. */
+	public static final  long                    DEFAULT_BUDGET  = 2_000_000L;
+	/** The vertex shader type. */
+	static final         int                     VERTEX_SHADER   = GL_VERTEX_SHADER;
+	/** The fragment shader type. */
+	static final         int                     FRAGMENT_SHADER = GL_FRAGMENT_SHADER;
+	private static final GameLogger              LOGGER          =
+		GameLogger.loggerOf(Logger.getLogger(ShaderCompileQueue.class.getName()));
+	private final        ShaderCompiler          compiler;
+	private final        Queue<ShaderCompileJob> queued          = new ArrayDeque<>(16);
+	private final        Queue<ShaderCompileJob> issued          = new ArrayDeque<>(16);
+
+	/** Instantiates a new Shader compile queue for the current context. */
+	public ShaderCompileQueue() {
+		this(new GLShaderCompiler());
+	}
+
+	/**
+	 * Instantiates a new Shader compile queue.
+	 *
+	 * @param compiler
+	 *   the compiler making the GL calls
+	 */
+	public ShaderCompileQueue(ShaderCompiler compiler) {
+		this.compiler = compiler;
+	}
+
+	/**
+	 * Queue a program. Nothing is sent to the driver until the next {@link #update(long)}.
+	 *
+	 * @param name
+	 *   the name used in logs
+	 * @param program
+	 *   the program, with nothing attached
+	 * @param vertexCode
+	 *   the vertex code
+	 * @param fragmentCode
+	 *   the fragment code
+	 *
+	 * @return the job
+	 */
+	public ShaderCompileJob submit(String name, int program, CharSequence vertexCode, CharSequence fragmentCode) {
+		ShaderCompileJob job = new ShaderCompileJob(name, program, vertexCode, fragmentCode);
+		queued.add(job);
+		return job;
+	}
+
+	/**
+	 * Poll the jobs issued on earlier frames, then issue the queued ones.
+	 *
+	 * @param budget
+	 *   the time budget in nanoseconds, for drivers that compile in the foreground
+	 *
+	 * @return the number of jobs that finished
+	 */
+	public int update(long budget) {
+		long start = System.nanoTime();
+		boolean parallel = compiler.isParallel();
+		int finished = 0;
+		Iterator<ShaderCompileJob> iterator = issued.iterator();
+		while(iterator.hasNext()) {
+			ShaderCompileJob job = iterator.next();
+			if(job.isDone()) {
+				// cancelled since it was issued
+				job.release(compiler);
+				iterator.remove();
+				continue;
+			}
+			if(parallel) {
+				if(!compiler.isComplete(job.getProgram())) {
+					continue;
+				}
+			} else if((finished > 0) && ((System.nanoTime() - start) >= budget)) {
+				break;
+			}
+			resolve(job);
+			iterator.remove();
+			finished++;
+		}
+
+		ShaderCompileJob job = queued.poll();
+		while(job != null) {
+			if(!job.isDone()) {
+				job.issue(compiler);
+				issued.add(job);
+			}
+			if(!parallel && ((System.nanoTime() - start) >= budget)) {
+				break;
+			}
+			job = queued.poll();
+		}
+		return finished;
+	}
+
+	/**
+	 * Finish a job now, waiting for the driver. For callers that need the program at once.
+	 *
+	 * @param job
+	 *   the job, from this queue
+	 */
+	public void finish(ShaderCompileJob job) {
+		if(job.isDone()) {
+			return;
+		}
+		if(queued.remove(job)) {
+			job.issue(compiler);
+		} else {
+			issued.remove(job);
+		}
+		resolve(job);
+	}
+
+	private void resolve(ShaderCompileJob job) {
+		job.resolve(compiler);
+		if((job.getState() == ShaderCompileState.FAILED) && LOGGER.isWarningEnabled()) {
+			LOGGER.logWarning(MessageFormat.format("Failed to build {0}:\n{1}", job.getName(), job.getLog()), null);
+		}
+	}
+
+	/**
+	 * Is empty.
+	 *
+	 * @return whether no job is queued or compiling
+	 */
+	public boolean isEmpty() {
+		return queued.isEmpty() && issued.isEmpty();
+	}
+
+	/**
+	 * Size.
+	 *
+	 * @return the number of jobs queued or compiling
+	 */
+	public int size() {
+		return queued.size() + issued.size();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ShaderCompileQueue{");
+		sb.append("queued=").append(queued.size());
+		sb.append(", issued=").append(issued.size());
+		sb.append('}');
+		return sb.toString();
+	}
+}
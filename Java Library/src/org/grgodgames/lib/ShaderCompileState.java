@@ -0,0 +1,30 @@
+package org.grgodgames.lib;
+
+/**
+ * The enum Shader compile state. The stages a {@link ShaderCompileJob} moves through, in order.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public enum ShaderCompileState {
+	/** Waiting for the queue's next update to issue its compiles and link. */
+	QUEUED,
+	/** Compiles and link issued, the driver may still be working on them. */
+	COMPILING,
+	/** Linked, the program is ready to use. */
+	LINKED,
+	/** A stage failed, the job has its log. */
+	FAILED,
+	/** Cancelled before it finished. */
+	CANCELLED;
+
+	/**
+	 * Is done.
+	 *
+	 * @return whether the state is final
+	 */
+	public boolean isDone() {
+		return (this == LINKED) || (this == FAILED) || (this == CANCELLED);
+	}
+}
@@ -0,0 +1,98 @@
+package org.grgodgames.lib;
+
+/**
+ * The interface Shader compiler. The GL calls a {@link ShaderCompileQueue} makes, so its state machine can run
+ * against a stand in without a context.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public interface ShaderCompiler {
+	/**
+	 * Is parallel.
+	 *
+	 * @return whether the driver compiles in the background and can say when it is done without waiting
+	 */
+	boolean isParallel();
+
+	/**
+	 * Create a shader and start compiling it.
+	 *
+	 * @param type
+	 *   the shader type, such as {@code GL_VERTEX_SHADER}
+	 * @param source
+	 *   the source
+	 *
+	 * @return the shader
+	 */
+	int compileShader(int type, CharSequence source);
+
+	/**
+	 * Attach shaders and start linking.
+	 *
+	 * @param program
+	 *   the program
+	 * @param shaders
+	 *   the compiled shaders
+	 */
+	void linkProgram(int program, int... shaders);
+
+	/**
+	 * Is complete. Only asked when {@link #isParallel()}, and never waits.
+	 *
+	 * @param program
+	 *   the program
+	 *
+	 * @return whether compiling and linking have finished
+	 */
+	boolean isComplete(int program);
+
+	/**
+	 * Gets compile status, waiting for the compile to finish.
+	 *
+	 * @param shader
+	 *   the shader
+	 *
+	 * @return whether it compiled
+	 */
+	boolean getCompileStatus(int shader);
+
+	/**
+	 * Gets link status, waiting for the link to finish.
+	 *
+	 * @param program
+	 *   the program
+	 *
+	 * @return whether it linked
+	 */
+	boolean getLinkStatus(int program);
+
+	/**
+	 * Gets shader log.
+	 *
+	 * @param shader
+	 *   the shader
+	 *
+	 * @return the info log
+	 */
+	String getShaderLog(int shader);
+
+	/**
+	 * Gets program log.
+	 *
+	 * @param program
+	 *   the program
+	 *
+	 * @return the info log
+	 */
+	String getProgramLog(int program);
+
+	/**
+	 * Delete a shader, it goes once no program has it attached.
+	 *
+	 * @param shader
+	 *   the shader
+	 */
+	void deleteShader(int shader);
+}
@@ -0,0 +1,158 @@
+package org.grgodgames.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The type Shader permutations. Shares one shader per variant, keyed by its sources and define set, so each
+ * variant is preprocessed and compiled once however many objects draw with it.
+ *
+ * @param <S>
+ *   the shader type
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ShaderPermutations<S extends Shader> {
+	private final Factory<S>  factory;
+	private final Map<Key, S> shaders = new HashMap<>(16);
+	private       int         hits;
+	private       int         misses;
+
+	/**
+	 * Instantiates a new Shader permutations.
+	 *
+	 * @param factory
+	 *   the factory making each variant
+	 */
+	public ShaderPermutations(Factory<S> factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Gets a variant, making it the first time it is asked for.
+	 *
+	 * @param vertexSource
+	 *   the vertex source
+	 * @param fragmentSource
+	 *   the fragment source
+	 * @param defines
+	 *   the defines
+	 *
+	 * @return the shared shader
+	 *
+	 * @throws IOException
+	 *   if a source path can not be made canonical
+	 */
+	public S get(File vertexSource, File fragmentSource, Map<String, String> defines) throws IOException {
+		Key key = new Key(vertexSource.getCanonicalFile(), fragmentSource.getCanonicalFile(),
+		                  ShaderPreprocessor.toDefines(defines));
+		synchronized(this) {
+			S shader = shaders.get(key);
+			if(shader != null) {
+				hits++;
+				return shader;
+			}
+			misses++;
+			shader = factory.create(key.vertexSource, key.fragmentSource, key.defines);
+			shaders.put(key, shader);
+			return shader;
+		}
+	}
+
+	/**
+	 * Size.
+	 *
+	 * @return the number of variants made
+	 */
+	public synchronized int size() {
+		return shaders.size();
+	}
+
+	/**
+	 * Gets hit count.
+	 *
+	 * @return the number of requests that shared a variant
+	 */
+	public synchronized int getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Gets miss count.
+	 *
+	 * @return the number of variants made
+	 */
+	public synchronized int getMissCount() {
+		return misses;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder("ShaderPermutations{");
+		sb.append("size=").append(shaders.size());
+		sb.append(", hits=").append(hits);
+		sb.append(", misses=").append(misses);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/**
+	 * The interface Factory. Makes the shader of one variant.
+	 *
+	 * @param <S>
+	 *   the shader type
+	 */
+	public interface Factory<S extends Shader> {
+		/**
+		 * Create a shader.
+		 *
+		 * @param vertexSource
+		 *   the canonical vertex source
+		 * @param fragmentSource
+		 *   the canonical fragment source
+		 * @param defines
+		 *   the defines, sorted and checked
+		 *
+		 * @return the shader
+		 */
+		S create(File vertexSource, File fragmentSource, SortedMap<String, String> defines);
+	}
+
+	/** Canonical sources and sorted defines. */
+	private static final class Key {
+		private final File                      vertexSource;
+		private final File                      fragmentSource;
+		private final SortedMap<String, String> defines;
+
+		private Key(File vertexSource, File fragmentSource, SortedMap<String, String> defines) {
+			this.vertexSource = vertexSource;
+			this.fragmentSource = fragmentSource;
+			this.defines = defines;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof Key)) {
+				return false;
+			}
+
+			Key key = (Key) o;
+
+			return vertexSource.equals(key.vertexSource) && fragmentSource.equals(key.fragmentSource)
+			       && defines.equals(key.defines);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * ((31 * vertexSource.hashCode()) + fragmentSource.hashCode())) + defines.hashCode();
+		}
+	}
+}
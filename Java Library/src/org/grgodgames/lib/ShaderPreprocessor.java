@@ -0,0 +1,326 @@
+package org.grgodgames.lib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The type Shader preprocessor. Expands GLSL sources before they are compiled, in pure Java so it runs on any thread
+ * and without a context.
+ * <p>
+ * {@code #include "file"} is replaced by the file, found relative to the including one. Each file is included at
+ * most once per expansion, as though every file had an include guard, so shared headers can include each other
+ * freely. Defines are put right after the {@code #version} line, or at the top if there is none. {@code #line}
+ * directives number each file as its own source string, the root being 0 and the others numbered in the order they
+ * were first included, so compile errors point at the right file and line.
+ * <p>
+ * Expansions are cached by file and define set. A cached expansion is used until any file it read changes on disk,
+ * so each variant is expanded once however many shaders use it.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ShaderPreprocessor {
+	private static final Pattern          INCLUDE = Pattern.compile("^\\s*#\\s*include\\s*[\"<]([^\">]+)[\">]\\s*$");
+	private static final Pattern          VERSION = Pattern.compile("^\\s*#\\s*version\\b.*$");
+	private static final Pattern          NAME    = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+	private final        Map<Key, Result> cache   = new HashMap<>(16);
+	private              int              hits;
+	private              int              misses;
+
+	/**
+	 * Check and sort a define set.
+	 *
+	 * @param defines
+	 *   the defines, by name, an empty value defines the name alone
+	 *
+	 * @return the defines sorted by name, unmodifiable
+	 */
+	public static SortedMap<String, String> toDefines(Map<String, String> defines) {
+		SortedMap<String, String> sorted = new TreeMap<>();
+		for(Map.Entry<String, String> define : defines.entrySet()) {
+			String name = define.getKey();
+			String value = (define.getValue() == null) ? "" : define.getValue();
+			if((name == null) || !NAME.matcher(name).matches()) {
+				throw new IllegalArgumentException(MessageFormat.format("{0} is not a valid define name", name));
+			}
+			if((value.indexOf('\n') >= 0) || (value.indexOf('\r') >= 0)) {
+				throw new IllegalArgumentException(MessageFormat.format("The value of {0} spans lines", name));
+			}
+			sorted.put(name, value);
+		}
+		return Collections.unmodifiableSortedMap(sorted);
+	}
+
+	/**
+	 * Expand a source, without the cache.
+	 *
+	 * @param source
+	 *   the source
+	 * @param defines
+	 *   the defines
+	 *
+	 * @return the expanded source
+	 *
+	 * @throws IOException
+	 *   if the source or an included file can not be read
+	 */
+	public static String expand(File source, Map<String, String> defines) throws IOException {
+		return new Expansion(source.getCanonicalFile()).run(toDefines(defines)).text;
+	}
+
+	/**
+	 * Gets an expanded source, expanding it unless a cached expansion is still current.
+	 *
+	 * @param source
+	 *   the source
+	 * @param defines
+	 *   the defines
+	 *
+	 * @return the expanded source
+	 *
+	 * @throws IOException
+	 *   if the source or an included file can not be read
+	 */
+	public String get(File source, Map<String, String> defines) throws IOException {
+		SortedMap<String, String> sorted = toDefines(defines);
+		Key key = new Key(source.getCanonicalFile(), sorted);
+		synchronized(this) {
+			Result result = cache.get(key);
+			if((result != null) && result.isCurrent()) {
+				hits++;
+				return result.text;
+			}
+		}
+		return put(key, sorted);
+	}
+
+	/**
+	 * Expand a source again whether or not its cached expansion looks current, and cache the new one. Modification
+	 * times can miss a save within their resolution, use this when a file is known to have changed.
+	 *
+	 * @param source
+	 *   the source
+	 * @param defines
+	 *   the defines
+	 *
+	 * @return the expanded source
+	 *
+	 * @throws IOException
+	 *   if the source or an included file can not be read
+	 */
+	public String refresh(File source, Map<String, String> defines) throws IOException {
+		SortedMap<String, String> sorted = toDefines(defines);
+		return put(new Key(source.getCanonicalFile(), sorted), sorted);
+	}
+
+	private String put(Key key, SortedMap<String, String> sorted) throws IOException {
+		Result result = new Expansion(key.source).run(sorted);
+		synchronized(this) {
+			misses++;
+			cache.put(key, result);
+		}
+		return result.text;
+	}
+
+	/**
+	 * Gets files.
+	 *
+	 * @param source
+	 *   the source
+	 * @param defines
+	 *   the defines
+	 *
+	 * @return every file the cached expansion read, the source first, or an empty list if it is not cached
+	 *
+	 * @throws IOException
+	 *   if the source path can not be made canonical
+	 */
+	public synchronized List<File> getFiles(File source, Map<String, String> defines) throws IOException {
+		Result result = cache.get(new Key(source.getCanonicalFile(), toDefines(defines)));
+		return (result == null) ? Collections.<File>emptyList() : Collections.unmodifiableList(result.files);
+	}
+
+	/** Clear the cache. */
+	public synchronized void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Size.
+	 *
+	 * @return the number of cached expansions
+	 */
+	public synchronized int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Gets hit count.
+	 *
+	 * @return the number of expansions served from the cache
+	 */
+	public synchronized int getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Gets miss count.
+	 *
+	 * @return the number of expansions made
+	 */
+	public synchronized int getMissCount() {
+		return misses;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder("ShaderPreprocessor{");
+		sb.append("size=").append(cache.size());
+		sb.append(", hits=").append(hits);
+		sb.append(", misses=").append(misses);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/** A canonical source and its sorted defines. */
+	private static final class Key {
+		private final File                      source;
+		private final SortedMap<String, String> defines;
+
+		private Key(File source, SortedMap<String, String> defines) {
+			this.source = source;
+			this.defines = defines;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof Key)) {
+				return false;
+			}
+
+			Key key = (Key) o;
+
+			return source.equals(key.source) && defines.equals(key.defines);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * source.hashCode()) + defines.hashCode();
+		}
+	}
+
+	/** An expanded source and the files it read, with their modification times when they were read. */
+	private static final class Result {
+		private final String     text;
+		private final List<File> files;
+		private final long[]     modified;
+
+		private Result(String text, List<File> files, long[] modified) {
+			this.text = text;
+			this.files = files;
+			this.modified = modified;
+		}
+
+		private boolean isCurrent() {
+			for(int i = 0; i < files.size(); i++) {
+				if(files.get(i).lastModified() != modified[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/** One expansion of a root source. */
+	private static final class Expansion {
+		private final List<File>    files    = new ArrayList<>(4);
+		private final List<Long>    modified = new ArrayList<>(4);
+		private final StringBuilder text     = new StringBuilder(4096);
+
+		private Expansion(File root) {
+			files.add(root);
+		}
+
+		private Result run(SortedMap<String, String> defines) throws IOException {
+			File root = files.get(0);
+			modified.add(root.lastModified());
+			List<String> lines = read(root);
+			int start = 0;
+			for(int i = 0; i < lines.size(); i++) {
+				if(VERSION.matcher(lines.get(i)).matches()) {
+					for(int j = 0; j <= i; j++) {
+						text.append(lines.get(j)).append('\n');
+					}
+					start = i + 1;
+					break;
+				}
+			}
+			for(Map.Entry<String, String> define : defines.entrySet()) {
+				text.append("#define ").append(define.getKey());
+				if(!define.getValue().isEmpty()) {
+					text.append(' ').append(define.getValue());
+				}
+				text.append('\n');
+			}
+			if(!defines.isEmpty() || (start > 0)) {
+				line(start + 1, 0);
+			}
+			append(root, 0, lines, start);
+
+			long[] times = new long[modified.size()];
+			for(int i = 0; i < times.length; i++) {
+				times[i] = modified.get(i);
+			}
+			return new Result(text.toString(), new ArrayList<>(files), times);
+		}
+
+		private void append(File file, int number, List<String> lines, int start) throws IOException {
+			for(int i = start; i < lines.size(); i++) {
+				String line = lines.get(i);
+				Matcher include = INCLUDE.matcher(line);
+				if(!include.matches()) {
+					text.append(line).append('\n');
+					continue;
+				}
+				File included = new File(file.getParentFile(), include.group(1)).getCanonicalFile();
+				if(files.contains(included)) {
+					text.append('\n');
+					continue;
+				}
+				if(!included.isFile()) {
+					throw new IOException(MessageFormat.format("{0}:{1}: {2} was not found", file, i + 1, included));
+				}
+				files.add(included);
+				modified.add(included.lastModified());
+				int includedNumber = files.size() - 1;
+				line(1, includedNumber);
+				append(included, includedNumber, read(included), 0);
+				line(i + 2, number);
+			}
+		}
+
+		private void line(int line, int number) {
+			text.append("#line ").append(line).append(' ').append(number).append('\n');
+		}
+
+		private static List<String> read(File file) throws IOException {
+			return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package org.grgodgames.lib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The type Shader watcher. Reloads shaders when their sources change, for iterating on shaders without restarting
+ * the game.
+ * <p>
+ * One daemon thread watches the directories of the sources and the files they include. A change is acted on once
+ * its shader's files have been quiet for the debounce time, since editors often save in several writes. The
+ * sources are then read and preprocessed on the watcher thread, and the new program is compiled, linked and swapped
+ * in by a task on the render thread's executor, usually the {@link org.grgodgames.lib.asset.UploadQueue}, so the
+ * frame loop never waits on the disk. A shader whose new sources fail keeps its old program.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class ShaderWatcher implements Closeable {
+	/** The default debounce time in milliseconds. */
+	public static final  long                    DEFAULT_DEBOUNCE = 100L;
+	private static final GameLogger              LOGGER           =
+		GameLogger.loggerOf(Logger.getLogger(ShaderWatcher.class.getName()));
+	private final        WatchService            service;
+	private final        Executor                glExecutor;
+	private final        long                    debounce;
+	private final        Map<WatchKey, Path>     directories      = new HashMap<>(8);
+	private final        Map<Path, List<Shader>> files            = new HashMap<>(16);
+	/** Shaders waiting out their debounce, by deadline from {@link System#nanoTime()}, eldest first. */
+	private final        Map<Shader, Long>       pending          = new LinkedHashMap<>(8);
+	private volatile     boolean                 closed           = false;
+
+	/**
+	 * Instantiates a new Shader watcher with the default debounce time.
+	 *
+	 * @param glExecutor
+	 *   the executor reloads run on
+	 *
+	 * @throws IOException
+	 *   if the file system can not be watched
+	 */
+	public ShaderWatcher(Executor glExecutor) throws IOException {
+		this(glExecutor, DEFAULT_DEBOUNCE);
+	}
+
+	/**
+	 * Instantiates a new Shader watcher and starts its thread.
+	 *
+	 * @param glExecutor
+	 *   the executor reloads run on
+	 * @param debounce
+	 *   the time a shader's files must be quiet before it is reloaded, in milliseconds
+	 *
+	 * @throws IOException
+	 *   if the file system can not be watched
+	 */
+	public ShaderWatcher(Executor glExecutor, long debounce) throws IOException {
+		if(debounce < 0L) {
+			throw new IllegalArgumentException("The debounce time can not be negative");
+		}
+		this.glExecutor = glExecutor;
+		this.debounce = TimeUnit.MILLISECONDS.toNanos(debounce);
+		service = FileSystems.getDefault().newWatchService();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "Shader Watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Watch a shader's sources, and the files they included when it was last initialized or reloaded.
+	 *
+	 * @param shader
+	 *   the shader
+	 *
+	 * @throws IOException
+	 *   if a source's directory can not be watched
+	 */
+	public void watch(Shader shader) throws IOException {
+		for(File file : shader.getFiles()) {
+			Path source = toPath(file);
+			WatchKey key = source.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+			                                           StandardWatchEventKinds.ENTRY_MODIFY);
+			synchronized(this) {
+				directories.put(key, source.getParent());
+				List<Shader> shaders = files.get(source);
+				if(shaders == null) {
+					shaders = new ArrayList<>(1);
+					files.put(source, shaders);
+				}
+				if(!shaders.contains(shader)) {
+					shaders.add(shader);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop watching a shader's sources. Their directories stay registered, changes to them are ignored.
+	 *
+	 * @param shader
+	 *   the shader
+	 */
+	public synchronized void unwatch(Shader shader) {
+		Iterator<List<Shader>> iterator = files.values().iterator();
+		while(iterator.hasNext()) {
+			List<Shader> shaders = iterator.next();
+			shaders.remove(shader);
+			if(shaders.isEmpty()) {
+				iterator.remove();
+			}
+		}
+		pending.remove(shader);
+	}
+
+	private static Path toPath(File file) {
+		return file.toPath().toAbsolutePath().normalize();
+	}
+
+	/** The watcher thread: collects changes, then reloads each shader once its debounce has passed. */
+	private void watch() {
+		try {
+			while(!closed) {
+				long wait = nextWait();
+				WatchKey key = (wait < 0L) ? service.take() : service.poll(wait, TimeUnit.NANOSECONDS);
+				if(key != null) {
+					changed(key);
+				}
+				reloadDue();
+			}
+		} catch(ClosedWatchServiceException | InterruptedException e) {
+			if(LOGGER.isDebugEnabled()) {
+				LOGGER.logDebug("The shader watcher stopped");
+			}
+		}
+	}
+
+	/** The time until the next deadline in nanoseconds, or -1 if no shader is pending. */
+	private synchronized long nextWait() {
+		if(pending.isEmpty()) {
+			return -1L;
+		}
+		long now = System.nanoTime();
+		long wait = Long.MAX_VALUE;
+		for(long due : pending.values()) {
+			wait = Math.min(wait, Math.max(0L, due - now));
+		}
+		return wait;
+	}
+
+	private synchronized void changed(WatchKey key) {
+		Path directory = directories.get(key);
+		long due = System.nanoTime() + debounce;
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(directory == null) {
+				continue;
+			}
+			if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				for(Map.Entry<Path, List<Shader>> file : files.entrySet()) {
+					if(file.getKey().getParent().equals(directory)) {
+						postpone(file.getValue(), due);
+					}
+				}
+			} else {
+				List<Shader> shaders = files.get(directory.resolve((Path) event.context()));
+				if(shaders != null) {
+					postpone(shaders, due);
+				}
+			}
+		}
+		key.reset();
+	}
+
+	private void postpone(List<Shader> shaders, long due) {
+		for(Shader shader : shaders) {
+			pending.remove(shader);
+			pending.put(shader, due);
+		}
+	}
+
+	/** Read the sources of every shader past its deadline and queue its reload. */
+	private void reloadDue() {
+		List<Shader> due = new ArrayList<>(4);
+		synchronized(this) {
+			long now = System.nanoTime();
+			Iterator<Map.Entry<Shader, Long>> iterator = pending.entrySet().iterator();
+			while(iterator.hasNext()) {
+				Map.Entry<Shader, Long> entry = iterator.next();
+				if((entry.getValue() - now) <= 0L) {
+					due.add(entry.getKey());
+					iterator.remove();
+				}
+			}
+		}
+		for(Shader shader : due) {
+			if(!shader.getVertexSource().isFile() || !shader.getFragmentSource().isFile()) {
+				// mid save, creating the file again reschedules the reload
+				continue;
+			}
+			try {
+				// a save within the modification time's resolution would still look current to the cache
+				CharSequence[] sources = shader.rereadSources();
+				glExecutor.execute(new Reload(shader, sources[0], sources[1]));
+				// the includes may have changed
+				watch(shader);
+			} catch(IOException e) {
+				if(LOGGER.isWarningEnabled()) {
+					LOGGER.logWarning(MessageFormat.format("Failed to preprocess {0}", shader.getVertexSource()), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Is watching.
+	 *
+	 * @param shader
+	 *   the shader
+	 *
+	 * @return whether the shader's sources are watched
+	 */
+	public synchronized boolean isWatching(Shader shader) {
+		for(List<Shader> shaders : files.values()) {
+			if(shaders.contains(shader)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Stop the watcher thread. Reloads already queued still run. */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		service.close();
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder("ShaderWatcher{");
+		sb.append("files=").append(files.size());
+		sb.append(", pending=").append(pending.size());
+		sb.append(", closed=").append(closed);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/** Swaps in a shader's new program on the render thread. */
+	private static final class Reload implements Runnable {
+		private final Shader       shader;
+		private final CharSequence vertexCode;
+		private final CharSequence fragmentCode;
+
+		private Reload(Shader shader, CharSequence vertexCode, CharSequence fragmentCode) {
+			this.shader = shader;
+			this.vertexCode = vertexCode;
+			this.fragmentCode = fragmentCode;
+		}
+
+		@Override
+		public void run() {
+			shader.reload(vertexCode, fragmentCode);
+		}
+
+		@Override
+		public String toString() {
+			return MessageFormat.format("Reload {0}", shader);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package org.grgodgames.lib;
+
+/**
+ * The type Sort key. Packs the state of a draw into a 64 bit key that a {@link RenderQueue} sorts as an unsigned
+ * number.
+ * <p>
+ * Opaque keys, front to back inside each state: {@code layer:4 | 0:1 | shader:12 | texture:14 | vao:13 |
+ * depth:20}. Translucent keys, back to front: {@code layer:4 | 1:1 | far depth:20 | shader:12 | texture:14 |
+ * vao:13}. Ids wider than their field are wrapped, which can only cost a redundant state change.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+@Utility
+public final class SortKey {
+	/** The largest layer. */
+	public static final  int  MAX_LAYER         = 0xF;
+	private static final int  LAYER_SHIFT       = 60;
+	private static final int  TRANSLUCENT_SHIFT = 59;
+	private static final int  SHADER_BITS       = 12;
+	private static final int  TEXTURE_BITS      = 14;
+	private static final int  VAO_BITS          = 13;
+	private static final int  DEPTH_BITS        = 20;
+	private static final long DEPTH_MAX         = (1L << DEPTH_BITS) - 1;
+
+	/** Instantiates a new Sort key. */
+	private SortKey() {
+	}
+
+	/**
+	 * Opaque key.
+	 *
+	 * @param layer
+	 *   the layer, drawn in increasing order
+	 * @param shader
+	 *   the shader program id
+	 * @param texture
+	 *   the texture id
+	 * @param vao
+	 *   the vertex array id
+	 * @param depth
+	 *   the view depth in [0, 1], 0 at the near plane
+	 *
+	 * @return the key
+	 */
+	public static long opaque(int layer, int shader, int texture, int vao, double depth) {
+		long key = layer(layer);
+		key |= field(shader, SHADER_BITS) << (TEXTURE_BITS + VAO_BITS + DEPTH_BITS);
+		key |= field(texture, TEXTURE_BITS) << (VAO_BITS + DEPTH_BITS);
+		key |= field(vao, VAO_BITS) << DEPTH_BITS;
+		key |= quantize(depth);
+		return key;
+	}
+
+	/**
+	 * Translucent key.
+	 *
+	 * @param layer
+	 *   the layer, drawn in increasing order
+	 * @param shader
+	 *   the shader program id
+	 * @param texture
+	 *   the texture id
+	 * @param vao
+	 *   the vertex array id
+	 * @param depth
+	 *   the view depth in [0, 1], 0 at the near plane
+	 *
+	 * @return the key
+	 */
+	public static long translucent(int layer, int shader, int texture, int vao, double depth) {
+		long key = layer(layer) | (1L << TRANSLUCENT_SHIFT);
+		key |= (DEPTH_MAX - quantize(depth)) << (SHADER_BITS + TEXTURE_BITS + VAO_BITS);
+		key |= field(shader, SHADER_BITS) << (TEXTURE_BITS + VAO_BITS);
+		key |= field(texture, TEXTURE_BITS) << VAO_BITS;
+		key |= field(vao, VAO_BITS);
+		return key;
+	}
+
+	/**
+	 * Gets layer.
+	 *
+	 * @param key
+	 *   the key
+	 *
+	 * @return the layer
+	 */
+	public static int getLayer(long key) {
+		return (int) (key >>> LAYER_SHIFT);
+	}
+
+	/**
+	 * Is translucent.
+	 *
+	 * @param key
+	 *   the key
+	 *
+	 * @return the boolean
+	 */
+	public static boolean isTranslucent(long key) {
+		return ((key >>> TRANSLUCENT_SHIFT) & 1L) != 0;
+	}
+
+	/**
+	 * Gets shader.
+	 *
+	 * @param key
+	 *   the key
+	 *
+	 * @return the shader id, wrapped to its field
+	 */
+	public static int getShader(long key) {
+		int shift = isTranslucent(key) ? (TEXTURE_BITS + VAO_BITS) : (TEXTURE_BITS + VAO_BITS + DEPTH_BITS);
+		return (int) field(key >>> shift, SHADER_BITS);
+	}
+
+	/**
+	 * Gets texture.
+	 *
+	 * @param key
+	 *   the key
+	 *
+	 * @return the texture id, wrapped to its field
+	 */
+	public static int getTexture(long key) {
+		int shift = isTranslucent(key) ? VAO_BITS : (VAO_BITS + DEPTH_BITS);
+		return (int) field(key >>> shift, TEXTURE_BITS);
+	}
+
+	private static long layer(int layer) {
+		if((layer < 0) || (layer > MAX_LAYER)) {
+			throw new IllegalArgumentException("The layer is out of range");
+		}
+		return (long) layer << LAYER_SHIFT;
+	}
+
+	private static long field(long value, int bits) {
+		return value & ((1L << bits) - 1);
+	}
+
+	private static long quantize(double depth) {
+		return Math.round(Math.max(0.0, Math.min(1.0, depth)) * DEPTH_MAX);
+	}
+}
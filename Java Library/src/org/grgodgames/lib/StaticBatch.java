@@ -0,0 +1,343 @@
+package org.grgodgames.lib;
+
+import org.grgodgames.lib.game.GameHelper;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GLContext;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL14.glMultiDrawArrays;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL30.glDeleteVertexArrays;
+import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+import static org.lwjgl.opengl.GL43.glMultiDrawElementsIndirect;
+
+/**
+ * The type Static batch. Packs many static renders of the same class and vertex format into one vertex buffer
+ * and draws them with one multi draw. Indexed members are drawn with one indirect multi draw where the driver has
+ * it, LWJGL 2 has no glMultiDrawElements, and with one draw per run of visible members otherwise.
+ * <p>
+ * Members are packed once, after they have been initialised, and their own buffers are emptied while they are
+ * batched. Hiding or removing a member only changes the draw ranges, the buffers are rebuilt when a member is
+ * added. The batch draws with the {@link Render#preDraw()} and
+ * {@link Render#postDraw()} of its first visible member, so every member must use the same shader and state.
+ * <p>
+ * A batch has to be added to a handler so it is updated each frame.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class StaticBatch implements IdObject {
+	private static final GameLogger   LOGGER          =
+		GameLogger.loggerOf(Logger.getLogger(StaticBatch.class.getName()));
+	private static final int          MAX_SHORT_INDEX = 0xFFFF;
+	/** Count, instance count, first index, base vertex and base instance. */
+	private static final int          COMMAND_SIZE    = 5;
+	private final        List<Render> members         = new ArrayList<>(64);
+	private final int     vaoHandler;
+	private final int     vboHandler;
+	private final int     iboHandler;
+	private final boolean multiDrawIndirect;
+	private int[]     firsts  = new int[0];
+	private int[]     counts  = new int[0];
+	private boolean[] visible = new boolean[0];
+	private IntBuffer runFirsts;
+	private IntBuffer runCounts;
+	private IntBuffer commands;
+	private VertexFormat format;
+	private Class<?>     memberClass;
+	private boolean      indexed;
+	private int          indexType;
+	private int          indexSize;
+	private boolean rebuild = true;
+	private boolean rerun   = true;
+
+	/** Instantiates a new Static batch. */
+	public StaticBatch() {
+		vaoHandler = glGenVertexArrays();
+		vboHandler = glGenBuffers();
+		iboHandler = glGenBuffers();
+		ContextCapabilities capabilities = GLContext.getCapabilities();
+		multiDrawIndirect = capabilities.OpenGL43 || capabilities.GL_ARB_multi_draw_indirect;
+		GameHelper.checkForError(LOGGER, StaticBatch.class);
+	}
+
+	/**
+	 * Add a render, it stops drawing itself.
+	 *
+	 * @param render
+	 *   the render
+	 */
+	public void add(Render render) {
+		if(members.contains(render)) {
+			return;
+		}
+		if(memberClass == null) {
+			memberClass = render.getClass();
+		} else if(memberClass != render.getClass()) {
+			String name = render.getClass().getName();
+			throw new IllegalArgumentException(MessageFormat.format("{0} can not be batched with {1}", name,
+			                                                        memberClass.getName()));
+		}
+		members.add(render);
+		render.setBatch(this);
+		rebuild = true;
+	}
+
+	/**
+	 * Remove a render, it draws itself again.
+	 *
+	 * @param render
+	 *   the render
+	 */
+	public void remove(Render render) {
+		int index = members.indexOf(render);
+		if(index < 0) {
+			return;
+		}
+		render.setBatch(null);
+		members.set(index, null);
+		if(index < visible.length) {
+			visible[index] = false;
+		}
+		rerun = true;
+	}
+
+	/**
+	 * Sets visible.
+	 *
+	 * @param render
+	 *   the render
+	 * @param visible
+	 *   whether the render is drawn
+	 */
+	public void setVisible(Render render, boolean visible) {
+		int index = members.indexOf(render);
+		if((index >= 0) && (index < this.visible.length) && (this.visible[index] != visible)) {
+			this.visible[index] = visible;
+			rerun = true;
+		}
+	}
+
+	/**
+	 * Gets member count.
+	 *
+	 * @return the member count
+	 */
+	public int getMemberCount() {
+		int count = 0;
+		for(Render member : members) {
+			if(member != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public void init() {
+	}
+
+	@Override
+	public void destroy() {
+		for(Render member : members) {
+			if(member != null) {
+				member.setBatch(null);
+			}
+		}
+		members.clear();
+		glDeleteBuffers(vboHandler);
+		glDeleteBuffers(iboHandler);
+		glDeleteVertexArrays(vaoHandler);
+	}
+
+	@Override
+	public void tick() {
+	}
+
+	@Override
+	public void update(double delta) {
+		if(rebuild) {
+			build();
+		}
+		if(rerun) {
+			buildRuns();
+		}
+		Render first = getFirstVisible();
+		if(first == null) {
+			return;
+		}
+
+		glBindVertexArray(vaoHandler);
+		first.preDraw();
+		Render.setClientStates(format, true);
+
+		if(indexed && multiDrawIndirect) {
+			// read from client memory, no indirect buffer is bound
+			glMultiDrawElementsIndirect(GL_TRIANGLES, indexType, commands, runFirsts.limit(), 0);
+		} else if(indexed) {
+			for(int i = 0; i < runFirsts.limit(); i++) {
+				glDrawElements(GL_TRIANGLES, runCounts.get(i), indexType, (long) runFirsts.get(i) * indexSize);
+			}
+		} else {
+			glMultiDrawArrays(GL_TRIANGLES, runFirsts, runCounts);
+		}
+
+		Render.setClientStates(format, false);
+		first.postDraw();
+		glBindVertexArray(0);
+
+		GameHelper.checkForError(LOGGER, StaticBatch.class, "update");
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("StaticBatch{");
+		sb.append("members=").append(getMemberCount());
+		sb.append(", format=").append(format);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	private Render getFirstVisible() {
+		for(int i = 0; i < visible.length; i++) {
+			if(visible[i]) {
+				return members.get(i);
+			}
+		}
+		return null;
+	}
+
+	/** Build void. Packs every member, compacting out removed ones. */
+	private void build() {
+		rebuild = false;
+		rerun = true;
+		List<Render> live = new ArrayList<>(members.size());
+		for(Render member : members) {
+			if(member != null) {
+				live.add(member);
+			}
+		}
+		members.clear();
+		members.addAll(live);
+
+		firsts = new int[members.size()];
+		counts = new int[members.size()];
+		visible = new boolean[members.size()];
+		if(members.isEmpty()) {
+			return;
+		}
+
+		format = members.get(0).getBatchFormat();
+		indexed = members.get(0).getIndexCount() > 0;
+		int vertexTotal = 0;
+		int indexTotal = 0;
+		for(Render member : members) {
+			if(!format.equals(member.getBatchFormat()) || (indexed != (member.getIndexCount() > 0))) {
+				throw new IllegalStateException(MessageFormat.format("{0} does not match the batch format", member));
+			}
+			vertexTotal += member.getStoredVertexCount();
+			indexTotal += member.getIndexCount();
+		}
+
+		int stride = format.getStride();
+		ByteBuffer vertexes = BufferUtils.createByteBuffer(vertexTotal * stride);
+		boolean shortIndexes = vertexTotal <= (MAX_SHORT_INDEX + 1);
+		indexSize = shortIndexes ? Short.BYTES : Integer.BYTES;
+		indexType = shortIndexes ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+		ByteBuffer indexes = indexed ? BufferUtils.createByteBuffer(indexTotal * indexSize) : null;
+
+		int baseVertex = 0;
+		int baseIndex = 0;
+		for(int m = 0; m < members.size(); m++) {
+			Render member = members.get(m);
+			int vertexCount = member.getStoredVertexCount();
+			vertexes.position(baseVertex * stride);
+			ByteBuffer slice = vertexes.slice().order(ByteOrder.nativeOrder());
+			member.packVertexes(format, 0, vertexCount, slice);
+
+			if(indexed) {
+				for(int i = 0; i < member.getIndexCount(); i++) {
+					int index = baseVertex + member.getIndex(i);
+					if(shortIndexes) {
+						indexes.putShort((baseIndex + i) * indexSize, (short) index);
+					} else {
+						indexes.putInt((baseIndex + i) * indexSize, index);
+					}
+				}
+				firsts[m] = baseIndex;
+				counts[m] = member.getIndexCount();
+			} else {
+				firsts[m] = baseVertex;
+				counts[m] = vertexCount;
+			}
+			visible[m] = true;
+			baseVertex += vertexCount;
+			baseIndex += member.getIndexCount();
+		}
+		vertexes.clear();
+
+		glBindVertexArray(vaoHandler);
+		glBindBuffer(GL_ARRAY_BUFFER, vboHandler);
+		glBufferData(GL_ARRAY_BUFFER, vertexes, GL_STATIC_DRAW);
+		Render.setInterleavedPointers(format, 0);
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboHandler);
+		if(indexed) {
+			glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexes, GL_STATIC_DRAW);
+		}
+		glBindVertexArray(0);
+
+		GameHelper.checkForError(LOGGER, StaticBatch.class, "build");
+	}
+
+	/** Build runs. Merges visible members that sit next to each other in the buffers into one draw range. */
+	private void buildRuns() {
+		rerun = false;
+		int[] starts = new int[firsts.length];
+		int[] lengths = new int[firsts.length];
+		int runs = 0;
+		for(int m = 0; m < firsts.length; m++) {
+			if(!visible[m] || (counts[m] == 0)) {
+				continue;
+			}
+			if((runs > 0) && ((starts[runs - 1] + lengths[runs - 1]) == firsts[m])) {
+				lengths[runs - 1] += counts[m];
+			} else {
+				starts[runs] = firsts[m];
+				lengths[runs] = counts[m];
+				runs++;
+			}
+		}
+		if((runFirsts == null) || (runFirsts.capacity() < runs)) {
+			runFirsts = BufferUtils.createIntBuffer(Math.max(1, runs));
+			runCounts = BufferUtils.createIntBuffer(Math.max(1, runs));
+		}
+		runFirsts.clear();
+		runCounts.clear();
+		runFirsts.put(Arrays.copyOf(starts, runs)).flip();
+		runCounts.put(Arrays.copyOf(lengths, runs)).flip();
+
+		if(indexed && multiDrawIndirect) {
+			if((commands == null) || (commands.capacity() < (runs * COMMAND_SIZE))) {
+				commands = BufferUtils.createIntBuffer(Math.max(1, runs) * COMMAND_SIZE);
+			}
+			commands.clear();
+			for(int i = 0; i < runs; i++) {
+				commands.put(lengths[i]).put(1).put(starts[i]).put(0).put(0);
+			}
+			commands.flip();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package org.grgodgames.lib;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The type Stream ring. Splits one buffer into equal segments that are written in turn, each segment is fenced
+ * once it has been drawn from and is only handed out again when the fence has signaled.
+ *
+ * @param <F>
+ *   the fence type
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class StreamRing<F> {
+	private final FenceSource<F> fenceSource;
+	private final List<F>        fences;
+	private final int            segmentSize;
+	private int current = -1;
+	private int stalls;
+
+	/**
+	 * Instantiates a new Stream ring.
+	 *
+	 * @param fenceSource
+	 *   the fence source
+	 * @param segments
+	 *   the number of segments
+	 * @param segmentSize
+	 *   the segment size in bytes
+	 */
+	public StreamRing(FenceSource<F> fenceSource, int segments, int segmentSize) {
+		if(segments < 1) {
+			throw new IllegalArgumentException("A stream ring needs at least one segment");
+		}
+		this.fenceSource = fenceSource;
+		this.segmentSize = segmentSize;
+		fences = new ArrayList<>(segments);
+		for(int i = 0; i < segments; i++) {
+			fences.add(null);
+		}
+	}
+
+	/**
+	 * Acquire the next segment for writing, waiting for the GPU if it is still reading it.
+	 *
+	 * @param bytes
+	 *   the number of bytes that will be written
+	 *
+	 * @return the segment
+	 */
+	public int acquire(int bytes) {
+		if((bytes < 0) || (bytes > segmentSize)) {
+			throw new IllegalArgumentException(
+			  MessageFormat.format("{0} bytes do not fit a segment of {1} bytes", bytes, segmentSize));
+		}
+		current = (current + 1) % fences.size();
+		F fence = fences.get(current);
+		if(fence != null) {
+			if(!fenceSource.isSignaled(fence)) {
+				stalls++;
+				fenceSource.await(fence);
+			}
+			fenceSource.delete(fence);
+			fences.set(current, null);
+		}
+		return current;
+	}
+
+	/** Release the current segment once the draws reading it have been issued. */
+	public void release() {
+		if(current < 0) {
+			return;
+		}
+		F fence = fences.get(current);
+		if(fence != null) {
+			fenceSource.delete(fence);
+		}
+		fences.set(current, fenceSource.insert());
+	}
+
+	/** Clear void. Deletes every pending fence. */
+	public void clear() {
+		for(int i = 0; i < fences.size(); i++) {
+			F fence = fences.get(i);
+			if(fence != null) {
+				fenceSource.delete(fence);
+				fences.set(i, null);
+			}
+		}
+		current = -1;
+	}
+
+	/**
+	 * Gets current.
+	 *
+	 * @return the segment last acquired, or -1
+	 */
+	public int getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Gets offset.
+	 *
+	 * @param segment
+	 *   the segment
+	 *
+	 * @return the offset in bytes of the segment
+	 */
+	public long getOffset(int segment) {
+		return (long) segment * segmentSize;
+	}
+
+	/**
+	 * Gets segment size.
+	 *
+	 * @return the segment size in bytes
+	 */
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	/**
+	 * Gets size.
+	 *
+	 * @return the size in bytes of the whole ring
+	 */
+	public long getSize() {
+		return (long) fences.size() * segmentSize;
+	}
+
+	/**
+	 * Gets stalls.
+	 *
+	 * @return the number of times {@link #acquire(int)} had to wait for the GPU
+	 */
+	public int getStalls() {
+		return stalls;
+	}
+}
@@ -0,0 +1,188 @@
+package org.grgodgames.lib;
+
+import org.grgodgames.lib.game.GameHelper;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.logging.Logger;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+
+/**
+ * The type Uniform buffer. Per frame data shared by many programs, such as the camera and lights, written into a
+ * local copy and uploaded once a frame however many shaders read it.
+ * <p>
+ * Values are put at byte offsets, which must follow the block's std140 layout: scalars on 4 bytes, vec2 on 8,
+ * vec3 and vec4 on 16 and each mat4 column on 16. Only the spans written since the last upload are sent. Bind a
+ * shader's block to the buffer with {@link Shader#bindUniformBlock(String, int)} and {@link #getBinding()}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class UniformBuffer {
+	private static final GameLogger  LOGGER = GameLogger.loggerOf(Logger.getLogger(UniformBuffer.class.getName()));
+	private final        ByteBuffer  data;
+	private final        DirtyRanges ranges = new DirtyRanges();
+	private final        int         binding;
+	private              int         bufferID;
+
+	/**
+	 * Instantiates a new Uniform buffer.
+	 *
+	 * @param size
+	 *   the size in bytes, at least the block's size
+	 * @param binding
+	 *   the binding point
+	 */
+	public UniformBuffer(int size, int binding) {
+		if(size <= 0) {
+			throw new IllegalArgumentException("A uniform buffer needs a positive size");
+		}
+		if(binding < 0) {
+			throw new IllegalArgumentException("A binding point can not be negative");
+		}
+		data = BufferUtils.createByteBuffer(size);
+		this.binding = binding;
+	}
+
+	/** Create the buffer and bind it to its binding point. Must be called on the render thread. */
+	public void init() {
+		bufferID = glGenBuffers();
+		glBindBuffer(GL_UNIFORM_BUFFER, bufferID);
+		glBufferData(GL_UNIFORM_BUFFER, data, GL_DYNAMIC_DRAW);
+		glBindBuffer(GL_UNIFORM_BUFFER, 0);
+		glBindBufferBase(GL_UNIFORM_BUFFER, binding, bufferID);
+		ranges.clear();
+		GameHelper.checkForError(LOGGER, UniformBuffer.class);
+	}
+
+	/**
+	 * Put an int.
+	 *
+	 * @param offset
+	 *   the byte offset
+	 * @param value
+	 *   the value
+	 */
+	public void putInt(int offset, int value) {
+		mark(offset, Integer.BYTES);
+		data.putInt(offset, value);
+	}
+
+	/**
+	 * Put a float.
+	 *
+	 * @param offset
+	 *   the byte offset
+	 * @param value
+	 *   the value
+	 */
+	public void putFloat(int offset, float value) {
+		mark(offset, Float.BYTES);
+		data.putFloat(offset, value);
+	}
+
+	/**
+	 * Put a vec4, or a vec3 with any w.
+	 *
+	 * @param offset
+	 *   the byte offset
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 * @param w
+	 *   the w
+	 */
+	public void putVector(int offset, float x, float y, float z, float w) {
+		mark(offset, 4 * Float.BYTES);
+		data.putFloat(offset, x);
+		data.putFloat(offset + Float.BYTES, y);
+		data.putFloat(offset + (2 * Float.BYTES), z);
+		data.putFloat(offset + (3 * Float.BYTES), w);
+	}
+
+	/**
+	 * Put a mat4.
+	 *
+	 * @param offset
+	 *   the byte offset
+	 * @param matrix
+	 *   the matrix, 16 values in column major order
+	 */
+	public void putMatrix(int offset, float[] matrix) {
+		if(matrix.length != 16) {
+			throw new IllegalArgumentException("A 4x4 matrix has 16 values");
+		}
+		mark(offset, 16 * Float.BYTES);
+		for(int i = 0; i < 16; i++) {
+			data.putFloat(offset + (i * Float.BYTES), matrix[i]);
+		}
+	}
+
+	private void mark(int offset, int size) {
+		if((offset < 0) || ((offset + size) > data.capacity())) {
+			throw new IllegalArgumentException(
+				MessageFormat.format("{0} bytes at {1} do not fit in {2}", size, offset, data.capacity()));
+		}
+		ranges.add(offset, offset + size);
+	}
+
+	/** Upload the spans written since the last upload, once a frame before drawing. */
+	public void upload() {
+		if(ranges.isEmpty()) {
+			return;
+		}
+		glBindBuffer(GL_UNIFORM_BUFFER, bufferID);
+		for(int i = 0; i < ranges.size(); i++) {
+			data.limit(ranges.getEnd(i)).position(ranges.getStart(i));
+			glBufferSubData(GL_UNIFORM_BUFFER, data.position(), data);
+		}
+		glBindBuffer(GL_UNIFORM_BUFFER, 0);
+		data.clear();
+		ranges.clear();
+	}
+
+	/** Delete the buffer. */
+	public void destroy() {
+		if(bufferID != 0) {
+			glDeleteBuffers(bufferID);
+			bufferID = 0;
+		}
+	}
+
+	/**
+	 * Gets binding.
+	 *
+	 * @return the binding point
+	 */
+	public int getBinding() {
+		return binding;
+	}
+
+	/**
+	 * Gets size.
+	 *
+	 * @return the size in bytes
+	 */
+	public int getSize() {
+		return data.capacity();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("UniformBuffer{");
+		sb.append("ID=").append(bufferID);
+		sb.append(", binding=").append(binding);
+		sb.append(", size=").append(data.capacity());
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,221 @@
+package org.grgodgames.lib;
+
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GLContext;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.*;
+
+/**
+ * The type Uniform table. A {@link Shader}'s uniforms, read from the program once after each link.
+ * <p>
+ * Callers look a uniform up by name once and keep the handle, a small int that stays valid across reloads even
+ * though the location behind it may change. The last value set through each handle is kept, so setting an unchanged
+ * value makes no GL call.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class UniformTable {
+	/** The values kept per uniform, enough for a 4x4 matrix. */
+	static final         int                  SLOTS     = 16;
+	private static final int                  UNKNOWN   = 0;
+	private final        Map<String, Integer> handles   = new HashMap<>(16);
+	private final        Map<String, Integer> active    = new HashMap<>(16);
+	private final        Map<String, Integer> blocks    = new HashMap<>(4);
+	private final        Map<String, Integer> bindings  = new HashMap<>(4);
+	private              String[]             names     = new String[8];
+	private              int[]                locations = new int[8];
+	/** The values as raw bits, {@link #SLOTS} per handle. */
+	private              int[]                values    = new int[8 * SLOTS];
+	/** The number of values kept per handle, negative for ints and {@link #UNKNOWN} when nothing is kept. */
+	private              int[]                sizes     = new int[8];
+	private              int                  count;
+
+	/**
+	 * Read the active uniforms and blocks of a newly linked program. Every handle is pointed at its new location,
+	 * kept values are forgotten since the program starts with its defaults, and block bindings are applied again.
+	 *
+	 * @param program
+	 *   the program
+	 */
+	void introspect(int program) {
+		active.clear();
+		int uniforms = glGetProgrami(program, GL_ACTIVE_UNIFORMS);
+		int maxLength = glGetProgrami(program, GL_ACTIVE_UNIFORM_MAX_LENGTH);
+		for(int i = 0; i < uniforms; i++) {
+			String name = glGetActiveUniform(program, i, maxLength);
+			int location = glGetUniformLocation(program, name);
+			if(location < 0) {
+				// uniforms in blocks have no location
+				continue;
+			}
+			active.put(name, location);
+			if(name.endsWith("[0]")) {
+				active.put(name.substring(0, name.length() - 3), location);
+			}
+		}
+
+		blocks.clear();
+		ContextCapabilities capabilities = GLContext.getCapabilities();
+		if(capabilities.OpenGL31 || capabilities.GL_ARB_uniform_buffer_object) {
+			int blockCount = glGetProgrami(program, GL_ACTIVE_UNIFORM_BLOCKS);
+			int blockLength = glGetProgrami(program, GL_ACTIVE_UNIFORM_BLOCK_MAX_NAME_LENGTH);
+			for(int i = 0; i < blockCount; i++) {
+				blocks.put(glGetActiveUniformBlockName(program, i, blockLength), i);
+			}
+			for(Map.Entry<String, Integer> binding : bindings.entrySet()) {
+				Integer block = blocks.get(binding.getKey());
+				if(block != null) {
+					glUniformBlockBinding(program, block, binding.getValue());
+				}
+			}
+		}
+
+		for(int handle = 0; handle < count; handle++) {
+			locations[handle] = location(names[handle]);
+		}
+		Arrays.fill(sizes, 0, count, UNKNOWN);
+	}
+
+	private int location(String name) {
+		Integer location = active.get(name);
+		return (location == null) ? -1 : location;
+	}
+
+	/**
+	 * Get the handle of a uniform, making one if it is new.
+	 *
+	 * @param name
+	 *   the name
+	 *
+	 * @return the handle
+	 */
+	int handle(String name) {
+		Integer handle = handles.get(name);
+		if(handle != null) {
+			return handle;
+		}
+		if(count == names.length) {
+			int capacity = count * 2;
+			names = Arrays.copyOf(names, capacity);
+			locations = Arrays.copyOf(locations, capacity);
+			values = Arrays.copyOf(values, capacity * SLOTS);
+			sizes = Arrays.copyOf(sizes, capacity);
+		}
+		names[count] = name;
+		locations[count] = location(name);
+		sizes[count] = UNKNOWN;
+		handles.put(name, count);
+		return count++;
+	}
+
+	/**
+	 * Gets location.
+	 *
+	 * @param handle
+	 *   the handle
+	 *
+	 * @return the location in the current program, -1 if the uniform is not active
+	 */
+	int getLocation(int handle) {
+		check(handle);
+		return locations[handle];
+	}
+
+	private void check(int handle) {
+		if((handle < 0) || (handle >= count)) {
+			throw new IllegalArgumentException(handle + " is not a uniform handle of this shader");
+		}
+	}
+
+	/**
+	 * Keep up to four values of a uniform.
+	 *
+	 * @param handle
+	 *   the handle
+	 * @param size
+	 *   the number of values, negative for ints
+	 *
+	 * @return whether the uniform is active and the values differ from the kept ones, so they need setting
+	 */
+	boolean set(int handle, int size, int x, int y, int z, int w) {
+		check(handle);
+		if(locations[handle] < 0) {
+			return false;
+		}
+		int base = handle * SLOTS;
+		if((sizes[handle] == size) && (values[base] == x) && (values[base + 1] == y) && (values[base + 2] == z)
+		   && (values[base + 3] == w)) {
+			return false;
+		}
+		sizes[handle] = size;
+		values[base] = x;
+		values[base + 1] = y;
+		values[base + 2] = z;
+		values[base + 3] = w;
+		return true;
+	}
+
+	/**
+	 * Keep a matrix.
+	 *
+	 * @param handle
+	 *   the handle
+	 * @param matrix
+	 *   the 16 values
+	 *
+	 * @return whether the uniform is active and the matrix differs from the kept one, so it needs setting
+	 */
+	boolean set(int handle, float[] matrix) {
+		check(handle);
+		if(locations[handle] < 0) {
+			return false;
+		}
+		int base = handle * SLOTS;
+		boolean same = sizes[handle] == SLOTS;
+		for(int i = 0; i < SLOTS; i++) {
+			int bits = Float.floatToRawIntBits(matrix[i]);
+			same &= values[base + i] == bits;
+			values[base + i] = bits;
+		}
+		sizes[handle] = SLOTS;
+		return !same;
+	}
+
+	/**
+	 * Bind a uniform block to a binding point, now and after every later link.
+	 *
+	 * @param program
+	 *   the program
+	 * @param name
+	 *   the block name
+	 * @param binding
+	 *   the binding point
+	 *
+	 * @return whether the program has the block
+	 */
+	boolean bindBlock(int program, String name, int binding) {
+		bindings.put(name, binding);
+		Integer block = blocks.get(name);
+		if(block == null) {
+			return false;
+		}
+		glUniformBlockBinding(program, block, binding);
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("UniformTable{");
+		sb.append("active=").append(active.keySet());
+		sb.append(", blocks=").append(blocks.keySet());
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,77 @@
+package org.grgodgames.lib;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * The enum Vertex attribute.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public enum VertexAttribute {
+	/** Position, bound with glVertexPointer. */
+	POSITION(GL_VERTEX_ARRAY, 2, 4,
+	         EnumSet.of(ComponentType.SHORT, ComponentType.INT, ComponentType.HALF_FLOAT, ComponentType.FLOAT,
+	                    ComponentType.DOUBLE)),
+	/** Normal, bound with glNormalPointer. */
+	NORMAL(GL_NORMAL_ARRAY, 3, 3,
+	       EnumSet.of(ComponentType.BYTE, ComponentType.SHORT, ComponentType.INT, ComponentType.HALF_FLOAT,
+	                  ComponentType.FLOAT, ComponentType.DOUBLE, ComponentType.INT_2_10_10_10_REV)),
+	/** Color, bound with glColorPointer. */
+	COLOR(GL_COLOR_ARRAY, 3, 4, EnumSet.allOf(ComponentType.class)),
+	/** Texture coordinate, bound with glTexCoordPointer. */
+	TEX_COORD(GL_TEXTURE_COORD_ARRAY, 1, 4,
+	          EnumSet.of(ComponentType.SHORT, ComponentType.INT, ComponentType.HALF_FLOAT, ComponentType.FLOAT,
+	                     ComponentType.DOUBLE));
+
+	private final int                clientState;
+	private final int                minCount;
+	private final int                maxCount;
+	private final Set<ComponentType> types;
+
+	VertexAttribute(int clientState, int minCount, int maxCount, Set<ComponentType> types) {
+		this.clientState = clientState;
+		this.minCount = minCount;
+		this.maxCount = maxCount;
+		this.types = types;
+	}
+
+	/**
+	 * Gets client state.
+	 *
+	 * @return the client state
+	 */
+	public int getClientState() {
+		return clientState;
+	}
+
+	/**
+	 * Gets location.
+	 *
+	 * @return the generic attribute location used for elements the fixed function pipeline cannot read
+	 */
+	public int getLocation() {
+		return ordinal();
+	}
+
+	/**
+	 * Supports boolean.
+	 *
+	 * @param type
+	 *   the type
+	 * @param count
+	 *   the count
+	 *
+	 * @return whether the fixed function pipeline accepts the type and count for this attribute
+	 */
+	public boolean supports(ComponentType type, int count) {
+		if(type.isPacked()) {
+			return types.contains(type) && (count == maxCount);
+		}
+		return types.contains(type) && (count >= minCount) && (count <= maxCount);
+	}
+}
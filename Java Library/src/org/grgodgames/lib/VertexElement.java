@@ -0,0 +1,145 @@
+package org.grgodgames.lib;
+
+import java.text.MessageFormat;
+
+/**
+ * The type Vertex element.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class VertexElement {
+	private final VertexAttribute attribute;
+	private final ComponentType   type;
+	private final int             count;
+	private final boolean         octahedral;
+
+	/**
+	 * Instantiates a new Vertex element.
+	 *
+	 * @param attribute
+	 *   the attribute
+	 * @param type
+	 *   the type
+	 * @param count
+	 *   the count
+	 */
+	public VertexElement(VertexAttribute attribute, ComponentType type, int count) {
+		if(!attribute.supports(type, count)) {
+			throw new IllegalArgumentException(
+			  MessageFormat.format("{0} does not support {1} x {2}", attribute, count, type));
+		}
+		this.attribute = attribute;
+		this.type = type;
+		this.count = count;
+		octahedral = false;
+	}
+
+	private VertexElement() {
+		attribute = VertexAttribute.NORMAL;
+		type = ComponentType.SHORT;
+		count = 2;
+		octahedral = true;
+	}
+
+	/**
+	 * Octahedral normal. Stores the normal as two snorm16 values, the fixed function pipeline cannot decode them
+	 * so the element is bound to the generic attribute {@link VertexAttribute#getLocation()} of
+	 * {@link VertexAttribute#NORMAL} for a shader to decode.
+	 *
+	 * @return the vertex element
+	 */
+	public static VertexElement octahedralNormal() {
+		return new VertexElement();
+	}
+
+	/**
+	 * Gets attribute.
+	 *
+	 * @return the attribute
+	 */
+	public VertexAttribute getAttribute() {
+		return attribute;
+	}
+
+	/**
+	 * Gets type.
+	 *
+	 * @return the type
+	 */
+	public ComponentType getType() {
+		return type;
+	}
+
+	/**
+	 * Gets count.
+	 *
+	 * @return the count
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets size.
+	 *
+	 * @return the size in bytes
+	 */
+	public int getSize() {
+		return type.isPacked() ? type.getSize() : (type.getSize() * count);
+	}
+
+	/**
+	 * Is octahedral.
+	 *
+	 * @return the boolean
+	 */
+	public boolean isOctahedral() {
+		return octahedral;
+	}
+
+	/**
+	 * Is normalized.
+	 *
+	 * @return whether the fixed function pipeline maps integer values of this element to [-1, 1] or [0, 1]
+	 */
+	public boolean isNormalized() {
+		return type.isInteger() && ((attribute == VertexAttribute.NORMAL) || (attribute == VertexAttribute.COLOR));
+	}
+
+	@Override
+	public int hashCode() {
+		int result = attribute.hashCode();
+		result = 31 * result + type.hashCode();
+		result = 31 * result + count;
+		result = 31 * result + (octahedral ? 1 : 0);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(!(o instanceof VertexElement)) {
+			return false;
+		}
+
+		VertexElement element = (VertexElement) o;
+
+		return (attribute == element.attribute) && (type == element.type) && (count == element.count) &&
+		       (octahedral == element.octahedral);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		sb.append(attribute).append(' ').append(count).append(" x ").append(type);
+		if(octahedral) {
+			sb.append(" octahedral");
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,172 @@
+package org.grgodgames.lib;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The type Vertex format. Describes one interleaved vertex, elements are laid out in declaration order and
+ * each one starts on a four byte boundary.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class VertexFormat {
+	private static final int ALIGNMENT = 4;
+	private final VertexElement[]                elements;
+	private final Map<VertexAttribute, Integer> indexes = new EnumMap<>(VertexAttribute.class);
+	private final int[]                          offsets;
+	private final int                            stride;
+
+	/**
+	 * Instantiates a new Vertex format.
+	 *
+	 * @param elements
+	 *   the elements
+	 */
+	public VertexFormat(VertexElement... elements) {
+		this.elements = elements.clone();
+		offsets = new int[elements.length];
+		int offset = 0;
+		for(int i = 0; i < elements.length; i++) {
+			VertexAttribute attribute = elements[i].getAttribute();
+			if(indexes.put(attribute, i) != null) {
+				throw new IllegalArgumentException(MessageFormat.format("{0} is declared twice", attribute));
+			}
+			offsets[i] = offset;
+			offset = align(offset + elements[i].getSize());
+		}
+		if(!indexes.containsKey(VertexAttribute.POSITION)) {
+			throw new IllegalArgumentException("A vertex format needs a position");
+		}
+		stride = offset;
+	}
+
+	/**
+	 * Standard vertex format. The same encoding as the separate buffers of a {@link Render}, double positions
+	 * and normals, byte colors and short tex coords.
+	 *
+	 * @param vertexSize
+	 *   the vertex size
+	 * @param colorSize
+	 *   the color size
+	 * @param texCoordSize
+	 *   the tex coord size
+	 *
+	 * @return the vertex format
+	 */
+	public static VertexFormat standard(int vertexSize, int colorSize, int texCoordSize) {
+		return new VertexFormat(new VertexElement(VertexAttribute.POSITION, ComponentType.DOUBLE, vertexSize),
+		                        new VertexElement(VertexAttribute.NORMAL, ComponentType.DOUBLE, 3),
+		                        new VertexElement(VertexAttribute.COLOR, ComponentType.UNSIGNED_BYTE, colorSize),
+		                        new VertexElement(VertexAttribute.TEX_COORD, ComponentType.SHORT, texCoordSize));
+	}
+
+	/**
+	 * Compact vertex format. Float positions, normals packed into 10 bit snorm components, normalized byte colors
+	 * and short tex coords, about a third of the size of the double precision buffers.
+	 *
+	 * @param vertexSize
+	 *   the vertex size
+	 * @param colorSize
+	 *   the color size
+	 * @param texCoordSize
+	 *   the tex coord size
+	 *
+	 * @return the vertex format
+	 */
+	public static VertexFormat compact(int vertexSize, int colorSize, int texCoordSize) {
+		return new VertexFormat(new VertexElement(VertexAttribute.POSITION, ComponentType.FLOAT, vertexSize),
+		                        new VertexElement(VertexAttribute.NORMAL, ComponentType.INT_2_10_10_10_REV, 3),
+		                        new VertexElement(VertexAttribute.COLOR, ComponentType.UNSIGNED_BYTE, colorSize),
+		                        new VertexElement(VertexAttribute.TEX_COORD, ComponentType.SHORT, texCoordSize));
+	}
+
+	private static int align(int offset) {
+		return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+
+	/**
+	 * Gets stride.
+	 *
+	 * @return the stride in bytes
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * Gets element count.
+	 *
+	 * @return the element count
+	 */
+	public int getElementCount() {
+		return elements.length;
+	}
+
+	/**
+	 * Gets element.
+	 *
+	 * @param index
+	 *   the index
+	 *
+	 * @return the element
+	 */
+	public VertexElement getElement(int index) {
+		return elements[index];
+	}
+
+	/**
+	 * Gets offset.
+	 *
+	 * @param index
+	 *   the index
+	 *
+	 * @return the offset in bytes of the element from the start of the vertex
+	 */
+	public int getOffset(int index) {
+		return offsets[index];
+	}
+
+	/**
+	 * Contains boolean.
+	 *
+	 * @param attribute
+	 *   the attribute
+	 *
+	 * @return the boolean
+	 */
+	public boolean contains(VertexAttribute attribute) {
+		return indexes.containsKey(attribute);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(elements);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(!(o instanceof VertexFormat)) {
+			return false;
+		}
+
+		VertexFormat format = (VertexFormat) o;
+
+		return Arrays.equals(elements, format.elements);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("VertexFormat{");
+		sb.append("elements=").append(Arrays.toString(elements));
+		sb.append(", stride=").append(stride);
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,186 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * The type Vertex packer. Converts the flat attribute buffers of a {@link Render} into the interleaved layout
+ * of a {@link VertexFormat}, encoding each element with {@link AttributeEncoder}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+@Utility
+final class VertexPacker {
+	private static final int MAX_COMPONENTS = 4;
+
+	/** Instantiates a new Vertex packer. */
+	private VertexPacker() {
+	}
+
+	/**
+	 * Pack doubles.
+	 *
+	 * @param format
+	 *   the format
+	 * @param index
+	 *   the element index
+	 * @param source
+	 *   the source, {@code sourceSize} values per vertex
+	 * @param sourceSize
+	 *   the source size
+	 * @param first
+	 *   the first vertex
+	 * @param count
+	 *   the vertex count
+	 * @param target
+	 *   the target, holding the whole interleaved buffer
+	 */
+	static void pack(VertexFormat format, int index, DoubleBuffer source, int sourceSize, int first, int count,
+	                 ByteBuffer target) {
+		VertexElement element = format.getElement(index);
+		double[] values = new double[MAX_COMPONENTS];
+		for(int v = first; v < (first + count); v++) {
+			for(int c = 0; c < MAX_COMPONENTS; c++) {
+				values[c] = (c < sourceSize) ? source.get((v * sourceSize) + c) : getPadding(element.getAttribute(), c);
+			}
+			write(target, (v * format.getStride()) + format.getOffset(index), element, values);
+		}
+	}
+
+	/**
+	 * Pack unsigned bytes, each byte is read as a normalized value in [0, 1].
+	 *
+	 * @param format
+	 *   the format
+	 * @param index
+	 *   the element index
+	 * @param source
+	 *   the source, {@code sourceSize} values per vertex
+	 * @param sourceSize
+	 *   the source size
+	 * @param first
+	 *   the first vertex
+	 * @param count
+	 *   the vertex count
+	 * @param target
+	 *   the target, holding the whole interleaved buffer
+	 */
+	static void pack(VertexFormat format, int index, ByteBuffer source, int sourceSize, int first, int count,
+	                 ByteBuffer target) {
+		VertexElement element = format.getElement(index);
+		if(element.getType() == ComponentType.UNSIGNED_BYTE) {
+			for(int v = first; v < (first + count); v++) {
+				int position = (v * format.getStride()) + format.getOffset(index);
+				for(int c = 0; c < element.getCount(); c++) {
+					byte padding = (getPadding(element.getAttribute(), c) == 1.0) ? (byte) 0xFF : 0;
+					target.put(position + c, (c < sourceSize) ? source.get((v * sourceSize) + c) : padding);
+				}
+			}
+			return;
+		}
+		double[] values = new double[MAX_COMPONENTS];
+		for(int v = first; v < (first + count); v++) {
+			for(int c = 0; c < MAX_COMPONENTS; c++) {
+				values[c] = (c < sourceSize) ? AttributeEncoder.fromUnorm8(source.get((v * sourceSize) + c)) :
+				            getPadding(element.getAttribute(), c);
+			}
+			write(target, (v * format.getStride()) + format.getOffset(index), element, values);
+		}
+	}
+
+	/**
+	 * Pack shorts.
+	 *
+	 * @param format
+	 *   the format
+	 * @param index
+	 *   the element index
+	 * @param source
+	 *   the source, {@code sourceSize} values per vertex
+	 * @param sourceSize
+	 *   the source size
+	 * @param first
+	 *   the first vertex
+	 * @param count
+	 *   the vertex count
+	 * @param target
+	 *   the target, holding the whole interleaved buffer
+	 */
+	static void pack(VertexFormat format, int index, ShortBuffer source, int sourceSize, int first, int count,
+	                 ByteBuffer target) {
+		VertexElement element = format.getElement(index);
+		double[] values = new double[MAX_COMPONENTS];
+		for(int v = first; v < (first + count); v++) {
+			for(int c = 0; c < MAX_COMPONENTS; c++) {
+				values[c] = (c < sourceSize) ? source.get((v * sourceSize) + c) : 0.0;
+			}
+			write(target, (v * format.getStride()) + format.getOffset(index), element, values);
+		}
+	}
+
+	/**
+	 * Gets padding.
+	 *
+	 * @param attribute
+	 *   the attribute
+	 * @param component
+	 *   the component index
+	 *
+	 * @return the value of a component the source does not have, one for w of a position and alpha of a color,
+	 *   otherwise zero
+	 */
+	private static double getPadding(VertexAttribute attribute, int component) {
+		boolean homogeneous = (attribute == VertexAttribute.POSITION) || (attribute == VertexAttribute.COLOR);
+		return (homogeneous && (component == 3)) ? 1.0 : 0.0;
+	}
+
+	private static void write(ByteBuffer target, int position, VertexElement element, double[] values) {
+		ComponentType type = element.getType();
+		if(element.isOctahedral()) {
+			target.putInt(position, AttributeEncoder.encodeOctahedral(values[0], values[1], values[2]));
+		} else if(type.isPacked()) {
+			double w = (element.getAttribute() == VertexAttribute.NORMAL) ? 0.0 : values[3];
+			target.putInt(position, AttributeEncoder.packSnorm1010102(values[0], values[1], values[2], w));
+		} else {
+			for(int c = 0; c < element.getCount(); c++) {
+				put(target, position + (c * type.getSize()), element, values[c]);
+			}
+		}
+	}
+
+	private static void put(ByteBuffer target, int position, VertexElement element, double value) {
+		ComponentType type = element.getType();
+		double scaled = value;
+		if(element.isNormalized()) {
+			double min = (type == ComponentType.UNSIGNED_BYTE) || (type == ComponentType.UNSIGNED_SHORT) ? 0.0 : -1.0;
+			scaled = Math.max(min, Math.min(1.0, value)) * type.getMaxValue();
+		}
+		switch(type) {
+			case DOUBLE:
+				target.putDouble(position, value);
+				break;
+			case FLOAT:
+				target.putFloat(position, (float) value);
+				break;
+			case HALF_FLOAT:
+				target.putShort(position, AttributeEncoder.toHalf((float) value));
+				break;
+			case INT:
+				target.putInt(position, (int) Math.round(scaled));
+				break;
+			case SHORT:
+			case UNSIGNED_SHORT:
+				target.putShort(position, (short) Math.round(scaled));
+				break;
+			case BYTE:
+			case UNSIGNED_BYTE:
+				target.put(position, (byte) Math.round(scaled));
+				break;
+			default:
+				throw new IllegalArgumentException(type.toString());
+		}
+	}
+}
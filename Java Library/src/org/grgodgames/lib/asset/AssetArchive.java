@@ -0,0 +1,343 @@
+package org.grgodgames.lib.asset;
+
+import org.grgodgames.lib.GameLogger;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The type Asset archive. Many assets packed into one file by {@link AssetPacker}, mapped once so a level load opens
+ * one file rather than one per asset.
+ * <p>
+ * The file is little endian, a {@value #HEADER_SIZE} byte header followed by the index, the names and the entries,
+ * each entry starting on an {@value #ALIGNMENT} byte boundary:
+ * <pre>
+ * 0   magic "GGPACK" and two zero bytes
+ * 8   int version, int entry count
+ * 16  long names offset, long data offset
+ * 32  the index, one {@value #INDEX_ENTRY} byte record per entry sorted by hash then name:
+ *     long name hash, long offset, int stored size, int size, int name offset, short name length, byte method,
+ *     byte reserved
+ * ..  the names as UTF-8, then the entries
+ * </pre>
+ * Stored entries are handed out as slices of the mapping, without a copy. Deflated entries are inflated into a new
+ * buffer each time they are read.
+ * <p>
+ * An archive never changes once it is open, so reads need no lock: each one works on its own view of the mapping
+ * and any number of loader threads can read at once.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class AssetArchive {
+	/** The format version written. */
+	public static final  int        VERSION     = 1;
+	/** The header size. */
+	public static final  int        HEADER_SIZE = 32;
+	/** The size of each index record. */
+	public static final  int        INDEX_ENTRY = 32;
+	/** The alignment of each entry. */
+	public static final  int        ALIGNMENT   = 16;
+	/** An entry stored as it is. */
+	static final         int        STORED      = 0;
+	/** An entry compressed with Deflate. */
+	static final         int        DEFLATED    = 1;
+	/** The magic. */
+	static final         byte[]     MAGIC       = {'G', 'G', 'P', 'A', 'C', 'K', 0, 0};
+	/** The byte order. */
+	static final         ByteOrder  ORDER       = ByteOrder.LITTLE_ENDIAN;
+	private static final GameLogger LOGGER      =
+		GameLogger.loggerOf(Logger.getLogger(AssetArchive.class.getName()));
+	private static final long       FNV_OFFSET  = 0xCBF29CE484222325L;
+	private static final long       FNV_PRIME   = 0x100000001B3L;
+	private final        File       source;
+	private final        ByteBuffer file;
+	private final        int        count;
+	private final        int        names;
+
+	private AssetArchive(File source, ByteBuffer file, int count, int names) {
+		this.source = source;
+		this.file = file;
+		this.count = count;
+		this.names = names;
+	}
+
+	/**
+	 * Open an archive, mapping it and checking its index.
+	 *
+	 * @param source
+	 *   the archive
+	 *
+	 * @return the archive
+	 *
+	 * @throws IOException
+	 *   if the file can not be read or is not a valid archive
+	 */
+	public static AssetArchive open(File source) throws IOException {
+		MappedByteBuffer file;
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw invalid(source, "it is larger than one mapping can be");
+			}
+			// the mapping outlives the channel
+			file = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+		}
+		file.order(ORDER);
+		if(file.capacity() < HEADER_SIZE) {
+			throw invalid(source, "it is shorter than the header");
+		}
+		for(int i = 0; i < MAGIC.length; i++) {
+			if(file.get(i) != MAGIC[i]) {
+				throw invalid(source, "it is not an asset archive");
+			}
+		}
+		int version = file.getInt(8);
+		if(version != VERSION) {
+			throw invalid(source, MessageFormat.format("version {0} is not supported", version));
+		}
+		int count = file.getInt(12);
+		long names = file.getLong(16);
+		long data = file.getLong(24);
+		if((count < 0) || (names != (HEADER_SIZE + ((long) count * INDEX_ENTRY))) || (data < names)
+		   || (data > file.capacity())) {
+			throw invalid(source, "the index lies outside the file");
+		}
+		for(int i = 0; i < count; i++) {
+			int record = HEADER_SIZE + (i * INDEX_ENTRY);
+			long offset = file.getLong(record + 8);
+			int stored = file.getInt(record + 16);
+			int size = file.getInt(record + 20);
+			long nameOffset = names + file.getInt(record + 24);
+			int nameLength = file.getShort(record + 28) & 0xFFFF;
+			int method = file.get(record + 30);
+			if((offset < data) || (stored < 0) || (size < 0) || ((offset + stored) > file.capacity())) {
+				throw invalid(source, "an entry lies outside the file");
+			}
+			if((nameOffset < names) || ((nameOffset + nameLength) > data)) {
+				throw invalid(source, "a name lies outside the names");
+			}
+			if(!(((method == STORED) && (stored == size)) || (method == DEFLATED))) {
+				throw invalid(source, MessageFormat.format("an entry has the unknown method {0}", method));
+			}
+			if((i > 0) && (file.getLong(record) < file.getLong(record - INDEX_ENTRY))) {
+				throw invalid(source, "the index is not sorted");
+			}
+		}
+
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Mapped {0}, {1} entries", source, count));
+		}
+		return new AssetArchive(source, file, count, (int) names);
+	}
+
+	/**
+	 * Hash a name, 64 bit FNV-1a over its UTF-8 bytes.
+	 *
+	 * @param name
+	 *   the name as UTF-8
+	 *
+	 * @return the hash
+	 */
+	static long hash(byte[] name) {
+		long hash = FNV_OFFSET;
+		for(byte b : name) {
+			hash ^= b & 0xFF;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Contains.
+	 *
+	 * @param name
+	 *   the entry name, with {@code /} between directories
+	 *
+	 * @return whether the archive has the entry
+	 */
+	public boolean contains(String name) {
+		return find(name) >= 0;
+	}
+
+	/**
+	 * Read an entry. A stored entry is a read only slice of the mapping, a deflated one is inflated into a new heap
+	 * buffer.
+	 *
+	 * @param name
+	 *   the entry name, with {@code /} between directories
+	 *
+	 * @return the entry's bytes, positioned at the first
+	 *
+	 * @throws IOException
+	 *   if the archive has no such entry or it can not be inflated
+	 */
+	public ByteBuffer read(String name) throws IOException {
+		int record = find(name);
+		if(record < 0) {
+			throw new FileNotFoundException(MessageFormat.format("{0} is not in {1}", name, source));
+		}
+		int offset = (int) file.getLong(record + 8);
+		int stored = file.getInt(record + 16);
+		int size = file.getInt(record + 20);
+		ByteBuffer view = file.duplicate();
+		view.limit(offset + stored).position(offset);
+		// the mapping is read only, and so are its slices
+		ByteBuffer entry = view.slice();
+		if(file.get(record + 30) == STORED) {
+			return entry;
+		}
+		return inflate(name, entry, size);
+	}
+
+	private ByteBuffer inflate(String name, ByteBuffer entry, int size) throws IOException {
+		byte[] in = new byte[entry.remaining()];
+		entry.get(in);
+		byte[] out = new byte[size];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(in);
+			int length = 0;
+			while((length < size) && !inflater.finished()) {
+				int read = inflater.inflate(out, length, size - length);
+				if((read == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += read;
+			}
+			if((length != size) || !inflater.finished()) {
+				throw new IOException(MessageFormat.format("{0} in {1} did not inflate to its size", name, source));
+			}
+		} catch(DataFormatException e) {
+			throw new IOException(MessageFormat.format("{0} in {1} is not valid Deflate data", name, source), e);
+		} finally {
+			inflater.end();
+		}
+		return ByteBuffer.wrap(out);
+	}
+
+	/**
+	 * Binary search the index for a name.
+	 *
+	 * @return the name's index record, or -1
+	 */
+	private int find(String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		long hash = hash(bytes);
+		int low = 0;
+		int high = count - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			long at = file.getLong(HEADER_SIZE + (middle * INDEX_ENTRY));
+			if(at < hash) {
+				low = middle + 1;
+			} else if(at > hash) {
+				high = middle - 1;
+			} else {
+				// names with the same hash are next to each other
+				for(int i = middle; (i >= 0) && (file.getLong(HEADER_SIZE + (i * INDEX_ENTRY)) == hash); i--) {
+					if(nameEquals(HEADER_SIZE + (i * INDEX_ENTRY), bytes)) {
+						return HEADER_SIZE + (i * INDEX_ENTRY);
+					}
+				}
+				for(int i = middle + 1; (i < count) && (file.getLong(HEADER_SIZE + (i * INDEX_ENTRY)) == hash); i++) {
+					if(nameEquals(HEADER_SIZE + (i * INDEX_ENTRY), bytes)) {
+						return HEADER_SIZE + (i * INDEX_ENTRY);
+					}
+				}
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	private boolean nameEquals(int record, byte[] name) {
+		int offset = names + file.getInt(record + 24);
+		int length = file.getShort(record + 28) & 0xFFFF;
+		if(length != name.length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(file.get(offset + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets names.
+	 *
+	 * @return every entry name, in index order
+	 */
+	public List<String> getNames() {
+		List<String> list = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			int record = HEADER_SIZE + (i * INDEX_ENTRY);
+			int offset = names + file.getInt(record + 24);
+			byte[] name = new byte[file.getShort(record + 28) & 0xFFFF];
+			for(int j = 0; j < name.length; j++) {
+				name[j] = file.get(offset + j);
+			}
+			list.add(new String(name, StandardCharsets.UTF_8));
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Gets the file an entry is reported as, the archive path and the entry name, for logs and asset handles.
+	 *
+	 * @param name
+	 *   the entry name
+	 *
+	 * @return the file
+	 */
+	public File getFile(String name) {
+		return new File(source, name);
+	}
+
+	/**
+	 * Gets source.
+	 *
+	 * @return the archive file
+	 */
+	public File getSource() {
+		return source;
+	}
+
+	/**
+	 * Size.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return count;
+	}
+
+	private static IOException invalid(File source, String reason) {
+		return new IOException(MessageFormat.format("Invalid asset archive {0}: {1}", source, reason));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("AssetArchive{");
+		sb.append("source=").append(source);
+		sb.append(", size=").append(count);
+		sb.append('}');
+		return sb.toString();
+	}
+}
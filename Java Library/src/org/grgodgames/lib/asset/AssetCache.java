@@ -0,0 +1,467 @@
+package org.grgodgames.lib.asset;
+
+import org.grgodgames.lib.GameLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * The type Asset cache. Shares loaded assets between their users, keyed by canonical source and
+ * {@link AssetType}, so two objects asking for the same file with the same parameters get one load and one upload.
+ * Every {@link #acquire(File, AssetType)} returns an {@link AssetReference}; an asset with no unreleased
+ * reference stays cached until memory is needed.
+ * <p>
+ * The Java heap and GL memory have separate byte budgets. When either is exceeded, unreferenced assets are evicted
+ * by segmented LRU: an asset enters a probation segment, and moves to a protected segment holding at most
+ * {@link #PROTECTED_SHARE} of each budget once it is asked for again, so a burst of one off loads evicts other one
+ * off loads before the assets that keep coming back. Referenced assets are never evicted, so a cache may run over
+ * budget while they are in use. Evicted assets are released on the render thread through its executor.
+ * <p>
+ * Every method may be called from any thread.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class AssetCache {
+	/** The default Java heap budget, 256 MiB. */
+	public static final  long               DEFAULT_CPU_BUDGET = 256L << 20;
+	/** The default GL memory budget, 256 MiB. */
+	public static final  long               DEFAULT_GPU_BUDGET = 256L << 20;
+	/** The share of each budget the protected segment may hold. */
+	public static final  double             PROTECTED_SHARE    = 0.8;
+	private static final GameLogger         LOGGER             =
+		GameLogger.loggerOf(Logger.getLogger(AssetCache.class.getName()));
+	private final        AssetLoader        loader;
+	private final        Executor           glExecutor;
+	private final        long               cpuBudget;
+	private final        long               gpuBudget;
+	private final        Map<Key, Entry<?>> entries            = new HashMap<>(64);
+	private final        Segment            probation          = new Segment();
+	private final        Segment            protectedSegment   = new Segment();
+	private              long               cpuUsage;
+	private              long               gpuUsage;
+	private              long               hits;
+	private              long               misses;
+	private              long               evictions;
+
+	/**
+	 * Instantiates a new Asset cache with the default budgets.
+	 *
+	 * @param loader
+	 *   the loader assets are loaded with
+	 * @param glExecutor
+	 *   the executor evicted assets are released on
+	 */
+	public AssetCache(AssetLoader loader, Executor glExecutor) {
+		this(loader, glExecutor, DEFAULT_CPU_BUDGET, DEFAULT_GPU_BUDGET);
+	}
+
+	/**
+	 * Instantiates a new Asset cache.
+	 *
+	 * @param loader
+	 *   the loader assets are loaded with
+	 * @param glExecutor
+	 *   the executor evicted assets are released on
+	 * @param cpuBudget
+	 *   the Java heap budget in bytes
+	 * @param gpuBudget
+	 *   the GL memory budget in bytes
+	 */
+	public AssetCache(AssetLoader loader, Executor glExecutor, long cpuBudget, long gpuBudget) {
+		if((cpuBudget < 0L) || (gpuBudget < 0L)) {
+			throw new IllegalArgumentException("A cache budget can not be negative");
+		}
+		this.loader = loader;
+		this.glExecutor = glExecutor;
+		this.cpuBudget = cpuBudget;
+		this.gpuBudget = gpuBudget;
+	}
+
+	/**
+	 * Acquire an asset, loading it unless it is cached or already loading. Release the reference once done with
+	 * it. A failed load is not cached, so the next acquire tries again.
+	 *
+	 * @param <D>
+	 *   the decoded type
+	 * @param <T>
+	 *   the loaded type
+	 * @param source
+	 *   the source
+	 * @param type
+	 *   the asset type, part of the key
+	 *
+	 * @return a new reference to the asset
+	 *
+	 * @throws IOException
+	 *   if the source path can not be made canonical
+	 */
+	public <D, T> AssetReference<T> acquire(File source, AssetType<D, T> type) throws IOException {
+		Key key = new Key(source.getCanonicalFile(), type);
+		synchronized(this) {
+			@SuppressWarnings("unchecked")
+			Entry<T> entry = (Entry<T>) entries.get(key);
+			if(entry == null) {
+				misses++;
+				entry = new Entry<>(key, type);
+				entries.put(key, entry);
+				entry.refs++;
+				entry.handle = loader.load(key.source, type);
+				entry.handle.toStage().whenComplete(new Completion<>(entry));
+			} else {
+				hits++;
+				if(entry.refs == 0) {
+					entry.unlink();
+				}
+				entry.refs++;
+				entry.hot = true;
+			}
+			return new AssetReference<>(this, entry);
+		}
+	}
+
+	/**
+	 * Release a reference's hold on its entry.
+	 *
+	 * @param entry
+	 *   the entry
+	 */
+	synchronized void release(Entry<?> entry) {
+		entry.refs--;
+		if((entry.refs == 0) && entry.loaded && (entries.get(entry.key) == entry)) {
+			park(entry);
+			evict();
+		}
+	}
+
+	/** Evict every unreferenced asset, whatever the budgets. */
+	public synchronized void clear() {
+		Segment[] segments = {probation, protectedSegment};
+		for(Segment segment : segments) {
+			Entry<?> entry = segment.eldest();
+			while(entry != null) {
+				Entry<?> next = segment.newer(entry);
+				remove(entry);
+				entry = next;
+			}
+		}
+	}
+
+	/** Put an unreferenced, loaded entry at the newest end of its segment. */
+	private void park(Entry<?> entry) {
+		if(entry.hot) {
+			protectedSegment.add(entry);
+			Entry<?> eldest = protectedSegment.eldest();
+			while((eldest != null) && ((protectedSegment.cpuSize > (cpuBudget * PROTECTED_SHARE))
+			                           || (protectedSegment.gpuSize > (gpuBudget * PROTECTED_SHARE)))) {
+				Entry<?> next = protectedSegment.newer(eldest);
+				eldest.unlink();
+				eldest.hot = false;
+				probation.add(eldest);
+				eldest = next;
+			}
+		} else {
+			probation.add(entry);
+		}
+	}
+
+	/** Evict unreferenced assets, probation first and eldest first, until both budgets are met. */
+	private void evict() {
+		Segment[] segments = {probation, protectedSegment};
+		for(Segment segment : segments) {
+			Entry<?> entry = segment.eldest();
+			while(entry != null) {
+				boolean cpuOver = cpuUsage > cpuBudget;
+				boolean gpuOver = gpuUsage > gpuBudget;
+				if(!cpuOver && !gpuOver) {
+					return;
+				}
+				Entry<?> next = segment.newer(entry);
+				if((cpuOver && (entry.cpuSize > 0L)) || (gpuOver && (entry.gpuSize > 0L))) {
+					remove(entry);
+					evictions++;
+				}
+				entry = next;
+			}
+		}
+	}
+
+	/** Drop an unreferenced entry and release its asset on the render thread. */
+	private void remove(Entry<?> entry) {
+		entry.unlink();
+		entries.remove(entry.key);
+		cpuUsage -= entry.cpuSize;
+		gpuUsage -= entry.gpuSize;
+		glExecutor.execute(new Release<>(entry));
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Evicted {0}", entry.key.source));
+		}
+	}
+
+	/**
+	 * Gets cpu budget.
+	 *
+	 * @return the Java heap budget in bytes
+	 */
+	public long getCpuBudget() {
+		return cpuBudget;
+	}
+
+	/**
+	 * Gets gpu budget.
+	 *
+	 * @return the GL memory budget in bytes
+	 */
+	public long getGpuBudget() {
+		return gpuBudget;
+	}
+
+	/**
+	 * Gets cpu usage.
+	 *
+	 * @return the Java heap bytes held by loaded assets, referenced or not
+	 */
+	public synchronized long getCpuUsage() {
+		return cpuUsage;
+	}
+
+	/**
+	 * Gets gpu usage.
+	 *
+	 * @return the GL memory bytes held by loaded assets, referenced or not
+	 */
+	public synchronized long getGpuUsage() {
+		return gpuUsage;
+	}
+
+	/**
+	 * Size.
+	 *
+	 * @return the number of cached or loading assets
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets hit count.
+	 *
+	 * @return the number of acquires that shared a cached or loading asset
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Gets miss count.
+	 *
+	 * @return the number of acquires that started a load
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Gets eviction count.
+	 *
+	 * @return the number of assets evicted to meet a budget, not counting {@link #clear()}
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Gets hit rate.
+	 *
+	 * @return the share of acquires that were hits, 0 before the first
+	 */
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return (total == 0L) ? 0.0 : (hits / (double) total);
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder("AssetCache{");
+		sb.append("size=").append(entries.size());
+		sb.append(", cpuUsage=").append(cpuUsage).append('/').append(cpuBudget);
+		sb.append(", gpuUsage=").append(gpuUsage).append('/').append(gpuBudget);
+		sb.append(", hits=").append(hits);
+		sb.append(", misses=").append(misses);
+		sb.append(", evictions=").append(evictions);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/** A canonical source and the type loading it. */
+	private static final class Key {
+		private final File            source;
+		private final AssetType<?, ?> type;
+		private final int             hash;
+
+		private Key(File source, AssetType<?, ?> type) {
+			this.source = source;
+			this.type = type;
+			hash = (31 * source.hashCode()) + type.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(!(o instanceof Key)) {
+				return false;
+			}
+
+			Key key = (Key) o;
+
+			return source.equals(key.source) && type.equals(key.type);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * One cached or loading asset. Unreferenced, loaded entries are linked into a segment, oldest first; all
+	 * fields are guarded by the cache.
+	 *
+	 * @param <T>
+	 *   the loaded type
+	 */
+	static final class Entry<T> {
+		private final Key             key;
+		private final AssetType<?, T> type;
+		private       AssetHandle<T>  handle;
+		private       T               value;
+		private       boolean         loaded;
+		private       boolean         hot;
+		private       int             refs;
+		private       long            cpuSize;
+		private       long            gpuSize;
+		private       Segment         segment;
+		private       Entry<?>        older;
+		private       Entry<?>        newer;
+
+		private Entry(Key key, AssetType<?, T> type) {
+			this.key = key;
+			this.type = type;
+		}
+
+		/**
+		 * Gets handle.
+		 *
+		 * @return the handle shared by every reference
+		 */
+		AssetHandle<T> getHandle() {
+			return handle;
+		}
+
+		private void unlink() {
+			if(segment != null) {
+				segment.remove(this);
+			}
+		}
+	}
+
+	/** A list of entries from eldest to newest, with their total sizes. */
+	private static final class Segment {
+		private final Entry<?> head = new Entry<>(null, null);
+		private       long     cpuSize;
+		private       long     gpuSize;
+
+		private Segment() {
+			head.older = head;
+			head.newer = head;
+		}
+
+		private void add(Entry<?> entry) {
+			entry.segment = this;
+			entry.newer = head;
+			entry.older = head.older;
+			head.older.newer = entry;
+			head.older = entry;
+			cpuSize += entry.cpuSize;
+			gpuSize += entry.gpuSize;
+		}
+
+		private void remove(Entry<?> entry) {
+			entry.older.newer = entry.newer;
+			entry.newer.older = entry.older;
+			entry.older = null;
+			entry.newer = null;
+			entry.segment = null;
+			cpuSize -= entry.cpuSize;
+			gpuSize -= entry.gpuSize;
+		}
+
+		private Entry<?> eldest() {
+			return newer(head);
+		}
+
+		private Entry<?> newer(Entry<?> entry) {
+			return (entry.newer == head) ? null : entry.newer;
+		}
+	}
+
+	/** Records a finished load: sizes and parks a loaded asset, forgets a failed one. */
+	private final class Completion<T> implements BiConsumer<T, Throwable> {
+		private final Entry<T> entry;
+
+		private Completion(Entry<T> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public void accept(T value, Throwable failure) {
+			synchronized(AssetCache.this) {
+				if(failure != null) {
+					if(entries.get(entry.key) == entry) {
+						entries.remove(entry.key);
+					}
+					return;
+				}
+				entry.value = value;
+				entry.cpuSize = entry.type.getCpuSize(value);
+				entry.gpuSize = entry.type.getGpuSize(value);
+				entry.loaded = true;
+				cpuUsage += entry.cpuSize;
+				gpuUsage += entry.gpuSize;
+				if(entry.refs == 0) {
+					park(entry);
+				}
+				evict();
+			}
+		}
+	}
+
+	/** Releases an evicted asset on the render thread. */
+	private static final class Release<T> implements Runnable {
+		private final Entry<T> entry;
+
+		private Release(Entry<T> entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public void run() {
+			entry.type.release(entry.value);
+			entry.value = null;
+		}
+
+		@Override
+		public String toString() {
+			return "Release " + entry.key.source;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package org.grgodgames.lib.asset;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The type Asset handle. The pending result of an {@link AssetLoader#load(File, AssetType)}, with its stage and
+ * progress for loading screens.
+ *
+ * @param <T>
+ *   the loaded type
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class AssetHandle<T> {
+	private final    File                 source;
+	private final    CompletableFuture<T> future   = new CompletableFuture<>();
+	private volatile AssetState           state    = AssetState.QUEUED;
+	private volatile double               progress = 0.0;
+
+	/**
+	 * Instantiates a new Asset handle.
+	 *
+	 * @param source
+	 *   the source
+	 */
+	AssetHandle(File source) {
+		this.source = source;
+	}
+
+	/**
+	 * Gets source.
+	 *
+	 * @return the source
+	 */
+	public File getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets state.
+	 *
+	 * @return the state
+	 */
+	public AssetState getState() {
+		return state;
+	}
+
+	/**
+	 * Gets progress.
+	 *
+	 * @return the progress from 0 to 1, 1 once the handle is done however it ended
+	 */
+	public double getProgress() {
+		return state.isDone() ? 1.0 : progress;
+	}
+
+	/**
+	 * Is done.
+	 *
+	 * @return whether the asset loaded, failed or was cancelled
+	 */
+	public boolean isDone() {
+		return state.isDone();
+	}
+
+	/**
+	 * Gets the asset if it has loaded.
+	 *
+	 * @return the asset, or null if it is not loaded
+	 */
+	public T getNow() {
+		return (state == AssetState.LOADED) ? future.getNow(null) : null;
+	}
+
+	/**
+	 * Gets the asset, waiting for it to load. Never call this on the render thread, the upload it waits for runs
+	 * there.
+	 *
+	 * @return the asset
+	 *
+	 * @throws IOException
+	 *   if loading failed or was cancelled
+	 * @throws InterruptedException
+	 *   if interrupted while waiting
+	 */
+	public T get() throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Failed to load " + source, cause);
+		} catch(CancellationException e) {
+			throw new IOException("Cancelled loading " + source, e);
+		}
+	}
+
+	/**
+	 * Gets failure.
+	 *
+	 * @return what made loading fail, or null
+	 */
+	public Throwable getFailure() {
+		if(state != AssetState.FAILED) {
+			return null;
+		}
+		try {
+			future.join();
+			return null;
+		} catch(RuntimeException e) {
+			return e.getCause();
+		}
+	}
+
+	/**
+	 * To stage.
+	 *
+	 * @return a stage completed with the asset, or exceptionally, on the thread that finished loading, which is
+	 * the render thread for a loaded asset
+	 */
+	public CompletionStage<T> toStage() {
+		return future;
+	}
+
+	/**
+	 * Cancel. A stage already running finishes, but nothing after it runs.
+	 *
+	 * @return whether the handle was cancelled, false if it was already done
+	 */
+	public boolean cancel() {
+		synchronized(future) {
+			if(state.isDone()) {
+				return false;
+			}
+			state = AssetState.CANCELLED;
+		}
+		future.cancel(false);
+		return true;
+	}
+
+	/**
+	 * Move to a stage, unless the handle was cancelled.
+	 *
+	 * @param next
+	 *   the next stage
+	 * @param progress
+	 *   the progress at its start
+	 *
+	 * @return whether the stage should run
+	 */
+	boolean begin(AssetState next, double progress) {
+		synchronized(future) {
+			if(state.isDone()) {
+				return false;
+			}
+			state = next;
+			this.progress = progress;
+			return true;
+		}
+	}
+
+	/**
+	 * Sets progress.
+	 *
+	 * @param progress
+	 *   the progress
+	 */
+	void setProgress(double progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Complete, unless the handle was cancelled or failed first.
+	 *
+	 * @param value
+	 *   the asset
+	 *
+	 * @return whether the handle took the asset, if not the caller still owns it
+	 */
+	boolean complete(T value) {
+		synchronized(future) {
+			if(state.isDone()) {
+				return false;
+			}
+			state = AssetState.LOADED;
+		}
+		future.complete(value);
+		return true;
+	}
+
+	/**
+	 * Fail.
+	 *
+	 * @param failure
+	 *   the failure
+	 */
+	void fail(Throwable failure) {
+		synchronized(future) {
+			if(state.isDone()) {
+				return;
+			}
+			state = AssetState.FAILED;
+		}
+		future.completeExceptionally(failure);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("AssetHandle{");
+		sb.append("source=").append(source);
+		sb.append(", state=").append(state);
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,260 @@
+package org.grgodgames.lib.asset;
+
+import org.grgodgames.lib.ChunkedDeflate;
+import org.grgodgames.lib.GameLogger;
+import org.grgodgames.lib.IOHelper;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * The type Asset loader. Loads assets in three stages so the render thread only makes GL calls: the source is read
+ * on an IO thread, decoded on a CPU thread, then uploaded through the render thread's executor, usually the
+ * {@link UploadQueue} a {@link org.grgodgames.lib.game.Game} drains every frame.
+ * <p>
+ * IO threads come from a cached pool, since a thread blocked on a read costs little and many reads can be in
+ * flight at once; decoding uses a fixed pool one smaller than the number of processors, leaving one for the
+ * render thread. Every worker is a daemon, so a loader never keeps the game alive.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class AssetLoader {
+	/** The progress once a source is read, reading reports progress up to it as bytes arrive. */
+	public static final  double          READ_PROGRESS   = 0.5;
+	/** The progress once a source is decoded. */
+	public static final  double          DECODE_PROGRESS = 0.9;
+	private static final GameLogger      LOGGER          =
+		GameLogger.loggerOf(Logger.getLogger(AssetLoader.class.getName()));
+	private static final int             READ_SIZE       = 1 << 20;
+	private final        ExecutorService ioExecutor;
+	private final        ExecutorService cpuExecutor;
+	private final        Executor        glExecutor;
+
+	/**
+	 * Instantiates a new Asset loader with a decoding thread for each processor but one.
+	 *
+	 * @param glExecutor
+	 *   the executor uploads run on
+	 */
+	public AssetLoader(Executor glExecutor) {
+		this(glExecutor, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	/**
+	 * Instantiates a new Asset loader.
+	 *
+	 * @param glExecutor
+	 *   the executor uploads run on
+	 * @param cpuThreads
+	 *   the number of decoding threads
+	 */
+	public AssetLoader(Executor glExecutor, int cpuThreads) {
+		if(cpuThreads < 1) {
+			throw new IllegalArgumentException("An asset loader needs at least one decoding thread");
+		}
+		this.glExecutor = glExecutor;
+		ioExecutor = Executors.newCachedThreadPool(new WorkerFactory("Asset IO"));
+		cpuExecutor = Executors.newFixedThreadPool(cpuThreads, new WorkerFactory("Asset CPU"));
+	}
+
+	/**
+	 * Load an asset.
+	 *
+	 * @param <D>
+	 *   the decoded type
+	 * @param <T>
+	 *   the loaded type
+	 * @param source
+	 *   the source
+	 * @param type
+	 *   the asset type
+	 *
+	 * @return the handle, loading has started when it is returned
+	 */
+	public <D, T> AssetHandle<T> load(File source, AssetType<D, T> type) {
+		AssetHandle<T> handle = new AssetHandle<>(source);
+		submit(ioExecutor, new Job<>(handle, type, null, null));
+		return handle;
+	}
+
+	/**
+	 * Load an asset from an archive. A stored entry is decoded straight from the archive's mapping.
+	 *
+	 * @param <D>
+	 *   the decoded type
+	 * @param <T>
+	 *   the loaded type
+	 * @param archive
+	 *   the archive
+	 * @param name
+	 *   the entry name
+	 * @param type
+	 *   the asset type
+	 *
+	 * @return the handle, its source is {@link AssetArchive#getFile(String)}
+	 */
+	public <D, T> AssetHandle<T> load(AssetArchive archive, String name, AssetType<D, T> type) {
+		AssetHandle<T> handle = new AssetHandle<>(archive.getFile(name));
+		submit(ioExecutor, new Job<>(handle, type, archive, name));
+		return handle;
+	}
+
+	/**
+	 * Shut down the worker threads. Stages already running finish, queued ones fail.
+	 */
+	public void shutdown() {
+		fail(ioExecutor.shutdownNow());
+		fail(cpuExecutor.shutdownNow());
+	}
+
+	private static void fail(Iterable<Runnable> jobs) {
+		for(Runnable job : jobs) {
+			((Job<?, ?>) job).handle.fail(new RejectedExecutionException("The asset loader was shut down"));
+		}
+	}
+
+	/**
+	 * Is shut down.
+	 *
+	 * @return the boolean
+	 */
+	public boolean isShutdown() {
+		return ioExecutor.isShutdown();
+	}
+
+	private void submit(Executor executor, Job<?, ?> job) {
+		try {
+			executor.execute(job);
+		} catch(RejectedExecutionException e) {
+			job.handle.fail(e);
+		}
+	}
+
+	private static ByteBuffer read(File source, AssetHandle<?> handle) throws IOException {
+		if(ChunkedDeflate.isChunked(source)) {
+			// inflated on the fork join pool, this thread only waits
+			ByteBuffer data = IOHelper.readInflated(source);
+			handle.setProgress(READ_PROGRESS);
+			return data;
+		}
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if(size > Integer.MAX_VALUE) {
+				throw new IOException(MessageFormat.format("{0} is too large to load", source));
+			}
+			ByteBuffer data = ByteBuffer.allocate((int) size);
+			while(data.hasRemaining()) {
+				if(handle.isDone()) {
+					break;
+				}
+				data.limit(Math.min(data.capacity(), data.position() + READ_SIZE));
+				if(channel.read(data) < 0) {
+					throw new EOFException(MessageFormat.format("{0} ended while being read", source));
+				}
+				data.limit(data.capacity());
+				handle.setProgress((READ_PROGRESS * data.position()) / Math.max(1, size));
+			}
+			data.flip();
+			return data;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("AssetLoader{");
+		sb.append("shutdown=").append(isShutdown());
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/** One asset moving through the stages, resubmitting itself to the next stage's executor. */
+	private final class Job<D, T> implements Runnable {
+		private final AssetHandle<T>  handle;
+		private final AssetType<D, T> type;
+		private final AssetArchive    archive;
+		private final String          name;
+		private       ByteBuffer      data;
+		private       D               decoded;
+
+		private Job(AssetHandle<T> handle, AssetType<D, T> type, AssetArchive archive, String name) {
+			this.handle = handle;
+			this.type = type;
+			this.archive = archive;
+			this.name = name;
+		}
+
+		@Override
+		public void run() {
+			try {
+				switch(handle.getState()) {
+					case QUEUED:
+						if(handle.begin(AssetState.READING, 0.0)) {
+							data = (archive == null) ? read(handle.getSource(), handle) : archive.read(name);
+							if(handle.begin(AssetState.DECODING, READ_PROGRESS)) {
+								submit(cpuExecutor, this);
+							}
+						}
+						break;
+					case DECODING:
+						decoded = type.decode(handle.getSource(), data);
+						data = null;
+						if(handle.begin(AssetState.UPLOADING, DECODE_PROGRESS)) {
+							submit(glExecutor, this);
+						}
+						break;
+					case UPLOADING:
+						T value = type.upload(decoded);
+						decoded = null;
+						// a cancel during the upload leaves nobody to release the asset but us
+						if(!handle.complete(value)) {
+							type.release(value);
+						}
+						break;
+					default:
+						break;
+				}
+			} catch(IOException | RuntimeException e) {
+				if(LOGGER.isWarningEnabled()) {
+					LOGGER.logWarning(MessageFormat.format("Failed to load {0}", handle.getSource()), e);
+				}
+				handle.fail(e);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return handle.toString();
+		}
+	}
+
+	/** Names worker threads and makes them daemons. */
+	private static final class WorkerFactory implements ThreadFactory {
+		private final String        name;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private WorkerFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + ' ' + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
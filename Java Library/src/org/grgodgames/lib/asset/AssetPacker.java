@@ -0,0 +1,303 @@
+package org.grgodgames.lib.asset;
+
+import org.grgodgames.lib.GameLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+
+/**
+ * The type Asset packer. Builds an {@link AssetArchive} from loose files.
+ * <p>
+ * From the command line it packs a directory, naming each file by its path below the directory:
+ * <pre>
+ * java org.grgodgames.lib.asset.AssetPacker [-deflate] directory archive
+ * </pre>
+ * With {@code -deflate} each entry is compressed when that saves at least an eighth of its size, otherwise it is
+ * stored so it can be read without a copy.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class AssetPacker {
+	private static final GameLogger  LOGGER  = GameLogger.loggerOf(Logger.getLogger(AssetPacker.class.getName()));
+	private static final int         CHUNK   = 1 << 16;
+	private final        List<Entry> entries = new ArrayList<>(64);
+	private final        Set<String> names   = new HashSet<>(64);
+	private final        boolean     deflate;
+
+	/**
+	 * Instantiates a new Asset packer.
+	 *
+	 * @param deflate
+	 *   whether entries are compressed when it pays
+	 */
+	public AssetPacker(boolean deflate) {
+		this.deflate = deflate;
+	}
+
+	/**
+	 * Pack a directory.
+	 *
+	 * @param args
+	 *   {@code [-deflate] directory archive}
+	 *
+	 * @throws IOException
+	 *   if a file can not be read or the archive can not be written
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean deflate = (args.length == 3) && "-deflate".equals(args[0]);
+		if((args.length != 2) && !deflate) {
+			throw new IllegalArgumentException("Usage: AssetPacker [-deflate] directory archive");
+		}
+		File directory = new File(args[args.length - 2]);
+		if(!directory.isDirectory()) {
+			throw new IllegalArgumentException(MessageFormat.format("{0} is not a directory", directory));
+		}
+		AssetPacker packer = new AssetPacker(deflate);
+		packer.addDirectory(directory);
+		packer.write(new File(args[args.length - 1]));
+	}
+
+	/**
+	 * Add every file below a directory, named by its path below it.
+	 *
+	 * @param directory
+	 *   the directory
+	 *
+	 * @throws IOException
+	 *   if the directory can not be listed
+	 */
+	public void addDirectory(File directory) throws IOException {
+		addDirectory(directory, "");
+	}
+
+	private void addDirectory(File directory, String prefix) throws IOException {
+		File[] files = directory.listFiles();
+		if(files == null) {
+			throw new IOException(MessageFormat.format("Failed to list {0}", directory));
+		}
+		for(File file : files) {
+			if(file.isDirectory()) {
+				addDirectory(file, prefix + file.getName() + '/');
+			} else if(file.isFile()) {
+				add(prefix + file.getName(), file);
+			}
+		}
+	}
+
+	/**
+	 * Add a file.
+	 *
+	 * @param name
+	 *   the entry name, with {@code /} between directories
+	 * @param source
+	 *   the file
+	 */
+	public void add(String name, File source) {
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		if((bytes.length == 0) || (bytes.length > 0xFFFF)) {
+			throw new IllegalArgumentException(MessageFormat.format("{0} is not a valid entry name", name));
+		}
+		if(!names.add(name)) {
+			throw new IllegalArgumentException(MessageFormat.format("{0} was already added", name));
+		}
+		entries.add(new Entry(name, bytes, source));
+	}
+
+	/**
+	 * Write the archive, replacing any file already there.
+	 *
+	 * @param target
+	 *   the archive
+	 *
+	 * @throws IOException
+	 *   if a file can not be read or the archive can not be written
+	 */
+	public void write(File target) throws IOException {
+		List<Entry> sorted = new ArrayList<>(entries);
+		Collections.sort(sorted, new IndexOrder());
+		long namesOffset = AssetArchive.HEADER_SIZE + ((long) sorted.size() * AssetArchive.INDEX_ENTRY);
+		long namesLength = 0L;
+		for(Entry entry : sorted) {
+			entry.nameOffset = (int) namesLength;
+			namesLength += entry.bytes.length;
+		}
+		long dataOffset = align(namesOffset + namesLength);
+		if(dataOffset > Integer.MAX_VALUE) {
+			throw new IOException(MessageFormat.format("{0} would be larger than one mapping can be", target));
+		}
+
+		long end = dataOffset;
+		try(FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+		                                           StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			// the entries go first, the index needs their stored sizes
+			for(Entry entry : sorted) {
+				entry.offset = end;
+				writeEntry(channel, entry);
+				end = align(end + entry.stored);
+				if(end > Integer.MAX_VALUE) {
+					throw new IOException(MessageFormat.format("{0} would be larger than one mapping can be", target));
+				}
+			}
+			if(channel.size() < end) {
+				// pad the last entry, so the archive ends aligned too
+				writeFully(channel, ByteBuffer.allocate((int) (end - channel.size())), channel.size());
+			}
+
+			ByteBuffer head = ByteBuffer.allocate((int) dataOffset).order(AssetArchive.ORDER);
+			head.put(AssetArchive.MAGIC);
+			head.putInt(AssetArchive.VERSION);
+			head.putInt(sorted.size());
+			head.putLong(namesOffset);
+			head.putLong(dataOffset);
+			for(Entry entry : sorted) {
+				head.putLong(entry.hash);
+				head.putLong(entry.offset);
+				head.putInt((int) entry.stored);
+				head.putInt((int) entry.size);
+				head.putInt(entry.nameOffset);
+				head.putShort((short) entry.bytes.length);
+				head.put((byte) entry.method);
+				head.put((byte) 0);
+			}
+			for(Entry entry : sorted) {
+				head.put(entry.bytes);
+			}
+			head.clear();
+			writeFully(channel, head, 0L);
+		}
+
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Packed {0} files into {1}, {2} bytes", sorted.size(), target, end));
+		}
+	}
+
+	/** Write one entry at its offset, deflated when it pays and is asked for. */
+	private void writeEntry(FileChannel channel, Entry entry) throws IOException {
+		entry.size = entry.source.length();
+		if(entry.size > Integer.MAX_VALUE) {
+			throw new IOException(MessageFormat.format("{0} is larger than one entry can be", entry.source));
+		}
+		if(deflate) {
+			byte[] deflated = deflate(Files.readAllBytes(entry.source.toPath()));
+			if((deflated.length + (entry.size / 8)) <= entry.size) {
+				entry.method = AssetArchive.DEFLATED;
+				entry.stored = deflated.length;
+				writeFully(channel, ByteBuffer.wrap(deflated), entry.offset);
+				return;
+			}
+		}
+		entry.method = AssetArchive.STORED;
+		entry.stored = entry.size;
+		try(FileChannel in = FileChannel.open(entry.source.toPath(), StandardOpenOption.READ)) {
+			channel.position(entry.offset);
+			long copied = 0L;
+			while(copied < entry.size) {
+				long moved = in.transferTo(copied, entry.size - copied, channel);
+				if(moved <= 0L) {
+					throw new IOException(MessageFormat.format("{0} changed while being packed", entry.source));
+				}
+				copied += moved;
+			}
+		}
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			byte[] chunk = new byte[CHUNK];
+			ByteBuffer out = ByteBuffer.allocate(Math.max(CHUNK, data.length / 2));
+			while(!deflater.finished()) {
+				int length = deflater.deflate(chunk);
+				if(out.remaining() < length) {
+					ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + length));
+					out.flip();
+					grown.put(out);
+					out = grown;
+				}
+				out.put(chunk, 0, length);
+			}
+			byte[] deflated = new byte[out.position()];
+			out.flip();
+			out.get(deflated);
+			return deflated;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static long align(long offset) {
+		return ((offset + AssetArchive.ALIGNMENT) - 1) & -AssetArchive.ALIGNMENT;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long at = position;
+		while(buffer.hasRemaining()) {
+			at += channel.write(buffer, at);
+		}
+	}
+
+	/**
+	 * Size.
+	 *
+	 * @return the number of files added
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("AssetPacker{");
+		sb.append("size=").append(entries.size());
+		sb.append(", deflate=").append(deflate);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	/** A file to pack and where it goes. */
+	private static final class Entry {
+		private final String name;
+		private final byte[] bytes;
+		private final long   hash;
+		private final File   source;
+		private       int    nameOffset;
+		private       long   offset;
+		private       long   size;
+		private       long   stored;
+		private       int    method;
+
+		private Entry(String name, byte[] bytes, File source) {
+			this.name = name;
+			this.bytes = bytes;
+			this.hash = AssetArchive.hash(bytes);
+			this.source = source;
+		}
+	}
+
+	/** Sorts entries by hash, then name, the order the archive searches. */
+	private static final class IndexOrder implements Comparator<Entry> {
+		@Override
+		public int compare(Entry a, Entry b) {
+			int order = Long.compare(a.hash, b.hash);
+			return (order != 0) ? order : a.name.compareTo(b.name);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.grgodgames.lib.asset;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The type Asset reference. One user's hold on an asset shared through an {@link AssetCache}. The asset stays
+ * cached, and its GL objects alive, until every reference to it is released; release a reference once it is no
+ * longer drawn with, for example in {@code destroy()}.
+ *
+ * @param <T>
+ *   the loaded type
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class AssetReference<T> {
+	private final AssetCache          cache;
+	private final AssetCache.Entry<T> entry;
+	private final AssetHandle<T>      handle;
+	private final AtomicBoolean       released = new AtomicBoolean();
+
+	/**
+	 * Instantiates a new Asset reference.
+	 *
+	 * @param cache
+	 *   the cache
+	 * @param entry
+	 *   the cache entry it holds
+	 */
+	AssetReference(AssetCache cache, AssetCache.Entry<T> entry) {
+		this.cache = cache;
+		this.entry = entry;
+		handle = entry.getHandle();
+	}
+
+	/**
+	 * Gets source.
+	 *
+	 * @return the canonical source
+	 */
+	public File getSource() {
+		return handle.getSource();
+	}
+
+	/**
+	 * Gets state.
+	 *
+	 * @return the state
+	 */
+	public AssetState getState() {
+		return handle.getState();
+	}
+
+	/**
+	 * Gets progress.
+	 *
+	 * @return the progress from 0 to 1
+	 */
+	public double getProgress() {
+		return handle.getProgress();
+	}
+
+	/**
+	 * Is done.
+	 *
+	 * @return whether the asset loaded or failed
+	 */
+	public boolean isDone() {
+		return handle.isDone();
+	}
+
+	/**
+	 * Gets the asset if it has loaded.
+	 *
+	 * @return the asset, or null if it is not loaded
+	 */
+	public T getNow() {
+		return handle.getNow();
+	}
+
+	/**
+	 * Gets the asset, waiting for it to load. Never call this on the render thread.
+	 *
+	 * @return the asset
+	 *
+	 * @throws IOException
+	 *   if loading failed
+	 * @throws InterruptedException
+	 *   if interrupted while waiting
+	 */
+	public T get() throws IOException, InterruptedException {
+		return handle.get();
+	}
+
+	/**
+	 * Gets failure.
+	 *
+	 * @return what made loading fail, or null
+	 */
+	public Throwable getFailure() {
+		return handle.getFailure();
+	}
+
+	/**
+	 * To stage.
+	 *
+	 * @return a stage completed with the asset, or exceptionally
+	 */
+	public CompletionStage<T> toStage() {
+		return handle.toStage();
+	}
+
+	/**
+	 * Release the reference. Releasing it again does nothing.
+	 *
+	 * @return whether this call released it
+	 */
+	public boolean release() {
+		if(!released.compareAndSet(false, true)) {
+			return false;
+		}
+		cache.release(entry);
+		return true;
+	}
+
+	/**
+	 * Is released.
+	 *
+	 * @return the boolean
+	 */
+	public boolean isReleased() {
+		return released.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("AssetReference{");
+		sb.append("source=").append(handle.getSource());
+		sb.append(", state=").append(handle.getState());
+		sb.append(", released=").append(released.get());
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,34 @@
+package org.grgodgames.lib.asset;
+
+/**
+ * The enum Asset state. The stages an {@link AssetHandle} moves through, in order.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public enum AssetState {
+	/** Waiting for an IO thread. */
+	QUEUED,
+	/** The source is being read on an IO thread. */
+	READING,
+	/** Read, and waiting for or being decoded on a CPU thread. */
+	DECODING,
+	/** Decoded, and waiting for or running its upload on the render thread. */
+	UPLOADING,
+	/** Loaded, the handle has its value. */
+	LOADED,
+	/** A stage threw, the handle has its failure. */
+	FAILED,
+	/** Cancelled before it was loaded. */
+	CANCELLED;
+
+	/**
+	 * Is done.
+	 *
+	 * @return whether the state is final
+	 */
+	public boolean isDone() {
+		return (this == LOADED) || (this == FAILED) || (this == CANCELLED);
+	}
+}
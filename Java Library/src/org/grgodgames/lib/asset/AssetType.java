@@ -0,0 +1,77 @@
+package org.grgodgames.lib.asset;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The interface Asset type. The two stages of loading one kind of asset after its source has been read: decoding
+ * on a CPU thread and the GL calls on the render thread.
+ * <p>
+ * An {@link AssetCache} keys assets by their source and type, so types with parameters should compare equal
+ * exactly when they would load the same asset.
+ *
+ * @param <D>
+ *   the decoded type, handed from the CPU thread to the render thread
+ * @param <T>
+ *   the loaded type
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public interface AssetType<D, T> {
+	/**
+	 * Decode the source on a CPU thread. No GL calls may be made here.
+	 *
+	 * @param source
+	 *   the source
+	 * @param data
+	 *   every byte of the source, positioned at the first
+	 *
+	 * @return the decoded data
+	 *
+	 * @throws IOException
+	 *   if the data is not valid
+	 */
+	D decode(File source, ByteBuffer data) throws IOException;
+
+	/**
+	 * Upload the decoded data on the render thread. Uploads share a per frame time budget, so this should only
+	 * make the GL calls.
+	 *
+	 * @param decoded
+	 *   the decoded data
+	 *
+	 * @return the asset
+	 */
+	T upload(D decoded);
+
+	/**
+	 * Gets cpu size.
+	 *
+	 * @param asset
+	 *   the asset
+	 *
+	 * @return about how many bytes of the Java heap the asset holds
+	 */
+	long getCpuSize(T asset);
+
+	/**
+	 * Gets gpu size.
+	 *
+	 * @param asset
+	 *   the asset
+	 *
+	 * @return about how many bytes of GL memory the asset holds
+	 */
+	long getGpuSize(T asset);
+
+	/**
+	 * Release the asset on the render thread once nothing uses it, deleting any GL objects it made.
+	 *
+	 * @param asset
+	 *   the asset
+	 */
+	void release(T asset);
+}
@@ -0,0 +1,139 @@
+package org.grgodgames.lib.asset;
+
+import org.grgodgames.lib.BufferProvider;
+import org.grgodgames.lib.MeshBuffers;
+import org.grgodgames.lib.mesh.Mesh;
+import org.grgodgames.lib.mesh.MeshOptimizer;
+import org.grgodgames.lib.mesh.ObjImporter;
+import org.grgodgames.lib.mesh.PlyImporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The type Mesh asset. Decodes {@code .obj} and {@code .ply} files with {@link ObjImporter} and
+ * {@link PlyImporter}, optionally optimizing the result and packing it into {@link MeshBuffers} on the same CPU
+ * thread. The upload stage only creates the buffer objects on the render thread, so it fits the upload budget.
+ * <p>
+ * The mesh is kept beside its buffers, so a {@link org.grgodgames.lib.Render} can still take it in its
+ * {@code doReset()}. A cached mesh counts its arrays against the CPU budget and its buffers against the GPU budget,
+ * which are deleted when the cache releases it.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class MeshAsset implements AssetType<MeshBuffers, MeshBuffers> {
+	private final boolean        optimize;
+	private final BufferProvider provider;
+
+	/**
+	 * Instantiates a new Mesh asset uploading to the current context.
+	 *
+	 * @param optimize
+	 *   whether to run {@link MeshOptimizer#optimize(Mesh)} while decoding
+	 */
+	public MeshAsset(boolean optimize) {
+		this(optimize, null);
+	}
+
+	/**
+	 * Instantiates a new Mesh asset.
+	 *
+	 * @param optimize
+	 *   whether to run {@link MeshOptimizer#optimize(Mesh)} while decoding
+	 * @param provider
+	 *   the provider making the GL calls, or null for the current context
+	 */
+	public MeshAsset(boolean optimize, BufferProvider provider) {
+		this.optimize = optimize;
+		this.provider = provider;
+	}
+
+	@Override
+	public MeshBuffers decode(File source, ByteBuffer data) throws IOException {
+		InputStream in;
+		if(data.hasArray()) {
+			in = new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(), data.remaining());
+		} else {
+			// archive slices and inflated files are direct or read only
+			byte[] bytes = new byte[data.remaining()];
+			data.duplicate().get(bytes);
+			in = new ByteArrayInputStream(bytes);
+		}
+		String name = source.getName().toLowerCase(Locale.ROOT);
+		Mesh mesh;
+		if(name.endsWith(".obj")) {
+			mesh = ObjImporter.read(in, source.toString());
+		} else if(name.endsWith(".ply")) {
+			mesh = PlyImporter.read(in, source.toString());
+		} else {
+			throw new IOException(MessageFormat.format("{0} is not an OBJ or PLY file", source));
+		}
+		return MeshBuffers.pack(optimize ? MeshOptimizer.optimize(mesh) : mesh);
+	}
+
+	@Override
+	public MeshBuffers upload(MeshBuffers decoded) {
+		if(provider == null) {
+			decoded.upload();
+		} else {
+			decoded.upload(provider);
+		}
+		return decoded;
+	}
+
+	@Override
+	public long getCpuSize(MeshBuffers asset) {
+		Mesh mesh = asset.getMesh();
+		int[] indexes = mesh.getIndexes();
+		return ((mesh.getPositions().length + mesh.getNormals().length) * (long) Double.BYTES)
+			+ mesh.getColors().length + (mesh.getTexCoords().length * (long) Short.BYTES)
+			+ ((indexes == null) ? 0L : (indexes.length * (long) Integer.BYTES));
+	}
+
+	@Override
+	public long getGpuSize(MeshBuffers asset) {
+		return asset.getGpuSize();
+	}
+
+	@Override
+	public void release(MeshBuffers asset) {
+		asset.delete();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) {
+			return true;
+		}
+		if(!(o instanceof MeshAsset)) {
+			return false;
+		}
+
+		MeshAsset meshAsset = (MeshAsset) o;
+
+		return (optimize == meshAsset.optimize) && Objects.equals(provider, meshAsset.provider);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = Boolean.hashCode(optimize);
+		result = 31 * result + Objects.hashCode(provider);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("MeshAsset{");
+		sb.append("optimize=").append(optimize);
+		sb.append('}');
+		return sb.toString();
+	}
+}
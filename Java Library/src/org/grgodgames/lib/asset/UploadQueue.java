@@ -0,0 +1,90 @@
+package org.grgodgames.lib.asset;
+
+import org.grgodgames.lib.GameLogger;
+
+import java.text.MessageFormat;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * The type Upload queue. Work for the render thread, submitted from any thread and run in order by
+ * {@link #drain(long)} once a frame within a time budget, so a burst of finished loads spreads over several frames
+ * rather than stalling one.
+ * <p>
+ * Nothing here touches GL itself, so a headless test can stand in for the render thread by draining the queue
+ * from its own thread, or pass any other {@link Executor} to the {@link AssetLoader} instead.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class UploadQueue implements Executor {
+	private static final GameLogger      LOGGER = GameLogger.loggerOf(Logger.getLogger(UploadQueue.class.getName()));
+	private final        Queue<Runnable> tasks  = new ConcurrentLinkedQueue<>();
+
+	@Override
+	public void execute(Runnable task) {
+		if(task == null) {
+			throw new IllegalArgumentException("The task is null");
+		}
+		tasks.add(task);
+	}
+
+	/**
+	 * Run queued tasks on the calling thread until the queue is empty or the budget is spent. At least one task
+	 * runs, so a task longer than the budget can not stall the queue.
+	 *
+	 * @param budget
+	 *   the time budget in nanoseconds
+	 *
+	 * @return the number of tasks run
+	 */
+	public int drain(long budget) {
+		long start = System.nanoTime();
+		int count = 0;
+		Runnable task = tasks.poll();
+		while(task != null) {
+			try {
+				task.run();
+			} catch(RuntimeException e) {
+				if(LOGGER.isErrorEnabled()) {
+					LOGGER.logError(MessageFormat.format("Upload task failed: {0}", task), e);
+				}
+			}
+			count++;
+			if((System.nanoTime() - start) >= budget) {
+				break;
+			}
+			task = tasks.poll();
+		}
+		return count;
+	}
+
+	/**
+	 * Is empty.
+	 *
+	 * @return whether no task is waiting
+	 */
+	public boolean isEmpty() {
+		return tasks.isEmpty();
+	}
+
+	/**
+	 * Size.
+	 *
+	 * @return the number of tasks waiting, counted so only for monitoring
+	 */
+	public int size() {
+		return tasks.size();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("UploadQueue{");
+		sb.append("size=").append(tasks.size());
+		sb.append('}');
+		return sb.toString();
+	}
+}
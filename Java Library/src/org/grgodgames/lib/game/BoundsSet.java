@@ -0,0 +1,245 @@
+package org.grgodgames.lib.game;
+
+import java.util.Arrays;
+
+/**
+ * The type Bounds set. The bounding box and sphere of every cullable render, kept as parallel float arrays so
+ * {@link #cull(Frustum)} can test a block of bounds against one plane at a time.
+ * <p>
+ * Each slot keeps the smallest distance by which its tighter volume, sphere or box, reaches in front of a plane,
+ * and is outside when that is negative. The test is branch free and works through {@value #BATCH} slots at a
+ * time so their bounds stay in cache across the six planes. Removed slots are reused by later adds, so slot
+ * numbers stay stable for their owner.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class BoundsSet {
+	private static final int BATCH = 256;
+	private float[]   centerX;
+	private float[]   centerY;
+	private float[]   centerZ;
+	private float[]   extentX;
+	private float[]   extentY;
+	private float[]   extentZ;
+	private float[]   radius;
+	private float[]   margin;
+	private int[]     free;
+	private int       freeCount;
+	private int       size;
+
+	/**
+	 * Instantiates a new Bounds set.
+	 *
+	 * @param capacity
+	 *   the number of slots to make room for
+	 */
+	public BoundsSet(int capacity) {
+		int length = Math.max(1, capacity);
+		centerX = new float[length];
+		centerY = new float[length];
+		centerZ = new float[length];
+		extentX = new float[length];
+		extentY = new float[length];
+		extentZ = new float[length];
+		radius = new float[length];
+		margin = new float[length];
+		free = new int[length];
+	}
+
+	/**
+	 * Add int.
+	 *
+	 * @return the new slot, visible until the next cull
+	 */
+	public int add() {
+		int slot;
+		if(freeCount > 0) {
+			slot = free[--freeCount];
+		} else {
+			if(size == radius.length) {
+				grow();
+			}
+			slot = size++;
+		}
+		margin[slot] = 0.0f;
+		return slot;
+	}
+
+	/**
+	 * Remove void.
+	 *
+	 * @param slot
+	 *   the slot
+	 */
+	public void remove(int slot) {
+		set(slot, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, -1.0f);
+		margin[slot] = -1.0f;
+		free[freeCount++] = slot;
+	}
+
+	/**
+	 * Set void.
+	 *
+	 * @param slot
+	 *   the slot
+	 * @param x
+	 *   the box center x
+	 * @param y
+	 *   the box center y
+	 * @param z
+	 *   the box center z
+	 * @param halfX
+	 *   the box half width
+	 * @param halfY
+	 *   the box half height
+	 * @param halfZ
+	 *   the box half depth
+	 * @param sphereRadius
+	 *   the radius of a sphere around the box center
+	 */
+	public void set(int slot, float x, float y, float z, float halfX, float halfY, float halfZ,
+	                float sphereRadius) {
+		centerX[slot] = x;
+		centerY[slot] = y;
+		centerZ[slot] = z;
+		extentX[slot] = halfX;
+		extentY[slot] = halfY;
+		extentZ[slot] = halfZ;
+		radius[slot] = sphereRadius;
+	}
+
+	/**
+	 * Cull void. Updates the visibility of every slot.
+	 *
+	 * @param frustum
+	 *   the frustum
+	 */
+	public void cull(Frustum frustum) {
+		float[] x = centerX;
+		float[] y = centerY;
+		float[] z = centerZ;
+		float[] halfX = extentX;
+		float[] halfY = extentY;
+		float[] halfZ = extentZ;
+		float[] sphereRadius = radius;
+		float[] result = margin;
+		for(int start = 0; start < size; start += BATCH) {
+			int end = Math.min(size, start + BATCH);
+			Arrays.fill(result, start, end, Float.MAX_VALUE);
+			for(int p = 0; p < Frustum.PLANES; p++) {
+				float a = frustum.getPlane(p, 0);
+				float b = frustum.getPlane(p, 1);
+				float c = frustum.getPlane(p, 2);
+				float d = frustum.getPlane(p, 3);
+				float absA = Math.abs(a);
+				float absB = Math.abs(b);
+				float absC = Math.abs(c);
+				for(int i = start; i < end; i++) {
+					float distance = (a * x[i]) + (b * y[i]) + (c * z[i]) + d;
+					float reach = Math.min(sphereRadius[i],
+					                       (absA * halfX[i]) + (absB * halfY[i]) + (absC * halfZ[i]));
+					result[i] = Math.min(result[i], distance + reach);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cull one slot.
+	 *
+	 * @param slot
+	 *   the slot
+	 * @param frustum
+	 *   the frustum
+	 */
+	public void cull(int slot, Frustum frustum) {
+		boolean visible = frustum.intersectsSphere(centerX[slot], centerY[slot], centerZ[slot], radius[slot]) &&
+		                  frustum.intersectsBox(centerX[slot], centerY[slot], centerZ[slot], extentX[slot],
+		                                        extentY[slot], extentZ[slot]);
+		margin[slot] = visible ? 0.0f : -1.0f;
+	}
+
+	/**
+	 * Is visible.
+	 *
+	 * @param slot
+	 *   the slot
+	 *
+	 * @return whether the slot passed the last cull
+	 */
+	public boolean isVisible(int slot) {
+		return margin[slot] >= 0.0f;
+	}
+
+	/**
+	 * Gets center x.
+	 *
+	 * @param slot
+	 *   the slot
+	 *
+	 * @return the center x
+	 */
+	public float getCenterX(int slot) {
+		return centerX[slot];
+	}
+
+	/**
+	 * Gets center y.
+	 *
+	 * @param slot
+	 *   the slot
+	 *
+	 * @return the center y
+	 */
+	public float getCenterY(int slot) {
+		return centerY[slot];
+	}
+
+	/**
+	 * Gets center z.
+	 *
+	 * @param slot
+	 *   the slot
+	 *
+	 * @return the center z
+	 */
+	public float getCenterZ(int slot) {
+		return centerZ[slot];
+	}
+
+	/**
+	 * Gets radius.
+	 *
+	 * @param slot
+	 *   the slot
+	 *
+	 * @return the sphere radius
+	 */
+	public float getRadius(int slot) {
+		return radius[slot];
+	}
+
+	/**
+	 * Size int.
+	 *
+	 * @return the number of slots in use
+	 */
+	public int size() {
+		return size - freeCount;
+	}
+
+	private void grow() {
+		int length = radius.length * 2;
+		centerX = Arrays.copyOf(centerX, length);
+		centerY = Arrays.copyOf(centerY, length);
+		centerZ = Arrays.copyOf(centerZ, length);
+		extentX = Arrays.copyOf(extentX, length);
+		extentY = Arrays.copyOf(extentY, length);
+		extentZ = Arrays.copyOf(extentZ, length);
+		radius = Arrays.copyOf(radius, length);
+		margin = Arrays.copyOf(margin, length);
+		free = Arrays.copyOf(free, length);
+	}
+}
@@ -8,7 +8,8 @@ import java.util.List;
  */
 public interface Camera {
 	/**
-	 * Update void.
+	 * Update void. Runs on the render thread before culling, a camera that builds its own modelview matrix should
+	 * report it with {@link Game#setView(float[])} when it changes.
 	 *
 	 * @param delta
 	 *   the delta
@@ -0,0 +1,167 @@
+package org.grgodgames.lib.game;
+
+/**
+ * The type Frustum. The six planes of the view volume, extracted from {@code projection * modelview} so they are
+ * in the space the vertexes are given in. Planes are stored as normalised {@code a, b, c, d} with the normal
+ * pointing inwards.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class Frustum {
+	/** The number of planes. */
+	public static final  int PLANES       = 6;
+	private static final int NEAR         = 4;
+	private static final int PLANE_LENGTH = 4;
+	private final float[] planes = new float[PLANES * PLANE_LENGTH];
+	private final float[] matrix = new float[16];
+
+	/**
+	 * Perspective void. Builds the same matrix as {@code gluPerspective}, column major.
+	 *
+	 * @param fieldOfView
+	 *   the vertical field of view in degrees
+	 * @param aspectRatio
+	 *   the aspect ratio
+	 * @param nearZ
+	 *   the near z
+	 * @param farZ
+	 *   the far z
+	 * @param target
+	 *   the 16 values to write to
+	 */
+	public static void perspective(float fieldOfView, float aspectRatio, float nearZ, float farZ, float[] target) {
+		float f = (float) (1.0 / Math.tan(Math.toRadians(fieldOfView) / 2.0));
+		float depth = nearZ - farZ;
+		for(int i = 0; i < target.length; i++) {
+			target[i] = 0.0f;
+		}
+		target[0] = f / aspectRatio;
+		target[5] = f;
+		target[10] = (farZ + nearZ) / depth;
+		target[11] = -1.0f;
+		target[14] = (2.0f * farZ * nearZ) / depth;
+	}
+
+	/**
+	 * Update void.
+	 *
+	 * @param projection
+	 *   the column major projection matrix
+	 * @param modelview
+	 *   the column major modelview matrix
+	 */
+	public void update(float[] projection, float[] modelview) {
+		for(int column = 0; column < 4; column++) {
+			for(int row = 0; row < 4; row++) {
+				float sum = 0.0f;
+				for(int k = 0; k < 4; k++) {
+					sum += projection[(k * 4) + row] * modelview[(column * 4) + k];
+				}
+				matrix[(column * 4) + row] = sum;
+			}
+		}
+		// left, right, bottom, top, near, far: row 3 plus or minus rows 0, 1 and 2
+		for(int p = 0; p < PLANES; p++) {
+			int row = p / 2;
+			float sign = ((p % 2) == 0) ? 1.0f : -1.0f;
+			float a = matrix[3] + (sign * matrix[row]);
+			float b = matrix[7] + (sign * matrix[4 + row]);
+			float c = matrix[11] + (sign * matrix[8 + row]);
+			float d = matrix[15] + (sign * matrix[12 + row]);
+			float length = (float) Math.sqrt((a * a) + (b * b) + (c * c));
+			int offset = p * PLANE_LENGTH;
+			planes[offset] = a / length;
+			planes[offset + 1] = b / length;
+			planes[offset + 2] = c / length;
+			planes[offset + 3] = d / length;
+		}
+	}
+
+	/**
+	 * Gets plane value.
+	 *
+	 * @param plane
+	 *   the plane
+	 * @param component
+	 *   0 to 3 for a, b, c and d
+	 *
+	 * @return the value
+	 */
+	public float getPlane(int plane, int component) {
+		return planes[(plane * PLANE_LENGTH) + component];
+	}
+
+	/**
+	 * Intersects sphere.
+	 *
+	 * @param x
+	 *   the center x
+	 * @param y
+	 *   the center y
+	 * @param z
+	 *   the center z
+	 * @param radius
+	 *   the radius
+	 *
+	 * @return false only if the sphere is wholly outside
+	 */
+	public boolean intersectsSphere(float x, float y, float z, float radius) {
+		for(int offset = 0; offset < planes.length; offset += PLANE_LENGTH) {
+			if((distance(offset, x, y, z) + radius) < 0.0f) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Intersects box.
+	 *
+	 * @param x
+	 *   the center x
+	 * @param y
+	 *   the center y
+	 * @param z
+	 *   the center z
+	 * @param extentX
+	 *   the half width
+	 * @param extentY
+	 *   the half height
+	 * @param extentZ
+	 *   the half depth
+	 *
+	 * @return false only if the box is wholly outside one plane
+	 */
+	public boolean intersectsBox(float x, float y, float z, float extentX, float extentY, float extentZ) {
+		for(int offset = 0; offset < planes.length; offset += PLANE_LENGTH) {
+			float reach = (Math.abs(planes[offset]) * extentX) + (Math.abs(planes[offset + 1]) * extentY) +
+			              (Math.abs(planes[offset + 2]) * extentZ);
+			if((distance(offset, x, y, z) + reach) < 0.0f) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets depth.
+	 *
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 *
+	 * @return the distance of the point in front of the near plane, negative behind it
+	 */
+	public float getDepth(float x, float y, float z) {
+		return distance(NEAR * PLANE_LENGTH, x, y, z);
+	}
+
+	private float distance(int offset, float x, float y, float z) {
+		return (planes[offset] * x) + (planes[offset + 1] * y) + (planes[offset + 2] * z) + planes[offset + 3];
+	}
+}
@@ -1,9 +1,14 @@
 package org.grgodgames.lib.game;
 
 import org.grgodgames.lib.*;
+import org.grgodgames.lib.asset.AssetCache;
+import org.grgodgames.lib.asset.AssetLoader;
+import org.grgodgames.lib.asset.UploadQueue;
 
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.Display;
 
+import java.nio.FloatBuffer;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.logging.Level;
@@ -24,16 +29,31 @@ public abstract class Game {
 		LOGGER.setLevel(Level.ALL);
 	}
 
-	private static final char                   CLOSE_BRACKET = '}';
-	private final        Collection<Handler<?>> handlers      = new ArrayList<>(16);
-	private final        List<KeyInput>         keyboard      = new ArrayList<>(32);
-	private final        Map<Integer, Boolean>  mouse         = new HashMap<>(8);
+	/** The default time the render thread spends on uploads each frame, in nanoseconds. */
+	public static final  long                   DEFAULT_UPLOAD_BUDGET = 2_000_000L;
+	private static final char                   CLOSE_BRACKET         = '}';
+	private final        Collection<Handler<?>> handlers              = new ArrayList<>(16);
+	private final        List<KeyInput>         keyboard              = new ArrayList<>(32);
+	private final        Map<Integer, Boolean>  mouse                 = new HashMap<>(8);
+	private final        RenderQueue            renderQueue           = new RenderQueue(1024);
+	private final        Frustum                frustum               = new Frustum();
+	private final        BoundsSet              bounds                = new BoundsSet(1024);
+	private final        float[]                projection            = new float[16];
+	private final        float[]                modelview             = new float[16];
+	private final        FloatBuffer            matrixBuffer          = BufferUtils.createFloatBuffer(16);
+	private final        UploadQueue            uploadQueue           = new UploadQueue();
+	private final        AssetLoader            assetLoader           = new AssetLoader(uploadQueue);
+	private final        AssetCache             assetCache            = new AssetCache(assetLoader, uploadQueue);
+	private final        ShaderCompileQueue     shaderQueue           = new ShaderCompileQueue();
 	private final double deltaMultiplier;
 	private final int    maxFPS;
 	private final int    tickRate;
 	private final Window window;
-	private double  time    = 0.0;
-	private boolean running = false;
+	private double  time         = 0.0;
+	private boolean running      = false;
+	private long    uploadBudget = DEFAULT_UPLOAD_BUDGET;
+	private boolean viewReported;
+	private boolean viewChanged;
 	private Camera camera;
 
 	/**
@@ -112,6 +132,8 @@ public abstract class Game {
 		}
 		window.createWindow();
 		window.initOpenGL();
+		window.getProjection(projection);
+		Shader.setCompileQueue(shaderQueue);
 
 		camera = newCamera();
 	}
@@ -231,6 +253,117 @@ public abstract class Game {
 		return maxFPS;
 	}
 
+	/**
+	 * Gets render queue.
+	 *
+	 * @return the render queue, flushed after every handler has been updated
+	 */
+	public final RenderQueue getRenderQueue() {
+		return renderQueue;
+	}
+
+	/**
+	 * Gets frustum.
+	 *
+	 * @return the frustum of the current frame, updated after the camera
+	 */
+	public final Frustum getFrustum() {
+		return frustum;
+	}
+
+	/**
+	 * Sets view. A camera that builds its own modelview matrix reports it here, on the render thread, each time it
+	 * changes, and the frustum is only rebuilt then. Until a camera does, the matrix is read back from the driver
+	 * every frame.
+	 *
+	 * @param modelview
+	 *   the 16 values of the column major modelview matrix the camera loads
+	 */
+	public final void setView(float[] modelview) {
+		if(modelview.length != 16) {
+			throw new IllegalArgumentException("A modelview matrix has 16 values");
+		}
+		System.arraycopy(modelview, 0, this.modelview, 0, 16);
+		viewReported = true;
+		viewChanged = true;
+	}
+
+	/**
+	 * Gets bounds.
+	 *
+	 * @return the bounds of every cullable render, culled once a frame
+	 */
+	public final BoundsSet getBounds() {
+		return bounds;
+	}
+
+	/**
+	 * Gets pixel scale.
+	 *
+	 * @return the number of pixels a unit covers at a depth of one unit, divide by the depth for further away
+	 */
+	public final double getPixelScale() {
+		return (projection[5] * Display.getHeight()) / 2.0;
+	}
+
+	/**
+	 * Gets upload queue.
+	 *
+	 * @return the queue of render thread work, drained within the upload budget after every frame's updates
+	 */
+	public final UploadQueue getUploadQueue() {
+		return uploadQueue;
+	}
+
+	/**
+	 * Gets asset loader.
+	 *
+	 * @return the asset loader, uploading through the upload queue and shut down with the game
+	 */
+	public final AssetLoader getAssetLoader() {
+		return assetLoader;
+	}
+
+	/**
+	 * Gets asset cache.
+	 *
+	 * @return the asset cache, loading through the asset loader and cleared with the game
+	 */
+	public final AssetCache getAssetCache() {
+		return assetCache;
+	}
+
+	/**
+	 * Gets shader queue.
+	 *
+	 * @return the queue shaders compile through, polled within the upload budget after every frame's uploads
+	 */
+	public final ShaderCompileQueue getShaderQueue() {
+		return shaderQueue;
+	}
+
+	/**
+	 * Gets upload budget.
+	 *
+	 * @return the upload budget in nanoseconds
+	 */
+	public final long getUploadBudget() {
+		return uploadBudget;
+	}
+
+	/**
+	 * Sets upload budget. A frame always runs at least one queued upload, however small the budget.
+	 *
+	 * @param uploadBudget
+	 *   the time the render thread spends on uploads each frame, in nanoseconds
+	 */
+	public final void setUploadBudget(long uploadBudget) {
+		if(uploadBudget < 0L) {
+			throw new IllegalArgumentException("The upload budget is negative");
+		}
+		this.uploadBudget = uploadBudget;
+	}
+
 	/** Config open gL. */
 	protected abstract void configOpenGL();
 
@@ -297,6 +430,7 @@ public abstract class Game {
 			inputChecker.stop();
 			camera.update(delta, getKeyboard());
 			inputChecker.start();
+			cull();
 			update(delta);
 			Display.update();
 			Display.sync(maxFPS);
@@ -310,9 +444,26 @@ public abstract class Game {
 		return temp;
 	}
 
+	private void cull() {
+		if(!viewReported) {
+			// a readback stalls the pipeline, cameras avoid it by reporting their view
+			matrixBuffer.clear();
+			glGetFloat(GL_MODELVIEW_MATRIX, matrixBuffer);
+			matrixBuffer.get(modelview);
+			frustum.update(projection, modelview);
+		} else if(viewChanged) {
+			viewChanged = false;
+			frustum.update(projection, modelview);
+		}
+		bounds.cull(frustum);
+	}
+
 	private void update(double delta) {
 		for(Handler<?> handler : handlers) {
 			handler.update(delta);
 		}
+		renderQueue.flush();
+		uploadQueue.drain(uploadBudget);
+		shaderQueue.update(uploadBudget);
 	}
 }
@@ -3,6 +3,7 @@ package org.grgodgames.lib.game;
 
 import org.grgodgames.lib.GameLogger;
 import org.grgodgames.lib.Handler;
+import org.grgodgames.lib.Shader;
 import org.grgodgames.lib.Utility;
 
 import org.lwjgl.Sys;
@@ -83,9 +84,17 @@ public final class GameHelper {
 	 *   the game
 	 */
 	static void destroy(Game game) {
+		game.getAssetLoader().shutdown();
+		game.getAssetCache().clear();
+		game.getUploadQueue().drain(Long.MAX_VALUE);
 		for(Handler<?> handler : game.getHandlers()) {
 			handler.destroy();
 		}
+		// the shaders cancelled their builds, this deletes the shader objects of any that were issued
+		game.getShaderQueue().update(0L);
+		if(Shader.getCompileQueue() == game.getShaderQueue()) {
+			Shader.setCompileQueue(null);
+		}
 		GAMES.remove(game);
 	}
 
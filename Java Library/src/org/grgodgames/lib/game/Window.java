@@ -65,6 +65,16 @@ public class Window {
 		GameHelper.checkForError(LOGGER, Window.class);
 	}
 
+	/**
+	 * Gets projection.
+	 *
+	 * @param target
+	 *   the 16 values to write the column major projection {@link #initOpenGL()} loads to
+	 */
+	final void getProjection(float[] target) {
+		Frustum.perspective(fieldOfView, aspectRatio, nearZ, farZ, target);
+	}
+
 	final void createWindow() {
 		DisplayMode displayMode = new DisplayMode(width, height);
 
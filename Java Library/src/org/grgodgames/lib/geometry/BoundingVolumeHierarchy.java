@@ -0,0 +1,775 @@
+package org.grgodgames.lib.geometry;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Bounding volume hierarchy. A binary tree of axis aligned boxes over a set of triangles, for ray casts,
+ * box overlap and nearest point queries that only visit the triangles near the query.
+ * <p>
+ * Nodes are split where the surface area heuristic, evaluated over up to {@value #BINS} centroid bins per axis,
+ * is cheapest. Ranges of at least {@value #PARALLEL_PRIMITIVES} triangles build their two halves as fork join tasks.
+ * Every node lives in two flat arrays: six bounds in {@code nodeBounds} and, in {@code nodes}, the first child
+ * and zero for an interior node or the first triangle and the triangle count for a leaf. The two children of a
+ * node are always adjacent. Triangle corners are copied in leaf order so a leaf reads one contiguous run.
+ * <p>
+ * Triangles are reported by their index in the order they were given. Instances are immutable once built and
+ * can be queried from any thread.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class BoundingVolumeHierarchy {
+	/** The largest number of centroid bins tried per axis. */
+	public static final  int    BINS                = 16;
+	/** The number of triangles from which a node's children are built in parallel. */
+	public static final  int    PARALLEL_PRIMITIVES = 1 << 15;
+	private static final int    MAX_LEAF            = 4;
+	private static final int    CORNERS             = 9;
+	private static final int    BOUNDS              = 6;
+	/** The cost of visiting a node, relative to testing one triangle. */
+	private static final double TRAVERSAL_COST      = 1.0;
+	private static final double EPSILON             = 1.0e-12;
+	private final double[] nodeBounds;
+	private final int[]    nodes;
+	private final double[] corners;
+	private final int[]    primitives;
+	private final int      nodeCount;
+	private final int      depth;
+
+	/**
+	 * Instantiates a new Bounding volume hierarchy over indexed triangles.
+	 *
+	 * @param positions
+	 *   the flat x, y, z positions
+	 * @param indexes
+	 *   three indexes into the positions per triangle
+	 */
+	public BoundingVolumeHierarchy(double[] positions, int[] indexes) {
+		this(cornersOf(positions, indexes));
+	}
+
+	private BoundingVolumeHierarchy(double[] source) {
+		int count = source.length / CORNERS;
+		int[] order = new int[count];
+		double[] primitiveBounds = new double[count * BOUNDS];
+		double[] centroids = new double[count * 3];
+		for(int t = 0; t < count; t++) {
+			order[t] = t;
+			for(int a = 0; a < 3; a++) {
+				double first = source[(t * CORNERS) + a];
+				double second = source[(t * CORNERS) + 3 + a];
+				double third = source[(t * CORNERS) + 6 + a];
+				double min = Math.min(first, Math.min(second, third));
+				double max = Math.max(first, Math.max(second, third));
+				primitiveBounds[(t * BOUNDS) + a] = min;
+				primitiveBounds[(t * BOUNDS) + 3 + a] = max;
+				centroids[(t * 3) + a] = (min + max) / 2.0;
+			}
+		}
+
+		Builder builder = new Builder(order, primitiveBounds, centroids, Math.max(1, (2 * count) - 1));
+		if(count > 0) {
+			builder.nodeCounter.set(1);
+			BuildTask root = new BuildTask(builder, 0, 0, count, 1);
+			if(count >= PARALLEL_PRIMITIVES) {
+				ForkJoinPool.commonPool().invoke(root);
+			} else {
+				root.compute();
+			}
+		}
+
+		nodeCount = builder.nodeCounter.get();
+		nodeBounds = Arrays.copyOf(builder.nodeBounds, nodeCount * BOUNDS);
+		nodes = Arrays.copyOf(builder.nodes, nodeCount * 2);
+		depth = builder.depth.get();
+		primitives = order;
+		corners = new double[source.length];
+		for(int i = 0; i < count; i++) {
+			System.arraycopy(source, order[i] * CORNERS, corners, i * CORNERS, CORNERS);
+		}
+	}
+
+	/**
+	 * Of bounding volume hierarchy.
+	 *
+	 * @param triangles
+	 *   the triangles, each corner is read with {@link Point#toArray(int)}
+	 *
+	 * @return the bounding volume hierarchy
+	 */
+	public static BoundingVolumeHierarchy of(Collection<? extends Triangle> triangles) {
+		double[] source = new double[triangles.size() * CORNERS];
+		int offset = 0;
+		for(Triangle triangle : triangles) {
+			for(Point point : triangle.getPoints()) {
+				System.arraycopy(point.toArray(3), 0, source, offset, 3);
+				offset += 3;
+			}
+		}
+		return new BoundingVolumeHierarchy(source);
+	}
+
+	private static double[] cornersOf(double[] positions, int[] indexes) {
+		if((indexes.length % 3) != 0) {
+			throw new IllegalArgumentException("The number of indexes is not a multiple of three");
+		}
+		double[] source = new double[indexes.length * 3];
+		for(int i = 0; i < indexes.length; i++) {
+			int index = indexes[i];
+			if((index < 0) || (((index * 3) + 2) >= positions.length)) {
+				throw new IllegalArgumentException("An index is out of range");
+			}
+			System.arraycopy(positions, index * 3, source, i * 3, 3);
+		}
+		return source;
+	}
+
+	private static double area(double[] bounds, int offset) {
+		double x = bounds[offset + 3] - bounds[offset];
+		double y = bounds[offset + 4] - bounds[offset + 1];
+		double z = bounds[offset + 5] - bounds[offset + 2];
+		return (x < 0.0) ? 0.0 : (2.0 * ((x * y) + (y * z) + (z * x)));
+	}
+
+	private static void empty(double[] bounds, int offset) {
+		for(int a = 0; a < 3; a++) {
+			bounds[offset + a] = Double.POSITIVE_INFINITY;
+			bounds[offset + 3 + a] = Double.NEGATIVE_INFINITY;
+		}
+	}
+
+	private static void grow(double[] bounds, int offset, double[] source, int sourceOffset) {
+		// plain comparisons, Math.min and max pay for NaN handling the build never needs
+		for(int a = 0; a < 3; a++) {
+			double min = source[sourceOffset + a];
+			double max = source[sourceOffset + 3 + a];
+			if(min < bounds[offset + a]) {
+				bounds[offset + a] = min;
+			}
+			if(max > bounds[offset + 3 + a]) {
+				bounds[offset + 3 + a] = max;
+			}
+		}
+	}
+
+	/**
+	 * Gets triangle count.
+	 *
+	 * @return the triangle count
+	 */
+	public int getTriangleCount() {
+		return primitives.length;
+	}
+
+	/**
+	 * Gets node count.
+	 *
+	 * @return the node count
+	 */
+	public int getNodeCount() {
+		return primitives.length == 0 ? 0 : nodeCount;
+	}
+
+	/**
+	 * Gets depth.
+	 *
+	 * @return the number of nodes on the longest path from the root to a leaf
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * First hit.
+	 *
+	 * @param origin
+	 *   the ray origin
+	 * @param direction
+	 *   the ray direction, need not be normalised
+	 * @param maxDistance
+	 *   the largest distance, in multiples of the direction, to report a hit at
+	 * @param hit
+	 *   null, or at least three values for the distance and the barycentric u and v of the hit
+	 *
+	 * @return the index of the nearest triangle hit, or -1 if none
+	 */
+	public int firstHit(double[] origin, double[] direction, double maxDistance, double[] hit) {
+		return trace(origin, direction, maxDistance, hit, false);
+	}
+
+	/**
+	 * Any hit, for shadow and line of sight rays.
+	 *
+	 * @param origin
+	 *   the ray origin
+	 * @param direction
+	 *   the ray direction, need not be normalised
+	 * @param maxDistance
+	 *   the largest distance, in multiples of the direction, to look for a hit at
+	 *
+	 * @return whether any triangle is hit, the search stops at the first one found
+	 */
+	public boolean anyHit(double[] origin, double[] direction, double maxDistance) {
+		return trace(origin, direction, maxDistance, null, true) >= 0;
+	}
+
+	/**
+	 * Overlap int.
+	 *
+	 * @param min
+	 *   the box minimum
+	 * @param max
+	 *   the box maximum
+	 * @param target
+	 *   receives the indexes of the triangles that touch the box, as many as fit
+	 *
+	 * @return the number of triangles that touch the box, which may be more than the target holds
+	 */
+	public int overlap(double[] min, double[] max, int[] target) {
+		if(primitives.length == 0) {
+			return 0;
+		}
+		double[] center = new double[3];
+		double[] half = new double[3];
+		// the corners and edges of each tested triangle, shared by the whole query
+		double[] v = new double[CORNERS];
+		double[] edges = new double[CORNERS];
+		for(int a = 0; a < 3; a++) {
+			center[a] = (min[a] + max[a]) / 2.0;
+			half[a] = (max[a] - min[a]) / 2.0;
+		}
+		int found = 0;
+		int[] stack = new int[depth + 1];
+		int top = 0;
+		stack[top++] = 0;
+		while(top > 0) {
+			int node = stack[--top];
+			if(!boxesOverlap(node, min, max)) {
+				continue;
+			}
+			int count = nodes[(node * 2) + 1];
+			if(count == 0) {
+				stack[top++] = nodes[node * 2];
+				stack[top++] = nodes[node * 2] + 1;
+				continue;
+			}
+			int first = nodes[node * 2];
+			for(int i = first; i < (first + count); i++) {
+				if(triangleOverlaps(i * CORNERS, center, half, v, edges)) {
+					if(found < target.length) {
+						target[found] = primitives[i];
+					}
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Nearest int.
+	 *
+	 * @param point
+	 *   the point to search from
+	 * @param maxDistance
+	 *   the largest distance to search
+	 * @param closest
+	 *   null, or at least three values for the closest point found
+	 *
+	 * @return the index of the triangle nearest the point, or -1 if none is within the distance
+	 */
+	public int nearest(double[] point, double maxDistance, double[] closest) {
+		if(primitives.length == 0) {
+			return -1;
+		}
+		double best = maxDistance * maxDistance;
+		int bestTriangle = -1;
+		double[] candidate = new double[3];
+		int[] stack = new int[depth + 1];
+		int top = 0;
+		stack[top++] = 0;
+		while(top > 0) {
+			int node = stack[--top];
+			if(boxDistanceSquared(node, point) > best) {
+				continue;
+			}
+			int count = nodes[(node * 2) + 1];
+			if(count == 0) {
+				int left = nodes[node * 2];
+				int right = left + 1;
+				if(boxDistanceSquared(left, point) < boxDistanceSquared(right, point)) {
+					stack[top++] = right;
+					stack[top++] = left;
+				} else {
+					stack[top++] = left;
+					stack[top++] = right;
+				}
+				continue;
+			}
+			int first = nodes[node * 2];
+			for(int i = first; i < (first + count); i++) {
+				closestPoint(i * CORNERS, point, candidate);
+				double x = candidate[0] - point[0];
+				double y = candidate[1] - point[1];
+				double z = candidate[2] - point[2];
+				double distance = (x * x) + (y * y) + (z * z);
+				if(distance <= best) {
+					best = distance;
+					bestTriangle = primitives[i];
+					if(closest != null) {
+						System.arraycopy(candidate, 0, closest, 0, 3);
+					}
+				}
+			}
+		}
+		return bestTriangle;
+	}
+
+	private int trace(double[] origin, double[] direction, double maxDistance, double[] hit, boolean any) {
+		if(primitives.length == 0) {
+			return -1;
+		}
+		double[] inverse = new double[3];
+		for(int a = 0; a < 3; a++) {
+			inverse[a] = 1.0 / direction[a];
+		}
+		double[] barycentric = new double[2];
+		double best = maxDistance;
+		int bestTriangle = -1;
+		int[] stack = new int[depth + 1];
+		double[] entries = new double[depth + 1];
+		int top = 0;
+		if(slabs(0, origin, inverse, best) == Double.POSITIVE_INFINITY) {
+			return -1;
+		}
+		stack[top++] = 0;
+		while(top > 0) {
+			top--;
+			int node = stack[top];
+			if((node != 0) && (entries[top] > best)) {
+				continue;
+			}
+			int count = nodes[(node * 2) + 1];
+			if(count == 0) {
+				int left = nodes[node * 2];
+				int right = left + 1;
+				double leftEntry = slabs(left, origin, inverse, best);
+				double rightEntry = slabs(right, origin, inverse, best);
+				int near = (leftEntry <= rightEntry) ? left : right;
+				double nearEntry = Math.min(leftEntry, rightEntry);
+				double farEntry = Math.max(leftEntry, rightEntry);
+				if(farEntry != Double.POSITIVE_INFINITY) {
+					stack[top] = (near == left) ? right : left;
+					entries[top++] = farEntry;
+				}
+				if(nearEntry != Double.POSITIVE_INFINITY) {
+					stack[top] = near;
+					entries[top++] = nearEntry;
+				}
+				continue;
+			}
+			int first = nodes[node * 2];
+			for(int i = first; i < (first + count); i++) {
+				double distance = intersect(i * CORNERS, origin, direction, best, barycentric);
+				if(distance < best) {
+					best = distance;
+					bestTriangle = primitives[i];
+					if(any) {
+						return bestTriangle;
+					}
+					if(hit != null) {
+						hit[0] = distance;
+						hit[1] = barycentric[0];
+						hit[2] = barycentric[1];
+					}
+				}
+			}
+		}
+		return bestTriangle;
+	}
+
+	/** Returns the distance the ray enters the node at, or infinity if it misses or enters beyond the limit. */
+	private double slabs(int node, double[] origin, double[] inverse, double limit) {
+		int offset = node * BOUNDS;
+		double near = 0.0;
+		double far = limit;
+		for(int a = 0; a < 3; a++) {
+			double first = (nodeBounds[offset + a] - origin[a]) * inverse[a];
+			double second = (nodeBounds[offset + 3 + a] - origin[a]) * inverse[a];
+			if(first > second) {
+				double swap = first;
+				first = second;
+				second = swap;
+			}
+			// NaN from 0 * infinity fails both comparisons, which keeps rays in the box's plane
+			if(first > near) {
+				near = first;
+			}
+			if(second < far) {
+				far = second;
+			}
+		}
+		return (near <= far) ? near : Double.POSITIVE_INFINITY;
+	}
+
+	/** Moller Trumbore, returns infinity on a miss. */
+	private double intersect(int offset, double[] origin, double[] direction, double limit, double[] barycentric) {
+		double edgeX = corners[offset + 3] - corners[offset];
+		double edgeY = corners[offset + 4] - corners[offset + 1];
+		double edgeZ = corners[offset + 5] - corners[offset + 2];
+		double edge1X = corners[offset + 6] - corners[offset];
+		double edge1Y = corners[offset + 7] - corners[offset + 1];
+		double edge1Z = corners[offset + 8] - corners[offset + 2];
+		double pX = (direction[1] * edge1Z) - (direction[2] * edge1Y);
+		double pY = (direction[2] * edge1X) - (direction[0] * edge1Z);
+		double pZ = (direction[0] * edge1Y) - (direction[1] * edge1X);
+		double determinant = (edgeX * pX) + (edgeY * pY) + (edgeZ * pZ);
+		if(Math.abs(determinant) < EPSILON) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double inverse = 1.0 / determinant;
+		double tX = origin[0] - corners[offset];
+		double tY = origin[1] - corners[offset + 1];
+		double tZ = origin[2] - corners[offset + 2];
+		double u = ((tX * pX) + (tY * pY) + (tZ * pZ)) * inverse;
+		if((u < 0.0) || (u > 1.0)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double qX = (tY * edgeZ) - (tZ * edgeY);
+		double qY = (tZ * edgeX) - (tX * edgeZ);
+		double qZ = (tX * edgeY) - (tY * edgeX);
+		double v = ((direction[0] * qX) + (direction[1] * qY) + (direction[2] * qZ)) * inverse;
+		if((v < 0.0) || ((u + v) > 1.0)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double distance = ((edge1X * qX) + (edge1Y * qY) + (edge1Z * qZ)) * inverse;
+		if((distance < 0.0) || (distance > limit)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		barycentric[0] = u;
+		barycentric[1] = v;
+		return distance;
+	}
+
+	private boolean boxesOverlap(int node, double[] min, double[] max) {
+		int offset = node * BOUNDS;
+		for(int a = 0; a < 3; a++) {
+			if((nodeBounds[offset + a] > max[a]) || (nodeBounds[offset + 3 + a] < min[a])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double boxDistanceSquared(int node, double[] point) {
+		int offset = node * BOUNDS;
+		double distance = 0.0;
+		for(int a = 0; a < 3; a++) {
+			double outside = Math.max(0.0, Math.max(nodeBounds[offset + a] - point[a],
+			                                        point[a] - nodeBounds[offset + 3 + a]));
+			distance += outside * outside;
+		}
+		return distance;
+	}
+
+	/**
+	 * Separating axis test of a triangle against a box given by its center and half extents. The corners relative to
+	 * the center and the edges are written to the scratch arrays v and edges, each {@value #CORNERS} long.
+	 */
+	private boolean triangleOverlaps(int offset, double[] center, double[] half, double[] v, double[] edges) {
+		for(int i = 0; i < CORNERS; i++) {
+			v[i] = corners[offset + i] - center[i % 3];
+		}
+		// the box's own axes
+		for(int a = 0; a < 3; a++) {
+			double min = Math.min(v[a], Math.min(v[3 + a], v[6 + a]));
+			double max = Math.max(v[a], Math.max(v[3 + a], v[6 + a]));
+			if((min > half[a]) || (max < -half[a])) {
+				return false;
+			}
+		}
+		for(int e = 0; e < 3; e++) {
+			int from = e * 3;
+			int to = ((e + 1) % 3) * 3;
+			for(int a = 0; a < 3; a++) {
+				edges[from + a] = v[to + a] - v[from + a];
+			}
+		}
+		// the triangle's normal
+		double nX = (edges[1] * edges[5]) - (edges[2] * edges[4]);
+		double nY = (edges[2] * edges[3]) - (edges[0] * edges[5]);
+		double nZ = (edges[0] * edges[4]) - (edges[1] * edges[3]);
+		if(!axisOverlaps(v, half, nX, nY, nZ)) {
+			return false;
+		}
+		// each box axis crossed with each edge
+		for(int e = 0; e < 3; e++) {
+			double eX = edges[e * 3];
+			double eY = edges[(e * 3) + 1];
+			double eZ = edges[(e * 3) + 2];
+			if(!axisOverlaps(v, half, 0.0, -eZ, eY) || !axisOverlaps(v, half, eZ, 0.0, -eX) ||
+			   !axisOverlaps(v, half, -eY, eX, 0.0)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean axisOverlaps(double[] v, double[] half, double x, double y, double z) {
+		double first = (v[0] * x) + (v[1] * y) + (v[2] * z);
+		double second = (v[3] * x) + (v[4] * y) + (v[5] * z);
+		double third = (v[6] * x) + (v[7] * y) + (v[8] * z);
+		double radius = (half[0] * Math.abs(x)) + (half[1] * Math.abs(y)) + (half[2] * Math.abs(z));
+		return (Math.min(first, Math.min(second, third)) <= radius) &&
+		       (Math.max(first, Math.max(second, third)) >= -radius);
+	}
+
+	/** The closest point on a triangle, by the Voronoi regions of its corners and edges. */
+	private void closestPoint(int offset, double[] point, double[] target) {
+		double abX = corners[offset + 3] - corners[offset];
+		double abY = corners[offset + 4] - corners[offset + 1];
+		double abZ = corners[offset + 5] - corners[offset + 2];
+		double acX = corners[offset + 6] - corners[offset];
+		double acY = corners[offset + 7] - corners[offset + 1];
+		double acZ = corners[offset + 8] - corners[offset + 2];
+		double apX = point[0] - corners[offset];
+		double apY = point[1] - corners[offset + 1];
+		double apZ = point[2] - corners[offset + 2];
+		double d1 = (abX * apX) + (abY * apY) + (abZ * apZ);
+		double d2 = (acX * apX) + (acY * apY) + (acZ * apZ);
+		if((d1 <= 0.0) && (d2 <= 0.0)) {
+			setPoint(offset, 0.0, 0.0, target);
+			return;
+		}
+		double bpX = point[0] - corners[offset + 3];
+		double bpY = point[1] - corners[offset + 4];
+		double bpZ = point[2] - corners[offset + 5];
+		double d3 = (abX * bpX) + (abY * bpY) + (abZ * bpZ);
+		double d4 = (acX * bpX) + (acY * bpY) + (acZ * bpZ);
+		if((d3 >= 0.0) && (d4 <= d3)) {
+			setPoint(offset, 1.0, 0.0, target);
+			return;
+		}
+		double vc = (d1 * d4) - (d3 * d2);
+		if((vc <= 0.0) && (d1 >= 0.0) && (d3 <= 0.0)) {
+			setPoint(offset, d1 / (d1 - d3), 0.0, target);
+			return;
+		}
+		double cpX = point[0] - corners[offset + 6];
+		double cpY = point[1] - corners[offset + 7];
+		double cpZ = point[2] - corners[offset + 8];
+		double d5 = (abX * cpX) + (abY * cpY) + (abZ * cpZ);
+		double d6 = (acX * cpX) + (acY * cpY) + (acZ * cpZ);
+		if((d6 >= 0.0) && (d5 <= d6)) {
+			setPoint(offset, 0.0, 1.0, target);
+			return;
+		}
+		double vb = (d5 * d2) - (d1 * d6);
+		if((vb <= 0.0) && (d2 >= 0.0) && (d6 <= 0.0)) {
+			setPoint(offset, 0.0, d2 / (d2 - d6), target);
+			return;
+		}
+		double va = (d3 * d6) - (d5 * d4);
+		if((va <= 0.0) && ((d4 - d3) >= 0.0) && ((d5 - d6) >= 0.0)) {
+			double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+			setPoint(offset, 1.0 - w, w, target);
+			return;
+		}
+		double denominator = 1.0 / (va + vb + vc);
+		setPoint(offset, vb * denominator, vc * denominator, target);
+	}
+
+	private void setPoint(int offset, double u, double v, double[] target) {
+		for(int a = 0; a < 3; a++) {
+			target[a] = corners[offset + a] + (u * (corners[offset + 3 + a] - corners[offset + a])) +
+			            (v * (corners[offset + 6 + a] - corners[offset + a]));
+		}
+	}
+
+	/** The state shared by the tasks of one build. */
+	private static final class Builder {
+		private final int[]         order;
+		private final double[]      primitiveBounds;
+		private final double[]      centroids;
+		private final double[]      nodeBounds;
+		private final int[]         nodes;
+		private final AtomicInteger nodeCounter = new AtomicInteger();
+		private final AtomicInteger depth       = new AtomicInteger();
+
+		private Builder(int[] order, double[] primitiveBounds, double[] centroids, int maxNodes) {
+			this.order = order;
+			this.primitiveBounds = primitiveBounds;
+			this.centroids = centroids;
+			nodeBounds = new double[maxNodes * BOUNDS];
+			nodes = new int[maxNodes * 2];
+		}
+
+		/** Swaps two positions of the order, with the bounds and centroid stored at each so reads stay in order. */
+		private void swap(int first, int second) {
+			int primitive = order[first];
+			order[first] = order[second];
+			order[second] = primitive;
+			for(int i = 0; i < BOUNDS; i++) {
+				double bound = primitiveBounds[(first * BOUNDS) + i];
+				primitiveBounds[(first * BOUNDS) + i] = primitiveBounds[(second * BOUNDS) + i];
+				primitiveBounds[(second * BOUNDS) + i] = bound;
+			}
+			for(int i = 0; i < 3; i++) {
+				double centroid = centroids[(first * 3) + i];
+				centroids[(first * 3) + i] = centroids[(second * 3) + i];
+				centroids[(second * 3) + i] = centroid;
+			}
+		}
+
+		private void reachDepth(int level) {
+			int current = depth.get();
+			while((level > current) && !depth.compareAndSet(current, level)) {
+				current = depth.get();
+			}
+		}
+	}
+
+	/** Builds one node over a range of the primitive order, forking its children when the range is large. */
+	private static final class BuildTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final transient Builder builder;
+		private final int node;
+		private final int start;
+		private final int end;
+		private final int level;
+
+		private BuildTask(Builder builder, int node, int start, int end, int level) {
+			this.builder = builder;
+			this.node = node;
+			this.start = start;
+			this.end = end;
+			this.level = level;
+		}
+
+		@Override
+		protected void compute() {
+			double[] bounds = builder.nodeBounds;
+			int offset = node * BOUNDS;
+			double[] centroidBounds = new double[BOUNDS];
+			empty(bounds, offset);
+			empty(centroidBounds, 0);
+			for(int i = start; i < end; i++) {
+				grow(bounds, offset, builder.primitiveBounds, i * BOUNDS);
+				for(int a = 0; a < 3; a++) {
+					double centroid = builder.centroids[(i * 3) + a];
+					if(centroid < centroidBounds[a]) {
+						centroidBounds[a] = centroid;
+					}
+					if(centroid > centroidBounds[3 + a]) {
+						centroidBounds[3 + a] = centroid;
+					}
+				}
+			}
+
+			int count = end - start;
+			int middle = (count <= MAX_LEAF) ? start : split(centroidBounds, area(bounds, offset) * count);
+			if(middle == start) {
+				builder.nodes[node * 2] = start;
+				builder.nodes[(node * 2) + 1] = count;
+				builder.reachDepth(level);
+				return;
+			}
+
+			int left = builder.nodeCounter.getAndAdd(2);
+			builder.nodes[node * 2] = left;
+			builder.nodes[(node * 2) + 1] = 0;
+			BuildTask leftTask = new BuildTask(builder, left, start, middle, level + 1);
+			BuildTask rightTask = new BuildTask(builder, left + 1, middle, end, level + 1);
+			if(count >= PARALLEL_PRIMITIVES) {
+				invokeAll(leftTask, rightTask);
+			} else {
+				leftTask.compute();
+				rightTask.compute();
+			}
+		}
+
+		/** Partitions the range at the cheapest binned split, returns start to make a leaf. */
+		private int split(double[] centroidBounds, double leafCost) {
+			double[] centroids = builder.centroids;
+			// small ranges sweep fewer bins so the per node cost follows the triangle count
+			int bins = Math.min(BINS, end - start);
+			int[] binCounts = new int[bins];
+			double[] binBounds = new double[bins * BOUNDS];
+			double[] rightAreas = new double[bins];
+			double[] sweep = new double[BOUNDS];
+			double bestCost = Double.POSITIVE_INFINITY;
+			int bestAxis = -1;
+			int bestBin = 0;
+			for(int a = 0; a < 3; a++) {
+				double min = centroidBounds[a];
+				double extent = centroidBounds[3 + a] - min;
+				if(extent <= 0.0) {
+					continue;
+				}
+				double scale = bins / extent;
+				Arrays.fill(binCounts, 0);
+				for(int b = 0; b < bins; b++) {
+					empty(binBounds, b * BOUNDS);
+				}
+				for(int i = start; i < end; i++) {
+					int bin = Math.min(bins - 1, (int) ((centroids[(i * 3) + a] - min) * scale));
+					binCounts[bin]++;
+					grow(binBounds, bin * BOUNDS, builder.primitiveBounds, i * BOUNDS);
+				}
+				empty(sweep, 0);
+				for(int b = bins - 1; b > 0; b--) {
+					grow(sweep, 0, binBounds, b * BOUNDS);
+					rightAreas[b] = area(sweep, 0);
+				}
+				empty(sweep, 0);
+				int leftCount = 0;
+				for(int b = 0; b < (bins - 1); b++) {
+					grow(sweep, 0, binBounds, b * BOUNDS);
+					leftCount += binCounts[b];
+					int rightCount = (end - start) - leftCount;
+					if((leftCount == 0) || (rightCount == 0)) {
+						continue;
+					}
+					double cost = (area(sweep, 0) * leftCount) + (rightAreas[b + 1] * rightCount);
+					if(cost < bestCost) {
+						bestCost = cost;
+						bestAxis = a;
+						bestBin = b;
+					}
+				}
+			}
+
+			int count = end - start;
+			if(bestAxis < 0) {
+				// every centroid is the same point, halve the range if it is too big for one leaf
+				return (count <= MAX_LEAF) ? start : (start + (count / 2));
+			}
+			double nodeArea = leafCost / count;
+			if(((TRAVERSAL_COST * nodeArea) + bestCost) >= leafCost) {
+				if(count <= (MAX_LEAF * 4)) {
+					return start;
+				}
+			}
+
+			double min = centroidBounds[bestAxis];
+			double scale = bins / (centroidBounds[3 + bestAxis] - min);
+			int left = start;
+			int right = end - 1;
+			while(left <= right) {
+				int bin = Math.min(bins - 1, (int) ((centroids[(left * 3) + bestAxis] - min) * scale));
+				if(bin <= bestBin) {
+					left++;
+				} else {
+					builder.swap(left, right);
+					right--;
+				}
+			}
+			return left;
+		}
+	}
+}
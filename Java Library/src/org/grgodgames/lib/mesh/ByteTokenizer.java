@@ -0,0 +1,492 @@
+package org.grgodgames.lib.mesh;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+
+/**
+ * The type Byte tokenizer. Reads a text or binary model file through one reusable byte array, a line at a time or
+ * a value at a time, without a String or object per token.
+ * <p>
+ * A line is always whole in the array while it is parsed, so the value readers only check the line end. Numbers
+ * are parsed straight from the bytes; a decimal with at most {@value #EXACT_DIGITS} significant digits and a small
+ * exponent is one multiply or divide of two exact doubles, which rounds correctly, anything else falls back to
+ * {@link Double#parseDouble(String)}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class ByteTokenizer {
+	private static final int      CAPACITY       = 1 << 16;
+	private static final int      EXACT_DIGITS   = 15;
+	private static final int      MAX_DIGITS     = 18;
+	private static final int      MAX_INT_DIGITS = 9;
+	private static final double[] POWERS         = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19,
+		1e20, 1e21, 1e22
+	};
+	private final String              name;
+	private final ReadableByteChannel channel;
+	private final FileChannel         file;
+	private final long                end;
+	private       long                filePosition;
+	private       byte[]              buffer;
+	private       ByteBuffer          wrapper;
+	private       ByteOrder           order;
+	private       int                 position;
+	private       int                 limit;
+	private       int                 lineEnd;
+	private       int                 next;
+	private       long                lineNumber;
+	private       boolean             eof;
+
+	/**
+	 * Instantiates a new Byte tokenizer reading a channel to its end.
+	 *
+	 * @param name
+	 *   the name used in errors
+	 * @param channel
+	 *   the channel
+	 */
+	ByteTokenizer(String name, ReadableByteChannel channel) {
+		this(name, channel, null, 0L, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Instantiates a new Byte tokenizer reading a range of a file. Reads are positional, so several tokenizers can
+	 * share one channel across threads.
+	 *
+	 * @param name
+	 *   the name used in errors
+	 * @param file
+	 *   the file
+	 * @param start
+	 *   the first byte
+	 * @param end
+	 *   the byte after the last
+	 */
+	ByteTokenizer(String name, FileChannel file, long start, long end) {
+		this(name, null, file, start, end);
+	}
+
+	private ByteTokenizer(String name, ReadableByteChannel channel, FileChannel file, long start, long end) {
+		this.name = name;
+		this.channel = channel;
+		this.file = file;
+		this.end = end;
+		filePosition = start;
+		buffer = new byte[CAPACITY];
+		wrapper = ByteBuffer.wrap(buffer);
+		order = ByteOrder.BIG_ENDIAN;
+	}
+
+	/**
+	 * Move to the next line and past its leading whitespace.
+	 *
+	 * @return false at the end of the input
+	 *
+	 * @throws IOException
+	 *   if reading fails
+	 */
+	boolean nextLine() throws IOException {
+		int scan = next;
+		while(true) {
+			byte[] b = buffer;
+			int l = limit;
+			while((scan < l) && (b[scan] != '\n')) {
+				scan++;
+			}
+			if(scan < limit) {
+				break;
+			}
+			if(eof) {
+				if(next == limit) {
+					return false;
+				}
+				break;
+			}
+			scan -= compact(next);
+			fill();
+		}
+		lineNumber++;
+		position = next;
+		lineEnd = scan;
+		next = Math.min(scan + 1, limit);
+		skipSpaces();
+		return true;
+	}
+
+	/**
+	 * Move from line to binary reading, the next value read is the byte after the current line.
+	 *
+	 * @param order
+	 *   the byte order of the values
+	 */
+	void beginBinary(ByteOrder order) {
+		this.order = order;
+		wrapper.order(order);
+		position = next;
+	}
+
+	/**
+	 * Gets line number.
+	 *
+	 * @return the number of the current line, counted from the first line this tokenizer read
+	 */
+	long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Peek a byte of the current line.
+	 *
+	 * @param offset
+	 *   the offset from the current position
+	 *
+	 * @return the byte, or -1 past the end of the line
+	 */
+	int peek(int offset) {
+		int p = position + offset;
+		return (p < lineEnd) ? (buffer[p] & 0xFF) : -1;
+	}
+
+	/**
+	 * Skip bytes of the current line.
+	 *
+	 * @param count
+	 *   the count
+	 */
+	void skip(int count) {
+		position = Math.min(position + count, lineEnd);
+	}
+
+	/**
+	 * Skip a byte if it is the next one on the line.
+	 *
+	 * @param c
+	 *   the byte
+	 *
+	 * @return whether it was skipped
+	 */
+	boolean skip(char c) {
+		if((position < lineEnd) && (buffer[position] == c)) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Is at line end.
+	 *
+	 * @return whether only whitespace is left on the line
+	 */
+	boolean isAtLineEnd() {
+		skipSpaces();
+		return position >= lineEnd;
+	}
+
+	/**
+	 * Is separator.
+	 *
+	 * @param c
+	 *   an unsigned byte, or -1 for the line end, as {@link #peek(int)} returns
+	 *
+	 * @return whether the byte ends a token
+	 */
+	static boolean isSeparator(int c) {
+		return c <= ' ';
+	}
+
+	private void skipSpaces() {
+		byte[] b = buffer;
+		int p = position;
+		int e = lineEnd;
+		while((p < e) && (b[p] <= ' ') && (b[p] >= 0)) {
+			p++;
+		}
+		position = p;
+	}
+
+	/**
+	 * Read a whitespace separated token, for headers only.
+	 *
+	 * @return the token, or null at the line end
+	 */
+	String readToken() {
+		skipSpaces();
+		int start = position;
+		while((position < lineEnd) && !isSeparator(buffer[position] & 0xFF)) {
+			position++;
+		}
+		return (position == start) ? null : new String(buffer, start, position - start, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Read an int. It ends at any byte that is not a digit, so callers check what follows.
+	 *
+	 * @return the int
+	 *
+	 * @throws IOException
+	 *   if there is no int
+	 */
+	int readInt() throws IOException {
+		skipSpaces();
+		byte[] b = buffer;
+		int p = position;
+		int e = lineEnd;
+		boolean negative = false;
+		if((p < e) && ((b[p] == '-') || (b[p] == '+'))) {
+			negative = b[p] == '-';
+			p++;
+		}
+		int start = p;
+		int value = 0;
+		while((p < e) && (b[p] >= '0') && (b[p] <= '9')) {
+			value = (value * 10) + (b[p] - '0');
+			p++;
+		}
+		if(p == start) {
+			throw error("expected an integer");
+		}
+		if((p - start) > MAX_INT_DIGITS) {
+			throw error("integer is too large");
+		}
+		position = p;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Read a decimal number, which must be followed by whitespace or the line end.
+	 *
+	 * @return the number
+	 *
+	 * @throws IOException
+	 *   if there is no number
+	 */
+	double readDouble() throws IOException {
+		skipSpaces();
+		byte[] b = buffer;
+		int p = position;
+		int e = lineEnd;
+		int start = p;
+		boolean negative = false;
+		if((p < e) && ((b[p] == '-') || (b[p] == '+'))) {
+			negative = b[p] == '-';
+			p++;
+		}
+		long mantissa = 0L;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		while((p < e) && (b[p] >= '0') && (b[p] <= '9')) {
+			if(digits < MAX_DIGITS) {
+				mantissa = (mantissa * 10L) + (b[p] - '0');
+				digits += (mantissa == 0L) ? 0 : 1;
+			} else {
+				digits++;
+				exponent++;
+			}
+			any = true;
+			p++;
+		}
+		if((p < e) && (b[p] == '.')) {
+			p++;
+			while((p < e) && (b[p] >= '0') && (b[p] <= '9')) {
+				if(digits < MAX_DIGITS) {
+					mantissa = (mantissa * 10L) + (b[p] - '0');
+					digits += (mantissa == 0L) ? 0 : 1;
+					exponent--;
+				} else {
+					digits++;
+				}
+				any = true;
+				p++;
+			}
+		}
+		if(any && (p < e) && ((b[p] == 'e') || (b[p] == 'E'))) {
+			p++;
+			boolean negativeExponent = false;
+			if((p < e) && ((b[p] == '-') || (b[p] == '+'))) {
+				negativeExponent = b[p] == '-';
+				p++;
+			}
+			int value = 0;
+			int exponentStart = p;
+			while((p < e) && (b[p] >= '0') && (b[p] <= '9')) {
+				value = Math.min((value * 10) + (b[p] - '0'), 100_000);
+				p++;
+			}
+			if(p == exponentStart) {
+				throw error("expected an exponent");
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+		while((p < e) && !isSeparator(b[p] & 0xFF)) {
+			p++;
+			any = false;
+		}
+		position = p;
+		if(!any) {
+			return parseSlowly(start, p);
+		}
+		double value;
+		if(mantissa == 0L) {
+			value = 0.0;
+		} else if((digits <= EXACT_DIGITS) && (exponent >= -22) && (exponent <= 22)) {
+			value = (exponent < 0) ? (mantissa / POWERS[-exponent]) : (mantissa * POWERS[exponent]);
+		} else {
+			return parseSlowly(start, p);
+		}
+		return negative ? -value : value;
+	}
+
+	private double parseSlowly(int start, int end) throws IOException {
+		String token = new String(buffer, start, end - start, StandardCharsets.US_ASCII);
+		try {
+			return Double.parseDouble(token);
+		} catch(NumberFormatException e) {
+			throw error(MessageFormat.format("\"{0}\" is not a number", token));
+		}
+	}
+
+	/**
+	 * Read a signed byte.
+	 *
+	 * @return the byte
+	 *
+	 * @throws IOException
+	 *   if the input ends first
+	 */
+	byte readByte() throws IOException {
+		require(Byte.BYTES);
+		return buffer[position++];
+	}
+
+	/**
+	 * Read a short in the binary byte order.
+	 *
+	 * @return the short
+	 *
+	 * @throws IOException
+	 *   if the input ends first
+	 */
+	short readShort() throws IOException {
+		require(Short.BYTES);
+		short value = wrapper.getShort(position);
+		position += Short.BYTES;
+		return value;
+	}
+
+	/**
+	 * Read an int in the binary byte order.
+	 *
+	 * @return the int
+	 *
+	 * @throws IOException
+	 *   if the input ends first
+	 */
+	int readBinaryInt() throws IOException {
+		require(Integer.BYTES);
+		int value = wrapper.getInt(position);
+		position += Integer.BYTES;
+		return value;
+	}
+
+	/**
+	 * Read a float in the binary byte order.
+	 *
+	 * @return the float
+	 *
+	 * @throws IOException
+	 *   if the input ends first
+	 */
+	float readFloat() throws IOException {
+		require(Float.BYTES);
+		float value = wrapper.getFloat(position);
+		position += Float.BYTES;
+		return value;
+	}
+
+	/**
+	 * Read a double in the binary byte order.
+	 *
+	 * @return the double
+	 *
+	 * @throws IOException
+	 *   if the input ends first
+	 */
+	double readBinaryDouble() throws IOException {
+		require(Double.BYTES);
+		double value = wrapper.getDouble(position);
+		position += Double.BYTES;
+		return value;
+	}
+
+	private void require(int count) throws IOException {
+		while((limit - position) < count) {
+			if(eof) {
+				throw new EOFException(MessageFormat.format("Unexpected end of {0}", name));
+			}
+			compact(position);
+			fill();
+		}
+	}
+
+	/**
+	 * Error.
+	 *
+	 * @param reason
+	 *   the reason
+	 *
+	 * @return an exception naming the input and line to throw
+	 */
+	IOException error(String reason) {
+		return new IOException(MessageFormat.format("Invalid {0} at line {1}: {2}", name, lineNumber, reason));
+	}
+
+	/** Move the bytes from keep on to the front, growing the array if it is full of them. */
+	private int compact(int keep) {
+		int remaining = limit - keep;
+		if(keep > 0) {
+			System.arraycopy(buffer, keep, buffer, 0, remaining);
+		} else if(remaining == buffer.length) {
+			byte[] grown = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, grown, 0, remaining);
+			buffer = grown;
+			wrapper = ByteBuffer.wrap(buffer).order(order);
+		}
+		limit = remaining;
+		position -= keep;
+		lineEnd -= keep;
+		next -= keep;
+		return keep;
+	}
+
+	private void fill() throws IOException {
+		wrapper.limit(buffer.length).position(limit);
+		int read;
+		if(file != null) {
+			long left = end - filePosition;
+			if(left < wrapper.remaining()) {
+				wrapper.limit(limit + (int) left);
+			}
+			read = (left > 0L) ? file.read(wrapper, filePosition) : -1;
+			if(read > 0) {
+				filePosition += read;
+			}
+			eof = (read < 0) || (filePosition >= end);
+		} else {
+			read = channel.read(wrapper);
+			eof = read < 0;
+		}
+		limit += Math.max(read, 0);
+		wrapper.clear();
+	}
+}
@@ -0,0 +1,62 @@
+package org.grgodgames.lib.mesh;
+
+/**
+ * The type Cache statistics, from a simulated FIFO post-transform vertex cache.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class CacheStatistics {
+	private final int transforms;
+	private final int triangles;
+	private final int vertexes;
+
+	/**
+	 * Instantiates a new Cache statistics.
+	 *
+	 * @param transforms
+	 *   the number of vertex shader runs
+	 * @param triangles
+	 *   the triangle count
+	 * @param vertexes
+	 *   the number of distinct vertexes referenced
+	 */
+	CacheStatistics(int transforms, int triangles, int vertexes) {
+		this.transforms = transforms;
+		this.triangles = triangles;
+		this.vertexes = vertexes;
+	}
+
+	/**
+	 * Gets transforms.
+	 *
+	 * @return the number of vertex shader runs
+	 */
+	public int getTransforms() {
+		return transforms;
+	}
+
+	/**
+	 * Gets ACMR, the average cache miss ratio.
+	 *
+	 * @return transforms per triangle, 3 at worst and about 0.5 at best for large closed meshes
+	 */
+	public double getACMR() {
+		return (triangles == 0) ? 0.0 : (transforms / (double) triangles);
+	}
+
+	/**
+	 * Gets ATVR, the average transform to vertex ratio.
+	 *
+	 * @return transforms per distinct vertex, 1 is perfect
+	 */
+	public double getATVR() {
+		return (vertexes == 0) ? 0.0 : (transforms / (double) vertexes);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("{ACMR=%1$.3f, ATVR=%2$.3f}", getACMR(), getATVR());
+	}
+}
@@ -0,0 +1,111 @@
+package org.grgodgames.lib.mesh;
+
+/**
+ * The type Level of detail. A mesh with a chain of index lists over its vertexes, level 0 is the full mesh and
+ * each later level has fewer triangles. All levels share the vertexes, so switching level only changes which
+ * range of one index buffer is drawn.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class LevelOfDetail {
+	private final Mesh     mesh;
+	private final int[][]  indexes;
+	private final double[] errors;
+
+	/**
+	 * Instantiates a new Level of detail.
+	 *
+	 * @param mesh
+	 *   the indexed mesh, level 0
+	 * @param indexes
+	 *   the index list of every level after the first
+	 * @param errors
+	 *   the largest distance from a vertex of each of those levels to the planes of the level 0 triangles it
+	 *   replaced
+	 */
+	LevelOfDetail(Mesh mesh, int[][] indexes, double[] errors) {
+		this.mesh = mesh;
+		this.indexes = new int[indexes.length + 1][];
+		this.errors = new double[errors.length + 1];
+		this.indexes[0] = mesh.getIndexes();
+		System.arraycopy(indexes, 0, this.indexes, 1, indexes.length);
+		System.arraycopy(errors, 0, this.errors, 1, errors.length);
+	}
+
+	/**
+	 * Gets mesh.
+	 *
+	 * @return the mesh the levels index into
+	 */
+	public Mesh getMesh() {
+		return mesh;
+	}
+
+	/**
+	 * Gets level count.
+	 *
+	 * @return the level count
+	 */
+	public int getLevelCount() {
+		return indexes.length;
+	}
+
+	/**
+	 * Gets indexes.
+	 *
+	 * @param level
+	 *   the level
+	 *
+	 * @return the backing index list of the level, callers must not change it
+	 */
+	public int[] getIndexes(int level) {
+		return indexes[level];
+	}
+
+	/**
+	 * Gets error.
+	 *
+	 * @param level
+	 *   the level
+	 *
+	 * @return the largest distance, in mesh units, from a vertex of the level to the planes of the full mesh's
+	 *   triangles it replaced
+	 */
+	public double getError(int level) {
+		return errors[level];
+	}
+
+	/**
+	 * Select the coarsest level whose error stays under the tolerance on screen.
+	 *
+	 * @param pixelsPerUnit
+	 *   the number of pixels one mesh unit covers at the mesh's distance
+	 * @param tolerance
+	 *   the largest error to allow, in pixels
+	 *
+	 * @return the level
+	 */
+	public int select(double pixelsPerUnit, double tolerance) {
+		int level = 0;
+		while(((level + 1) < errors.length) && ((errors[level + 1] * pixelsPerUnit) <= tolerance)) {
+			level++;
+		}
+		return level;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("LevelOfDetail{");
+		sb.append("triangle counts=[");
+		for(int level = 0; level < indexes.length; level++) {
+			if(level > 0) {
+				sb.append(", ");
+			}
+			sb.append(indexes[level].length / 3);
+		}
+		sb.append("]}");
+		return sb.toString();
+	}
+}
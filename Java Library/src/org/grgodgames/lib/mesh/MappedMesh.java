@@ -0,0 +1,186 @@
+package org.grgodgames.lib.mesh;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * The type Mapped mesh. The attribute blocks of a {@link MeshFile} as views of the mapped file, in the native byte
+ * order a {@link org.grgodgames.lib.Render} uploads from. Nothing is read from disk until a view is used.
+ * <p>
+ * The views are read only. Each getter returns a new view over the same memory.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class MappedMesh {
+	private final int          vertexCount;
+	private final int          indexCount;
+	private final int          positionSize;
+	private final int          colorSize;
+	private final int          texCoordSize;
+	private final boolean      shortIndexes;
+	private final double[]     bounds;
+	private final DoubleBuffer positions;
+	private final DoubleBuffer normals;
+	private final ByteBuffer   colors;
+	private final ShortBuffer  texCoords;
+	private final ByteBuffer   indexes;
+
+	/**
+	 * Instantiates a new Mapped mesh.
+	 *
+	 * @param sizes
+	 *   the vertex count, index count, position size, color size and tex coord size
+	 * @param shortIndexes
+	 *   whether the indexes are 16 bit
+	 * @param bounds
+	 *   the minimum and maximum x, y and z
+	 * @param positions
+	 *   the positions
+	 * @param normals
+	 *   the normals
+	 * @param colors
+	 *   the colors
+	 * @param texCoords
+	 *   the tex coords
+	 * @param indexes
+	 *   the indexes, or null
+	 */
+	MappedMesh(int[] sizes, boolean shortIndexes, double[] bounds, DoubleBuffer positions, DoubleBuffer normals,
+	           ByteBuffer colors, ShortBuffer texCoords, ByteBuffer indexes) {
+		vertexCount = sizes[0];
+		indexCount = sizes[1];
+		positionSize = sizes[2];
+		colorSize = sizes[3];
+		texCoordSize = sizes[4];
+		this.shortIndexes = shortIndexes;
+		this.bounds = bounds;
+		this.positions = positions;
+		this.normals = normals;
+		this.colors = colors;
+		this.texCoords = texCoords;
+		this.indexes = indexes;
+	}
+
+	/**
+	 * Gets vertex count.
+	 *
+	 * @return the vertex count
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Gets index count.
+	 *
+	 * @return the index count, 0 if the mesh is not indexed
+	 */
+	public int getIndexCount() {
+		return indexCount;
+	}
+
+	/**
+	 * Gets position size.
+	 *
+	 * @return the position size
+	 */
+	public int getPositionSize() {
+		return positionSize;
+	}
+
+	/**
+	 * Gets color size.
+	 *
+	 * @return the color size
+	 */
+	public int getColorSize() {
+		return colorSize;
+	}
+
+	/**
+	 * Gets tex coord size.
+	 *
+	 * @return the tex coord size
+	 */
+	public int getTexCoordSize() {
+		return texCoordSize;
+	}
+
+	/**
+	 * Has short indexes.
+	 *
+	 * @return whether each index is an unsigned 16 bit value rather than a 32 bit one
+	 */
+	public boolean hasShortIndexes() {
+		return shortIndexes;
+	}
+
+	/**
+	 * Gets bound.
+	 *
+	 * @param i
+	 *   0 to 2 for the minimum x, y and z, 3 to 5 for the maximum
+	 *
+	 * @return the bound, stored in the header so it is known without reading the positions
+	 */
+	public double getBound(int i) {
+		return bounds[i];
+	}
+
+	/**
+	 * Gets positions.
+	 *
+	 * @return the positions
+	 */
+	public DoubleBuffer getPositions() {
+		return positions.duplicate();
+	}
+
+	/**
+	 * Gets normals.
+	 *
+	 * @return the normals
+	 */
+	public DoubleBuffer getNormals() {
+		return normals.duplicate();
+	}
+
+	/**
+	 * Gets colors.
+	 *
+	 * @return the colors
+	 */
+	public ByteBuffer getColors() {
+		return colors.duplicate();
+	}
+
+	/**
+	 * Gets tex coords.
+	 *
+	 * @return the tex coords
+	 */
+	public ShortBuffer getTexCoords() {
+		return texCoords.duplicate();
+	}
+
+	/**
+	 * Gets indexes.
+	 *
+	 * @return the indexes in native order, or null if the mesh is not indexed
+	 */
+	public ByteBuffer getIndexes() {
+		return (indexes == null) ? null : indexes.duplicate().order(indexes.order());
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("MappedMesh{");
+		sb.append("vertex count=").append(vertexCount);
+		sb.append(", index count=").append(indexCount);
+		sb.append('}');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,186 @@
+package org.grgodgames.lib.mesh;
+
+import java.text.MessageFormat;
+
+/**
+ * The type Mesh. Flat vertex attributes in the layout a {@link org.grgodgames.lib.Render} uploads, with an
+ * optional triangle index list.
+ * <p>
+ * The getters return the backing arrays so large meshes are never copied, callers must not change them.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class Mesh {
+	/** The normal size. */
+	public static final int NORMAL_SIZE     = 3;
+	/**
+	 * The fixed point scale of imported tex coords, 1.0 is stored as this, so tex coords from -16 to 16 fit at
+	 * 1/2048 precision. Draw with the texture matrix scaled by its inverse.
+	 */
+	public static final int TEX_COORD_SCALE = 1 << 11;
+	private final int      vertexCount;
+	private final int      positionSize;
+	private final int      colorSize;
+	private final int      texCoordSize;
+	private final double[] positions;
+	private final double[] normals;
+	private final byte[]   colors;
+	private final short[]  texCoords;
+	private final int[]    indexes;
+
+	/**
+	 * Instantiates a new Mesh.
+	 *
+	 * @param positionSize
+	 *   the position size
+	 * @param colorSize
+	 *   the color size
+	 * @param texCoordSize
+	 *   the tex coord size
+	 * @param positions
+	 *   the positions
+	 * @param normals
+	 *   the normals
+	 * @param colors
+	 *   the colors
+	 * @param texCoords
+	 *   the tex coords
+	 * @param indexes
+	 *   the triangle indexes, or null if every three vertexes are a triangle
+	 */
+	public Mesh(int positionSize, int colorSize, int texCoordSize, double[] positions, double[] normals,
+	            byte[] colors, short[] texCoords, int[] indexes) {
+		this.positionSize = positionSize;
+		this.colorSize = colorSize;
+		this.texCoordSize = texCoordSize;
+		vertexCount = positions.length / positionSize;
+		checkLength(positions.length, positionSize, "position");
+		checkLength(normals.length, NORMAL_SIZE, "normal");
+		checkLength(colors.length, colorSize, "color");
+		checkLength(texCoords.length, texCoordSize, "texture coordinate");
+		if((indexes != null) && ((indexes.length % 3) != 0)) {
+			throw new IllegalArgumentException("The number of indexes is not a multiple of three");
+		}
+		this.positions = positions;
+		this.normals = normals;
+		this.colors = colors;
+		this.texCoords = texCoords;
+		this.indexes = indexes;
+	}
+
+	private void checkLength(int length, int size, String name) {
+		if(length != (vertexCount * size)) {
+			throw new IllegalArgumentException(MessageFormat.format("The number of {0} values is incorrect", name));
+		}
+	}
+
+	/**
+	 * Gets vertex count.
+	 *
+	 * @return the vertex count
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Gets triangle count.
+	 *
+	 * @return the triangle count
+	 */
+	public int getTriangleCount() {
+		return ((indexes == null) ? vertexCount : indexes.length) / 3;
+	}
+
+	/**
+	 * Gets position size.
+	 *
+	 * @return the position size
+	 */
+	public int getPositionSize() {
+		return positionSize;
+	}
+
+	/**
+	 * Gets color size.
+	 *
+	 * @return the color size
+	 */
+	public int getColorSize() {
+		return colorSize;
+	}
+
+	/**
+	 * Gets tex coord size.
+	 *
+	 * @return the tex coord size
+	 */
+	public int getTexCoordSize() {
+		return texCoordSize;
+	}
+
+	/**
+	 * Gets positions.
+	 *
+	 * @return the positions
+	 */
+	public double[] getPositions() {
+		return positions;
+	}
+
+	/**
+	 * Gets normals.
+	 *
+	 * @return the normals
+	 */
+	public double[] getNormals() {
+		return normals;
+	}
+
+	/**
+	 * Gets colors.
+	 *
+	 * @return the colors
+	 */
+	public byte[] getColors() {
+		return colors;
+	}
+
+	/**
+	 * Gets tex coords.
+	 *
+	 * @return the tex coords
+	 */
+	public short[] getTexCoords() {
+		return texCoords;
+	}
+
+	/**
+	 * Gets indexes.
+	 *
+	 * @return the indexes, or null
+	 */
+	public int[] getIndexes() {
+		return indexes;
+	}
+
+	/**
+	 * Is indexed.
+	 *
+	 * @return the boolean
+	 */
+	public boolean isIndexed() {
+		return indexes != null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Mesh{");
+		sb.append("vertex count=").append(vertexCount);
+		sb.append(", triangle count=").append(getTriangleCount());
+		sb.append('}');
+		return sb.toString();
+	}
+}
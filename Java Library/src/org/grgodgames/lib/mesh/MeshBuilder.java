@@ -0,0 +1,291 @@
+package org.grgodgames.lib.mesh;
+
+import org.grgodgames.lib.geometry.Point;
+import org.grgodgames.lib.geometry.Triangle;
+
+import java.util.Arrays;
+
+/**
+ * The type Mesh builder. Welds vertexes with identical position, normal, color and tex coord into one indexed
+ * vertex.
+ * <p>
+ * Vertexes are found through an open addressing hash table of ints kept under half full, so building is linear
+ * in the number of vertexes added and makes no object per vertex. Values are compared by their bits, the same
+ * way {@link org.grgodgames.lib.geometry.XYZPoint#equals(Object)} compares coordinates.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public final class MeshBuilder {
+	private static final int NORMAL_SIZE = Mesh.NORMAL_SIZE;
+	private static final int MIN_CAPACITY = 16;
+	private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+	private final int positionSize;
+	private final int colorSize;
+	private final int texCoordSize;
+	private double[] positions;
+	private double[] normals;
+	private byte[]   colors;
+	private short[]  texCoords;
+	private int[]    indexes;
+	/** Vertex index plus one for each slot, zero is empty. */
+	private int[]    table;
+	private int[]    hashes;
+	private int      vertexCount;
+	private int      indexCount;
+
+	/**
+	 * Instantiates a new Mesh builder.
+	 *
+	 * @param positionSize
+	 *   the position size
+	 * @param colorSize
+	 *   the color size
+	 * @param texCoordSize
+	 *   the tex coord size
+	 * @param expectedVertexes
+	 *   the number of vertexes expected to be added, welded or not
+	 */
+	public MeshBuilder(int positionSize, int colorSize, int texCoordSize, int expectedVertexes) {
+		this.positionSize = positionSize;
+		this.colorSize = colorSize;
+		this.texCoordSize = texCoordSize;
+		int capacity = Math.max(MIN_CAPACITY, expectedVertexes);
+		positions = new double[capacity * positionSize];
+		normals = new double[capacity * NORMAL_SIZE];
+		colors = new byte[capacity * colorSize];
+		texCoords = new short[capacity * texCoordSize];
+		indexes = new int[capacity];
+		hashes = new int[capacity];
+		table = new int[tableSize(capacity)];
+	}
+
+	/**
+	 * Weld a triangle soup, every three vertexes of the flat arrays are a triangle.
+	 *
+	 * @param positionSize
+	 *   the position size
+	 * @param colorSize
+	 *   the color size
+	 * @param texCoordSize
+	 *   the tex coord size
+	 * @param positions
+	 *   the positions
+	 * @param normals
+	 *   the normals
+	 * @param colors
+	 *   the colors
+	 * @param texCoords
+	 *   the tex coords
+	 *
+	 * @return the indexed mesh
+	 */
+	public static Mesh weld(int positionSize, int colorSize, int texCoordSize, double[] positions, double[] normals,
+	                        byte[] colors, short[] texCoords) {
+		int count = positions.length / positionSize;
+		MeshBuilder builder = new MeshBuilder(positionSize, colorSize, texCoordSize, count);
+		for(int i = 0; i < count; i++) {
+			builder.addVertex(positions, i * positionSize, normals, i * NORMAL_SIZE, colors, i * colorSize, texCoords,
+			                  i * texCoordSize);
+		}
+		return builder.build();
+	}
+
+	private static int tableSize(int capacity) {
+		return Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) * 2) << 1;
+	}
+
+	/**
+	 * Add vertex. The values are read from each array starting at its offset.
+	 *
+	 * @param positions
+	 *   the positions
+	 * @param positionOffset
+	 *   the position offset
+	 * @param normals
+	 *   the normals
+	 * @param normalOffset
+	 *   the normal offset
+	 * @param colors
+	 *   the colors
+	 * @param colorOffset
+	 *   the color offset
+	 * @param texCoords
+	 *   the tex coords
+	 * @param texCoordOffset
+	 *   the tex coord offset
+	 *
+	 * @return the index of the welded vertex
+	 */
+	public int addVertex(double[] positions, int positionOffset, double[] normals, int normalOffset, byte[] colors,
+	                     int colorOffset, short[] texCoords, int texCoordOffset) {
+		ensureVertexCapacity();
+		int v = vertexCount;
+		System.arraycopy(positions, positionOffset, this.positions, v * positionSize, positionSize);
+		System.arraycopy(normals, normalOffset, this.normals, v * NORMAL_SIZE, NORMAL_SIZE);
+		System.arraycopy(colors, colorOffset, this.colors, v * colorSize, colorSize);
+		System.arraycopy(texCoords, texCoordOffset, this.texCoords, v * texCoordSize, texCoordSize);
+
+		int hash = hash(v);
+		hashes[v] = hash;
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while(table[slot] != 0) {
+			int existing = table[slot] - 1;
+			if((hashes[existing] == hash) && equal(existing, v)) {
+				addIndex(existing);
+				return existing;
+			}
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = v + 1;
+		vertexCount++;
+		addIndex(v);
+		if((vertexCount * 2) > table.length) {
+			rehash();
+		}
+		return v;
+	}
+
+	/**
+	 * Add vertex.
+	 *
+	 * @param position
+	 *   the position
+	 * @param normal
+	 *   the normal
+	 * @param color
+	 *   the color
+	 * @param texCoord
+	 *   the tex coord
+	 *
+	 * @return the index of the welded vertex
+	 */
+	public int addVertex(double[] position, double[] normal, byte[] color, short[] texCoord) {
+		return addVertex(position, 0, normal, 0, color, 0, texCoord, 0);
+	}
+
+	/**
+	 * Add triangle. The points must have been initialised with
+	 * {@link Point#initPoint(org.grgodgames.lib.geometry.TexCoord, org.grgodgames.lib.geometry.Vector,
+	 * org.grgodgames.lib.geometry.Color)}.
+	 *
+	 * @param triangle
+	 *   the triangle
+	 */
+	public void addTriangle(Triangle triangle) {
+		for(Point point : triangle.getPoints()) {
+			addVertex(point.toArray(positionSize), point.getNormalArray(triangle), point.getColorArray(),
+			          point.getTexCoordArray());
+		}
+	}
+
+	/**
+	 * Gets vertex count.
+	 *
+	 * @return the number of distinct vertexes so far
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Gets index count.
+	 *
+	 * @return the number of vertexes added so far
+	 */
+	public int getIndexCount() {
+		return indexCount;
+	}
+
+	/**
+	 * Build mesh.
+	 *
+	 * @return the mesh
+	 */
+	public Mesh build() {
+		if((indexCount % 3) != 0) {
+			throw new IllegalStateException("The number of vertexes added is not a multiple of three");
+		}
+		return new Mesh(positionSize, colorSize, texCoordSize, Arrays.copyOf(positions, vertexCount * positionSize),
+		                Arrays.copyOf(normals, vertexCount * NORMAL_SIZE), Arrays.copyOf(colors, vertexCount * colorSize),
+		                Arrays.copyOf(texCoords, vertexCount * texCoordSize), Arrays.copyOf(indexes, indexCount));
+	}
+
+	private int hash(int v) {
+		long hash = 1;
+		for(int i = v * positionSize; i < ((v + 1) * positionSize); i++) {
+			hash = (hash ^ Double.doubleToLongBits(positions[i])) * GOLDEN_RATIO;
+		}
+		for(int i = v * NORMAL_SIZE; i < ((v + 1) * NORMAL_SIZE); i++) {
+			hash = (hash ^ Double.doubleToLongBits(normals[i])) * GOLDEN_RATIO;
+		}
+		for(int i = v * colorSize; i < ((v + 1) * colorSize); i++) {
+			hash = (hash ^ colors[i]) * GOLDEN_RATIO;
+		}
+		for(int i = v * texCoordSize; i < ((v + 1) * texCoordSize); i++) {
+			hash = (hash ^ texCoords[i]) * GOLDEN_RATIO;
+		}
+		hash ^= hash >>> 32;
+		hash *= GOLDEN_RATIO;
+		return (int) (hash >>> 32);
+	}
+
+	private boolean equal(int a, int b) {
+		for(int i = 0; i < positionSize; i++) {
+			if(Double.doubleToLongBits(positions[(a * positionSize) + i]) !=
+			   Double.doubleToLongBits(positions[(b * positionSize) + i])) {
+				return false;
+			}
+		}
+		for(int i = 0; i < NORMAL_SIZE; i++) {
+			if(Double.doubleToLongBits(normals[(a * NORMAL_SIZE) + i]) !=
+			   Double.doubleToLongBits(normals[(b * NORMAL_SIZE) + i])) {
+				return false;
+			}
+		}
+		for(int i = 0; i < colorSize; i++) {
+			if(colors[(a * colorSize) + i] != colors[(b * colorSize) + i]) {
+				return false;
+			}
+		}
+		for(int i = 0; i < texCoordSize; i++) {
+			if(texCoords[(a * texCoordSize) + i] != texCoords[(b * texCoordSize) + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addIndex(int index) {
+		if(indexCount == indexes.length) {
+			indexes = Arrays.copyOf(indexes, indexCount * 2);
+		}
+		indexes[indexCount++] = index;
+	}
+
+	private void ensureVertexCapacity() {
+		int capacity = hashes.length;
+		if(vertexCount == capacity) {
+			int newCapacity = capacity * 2;
+			positions = Arrays.copyOf(positions, newCapacity * positionSize);
+			normals = Arrays.copyOf(normals, newCapacity * NORMAL_SIZE);
+			colors = Arrays.copyOf(colors, newCapacity * colorSize);
+			texCoords = Arrays.copyOf(texCoords, newCapacity * texCoordSize);
+			hashes = Arrays.copyOf(hashes, newCapacity);
+		}
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		int mask = table.length - 1;
+		for(int v = 0; v < vertexCount; v++) {
+			int slot = hashes[v] & mask;
+			while(table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = v + 1;
+		}
+	}
+}
@@ -0,0 +1,284 @@
+package org.grgodgames.lib.mesh;
+
+import org.grgodgames.lib.GameLogger;
+import org.grgodgames.lib.Utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.logging.Logger;
+
+/**
+ * The type Mesh file. Reads and writes meshes in a versioned little endian binary format that is mapped into
+ * memory rather than parsed.
+ * <p>
+ * The file is a {@value #HEADER_SIZE} byte header followed by the attribute blocks, each starting on an
+ * {@value #ALIGNMENT} byte boundary:
+ * <pre>
+ * 0   magic "GGMESH" and two zero bytes
+ * 8   int version, int flags (bit 0 indexed, bit 1 16 bit indexes)
+ * 16  int vertex count, int index count
+ * 24  int position size, int color size, int tex coord size, int reserved
+ * 40  6 doubles, the minimum then maximum x, y and z
+ * 88  5 longs, the offset of the position, normal, color, tex coord and index blocks
+ * 128 positions and normals as doubles, colors as bytes, tex coords as shorts, indexes as shorts or ints
+ * </pre>
+ * On little endian hosts, the usual case, {@link #map(File)} hands out views of the mapping itself so the bytes
+ * go from the page cache to the driver without a copy or a Java object per vertex.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+@Utility
+public final class MeshFile {
+	/** The format version written. */
+	public static final  int        VERSION      = 1;
+	/** The header size. */
+	public static final  int        HEADER_SIZE  = 128;
+	/** The alignment of each block. */
+	public static final  int        ALIGNMENT    = 16;
+	private static final GameLogger LOGGER       = GameLogger.loggerOf(Logger.getLogger(MeshFile.class.getName()));
+	private static final byte[]     MAGIC        = {'G', 'G', 'M', 'E', 'S', 'H', 0, 0};
+	private static final ByteOrder  ORDER        = ByteOrder.LITTLE_ENDIAN;
+	private static final int        INDEXED      = 1;
+	private static final int        SHORT_INDEX  = 2;
+	private static final int        BLOCKS       = 5;
+	private static final int        BOUNDS       = 40;
+	private static final int        OFFSETS      = 88;
+	private static final int        MAX_SHORT    = 0xFFFF;
+	private static final int        CHUNK        = 1 << 16;
+
+	/** Instantiates a new Mesh file. */
+	private MeshFile() {
+	}
+
+	/**
+	 * Write a mesh.
+	 *
+	 * @param mesh
+	 *   the mesh
+	 * @param target
+	 *   the file to create or replace
+	 *
+	 * @throws IOException
+	 *   if the file can not be written
+	 */
+	public static void write(Mesh mesh, File target) throws IOException {
+		int vertexCount = mesh.getVertexCount();
+		int[] indexes = mesh.getIndexes();
+		boolean shortIndexes = vertexCount <= (MAX_SHORT + 1);
+		long[] lengths = {
+			(long) mesh.getPositions().length * Double.BYTES, (long) mesh.getNormals().length * Double.BYTES,
+			mesh.getColors().length, (long) mesh.getTexCoords().length * Short.BYTES,
+			(indexes == null) ? 0L : ((long) indexes.length * (shortIndexes ? Short.BYTES : Integer.BYTES))
+		};
+		long[] offsets = new long[BLOCKS];
+		long end = HEADER_SIZE;
+		for(int b = 0; b < BLOCKS; b++) {
+			offsets[b] = end;
+			end = align(end + lengths[b]);
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+		header.put(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(((indexes == null) ? 0 : INDEXED) | (shortIndexes ? SHORT_INDEX : 0));
+		header.putInt(vertexCount);
+		header.putInt((indexes == null) ? 0 : indexes.length);
+		header.putInt(mesh.getPositionSize());
+		header.putInt(mesh.getColorSize());
+		header.putInt(mesh.getTexCoordSize());
+		header.putInt(0);
+		for(double bound : boundsOf(mesh)) {
+			header.putDouble(bound);
+		}
+		for(long offset : offsets) {
+			header.putLong(offset);
+		}
+		header.clear();
+
+		try(FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+		                                           StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header, 0L);
+			ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK).order(ORDER);
+			writeDoubles(channel, chunk, mesh.getPositions(), offsets[0]);
+			writeDoubles(channel, chunk, mesh.getNormals(), offsets[1]);
+			writeFully(channel, ByteBuffer.wrap(mesh.getColors()), offsets[2]);
+			chunk.clear();
+			long position = offsets[3];
+			for(short texCoord : mesh.getTexCoords()) {
+				if(chunk.remaining() < Short.BYTES) {
+					position = flush(channel, chunk, position);
+				}
+				chunk.putShort(texCoord);
+			}
+			flush(channel, chunk, position);
+			if(indexes != null) {
+				position = offsets[4];
+				for(int index : indexes) {
+					if(chunk.remaining() < Integer.BYTES) {
+						position = flush(channel, chunk, position);
+					}
+					if(shortIndexes) {
+						chunk.putShort((short) index);
+					} else {
+						chunk.putInt(index);
+					}
+				}
+				flush(channel, chunk, position);
+			}
+			channel.truncate(end);
+		}
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Wrote {0} to {1}, {2} bytes", mesh, target, end));
+		}
+	}
+
+	/**
+	 * Map a mesh file.
+	 *
+	 * @param source
+	 *   the file
+	 *
+	 * @return the mapped mesh
+	 *
+	 * @throws IOException
+	 *   if the file can not be read or is not a valid mesh file
+	 */
+	public static MappedMesh map(File source) throws IOException {
+		MappedByteBuffer file;
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw invalid(source, "it is larger than one mapping can be");
+			}
+			// the mapping outlives the channel
+			file = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+		}
+		file.order(ORDER);
+		if(file.capacity() < HEADER_SIZE) {
+			throw invalid(source, "it is shorter than the header");
+		}
+		for(int i = 0; i < MAGIC.length; i++) {
+			if(file.get(i) != MAGIC[i]) {
+				throw invalid(source, "it is not a mesh file");
+			}
+		}
+		int version = file.getInt(8);
+		if(version != VERSION) {
+			throw invalid(source, MessageFormat.format("version {0} is not supported", version));
+		}
+		int flags = file.getInt(12);
+		int[] sizes = {file.getInt(16), file.getInt(20), file.getInt(24), file.getInt(28), file.getInt(32)};
+		for(int size : sizes) {
+			if(size < 0) {
+				throw invalid(source, "a count is negative");
+			}
+		}
+		boolean indexed = (flags & INDEXED) != 0;
+		boolean shortIndexes = (flags & SHORT_INDEX) != 0;
+		double[] bounds = new double[6];
+		for(int i = 0; i < bounds.length; i++) {
+			bounds[i] = file.getDouble(BOUNDS + (i * Double.BYTES));
+		}
+		long vertexCount = sizes[0];
+		long[] lengths = {
+			vertexCount * sizes[2] * Double.BYTES, vertexCount * Mesh.NORMAL_SIZE * Double.BYTES,
+			vertexCount * sizes[3], vertexCount * sizes[4] * Short.BYTES,
+			indexed ? ((long) sizes[1] * (shortIndexes ? Short.BYTES : Integer.BYTES)) : 0L
+		};
+		ByteBuffer[] blocks = new ByteBuffer[BLOCKS];
+		for(int b = 0; b < BLOCKS; b++) {
+			long offset = file.getLong(OFFSETS + (b * Long.BYTES));
+			if((offset < HEADER_SIZE) || ((offset + lengths[b]) > file.capacity())) {
+				throw invalid(source, "a block lies outside the file");
+			}
+			blocks[b] = slice(file, (int) offset, (int) lengths[b]);
+		}
+
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Mapped {0}, {1} bytes", source, file.capacity()));
+		}
+		return new MappedMesh(sizes, shortIndexes, bounds, blocks[0].asDoubleBuffer(), blocks[1].asDoubleBuffer(),
+		                      blocks[2], blocks[3].asShortBuffer(), indexed ? blocks[4] : null);
+	}
+
+	private static long align(long offset) {
+		return ((offset + ALIGNMENT) - 1) & -ALIGNMENT;
+	}
+
+	private static IOException invalid(File source, String reason) {
+		return new IOException(MessageFormat.format("Invalid mesh file {0}: {1}", source, reason));
+	}
+
+	/**
+	 * Slice a block in native order. On a big endian host the block is swapped into a new direct buffer.
+	 */
+	private static ByteBuffer slice(ByteBuffer file, int offset, int length) {
+		ByteBuffer view = file.duplicate();
+		view.limit(offset + length).position(offset);
+		ByteBuffer block = view.slice().order(ORDER);
+		if(ORDER == ByteOrder.nativeOrder()) {
+			return block;
+		}
+		ByteBuffer copy = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+		copy.put(block).clear();
+		return copy;
+	}
+
+	private static double[] boundsOf(Mesh mesh) {
+		double[] bounds = {
+			Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+		};
+		int size = mesh.getPositionSize();
+		int axes = Math.min(size, 3);
+		double[] positions = mesh.getPositions();
+		for(int v = 0; v < mesh.getVertexCount(); v++) {
+			for(int a = 0; a < axes; a++) {
+				bounds[a] = Math.min(bounds[a], positions[(v * size) + a]);
+				bounds[3 + a] = Math.max(bounds[3 + a], positions[(v * size) + a]);
+			}
+		}
+		for(int a = 0; a < 3; a++) {
+			if((a >= axes) || (mesh.getVertexCount() == 0)) {
+				bounds[a] = 0.0;
+				bounds[3 + a] = 0.0;
+			}
+		}
+		return bounds;
+	}
+
+	private static void writeDoubles(FileChannel channel, ByteBuffer chunk, double[] values, long offset)
+		throws IOException {
+		chunk.clear();
+		long position = offset;
+		for(double value : values) {
+			if(chunk.remaining() < Double.BYTES) {
+				position = flush(channel, chunk, position);
+			}
+			chunk.putDouble(value);
+		}
+		flush(channel, chunk, position);
+	}
+
+	private static long flush(FileChannel channel, ByteBuffer chunk, long position) throws IOException {
+		chunk.flip();
+		long next = position + chunk.remaining();
+		writeFully(channel, chunk, position);
+		chunk.clear();
+		return next;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long at = position;
+		while(buffer.hasRemaining()) {
+			at += channel.write(buffer, at);
+		}
+	}
+}
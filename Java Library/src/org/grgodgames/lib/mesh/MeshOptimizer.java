@@ -0,0 +1,364 @@
+package org.grgodgames.lib.mesh;
+
+import org.grgodgames.lib.GameLogger;
+import org.grgodgames.lib.Utility;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The type Mesh optimizer. Reorders an indexed mesh for the GPU: triangles for the post-transform vertex cache
+ * with Tipsify, clusters of those triangles against overdraw, then vertexes in the order they are first fetched.
+ * Every pass is linear, or n log n in the number of clusters, and deterministic.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @see <a href="http://gfx.cs.princeton.edu/pubs/Sander_2007_%3ETR/tipsy.pdf">Sander, Nehab and Barczak, Fast
+ * Triangle Reordering for Vertex Locality and Reduced Overdraw</a>
+ * @since CORE
+ */
+@Utility
+public final class MeshOptimizer {
+	/** The cache size optimised for and simulated, a safe size for most GPUs. */
+	public static final  int        CACHE_SIZE = 16;
+	private static final GameLogger LOGGER     = GameLogger.loggerOf(Logger.getLogger(MeshOptimizer.class.getName()));
+
+	/** Instantiates a new Mesh optimizer. */
+	private MeshOptimizer() {
+	}
+
+	/**
+	 * Optimize a mesh, welding it first if it is not indexed.
+	 *
+	 * @param mesh
+	 *   the mesh
+	 *
+	 * @return the optimized mesh
+	 */
+	public static Mesh optimize(Mesh mesh) {
+		return optimize(mesh, null);
+	}
+
+	/**
+	 * Optimize a mesh, welding it first if it is not indexed.
+	 *
+	 * @param mesh
+	 *   the mesh
+	 * @param statistics
+	 *   null, or at least two long to receive the {@value #CACHE_SIZE} entry cache statistics of the indexed mesh
+	 *   before and after optimizing
+	 *
+	 * @return the optimized mesh
+	 */
+	public static Mesh optimize(Mesh mesh, CacheStatistics[] statistics) {
+		Mesh indexed = mesh.isIndexed() ? mesh :
+		               MeshBuilder.weld(mesh.getPositionSize(), mesh.getColorSize(), mesh.getTexCoordSize(),
+		                                mesh.getPositions(), mesh.getNormals(), mesh.getColors(), mesh.getTexCoords());
+		int[] indexes = indexed.getIndexes();
+		boolean measure = (statistics != null) || LOGGER.isDebugEnabled();
+		CacheStatistics before = measure ? analyze(indexes, indexed.getVertexCount(), CACHE_SIZE) : null;
+
+		int[] clusters = new int[(indexes.length / 3) + 1];
+		int[] cached = optimizeVertexCache(indexes, indexed.getVertexCount(), clusters);
+		int[] ordered = optimizeOverdraw(cached, clusters, indexed.getPositions(), indexed.getPositionSize());
+		Mesh optimized = optimizeVertexFetch(new Mesh(indexed.getPositionSize(), indexed.getColorSize(),
+		                                              indexed.getTexCoordSize(), indexed.getPositions(),
+		                                              indexed.getNormals(), indexed.getColors(),
+		                                              indexed.getTexCoords(), ordered));
+
+		if(measure) {
+			CacheStatistics after = analyze(optimized.getIndexes(), optimized.getVertexCount(), CACHE_SIZE);
+			if(statistics != null) {
+				statistics[0] = before;
+				statistics[1] = after;
+			}
+			if(LOGGER.isDebugEnabled()) {
+				LOGGER.logDebug(MessageFormat.format("Optimized {0}: {1} -> {2}", optimized, before, after));
+			}
+		}
+		return optimized;
+	}
+
+	/**
+	 * Analyze the indexes with a simulated FIFO cache.
+	 *
+	 * @param indexes
+	 *   the indexes
+	 * @param vertexCount
+	 *   the vertex count
+	 * @param cacheSize
+	 *   the cache size
+	 *
+	 * @return the cache statistics
+	 */
+	public static CacheStatistics analyze(int[] indexes, int vertexCount, int cacheSize) {
+		int[] stamps = new int[vertexCount];
+		Arrays.fill(stamps, Integer.MIN_VALUE / 2);
+		boolean[] referenced = new boolean[vertexCount];
+		int transforms = 0;
+		int distinct = 0;
+		for(int index : indexes) {
+			if((transforms - stamps[index]) >= cacheSize) {
+				stamps[index] = transforms++;
+			}
+			if(!referenced[index]) {
+				referenced[index] = true;
+				distinct++;
+			}
+		}
+		return new CacheStatistics(transforms, indexes.length / 3, distinct);
+	}
+
+	/**
+	 * Optimize vertex cache with Tipsify. Fans around the most recently cached vertex that will still be in the
+	 * cache, falling back to recently used vertexes and then to the next unfinished vertex.
+	 *
+	 * @param indexes
+	 *   the indexes
+	 * @param vertexCount
+	 *   the vertex count
+	 * @param clusters
+	 *   receives the first triangle of each cluster, each place the order had to jump to a vertex that was not
+	 *   cached, followed by -1; at least {@code triangle count + 1} long, or null
+	 *
+	 * @return the reordered indexes
+	 */
+	public static int[] optimizeVertexCache(int[] indexes, int vertexCount, int[] clusters) {
+		int triangleCount = indexes.length / 3;
+		int[] live = new int[vertexCount];
+		for(int index : indexes) {
+			live[index]++;
+		}
+		int[] offsets = new int[vertexCount + 1];
+		for(int v = 0; v < vertexCount; v++) {
+			offsets[v + 1] = offsets[v] + live[v];
+		}
+		int[] adjacency = new int[indexes.length];
+		int[] fill = Arrays.copyOf(offsets, vertexCount);
+		for(int i = 0; i < indexes.length; i++) {
+			adjacency[fill[indexes[i]]++] = i / 3;
+		}
+
+		int[] result = new int[indexes.length];
+		int[] cacheTimes = new int[vertexCount];
+		boolean[] emitted = new boolean[triangleCount];
+		int[] deadEnd = new int[indexes.length];
+		int deadEndSize = 0;
+		int[] candidates = new int[indexes.length];
+		int time = CACHE_SIZE + 1;
+		int cursor = 0;
+		int written = 0;
+		int clusterCount = 0;
+
+		int fanning = (vertexCount > 0) && (triangleCount > 0) ? indexes[0] : -1;
+		boolean jumped = true;
+		while(fanning >= 0) {
+			if(jumped && (clusters != null)) {
+				clusters[clusterCount++] = written / 3;
+			}
+			int candidateCount = 0;
+			for(int a = offsets[fanning]; a < offsets[fanning + 1]; a++) {
+				int triangle = adjacency[a];
+				if(!emitted[triangle]) {
+					emitted[triangle] = true;
+					for(int c = 0; c < 3; c++) {
+						int v = indexes[(triangle * 3) + c];
+						result[written++] = v;
+						deadEnd[deadEndSize++] = v;
+						candidates[candidateCount++] = v;
+						live[v]--;
+						if((time - cacheTimes[v]) > CACHE_SIZE) {
+							cacheTimes[v] = time++;
+						}
+					}
+				}
+			}
+
+			int next = -1;
+			int best = -1;
+			for(int i = 0; i < candidateCount; i++) {
+				int v = candidates[i];
+				if(live[v] > 0) {
+					int priority = 0;
+					if(((time - cacheTimes[v]) + (2 * live[v])) <= CACHE_SIZE) {
+						priority = time - cacheTimes[v];
+					}
+					if(priority > best) {
+						best = priority;
+						next = v;
+					}
+				}
+			}
+			jumped = false;
+			if(next < 0) {
+				while((deadEndSize > 0) && (next < 0)) {
+					int v = deadEnd[--deadEndSize];
+					if(live[v] > 0) {
+						next = v;
+					}
+				}
+				while((next < 0) && (cursor < vertexCount)) {
+					if(live[cursor] > 0) {
+						next = cursor;
+					} else {
+						cursor++;
+					}
+				}
+				jumped = (next < 0) || ((time - cacheTimes[next]) > CACHE_SIZE);
+			}
+			fanning = next;
+		}
+		if(clusters != null) {
+			clusters[clusterCount] = -1;
+		}
+		return result;
+	}
+
+	/**
+	 * Optimize overdraw. Keeps the order inside each cluster and draws the clusters that face outwards from the
+	 * centre of the mesh first, as they are the most likely to hide the others.
+	 *
+	 * @param indexes
+	 *   the indexes
+	 * @param clusters
+	 *   the first triangle of each cluster followed by -1, as filled by
+	 *   {@link #optimizeVertexCache(int[], int, int[])}
+	 * @param positions
+	 *   the positions
+	 * @param positionSize
+	 *   the position size, at least 3
+	 *
+	 * @return the reordered indexes
+	 */
+	public static int[] optimizeOverdraw(int[] indexes, int[] clusters, double[] positions, int positionSize) {
+		int clusterCount = 0;
+		while((clusterCount < clusters.length) && (clusters[clusterCount] >= 0)) {
+			clusterCount++;
+		}
+		if((clusterCount < 2) || (positionSize < 3)) {
+			return indexes.clone();
+		}
+
+		int triangleCount = indexes.length / 3;
+		double[] centroids = new double[clusterCount * 3];
+		double[] normals = new double[clusterCount * 3];
+		double[] areas = new double[clusterCount];
+		double[] meshCentroid = new double[3];
+		double meshArea = 0.0;
+		for(int c = 0; c < clusterCount; c++) {
+			int end = ((c + 1) < clusterCount) ? clusters[c + 1] : triangleCount;
+			for(int t = clusters[c]; t < end; t++) {
+				int a = indexes[t * 3] * positionSize;
+				int b = indexes[(t * 3) + 1] * positionSize;
+				int d = indexes[(t * 3) + 2] * positionSize;
+				double e1x = positions[b] - positions[a];
+				double e1y = positions[b + 1] - positions[a + 1];
+				double e1z = positions[b + 2] - positions[a + 2];
+				double e2x = positions[d] - positions[a];
+				double e2y = positions[d + 1] - positions[a + 1];
+				double e2z = positions[d + 2] - positions[a + 2];
+				double nx = (e1y * e2z) - (e1z * e2y);
+				double ny = (e1z * e2x) - (e1x * e2z);
+				double nz = (e1x * e2y) - (e1y * e2x);
+				double area = Math.sqrt((nx * nx) + (ny * ny) + (nz * nz));
+				normals[c * 3] += nx;
+				normals[(c * 3) + 1] += ny;
+				normals[(c * 3) + 2] += nz;
+				for(int k = 0; k < 3; k++) {
+					double centre = (positions[a + k] + positions[b + k] + positions[d + k]) / 3.0;
+					centroids[(c * 3) + k] += centre * area;
+					meshCentroid[k] += centre * area;
+				}
+				areas[c] += area;
+				meshArea += area;
+			}
+		}
+
+		final double[] sortKeys = new double[clusterCount];
+		for(int c = 0; c < clusterCount; c++) {
+			double length = Math.sqrt((normals[c * 3] * normals[c * 3]) +
+			                          (normals[(c * 3) + 1] * normals[(c * 3) + 1]) +
+			                          (normals[(c * 3) + 2] * normals[(c * 3) + 2]));
+			if((length == 0.0) || (areas[c] == 0.0) || (meshArea == 0.0)) {
+				continue;
+			}
+			for(int k = 0; k < 3; k++) {
+				double offset = (centroids[(c * 3) + k] / areas[c]) - (meshCentroid[k] / meshArea);
+				sortKeys[c] += offset * (normals[(c * 3) + k] / length);
+			}
+		}
+
+		long[] order = new long[clusterCount];
+		for(int c = 0; c < clusterCount; c++) {
+			order[c] = (orderedBits(-sortKeys[c]) & ~0xFFFFFFFFL) | c;
+		}
+		Arrays.sort(order);
+
+		int[] result = new int[indexes.length];
+		int written = 0;
+		for(long entry : order) {
+			int c = (int) entry;
+			int start = clusters[c] * 3;
+			int end = (((c + 1) < clusterCount) ? clusters[c + 1] : triangleCount) * 3;
+			System.arraycopy(indexes, start, result, written, end - start);
+			written += end - start;
+		}
+		return result;
+	}
+
+	/**
+	 * Optimize vertex fetch. Renumbers vertexes in the order the indexes first use them so the vertex fetch
+	 * reads memory in order, vertexes that are never used are dropped.
+	 *
+	 * @param mesh
+	 *   the indexed mesh
+	 *
+	 * @return the mesh
+	 */
+	public static Mesh optimizeVertexFetch(Mesh mesh) {
+		int[] indexes = mesh.getIndexes();
+		int[] remap = new int[mesh.getVertexCount()];
+		Arrays.fill(remap, -1);
+		int[] newIndexes = new int[indexes.length];
+		int count = 0;
+		for(int i = 0; i < indexes.length; i++) {
+			if(remap[indexes[i]] < 0) {
+				remap[indexes[i]] = count++;
+			}
+			newIndexes[i] = remap[indexes[i]];
+		}
+
+		int positionSize = mesh.getPositionSize();
+		int colorSize = mesh.getColorSize();
+		int texCoordSize = mesh.getTexCoordSize();
+		double[] positions = new double[count * positionSize];
+		double[] normals = new double[count * Mesh.NORMAL_SIZE];
+		byte[] colors = new byte[count * colorSize];
+		short[] texCoords = new short[count * texCoordSize];
+		for(int v = 0; v < remap.length; v++) {
+			int n = remap[v];
+			if(n >= 0) {
+				System.arraycopy(mesh.getPositions(), v * positionSize, positions, n * positionSize, positionSize);
+				System.arraycopy(mesh.getNormals(), v * Mesh.NORMAL_SIZE, normals, n * Mesh.NORMAL_SIZE,
+				                 Mesh.NORMAL_SIZE);
+				System.arraycopy(mesh.getColors(), v * colorSize, colors, n * colorSize, colorSize);
+				System.arraycopy(mesh.getTexCoords(), v * texCoordSize, texCoords, n * texCoordSize, texCoordSize);
+			}
+		}
+		return new Mesh(positionSize, colorSize, texCoordSize, positions, normals, colors, texCoords, newIndexes);
+	}
+
+	/**
+	 * Ordered bits. Maps a double onto a long that sorts the same way as a signed long.
+	 *
+	 * @param value
+	 *   the value
+	 *
+	 * @return the long
+	 */
+	private static long orderedBits(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return (bits < 0) ? (bits ^ Long.MAX_VALUE) : bits;
+	}
+}
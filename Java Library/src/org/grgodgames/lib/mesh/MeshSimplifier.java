@@ -0,0 +1,547 @@
+package org.grgodgames.lib.mesh;
+
+import org.grgodgames.lib.GameLogger;
+import org.grgodgames.lib.Utility;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The type Mesh simplifier. Removes triangles from an indexed mesh by collapsing edges, cheapest first by the
+ * quadric error metric, so the surface moves as little as possible.
+ * <p>
+ * Every collapse moves one vertex onto a neighbour and never creates a vertex, so a simplified index list still
+ * indexes the original vertexes and the levels of a {@link LevelOfDetail} can share one vertex buffer. Vertexes
+ * on a border, on a non-manifold edge or on an attribute seam, where several vertexes share a position, are
+ * never moved, which keeps holes, silhouettes of open meshes and texture seams intact.
+ * <p>
+ * Collapses are found in passes over flat arrays: the triangles around each vertex are indexed once per pass,
+ * every edge is costed, the costs are sorted and the cheapest collapses that do not touch each other and do not
+ * flip a triangle are applied together.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @see <a href="https://www.cs.cmu.edu/~./garland/Papers/quadrics.pdf">Garland and Heckbert, Surface
+ * Simplification Using Quadric Error Metrics</a>
+ * @since CORE
+ */
+@Utility
+public final class MeshSimplifier {
+	/** The default error limit, relative to the size of the mesh. */
+	public static final  double     DEFAULT_ERROR  = 0.01;
+	private static final GameLogger LOGGER         =
+		GameLogger.loggerOf(Logger.getLogger(MeshSimplifier.class.getName()));
+	private static final long       GOLDEN_RATIO   = 0x9E3779B97F4A7C15L;
+	/** The number of values in a symmetric 4x4 quadric. */
+	private static final int        QUADRIC        = 10;
+	/** A collapse may not turn a triangle's normal by more than about 75 degrees. */
+	private static final double     MIN_NORMAL_DOT = 0.25;
+
+	/** Instantiates a new Mesh simplifier. */
+	private MeshSimplifier() {
+	}
+
+	/**
+	 * Simplify a mesh to a fraction of its triangles, dropping the vertexes no longer used.
+	 *
+	 * @param mesh
+	 *   the indexed mesh
+	 * @param ratio
+	 *   the fraction of the triangles to keep
+	 *
+	 * @return the simplified mesh
+	 */
+	public static Mesh simplify(Mesh mesh, double ratio) {
+		int[] indexes = simplifyIndexes(mesh, mesh.getIndexes(), targetOf(mesh.getTriangleCount(), ratio),
+		                                DEFAULT_ERROR, null);
+		return MeshOptimizer.optimizeVertexFetch(new Mesh(mesh.getPositionSize(), mesh.getColorSize(),
+		                                                  mesh.getTexCoordSize(), mesh.getPositions(),
+		                                                  mesh.getNormals(), mesh.getColors(), mesh.getTexCoords(),
+		                                                  indexes));
+	}
+
+	/**
+	 * Build levels of detail. Each level carries on simplifying from the one before, with the quadrics of the full
+	 * mesh, so every error is measured against level 0 rather than the level it was simplified from.
+	 *
+	 * @param mesh
+	 *   the indexed mesh
+	 * @param maxError
+	 *   the largest root mean square distance from the full mesh's planes allowed at any level, relative to the
+	 *   size of the mesh
+	 * @param ratios
+	 *   the fraction of the mesh's triangles to keep at each level after the first, in decreasing order
+	 *
+	 * @return the level of detail, with fewer levels if the error limit stops simplification early
+	 */
+	public static LevelOfDetail buildLevels(Mesh mesh, double maxError, double... ratios) {
+		if(!mesh.isIndexed()) {
+			throw new IllegalArgumentException("The mesh must be indexed");
+		}
+		int[] original = mesh.getIndexes();
+		Collapses collapses = new Collapses(mesh, original, maxError);
+		int[][] levels = new int[ratios.length][];
+		double[] errors = new double[ratios.length];
+		int[] previous = original;
+		int count = 0;
+		for(double ratio : ratios) {
+			int[] indexes = collapses.simplify(previous, targetOf(mesh.getTriangleCount(), ratio));
+			if(indexes.length >= previous.length) {
+				break;
+			}
+			levels[count] = indexes;
+			errors[count] = collapses.deviation(original);
+			previous = indexes;
+			count++;
+		}
+		LevelOfDetail levelOfDetail = new LevelOfDetail(mesh, Arrays.copyOf(levels, count),
+		                                                Arrays.copyOf(errors, count));
+		if(LOGGER.isDebugEnabled()) {
+			LOGGER.logDebug(MessageFormat.format("Built {0}", levelOfDetail));
+		}
+		return levelOfDetail;
+	}
+
+	/**
+	 * Simplify an index list over a mesh's vertexes.
+	 *
+	 * @param mesh
+	 *   the mesh whose vertexes are indexed
+	 * @param indexes
+	 *   the triangles to simplify, the mesh's own or an earlier result
+	 * @param targetTriangles
+	 *   the number of triangles to stop at
+	 * @param maxError
+	 *   the largest root mean square distance from the planes of the given triangles any collapse may cause,
+	 *   relative to the size of the mesh
+	 * @param error
+	 *   null, or one value for the largest distance, in mesh units, from a moved vertex to the plane of any of the
+	 *   given triangles it was a corner of
+	 *
+	 * @return the simplified indexes, into the same vertexes
+	 */
+	public static int[] simplifyIndexes(Mesh mesh, int[] indexes, int targetTriangles, double maxError,
+	                                    double[] error) {
+		if((indexes == null) || ((indexes.length % 3) != 0)) {
+			throw new IllegalArgumentException("The indexes are not a triangle list");
+		}
+		Collapses collapses = new Collapses(mesh, indexes, maxError);
+		int[] simplified = collapses.simplify(indexes, targetTriangles);
+		if(error != null) {
+			error[0] = collapses.deviation(indexes);
+		}
+		return simplified;
+	}
+
+	private static int targetOf(int triangles, double ratio) {
+		if((ratio < 0.0) || (ratio > 1.0)) {
+			throw new IllegalArgumentException("The ratio must be between 0 and 1");
+		}
+		return (int) (triangles * ratio);
+	}
+
+	/** Positions widened to x, y, z. */
+	private static double[] positionsOf(Mesh mesh) {
+		int size = mesh.getPositionSize();
+		double[] source = mesh.getPositions();
+		if(size == 3) {
+			return source;
+		}
+		double[] positions = new double[mesh.getVertexCount() * 3];
+		for(int v = 0; v < mesh.getVertexCount(); v++) {
+			System.arraycopy(source, v * size, positions, v * 3, Math.min(size, 3));
+		}
+		return positions;
+	}
+
+	private static double extentOf(double[] positions, int vertexCount) {
+		double extent = 0.0;
+		for(int a = 0; a < 3; a++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for(int v = 0; v < vertexCount; v++) {
+				min = Math.min(min, positions[(v * 3) + a]);
+				max = Math.max(max, positions[(v * 3) + a]);
+			}
+			extent = Math.max(extent, max - min);
+		}
+		return extent;
+	}
+
+	/**
+	 * Locked vertexes. Matches vertexes by position, then every half edge between positions with its opposite;
+	 * a half edge without exactly one opposite is on a border or a non-manifold edge.
+	 */
+	private static boolean[] lockedVertexes(double[] positions, int vertexCount, int[] indexes) {
+		int[] positionOf = new int[vertexCount];
+		boolean[] shared = new boolean[vertexCount];
+		int mask = Integer.highestOneBit(Math.max(2, vertexCount * 2) - 1) << 1;
+		int[] table = new int[mask];
+		mask--;
+		for(int v = 0; v < vertexCount; v++) {
+			int slot = positionHash(positions, v) & mask;
+			while((table[slot] != 0) && !samePosition(positions, table[slot] - 1, v)) {
+				slot = (slot + 1) & mask;
+			}
+			if(table[slot] == 0) {
+				table[slot] = v + 1;
+				positionOf[v] = v;
+			} else {
+				positionOf[v] = table[slot] - 1;
+				shared[positionOf[v]] = true;
+			}
+		}
+
+		EdgeTable edges = new EdgeTable(indexes.length);
+		for(int i = 0; i < indexes.length; i++) {
+			edges.add(positionOf[indexes[i]], positionOf[indexes[(i % 3) == 2 ? i - 2 : i + 1]]);
+		}
+		boolean[] lockedPositions = new boolean[vertexCount];
+		for(int i = 0; i < indexes.length; i++) {
+			int a = positionOf[indexes[i]];
+			int b = positionOf[indexes[(i % 3) == 2 ? i - 2 : i + 1]];
+			if((edges.count(a, b) != 1) || (edges.count(b, a) != 1)) {
+				lockedPositions[a] = true;
+				lockedPositions[b] = true;
+			}
+		}
+
+		boolean[] locked = new boolean[vertexCount];
+		for(int v = 0; v < vertexCount; v++) {
+			locked[v] = shared[positionOf[v]] || lockedPositions[positionOf[v]];
+		}
+		return locked;
+	}
+
+	private static int positionHash(double[] positions, int v) {
+		long hash = 1;
+		for(int i = v * 3; i < ((v + 1) * 3); i++) {
+			hash = (hash ^ Double.doubleToLongBits(positions[i])) * GOLDEN_RATIO;
+		}
+		hash ^= hash >>> 32;
+		hash *= GOLDEN_RATIO;
+		return (int) (hash >>> 32);
+	}
+
+	private static boolean samePosition(double[] positions, int v, int w) {
+		return (positions[v * 3] == positions[w * 3]) && (positions[(v * 3) + 1] == positions[(w * 3) + 1]) &&
+		       (positions[(v * 3) + 2] == positions[(w * 3) + 2]);
+	}
+
+	/** Adds each triangle's plane, weighted by its area, to the quadrics of its corners. */
+	private static void addQuadrics(double[] positions, int[] indexes, double[] quadrics, double[] weights) {
+		double[] normal = new double[3];
+		for(int i = 0; i < indexes.length; i += 3) {
+			int a = indexes[i];
+			double length = normalOf(positions, a, indexes[i + 1], indexes[i + 2], normal);
+			if(length == 0.0) {
+				continue;
+			}
+			double area = length / 2.0;
+			double x = normal[0] / length;
+			double y = normal[1] / length;
+			double z = normal[2] / length;
+			double d = -((x * positions[a * 3]) + (y * positions[(a * 3) + 1]) + (z * positions[(a * 3) + 2]));
+			for(int corner = i; corner < (i + 3); corner++) {
+				int offset = indexes[corner] * QUADRIC;
+				quadrics[offset] += area * x * x;
+				quadrics[offset + 1] += area * x * y;
+				quadrics[offset + 2] += area * x * z;
+				quadrics[offset + 3] += area * x * d;
+				quadrics[offset + 4] += area * y * y;
+				quadrics[offset + 5] += area * y * z;
+				quadrics[offset + 6] += area * y * d;
+				quadrics[offset + 7] += area * z * z;
+				quadrics[offset + 8] += area * z * d;
+				quadrics[offset + 9] += area * d * d;
+				weights[indexes[corner]] += area;
+			}
+		}
+	}
+
+	/** The mean squared distance from the planes of both vertexes to the target position. */
+	private static double collapseCost(double[] quadrics, double[] weights, double[] positions, int source,
+	                                   int target) {
+		double weight = weights[source] + weights[target];
+		if(weight == 0.0) {
+			return 0.0;
+		}
+		double x = positions[target * 3];
+		double y = positions[(target * 3) + 1];
+		double z = positions[(target * 3) + 2];
+		int s = source * QUADRIC;
+		int t = target * QUADRIC;
+		double xx = quadrics[s] + quadrics[t];
+		double xy = quadrics[s + 1] + quadrics[t + 1];
+		double xz = quadrics[s + 2] + quadrics[t + 2];
+		double xd = quadrics[s + 3] + quadrics[t + 3];
+		double yy = quadrics[s + 4] + quadrics[t + 4];
+		double yz = quadrics[s + 5] + quadrics[t + 5];
+		double yd = quadrics[s + 6] + quadrics[t + 6];
+		double zz = quadrics[s + 7] + quadrics[t + 7];
+		double zd = quadrics[s + 8] + quadrics[t + 8];
+		double dd = quadrics[s + 9] + quadrics[t + 9];
+		double cost = (xx * x * x) + (2.0 * xy * x * y) + (2.0 * xz * x * z) + (2.0 * xd * x) + (yy * y * y) +
+		              (2.0 * yz * y * z) + (2.0 * yd * y) + (zz * z * z) + (2.0 * zd * z) + dd;
+		return Math.max(0.0, cost / weight);
+	}
+
+	/** Whether moving the source onto the target turns any remaining triangle around the source too far. */
+	private static boolean flips(double[] positions, int[] indexes, Adjacency adjacency, int source, int target,
+	                             double[] before, double[] after) {
+		for(int t = adjacency.offsets[source]; t < adjacency.offsets[source + 1]; t++) {
+			int triangle = adjacency.triangles[t] * 3;
+			int a = indexes[triangle];
+			int b = indexes[triangle + 1];
+			int c = indexes[triangle + 2];
+			if((a == target) || (b == target) || (c == target)) {
+				continue;
+			}
+			double beforeLength = normalOf(positions, a, b, c, before);
+			double afterLength = normalOf(positions, (a == source) ? target : a, (b == source) ? target : b,
+			                              (c == source) ? target : c, after);
+			double dot = (before[0] * after[0]) + (before[1] * after[1]) + (before[2] * after[2]);
+			if(dot <= (MIN_NORMAL_DOT * beforeLength * afterLength)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Writes the unnormalised normal of a triangle and returns its length, twice the area. */
+	private static double normalOf(double[] positions, int a, int b, int c, double[] normal) {
+		double abX = positions[b * 3] - positions[a * 3];
+		double abY = positions[(b * 3) + 1] - positions[(a * 3) + 1];
+		double abZ = positions[(b * 3) + 2] - positions[(a * 3) + 2];
+		double acX = positions[c * 3] - positions[a * 3];
+		double acY = positions[(c * 3) + 1] - positions[(a * 3) + 1];
+		double acZ = positions[(c * 3) + 2] - positions[(a * 3) + 2];
+		normal[0] = (abY * acZ) - (abZ * acY);
+		normal[1] = (abZ * acX) - (abX * acZ);
+		normal[2] = (abX * acY) - (abY * acX);
+		return Math.sqrt((normal[0] * normal[0]) + (normal[1] * normal[1]) + (normal[2] * normal[2]));
+	}
+
+	/**
+	 * The state of a run of collapses over one mesh: the quadrics of the triangles it started from, summed into
+	 * whichever vertex each collapse kept, and where every vertex went. Simplifying again continues the same run, so
+	 * costs and errors stay measured against the starting triangles.
+	 */
+	private static final class Collapses {
+		private final double[] positions;
+		private final int      vertexCount;
+		private final double   limit;
+		private final double[] quadrics;
+		private final double[] weights;
+		/** The vertex each vertex collapsed onto, or itself. */
+		private final int[]    parents;
+
+		private Collapses(Mesh mesh, int[] indexes, double maxError) {
+			vertexCount = mesh.getVertexCount();
+			positions = positionsOf(mesh);
+			double extent = extentOf(positions, vertexCount);
+			limit = (maxError * extent) * (maxError * extent);
+			quadrics = new double[vertexCount * QUADRIC];
+			weights = new double[vertexCount];
+			addQuadrics(positions, indexes, quadrics, weights);
+			parents = new int[vertexCount];
+			for(int v = 0; v < vertexCount; v++) {
+				parents[v] = v;
+			}
+		}
+
+		/** Collapses edges of the triangles until there are no more than the target, or no collapse is allowed. */
+		private int[] simplify(int[] indexes, int targetTriangles) {
+			boolean[] locked = lockedVertexes(positions, vertexCount, indexes);
+			int[] current = indexes.clone();
+			int triangles = current.length / 3;
+			int[] remap = new int[vertexCount];
+			int[] stamps = new int[vertexCount];
+			double[] before = new double[3];
+			double[] after = new double[3];
+			int pass = 0;
+			while(triangles > targetTriangles) {
+				pass++;
+				Adjacency adjacency = new Adjacency(current, triangles, vertexCount);
+
+				int[] sources = new int[triangles * 3];
+				int[] targets = new int[triangles * 3];
+				long[] order = new long[triangles * 3];
+				int candidates = 0;
+				for(int i = 0; i < (triangles * 3); i++) {
+					int a = current[i];
+					int b = current[(i % 3) == 2 ? i - 2 : i + 1];
+					// each interior edge is seen from both of its triangles, keep one
+					if((a > b) && !locked[a] && !locked[b]) {
+						continue;
+					}
+					double costAB = locked[a] ? Double.POSITIVE_INFINITY :
+					                collapseCost(quadrics, weights, positions, a, b);
+					double costBA = locked[b] ? Double.POSITIVE_INFINITY :
+					                collapseCost(quadrics, weights, positions, b, a);
+					double cost = Math.min(costAB, costBA);
+					if(cost > limit) {
+						continue;
+					}
+					sources[candidates] = (costAB <= costBA) ? a : b;
+					targets[candidates] = (costAB <= costBA) ? b : a;
+					// non-negative floats sort as their bits, the candidate rides in the low half
+					order[candidates] = ((long) Float.floatToIntBits((float) cost) << 32) | candidates;
+					candidates++;
+				}
+				Arrays.sort(order, 0, candidates);
+
+				for(int v = 0; v < vertexCount; v++) {
+					remap[v] = v;
+				}
+				int goal = Math.max(1, (triangles - targetTriangles) / 2);
+				int collapses = 0;
+				for(int c = 0; (c < candidates) && (collapses < goal); c++) {
+					int candidate = (int) order[c];
+					int source = sources[candidate];
+					int target = targets[candidate];
+					if((stamps[source] == pass) || (stamps[target] == pass) ||
+					   flips(positions, current, adjacency, source, target, before, after)) {
+						continue;
+					}
+					remap[source] = target;
+					parents[source] = target;
+					for(int q = 0; q < QUADRIC; q++) {
+						quadrics[(target * QUADRIC) + q] += quadrics[(source * QUADRIC) + q];
+					}
+					weights[target] += weights[source];
+					// the neighbourhood's triangles are about to change, later checks this pass would be stale
+					for(int t = adjacency.offsets[source]; t < adjacency.offsets[source + 1]; t++) {
+						int triangle = adjacency.triangles[t] * 3;
+						stamps[current[triangle]] = pass;
+						stamps[current[triangle + 1]] = pass;
+						stamps[current[triangle + 2]] = pass;
+					}
+					collapses++;
+				}
+				if(collapses == 0) {
+					break;
+				}
+
+				int kept = 0;
+				for(int t = 0; t < triangles; t++) {
+					int a = remap[current[t * 3]];
+					int b = remap[current[(t * 3) + 1]];
+					int c = remap[current[(t * 3) + 2]];
+					if((a != b) && (b != c) && (c != a)) {
+						current[kept * 3] = a;
+						current[(kept * 3) + 1] = b;
+						current[(kept * 3) + 2] = c;
+						kept++;
+					}
+				}
+				triangles = kept;
+			}
+
+			if(LOGGER.isDebugEnabled()) {
+				LOGGER.logDebug(MessageFormat.format("Simplified {0} to {1} triangles in {2} passes",
+				                                     indexes.length / 3, triangles, pass));
+			}
+			return Arrays.copyOf(current, triangles * 3);
+		}
+
+		/** Follows the collapses from a vertex to the vertex that stands for it now. */
+		private int find(int vertex) {
+			int root = vertex;
+			while(parents[root] != root) {
+				root = parents[root];
+			}
+			int v = vertex;
+			while(parents[v] != root) {
+				int next = parents[v];
+				parents[v] = root;
+				v = next;
+			}
+			return root;
+		}
+
+		/**
+		 * The largest distance from where a corner of the triangles now is to the triangle's plane. A vertex that
+		 * slid within its planes moved the surface by nothing, one lifted off them moved it by that distance.
+		 */
+		private double deviation(int[] indexes) {
+			double[] normal = new double[3];
+			double worst = 0.0;
+			for(int i = 0; i < indexes.length; i += 3) {
+				int a = indexes[i];
+				double length = normalOf(positions, a, indexes[i + 1], indexes[i + 2], normal);
+				if(length == 0.0) {
+					continue;
+				}
+				for(int corner = i; corner < (i + 3); corner++) {
+					int to = find(indexes[corner]);
+					double distance = (normal[0] * (positions[to * 3] - positions[a * 3])) +
+					                  (normal[1] * (positions[(to * 3) + 1] - positions[(a * 3) + 1])) +
+					                  (normal[2] * (positions[(to * 3) + 2] - positions[(a * 3) + 2]));
+					worst = Math.max(worst, Math.abs(distance) / length);
+				}
+			}
+			return worst;
+		}
+	}
+
+	/** The triangles around each vertex, as offsets into one flat list. */
+	private static final class Adjacency {
+		private final int[] offsets;
+		private final int[] triangles;
+
+		private Adjacency(int[] indexes, int triangleCount, int vertexCount) {
+			offsets = new int[vertexCount + 1];
+			for(int i = 0; i < (triangleCount * 3); i++) {
+				offsets[indexes[i] + 1]++;
+			}
+			for(int v = 0; v < vertexCount; v++) {
+				offsets[v + 1] += offsets[v];
+			}
+			triangles = new int[triangleCount * 3];
+			int[] fill = Arrays.copyOf(offsets, vertexCount);
+			for(int i = 0; i < (triangleCount * 3); i++) {
+				triangles[fill[indexes[i]]++] = i / 3;
+			}
+		}
+	}
+
+	/** Counts directed edges between positions in an open addressed table of packed keys. */
+	private static final class EdgeTable {
+		private final long[] keys;
+		private final int[]  counts;
+		private final int    mask;
+
+		private EdgeTable(int edges) {
+			int size = Integer.highestOneBit(Math.max(2, edges * 2) - 1) << 1;
+			keys = new long[size];
+			counts = new int[size];
+			mask = size - 1;
+		}
+
+		/** Returns the slot holding the edge, or the empty slot it would go in. */
+		private int slot(long key) {
+			int slot = (int) ((key * GOLDEN_RATIO) >>> 32) & mask;
+			while((keys[slot] != 0) && (keys[slot] != key)) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private static long key(int from, int to) {
+			return (((long) from << 32) | (to & 0xFFFFFFFFL)) + 1;
+		}
+
+		private void add(int from, int to) {
+			long key = key(from, to);
+			int slot = slot(key);
+			keys[slot] = key;
+			counts[slot]++;
+		}
+
+		private int count(int from, int to) {
+			return counts[slot(key(from, to))];
+		}
+	}
+}
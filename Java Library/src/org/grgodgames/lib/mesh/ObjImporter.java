@@ -0,0 +1,479 @@
+package org.grgodgames.lib.mesh;
+
+import org.grgodgames.lib.GameLogger;
+import org.grgodgames.lib.Utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+/**
+ * The type Obj importer. Streams a Wavefront OBJ file into an indexed {@link Mesh}.
+ * <p>
+ * Only geometry is read: {@code v} with optional red, green and blue, {@code vt}, {@code vn} and {@code f} with
+ * any of the {@code v}, {@code v/vt}, {@code v//vn} and {@code v/vt/vn} forms and negative indexes. Polygons are
+ * split into fans. Everything else, groups, materials, lines and comments, is skipped. Each distinct
+ * position, tex coord and normal triple becomes one vertex; vertexes without a normal get a smooth one. Tex
+ * coords are stored at {@link Mesh#TEX_COORD_SCALE}.
+ * <p>
+ * A large file can be parsed in parallel: it is cut at line breaks into chunks that each parse their own records,
+ * with indexes that point before the chunk resolved once every chunk's counts are known.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+@Utility
+public final class ObjImporter {
+	/** Files smaller than this are parsed on one thread even when parallel parsing is asked for. */
+	public static final  long       PARALLEL_SIZE = 1L << 23;
+	private static final GameLogger LOGGER        = GameLogger.loggerOf(Logger.getLogger(ObjImporter.class.getName()));
+	private static final long       MIN_CHUNK     = 1L << 22;
+	private static final int        SEARCH_SIZE   = 1 << 12;
+	private static final int        ABSENT        = 0;
+	private static final int        CORNER_SIZE   = 3;
+	private static final int        COLOR_SIZE    = 3;
+
+	/** Instantiates a new Obj importer. */
+	private ObjImporter() {
+	}
+
+	/**
+	 * Load an OBJ file on the calling thread.
+	 *
+	 * @param source
+	 *   the file
+	 *
+	 * @return the mesh
+	 *
+	 * @throws IOException
+	 *   if the file can not be read or is not valid
+	 */
+	public static Mesh load(File source) throws IOException {
+		return load(source, false);
+	}
+
+	/**
+	 * Load an OBJ file.
+	 *
+	 * @param source
+	 *   the file
+	 * @param parallel
+	 *   whether to parse chunks of a file of at least {@value #PARALLEL_SIZE} bytes on the common fork join pool
+	 *
+	 * @return the mesh
+	 *
+	 * @throws IOException
+	 *   if the file can not be read or is not valid
+	 */
+	public static Mesh load(File source, boolean parallel) throws IOException {
+		long start = System.nanoTime();
+		Mesh mesh;
+		long size;
+		int chunkCount;
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			size = channel.size();
+			long[] bounds = (parallel && (size >= PARALLEL_SIZE)) ? split(channel, size) : new long[] {0L, size};
+			chunkCount = bounds.length - 1;
+			Chunk[] chunks = new Chunk[chunkCount];
+			for(int c = 0; c < chunkCount; c++) {
+				String name = (chunkCount == 1) ? ("OBJ " + source) :
+				              MessageFormat.format("OBJ {0} from byte {1}", source, bounds[c]);
+				chunks[c] = new Chunk(new ByteTokenizer(name, channel, bounds[c], bounds[c + 1]));
+			}
+			try {
+				if(chunkCount == 1) {
+					chunks[0].compute();
+				} else {
+					ForkJoinPool.commonPool().invoke(new ChunkTask(chunks));
+				}
+			} catch(UncheckedIOException e) {
+				throw e.getCause();
+			}
+			mesh = assemble(source.toString(), chunks);
+		}
+		if(LOGGER.isDebugEnabled()) {
+			double seconds = (System.nanoTime() - start) / 1.0e9;
+			LOGGER.logDebug(MessageFormat.format("Loaded {0} from {1} in {2} chunks, {3,number,#.#} MB/s", mesh, source,
+			                                     chunkCount, (size / 1.0e6) / seconds));
+		}
+		return mesh;
+	}
+
+	/**
+	 * Read an OBJ file from a stream on the calling thread. The stream is not closed.
+	 *
+	 * @param in
+	 *   the stream
+	 * @param name
+	 *   the name used in errors
+	 *
+	 * @return the mesh
+	 *
+	 * @throws IOException
+	 *   if the stream can not be read or is not valid
+	 */
+	public static Mesh read(InputStream in, String name) throws IOException {
+		Chunk chunk = new Chunk(new ByteTokenizer("OBJ " + name, Channels.newChannel(in)));
+		try {
+			chunk.compute();
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return assemble(name, new Chunk[] {chunk});
+	}
+
+	/** Cut the file into chunks, each ending just after a line break. */
+	private static long[] split(FileChannel channel, long size) throws IOException {
+		int count = (int) Math.min(Runtime.getRuntime().availableProcessors() * 4L, size / MIN_CHUNK);
+		long[] bounds = new long[count + 1];
+		ByteBuffer search = ByteBuffer.allocate(SEARCH_SIZE);
+		int used = 1;
+		for(int c = 1; c < count; c++) {
+			long position = Math.max(bounds[used - 1], (size * c) / count);
+			long lineStart = size;
+			while(position < size) {
+				search.clear();
+				int read = channel.read(search, position);
+				if(read <= 0) {
+					break;
+				}
+				int i = 0;
+				while((i < read) && (search.get(i) != '\n')) {
+					i++;
+				}
+				if(i < read) {
+					lineStart = position + i + 1;
+					break;
+				}
+				position += read;
+			}
+			if((lineStart > bounds[used - 1]) && (lineStart < size)) {
+				bounds[used++] = lineStart;
+			}
+		}
+		bounds[used++] = size;
+		return Arrays.copyOf(bounds, used);
+	}
+
+	/** Resolve every chunk's corners against the counts before it and weld them into vertexes. */
+	private static Mesh assemble(String name, Chunk[] chunks) throws IOException {
+		int positionCount = 0;
+		int texCoordCount = 0;
+		int normalCount = 0;
+		int cornerCount = 0;
+		for(Chunk chunk : chunks) {
+			positionCount += chunk.positionCount;
+			texCoordCount += chunk.texCoordCount;
+			normalCount += chunk.normalCount;
+			cornerCount += chunk.cornerCount;
+		}
+		int[] offsets = new int[chunks.length * 3];
+		double[] positions = chunks[0].positions;
+		byte[] colors = chunks[0].colors;
+		double[] texCoords = chunks[0].texCoords;
+		double[] normals = chunks[0].normals;
+		if(chunks.length > 1) {
+			positions = new double[positionCount * 3];
+			colors = new byte[positionCount * COLOR_SIZE];
+			texCoords = new double[texCoordCount * 2];
+			normals = new double[normalCount * 3];
+			int p = 0;
+			int t = 0;
+			int n = 0;
+			for(int c = 0; c < chunks.length; c++) {
+				Chunk chunk = chunks[c];
+				offsets[c * 3] = p;
+				offsets[(c * 3) + 1] = t;
+				offsets[(c * 3) + 2] = n;
+				System.arraycopy(chunk.positions, 0, positions, p * 3, chunk.positionCount * 3);
+				System.arraycopy(chunk.colors, 0, colors, p * COLOR_SIZE, chunk.positionCount * COLOR_SIZE);
+				System.arraycopy(chunk.texCoords, 0, texCoords, t * 2, chunk.texCoordCount * 2);
+				System.arraycopy(chunk.normals, 0, normals, n * 3, chunk.normalCount * 3);
+				p += chunk.positionCount;
+				t += chunk.texCoordCount;
+				n += chunk.normalCount;
+			}
+		}
+
+		Welder welder = new Welder(positionCount, Math.min(positionCount + (positionCount / 2), cornerCount),
+		                           cornerCount);
+		VertexArrays vertexes = welder.vertexes;
+		int[] corner = new int[CORNER_SIZE];
+		int[] triangle = new int[3];
+		for(int c = 0; c < chunks.length; c++) {
+			Chunk chunk = chunks[c];
+			for(int i = 0; i < chunk.cornerCount; i++) {
+				int relative = chunk.relative[i];
+				for(int k = 0; k < CORNER_SIZE; k++) {
+					int index = chunk.corners[(i * CORNER_SIZE) + k];
+					if(((relative >> k) & 1) != 0) {
+						index += offsets[(c * 3) + k];
+					} else if(index == ABSENT) {
+						index = 0;
+					}
+					corner[k] = index - 1;
+				}
+				if((corner[0] < 0) || (corner[0] >= positionCount) || (corner[1] >= texCoordCount) ||
+				   (corner[2] >= normalCount) || (corner[1] < -1) || (corner[2] < -1)) {
+					throw new IOException(MessageFormat.format("Invalid OBJ {0}: a face refers to a missing vertex",
+					                                           name));
+				}
+				int v = welder.find(corner[0], corner[1], corner[2]);
+				if(v < 0) {
+					v = welder.add(corner[0], corner[1], corner[2]);
+					int pi = corner[0] * 3;
+					vertexes.setPosition(v, positions[pi], positions[pi + 1], positions[pi + 2]);
+					for(int k = 0; k < COLOR_SIZE; k++) {
+						vertexes.setColor(v, k, colors[(corner[0] * COLOR_SIZE) + k]);
+					}
+					if(corner[1] >= 0) {
+						vertexes.setTexCoord(v, 0, texCoords[corner[1] * 2]);
+						vertexes.setTexCoord(v, 1, texCoords[(corner[1] * 2) + 1]);
+					}
+					if(corner[2] >= 0) {
+						int ni = corner[2] * 3;
+						vertexes.setNormal(v, normals[ni], normals[ni + 1], normals[ni + 2]);
+					}
+				}
+				triangle[i % 3] = v;
+				if((i % 3) == 2) {
+					vertexes.addTriangle(triangle[0], triangle[1], triangle[2]);
+				}
+			}
+		}
+		return vertexes.build(name);
+	}
+
+	/** The records of one chunk of the file, with indexes as written or relative to the chunk. */
+	private static final class Chunk extends RecursiveAction {
+		private static final long          serialVersionUID = 1L;
+		private final transient ByteTokenizer tokens;
+		private double[] positions = new double[3 * 1024];
+		private byte[]   colors    = new byte[COLOR_SIZE * 1024];
+		private double[] texCoords = new double[2 * 1024];
+		private double[] normals   = new double[3 * 1024];
+		/** Position, tex coord and normal index of each triangle corner, one based, {@value #ABSENT} if none. */
+		private int[]    corners   = new int[CORNER_SIZE * 3 * 1024];
+		/** A bit for each index of a corner that counts from the start of the chunk rather than the file. */
+		private byte[]   relative  = new byte[3 * 1024];
+		private int[]    face      = new int[(CORNER_SIZE + 1) * 8];
+		private int      positionCount;
+		private int      texCoordCount;
+		private int      normalCount;
+		private int      cornerCount;
+
+		Chunk(ByteTokenizer tokens) {
+			this.tokens = tokens;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				parse();
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private void parse() throws IOException {
+			ByteTokenizer tokens = this.tokens;
+			while(tokens.nextLine()) {
+				int first = tokens.peek(0);
+				if(first == 'v') {
+					int second = tokens.peek(1);
+					if(ByteTokenizer.isSeparator(second)) {
+						tokens.skip(1);
+						readPosition();
+					} else if((second == 't') && ByteTokenizer.isSeparator(tokens.peek(2))) {
+						tokens.skip(2);
+						readTexCoord();
+					} else if((second == 'n') && ByteTokenizer.isSeparator(tokens.peek(2))) {
+						tokens.skip(2);
+						readNormal();
+					}
+				} else if((first == 'f') && ByteTokenizer.isSeparator(tokens.peek(1))) {
+					tokens.skip(1);
+					readFace();
+				}
+			}
+		}
+
+		private void readPosition() throws IOException {
+			if(positionCount == (positions.length / 3)) {
+				positions = Arrays.copyOf(positions, positions.length * 2);
+				colors = Arrays.copyOf(colors, colors.length * 2);
+			}
+			int i = positionCount * 3;
+			positions[i] = tokens.readDouble();
+			positions[i + 1] = tokens.readDouble();
+			positions[i + 2] = tokens.readDouble();
+			int c = positionCount * COLOR_SIZE;
+			Arrays.fill(colors, c, c + COLOR_SIZE, (byte) 0xFF);
+			if(!tokens.isAtLineEnd()) {
+				// a fourth value alone is a weight, three more are a color
+				double red = tokens.readDouble();
+				if(!tokens.isAtLineEnd()) {
+					colors[c] = VertexArrays.encodeColor(red);
+					colors[c + 1] = VertexArrays.encodeColor(tokens.readDouble());
+					colors[c + 2] = VertexArrays.encodeColor(tokens.readDouble());
+				}
+			}
+			positionCount++;
+		}
+
+		private void readTexCoord() throws IOException {
+			if(texCoordCount == (texCoords.length / 2)) {
+				texCoords = Arrays.copyOf(texCoords, texCoords.length * 2);
+			}
+			int i = texCoordCount * 2;
+			texCoords[i] = tokens.readDouble();
+			texCoords[i + 1] = tokens.isAtLineEnd() ? 0.0 : tokens.readDouble();
+			texCoordCount++;
+		}
+
+		private void readNormal() throws IOException {
+			if(normalCount == (normals.length / 3)) {
+				normals = Arrays.copyOf(normals, normals.length * 2);
+			}
+			int i = normalCount * 3;
+			normals[i] = tokens.readDouble();
+			normals[i + 1] = tokens.readDouble();
+			normals[i + 2] = tokens.readDouble();
+			normalCount++;
+		}
+
+		private void readFace() throws IOException {
+			int size = CORNER_SIZE + 1;
+			int count = 0;
+			while(!tokens.isAtLineEnd()) {
+				if(((count + 1) * size) > face.length) {
+					face = Arrays.copyOf(face, face.length * 2);
+				}
+				int f = count * size;
+				int index = tokens.readInt();
+				int flags = (index < 0) ? 1 : 0;
+				face[f] = resolve(index, positionCount);
+				face[f + 1] = ABSENT;
+				face[f + 2] = ABSENT;
+				if(tokens.skip('/')) {
+					if(tokens.peek(0) != '/') {
+						index = tokens.readInt();
+						flags |= (index < 0) ? 2 : 0;
+						face[f + 1] = resolve(index, texCoordCount);
+					}
+					if(tokens.skip('/')) {
+						index = tokens.readInt();
+						flags |= (index < 0) ? 4 : 0;
+						face[f + 2] = resolve(index, normalCount);
+					}
+				}
+				if(!ByteTokenizer.isSeparator(tokens.peek(0))) {
+					throw tokens.error("malformed face");
+				}
+				face[f + CORNER_SIZE] = flags;
+				count++;
+			}
+			if(count < 3) {
+				throw tokens.error("a face needs at least three corners");
+			}
+			for(int k = 2; k < count; k++) {
+				addCorner(0);
+				addCorner((k - 1) * size);
+				addCorner(k * size);
+			}
+		}
+
+		/**
+		 * Resolve an index. A positive index counts from one at the start of the file and is kept, a negative one
+		 * counts back from the last record read and becomes one based from the start of the chunk, zero or less if
+		 * it is before the chunk.
+		 */
+		private int resolve(int index, int count) throws IOException {
+			if(index == 0) {
+				throw tokens.error("indexes start at 1");
+			}
+			return (index > 0) ? index : (count + index + 1);
+		}
+
+		private void addCorner(int f) {
+			if(cornerCount == relative.length) {
+				corners = Arrays.copyOf(corners, corners.length * 2);
+				relative = Arrays.copyOf(relative, relative.length * 2);
+			}
+			int i = cornerCount * CORNER_SIZE;
+			System.arraycopy(face, f, corners, i, CORNER_SIZE);
+			relative[cornerCount] = (byte) face[f + CORNER_SIZE];
+			cornerCount++;
+		}
+	}
+
+	/** Parses chunks in parallel. */
+	private static final class ChunkTask extends RecursiveAction {
+		private static final long    serialVersionUID = 1L;
+		private final        Chunk[] chunks;
+
+		ChunkTask(Chunk[] chunks) {
+			this.chunks = chunks;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(chunks);
+		}
+	}
+
+	/**
+	 * Welds corners with the same position, tex coord and normal index into one vertex. The vertexes of each
+	 * position are chained from it, faces mostly use positions near each other in the file so the chain heads are
+	 * read almost in order, and a chain is rarely longer than the seams through its position.
+	 */
+	private static final class Welder {
+		private final VertexArrays vertexes;
+		/** The first vertex plus one of each position, zero if it has none. */
+		private final int[]        heads;
+		/** The next vertex plus one with the same position, then its tex coord and normal index. */
+		private       int[]        links;
+
+		Welder(int positionCount, int expectedVertexes, int expectedIndexes) {
+			vertexes = new VertexArrays(expectedVertexes, expectedIndexes);
+			heads = new int[positionCount];
+			links = new int[Math.max(16, expectedVertexes) * CORNER_SIZE];
+		}
+
+		int find(int position, int texCoord, int normal) {
+			int v = heads[position] - 1;
+			while(v >= 0) {
+				int l = v * CORNER_SIZE;
+				if((links[l + 1] == texCoord) && (links[l + 2] == normal)) {
+					return v;
+				}
+				v = links[l] - 1;
+			}
+			return -1;
+		}
+
+		int add(int position, int texCoord, int normal) {
+			int v = vertexes.addVertex();
+			if(((v + 1) * CORNER_SIZE) > links.length) {
+				links = Arrays.copyOf(links, links.length * 2);
+			}
+			int l = v * CORNER_SIZE;
+			links[l] = heads[position];
+			links[l + 1] = texCoord;
+			links[l + 2] = normal;
+			heads[position] = v + 1;
+			return v;
+		}
+	}
+}
@@ -0,0 +1,388 @@
+package org.grgodgames.lib.mesh;
+
+import org.grgodgames.lib.GameLogger;
+import org.grgodgames.lib.Utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The type Ply importer. Streams an ASCII or binary Stanford PLY file into an indexed {@link Mesh}.
+ * <p>
+ * The {@code vertex} element's {@code x}, {@code y}, {@code z}, {@code nx}, {@code ny}, {@code nz}, {@code red},
+ * {@code green}, {@code blue}, {@code alpha} and {@code u}, {@code v} (or {@code s}, {@code t}) properties are read,
+ * with integer colors taken as bytes and float ones as [0, 1]. The {@code face} element's vertex index list is
+ * split into fans, and may come before the vertexes. Any other element or property is read past. Tex coords are
+ * stored at {@link Mesh#TEX_COORD_SCALE} and vertexes without a normal get a smooth one.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+@Utility
+public final class PlyImporter {
+	private static final GameLogger LOGGER    = GameLogger.loggerOf(Logger.getLogger(PlyImporter.class.getName()));
+	private static final int        SKIP      = -1;
+	private static final int        POSITION  = 0;
+	private static final int        NORMAL    = 3;
+	private static final int        COLOR     = 6;
+	private static final int        TEX_COORD = 10;
+	private static final int        INDEXES   = 12;
+	private static final int        TARGETS   = 12;
+
+	/** Instantiates a new Ply importer. */
+	private PlyImporter() {
+	}
+
+	/**
+	 * Load a PLY file.
+	 *
+	 * @param source
+	 *   the file
+	 *
+	 * @return the mesh
+	 *
+	 * @throws IOException
+	 *   if the file can not be read or is not valid
+	 */
+	public static Mesh load(File source) throws IOException {
+		long start = System.nanoTime();
+		Mesh mesh;
+		long size;
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+			size = channel.size();
+			mesh = read(new ByteTokenizer("PLY " + source, channel, 0L, size), source.toString());
+		}
+		if(LOGGER.isDebugEnabled()) {
+			double seconds = (System.nanoTime() - start) / 1.0e9;
+			LOGGER.logDebug(MessageFormat.format("Loaded {0} from {1}, {2,number,#.#} MB/s", mesh, source,
+			                                     (size / 1.0e6) / seconds));
+		}
+		return mesh;
+	}
+
+	/**
+	 * Read a PLY file from a stream. The stream is not closed.
+	 *
+	 * @param in
+	 *   the stream
+	 * @param name
+	 *   the name used in errors
+	 *
+	 * @return the mesh
+	 *
+	 * @throws IOException
+	 *   if the stream can not be read or is not valid
+	 */
+	public static Mesh read(InputStream in, String name) throws IOException {
+		return read(new ByteTokenizer("PLY " + name, Channels.newChannel(in)), name);
+	}
+
+	private static Mesh read(ByteTokenizer tokens, String name) throws IOException {
+		if(!tokens.nextLine() || !"ply".equals(tokens.readToken())) {
+			throw tokens.error("it is not a PLY file");
+		}
+		ByteOrder order = null;
+		boolean binary = false;
+		List<Element> elements = new ArrayList<>();
+		while(true) {
+			if(!tokens.nextLine()) {
+				throw tokens.error("the header has no end");
+			}
+			String keyword = tokens.readToken();
+			if("end_header".equals(keyword)) {
+				break;
+			} else if("format".equals(keyword)) {
+				String format = tokens.readToken();
+				if("binary_little_endian".equals(format)) {
+					order = ByteOrder.LITTLE_ENDIAN;
+				} else if("binary_big_endian".equals(format)) {
+					order = ByteOrder.BIG_ENDIAN;
+				} else if(!"ascii".equals(format)) {
+					throw tokens.error(MessageFormat.format("format {0} is not supported", format));
+				}
+				binary = order != null;
+			} else if("element".equals(keyword)) {
+				String elementName = tokens.readToken();
+				String count = tokens.readToken();
+				int parsed = -1;
+				try {
+					parsed = Integer.parseInt(count);
+				} catch(NumberFormatException ignored) {
+				}
+				if(parsed < 0) {
+					throw tokens.error(MessageFormat.format("element count {0} is not valid", count));
+				}
+				elements.add(new Element(elementName, parsed));
+			} else if("property".equals(keyword)) {
+				if(elements.isEmpty()) {
+					throw tokens.error("a property comes before any element");
+				}
+				Element element = elements.get(elements.size() - 1);
+				String type = tokens.readToken();
+				Type countType = null;
+				if("list".equals(type)) {
+					countType = Type.of(tokens, tokens.readToken());
+					type = tokens.readToken();
+				}
+				Type valueType = Type.of(tokens, type);
+				String propertyName = tokens.readToken();
+				if(propertyName == null) {
+					throw tokens.error("a property has no name");
+				}
+				element.add(new Property(valueType, countType, target(element.name, propertyName, countType != null)));
+			}
+			// comments and obj_info are skipped
+		}
+		if(binary) {
+			tokens.beginBinary(order);
+		}
+
+		// faces are checked against the declared vertexes, so they may come first
+		int vertexCount = 0;
+		int faceCount = 0;
+		for(Element element : elements) {
+			if("vertex".equals(element.name)) {
+				vertexCount += element.count;
+			} else if("face".equals(element.name)) {
+				faceCount += element.count;
+			}
+		}
+		VertexArrays vertexes = new VertexArrays(vertexCount, faceCount * 3);
+		for(Element element : elements) {
+			if("vertex".equals(element.name)) {
+				readVertexes(tokens, element, binary, vertexes);
+			} else if("face".equals(element.name)) {
+				readFaces(tokens, element, binary, vertexes, vertexCount, name);
+			} else {
+				for(int i = 0; i < element.count; i++) {
+					nextRecord(tokens, binary);
+					for(Property property : element.properties) {
+						readValue(tokens, property, binary);
+					}
+				}
+			}
+		}
+		return vertexes.build(name);
+	}
+
+	private static int target(String element, String property, boolean list) {
+		if("vertex".equals(element) && !list) {
+			switch(property) {
+				case "x":
+					return POSITION;
+				case "y":
+					return POSITION + 1;
+				case "z":
+					return POSITION + 2;
+				case "nx":
+					return NORMAL;
+				case "ny":
+					return NORMAL + 1;
+				case "nz":
+					return NORMAL + 2;
+				case "red":
+					return COLOR;
+				case "green":
+					return COLOR + 1;
+				case "blue":
+					return COLOR + 2;
+				case "alpha":
+					return COLOR + 3;
+				case "u":
+				case "s":
+				case "texture_u":
+				case "texture_s":
+					return TEX_COORD;
+				case "v":
+				case "t":
+				case "texture_v":
+				case "texture_t":
+					return TEX_COORD + 1;
+				default:
+					return SKIP;
+			}
+		}
+		if("face".equals(element) && list && ("vertex_indices".equals(property) || "vertex_index".equals(property))) {
+			return INDEXES;
+		}
+		return SKIP;
+	}
+
+	private static void nextRecord(ByteTokenizer tokens, boolean binary) throws IOException {
+		if(!binary && !tokens.nextLine()) {
+			throw tokens.error("the file ends before its last element");
+		}
+	}
+
+	private static void readVertexes(ByteTokenizer tokens, Element element, boolean binary, VertexArrays vertexes)
+		throws IOException {
+		Property[] properties = element.properties.toArray(new Property[0]);
+		boolean hasNormal = false;
+		for(Property property : properties) {
+			hasNormal |= property.target == NORMAL;
+		}
+		double[] values = new double[TARGETS];
+		for(int i = 0; i < element.count; i++) {
+			nextRecord(tokens, binary);
+			int v = vertexes.addVertex();
+			Arrays.fill(values, 0.0);
+			for(Property property : properties) {
+				if(property.target == SKIP) {
+					readValue(tokens, property, binary);
+					continue;
+				}
+				double value = property.type.read(tokens, binary);
+				int target = property.target;
+				if((target >= COLOR) && (target < TEX_COORD)) {
+					vertexes.setColor(v, target - COLOR, property.type.isInteger() ? (byte) value :
+					                                     VertexArrays.encodeColor(value));
+				} else if(target >= TEX_COORD) {
+					vertexes.setTexCoord(v, target - TEX_COORD, value);
+				} else {
+					values[target] = value;
+				}
+			}
+			vertexes.setPosition(v, values[POSITION], values[POSITION + 1], values[POSITION + 2]);
+			if(hasNormal) {
+				vertexes.setNormal(v, values[NORMAL], values[NORMAL + 1], values[NORMAL + 2]);
+			}
+		}
+	}
+
+	private static void readFaces(ByteTokenizer tokens, Element element, boolean binary, VertexArrays vertexes,
+	                              int vertexCount, String name) throws IOException {
+		for(int i = 0; i < element.count; i++) {
+			nextRecord(tokens, binary);
+			for(Property property : element.properties) {
+				if(property.target != INDEXES) {
+					readValue(tokens, property, binary);
+					continue;
+				}
+				int count = (int) property.countType.read(tokens, binary);
+				int first = -1;
+				int previous = -1;
+				for(int k = 0; k < count; k++) {
+					long index = (long) property.type.read(tokens, binary);
+					if((index < 0L) || (index >= vertexCount)) {
+						throw new IOException(MessageFormat.format("Invalid PLY {0}: face {1} refers to a missing " +
+						                                           "vertex", name, i));
+					}
+					if(k == 0) {
+						first = (int) index;
+					} else if(k > 1) {
+						vertexes.addTriangle(first, previous, (int) index);
+					}
+					previous = (int) index;
+				}
+			}
+		}
+	}
+
+	private static void readValue(ByteTokenizer tokens, Property property, boolean binary) throws IOException {
+		if(property.countType == null) {
+			property.type.read(tokens, binary);
+		} else {
+			int count = (int) property.countType.read(tokens, binary);
+			for(int k = 0; k < count; k++) {
+				property.type.read(tokens, binary);
+			}
+		}
+	}
+
+	/** The scalar types of the format, under both their old and sized names. */
+	private enum Type {
+		CHAR("char", "int8"),
+		UCHAR("uchar", "uint8"),
+		SHORT("short", "int16"),
+		USHORT("ushort", "uint16"),
+		INT("int", "int32"),
+		UINT("uint", "uint32"),
+		FLOAT("float", "float32"),
+		DOUBLE("double", "float64");
+
+		private final String name;
+		private final String sizedName;
+
+		Type(String name, String sizedName) {
+			this.name = name;
+			this.sizedName = sizedName;
+		}
+
+		static Type of(ByteTokenizer tokens, String name) throws IOException {
+			for(Type type : values()) {
+				if(type.name.equals(name) || type.sizedName.equals(name)) {
+					return type;
+				}
+			}
+			throw tokens.error(MessageFormat.format("type {0} is not supported", name));
+		}
+
+		boolean isInteger() {
+			return (this != FLOAT) && (this != DOUBLE);
+		}
+
+		double read(ByteTokenizer tokens, boolean binary) throws IOException {
+			if(!binary) {
+				return tokens.readDouble();
+			}
+			switch(this) {
+				case CHAR:
+					return tokens.readByte();
+				case UCHAR:
+					return tokens.readByte() & 0xFF;
+				case SHORT:
+					return tokens.readShort();
+				case USHORT:
+					return tokens.readShort() & 0xFFFF;
+				case INT:
+					return tokens.readBinaryInt();
+				case UINT:
+					return tokens.readBinaryInt() & 0xFFFFFFFFL;
+				case FLOAT:
+					return tokens.readFloat();
+				default:
+					return tokens.readBinaryDouble();
+			}
+		}
+	}
+
+	/** An element declared in the header. */
+	private static final class Element {
+		private final String         name;
+		private final int            count;
+		private final List<Property> properties = new ArrayList<>();
+
+		Element(String name, int count) {
+			this.name = name;
+			this.count = count;
+		}
+
+		void add(Property property) {
+			properties.add(property);
+		}
+	}
+
+	/** A property declared in the header, a list if it has a count type. */
+	private static final class Property {
+		private final Type type;
+		private final Type countType;
+		private final int  target;
+
+		Property(Type type, Type countType, int target) {
+			this.type = type;
+			this.countType = countType;
+			this.target = target;
+		}
+	}
+}
@@ -0,0 +1,301 @@
+package org.grgodgames.lib.mesh;
+
+import org.grgodgames.lib.GameLogger;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * The type Vertex arrays. Growable flat attribute arrays the importers write into, in the layout of a
+ * {@link Mesh} with {@value #POSITION_SIZE} position, {@value #COLOR_SIZE} color and {@value #TEX_COORD_SIZE} tex
+ * coord values per vertex.
+ * <p>
+ * A vertex starts white with tex coord zero and no normal; vertexes still without a normal when the mesh is built
+ * get the area weighted normal of the triangles using them. Tex coords a short can not hold at
+ * {@link Mesh#TEX_COORD_SCALE}, outside [-{@value #TEX_COORD_LIMIT}, {@value #TEX_COORD_LIMIT}), are clamped and the
+ * build warns how many were.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+final class VertexArrays {
+	/** The position size. */
+	static final         int        POSITION_SIZE   = 3;
+	/** The color size. */
+	static final         int        COLOR_SIZE      = 4;
+	/** The tex coord size. */
+	static final         int        TEX_COORD_SIZE  = 2;
+	/** The bound of the tex coords a short holds at {@link Mesh#TEX_COORD_SCALE}, they are in [-limit, limit). */
+	static final         int        TEX_COORD_LIMIT = (Short.MAX_VALUE + 1) / Mesh.TEX_COORD_SCALE;
+	private static final GameLogger LOGGER          =
+		GameLogger.loggerOf(Logger.getLogger(VertexArrays.class.getName()));
+	private static final int        NORMAL_SIZE     = Mesh.NORMAL_SIZE;
+	private static final int        MIN_CAPACITY    = 16;
+	private static final byte       OPAQUE          = (byte) 0xFF;
+	private double[] positions;
+	private double[] normals;
+	private byte[]   colors;
+	private short[]  texCoords;
+	private int[]    indexes;
+	private int      vertexCount;
+	private int      indexCount;
+	private int      clampedTexCoords;
+
+	/**
+	 * Instantiates a new Vertex arrays.
+	 *
+	 * @param expectedVertexes
+	 *   the expected vertex count
+	 * @param expectedIndexes
+	 *   the expected index count
+	 */
+	VertexArrays(int expectedVertexes, int expectedIndexes) {
+		int capacity = Math.max(MIN_CAPACITY, expectedVertexes);
+		positions = new double[capacity * POSITION_SIZE];
+		normals = new double[capacity * NORMAL_SIZE];
+		colors = new byte[capacity * COLOR_SIZE];
+		texCoords = new short[capacity * TEX_COORD_SIZE];
+		indexes = new int[Math.max(MIN_CAPACITY, expectedIndexes)];
+	}
+
+	/**
+	 * Encode a tex coord into the fixed point shorts a mesh stores.
+	 *
+	 * @param value
+	 *   the tex coord
+	 *
+	 * @return the value times {@link Mesh#TEX_COORD_SCALE}, rounded and clamped to a short
+	 */
+	static short encodeTexCoord(double value) {
+		long scaled = Math.round(value * Mesh.TEX_COORD_SCALE);
+		return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+	}
+
+	/**
+	 * Encode a color channel given in [0, 1].
+	 *
+	 * @param value
+	 *   the value
+	 *
+	 * @return the unsigned byte
+	 */
+	static byte encodeColor(double value) {
+		return (byte) Math.round(Math.max(0.0, Math.min(1.0, value)) * 255.0);
+	}
+
+	/**
+	 * Add a vertex.
+	 *
+	 * @return the new vertex's index
+	 */
+	int addVertex() {
+		if(vertexCount == (positions.length / POSITION_SIZE)) {
+			int capacity = vertexCount * 2;
+			positions = Arrays.copyOf(positions, capacity * POSITION_SIZE);
+			normals = Arrays.copyOf(normals, capacity * NORMAL_SIZE);
+			colors = Arrays.copyOf(colors, capacity * COLOR_SIZE);
+			texCoords = Arrays.copyOf(texCoords, capacity * TEX_COORD_SIZE);
+		}
+		int v = vertexCount++;
+		normals[v * NORMAL_SIZE] = Double.NaN;
+		Arrays.fill(colors, v * COLOR_SIZE, (v + 1) * COLOR_SIZE, OPAQUE);
+		return v;
+	}
+
+	/**
+	 * Sets position.
+	 *
+	 * @param v
+	 *   the vertex
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 */
+	void setPosition(int v, double x, double y, double z) {
+		int i = v * POSITION_SIZE;
+		positions[i] = x;
+		positions[i + 1] = y;
+		positions[i + 2] = z;
+	}
+
+	/**
+	 * Sets normal.
+	 *
+	 * @param v
+	 *   the vertex
+	 * @param x
+	 *   the x
+	 * @param y
+	 *   the y
+	 * @param z
+	 *   the z
+	 */
+	void setNormal(int v, double x, double y, double z) {
+		int i = v * NORMAL_SIZE;
+		normals[i] = x;
+		normals[i + 1] = y;
+		normals[i + 2] = z;
+	}
+
+	/**
+	 * Sets a color channel.
+	 *
+	 * @param v
+	 *   the vertex
+	 * @param channel
+	 *   0 to 3 for red, green, blue and alpha
+	 * @param value
+	 *   the unsigned byte
+	 */
+	void setColor(int v, int channel, byte value) {
+		colors[(v * COLOR_SIZE) + channel] = value;
+	}
+
+	/**
+	 * Sets a tex coord.
+	 *
+	 * @param v
+	 *   the vertex
+	 * @param component
+	 *   0 for u, 1 for v
+	 * @param value
+	 *   the tex coord
+	 */
+	void setTexCoord(int v, int component, double value) {
+		if((value >= TEX_COORD_LIMIT) || (value < -TEX_COORD_LIMIT)) {
+			clampedTexCoords++;
+		}
+		texCoords[(v * TEX_COORD_SIZE) + component] = encodeTexCoord(value);
+	}
+
+	/**
+	 * Gets clamped tex coords.
+	 *
+	 * @return the number of tex coord values clamped so far
+	 */
+	int getClampedTexCoords() {
+		return clampedTexCoords;
+	}
+
+	/**
+	 * Add a triangle.
+	 *
+	 * @param a
+	 *   the first vertex
+	 * @param b
+	 *   the second vertex
+	 * @param c
+	 *   the third vertex
+	 */
+	void addTriangle(int a, int b, int c) {
+		if((indexCount + 3) > indexes.length) {
+			indexes = Arrays.copyOf(indexes, Math.max(indexes.length * 2, indexCount + 3));
+		}
+		indexes[indexCount] = a;
+		indexes[indexCount + 1] = b;
+		indexes[indexCount + 2] = c;
+		indexCount += 3;
+	}
+
+	/**
+	 * Gets vertex count.
+	 *
+	 * @return the vertex count
+	 */
+	int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Build the mesh, filling in missing normals. Arrays that are already the right length are used as they are.
+	 *
+	 * @param name
+	 *   the name of the source, used in the warning about clamped tex coords
+	 *
+	 * @return the mesh
+	 */
+	Mesh build(String name) {
+		if((clampedTexCoords > 0) && LOGGER.isWarningEnabled()) {
+			LOGGER.logWarning(MessageFormat.format("Clamped {0} tex coord values of {1} to [-{2}, {2}), wrap them " +
+			                                       "or scale the texture instead", clampedTexCoords, name,
+			                                       TEX_COORD_LIMIT), null);
+		}
+		fillNormals();
+		int v = vertexCount;
+		return new Mesh(POSITION_SIZE, COLOR_SIZE, TEX_COORD_SIZE, trim(positions, v * POSITION_SIZE),
+		                trim(normals, v * NORMAL_SIZE), trim(colors, v * COLOR_SIZE),
+		                trim(texCoords, v * TEX_COORD_SIZE), trim(indexes, indexCount));
+	}
+
+	private static double[] trim(double[] values, int length) {
+		return (values.length == length) ? values : Arrays.copyOf(values, length);
+	}
+
+	private static byte[] trim(byte[] values, int length) {
+		return (values.length == length) ? values : Arrays.copyOf(values, length);
+	}
+
+	private static short[] trim(short[] values, int length) {
+		return (values.length == length) ? values : Arrays.copyOf(values, length);
+	}
+
+	private static int[] trim(int[] values, int length) {
+		return (values.length == length) ? values : Arrays.copyOf(values, length);
+	}
+
+	private void fillNormals() {
+		boolean[] missing = new boolean[vertexCount];
+		boolean any = false;
+		for(int v = 0; v < vertexCount; v++) {
+			if(Double.isNaN(normals[v * NORMAL_SIZE])) {
+				missing[v] = true;
+				any = true;
+				setNormal(v, 0.0, 0.0, 0.0);
+			}
+		}
+		if(!any) {
+			return;
+		}
+		for(int i = 0; i < indexCount; i += 3) {
+			int a = indexes[i] * POSITION_SIZE;
+			int b = indexes[i + 1] * POSITION_SIZE;
+			int c = indexes[i + 2] * POSITION_SIZE;
+			double ux = positions[b] - positions[a];
+			double uy = positions[b + 1] - positions[a + 1];
+			double uz = positions[b + 2] - positions[a + 2];
+			double vx = positions[c] - positions[a];
+			double vy = positions[c + 1] - positions[a + 1];
+			double vz = positions[c + 2] - positions[a + 2];
+			// the cross product's length is twice the area, so larger triangles weigh more
+			double nx = (uy * vz) - (uz * vy);
+			double ny = (uz * vx) - (ux * vz);
+			double nz = (ux * vy) - (uy * vx);
+			for(int k = 0; k < 3; k++) {
+				int v = indexes[i + k];
+				if(missing[v]) {
+					int n = v * NORMAL_SIZE;
+					normals[n] += nx;
+					normals[n + 1] += ny;
+					normals[n + 2] += nz;
+				}
+			}
+		}
+		for(int v = 0; v < vertexCount; v++) {
+			if(missing[v]) {
+				int n = v * NORMAL_SIZE;
+				double length = Math.sqrt((normals[n] * normals[n]) + (normals[n + 1] * normals[n + 1]) +
+				                          (normals[n + 2] * normals[n + 2]));
+				if(length > 0.0) {
+					setNormal(v, normals[n] / length, normals[n + 1] / length, normals[n + 2] / length);
+				} else {
+					setNormal(v, 0.0, 0.0, 1.0);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package org.grgodgames.lib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Attribute encoder test. Checks each encoding against the round trip error its documentation promises.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class AttributeEncoderTest {
+	private static final int    SAMPLES        = 20_000;
+	/** The largest angle between a normal and its octahedral round trip, in degrees. */
+	private static final double OCTAHEDRAL_MAX = 0.005;
+	private static final double SNORM10_MAX    = 1.0 / 1022.0;
+	private static final double SNORM16_MAX    = 1.0 / (2.0 * Short.MAX_VALUE);
+	private static final double UNORM8_MAX     = 1.0 / 510.0;
+	private static final double EPSILON        = 1.0e-12;
+
+	/**
+	 * Spread unit vectors evenly over the sphere, a Fibonacci lattice.
+	 *
+	 * @return the vectors, x y z
+	 */
+	static double[][] sphere() {
+		double[][] normals = new double[SAMPLES + 6][];
+		double golden = Math.PI * (3.0 - Math.sqrt(5.0));
+		for(int i = 0; i < SAMPLES; i++) {
+			double z = 1.0 - ((2.0 * (i + 0.5)) / SAMPLES);
+			double radius = Math.sqrt(1.0 - (z * z));
+			double angle = golden * i;
+			normals[i] = new double[] {Math.cos(angle) * radius, Math.sin(angle) * radius, z};
+		}
+		// the axes sit on the octahedron's corners
+		normals[SAMPLES] = new double[] {1.0, 0.0, 0.0};
+		normals[SAMPLES + 1] = new double[] {-1.0, 0.0, 0.0};
+		normals[SAMPLES + 2] = new double[] {0.0, 1.0, 0.0};
+		normals[SAMPLES + 3] = new double[] {0.0, -1.0, 0.0};
+		normals[SAMPLES + 4] = new double[] {0.0, 0.0, 1.0};
+		normals[SAMPLES + 5] = new double[] {0.0, 0.0, -1.0};
+		return normals;
+	}
+
+	static double dot(double[] a, double[] b) {
+		return (a[0] * b[0]) + (a[1] * b[1]) + (a[2] * b[2]);
+	}
+
+	static double angle(double[] a, double[] b) {
+		return Math.toDegrees(Math.acos(Math.max(-1.0, Math.min(1.0, dot(a, b)))));
+	}
+
+	@Test
+	public void octahedralNormalsStayWithinTheirAngle() {
+		double[] decoded = new double[3];
+		double worst = 0.0;
+		for(double[] normal : sphere()) {
+			AttributeEncoder.decodeOctahedral(AttributeEncoder.encodeOctahedral(normal[0], normal[1], normal[2]),
+			                                  decoded);
+			worst = Math.max(worst, angle(normal, decoded));
+			assertEquals(1.0, Math.sqrt(dot(decoded, decoded)), EPSILON);
+		}
+		assertTrue("worst angle " + worst, worst < OCTAHEDRAL_MAX);
+	}
+
+	@Test
+	public void octahedralKeepsTheAxesExact() {
+		double[] decoded = new double[3];
+		AttributeEncoder.decodeOctahedral(AttributeEncoder.encodeOctahedral(0.0, 0.0, -1.0), decoded);
+		assertEquals(0.0, decoded[0], EPSILON);
+		assertEquals(0.0, decoded[1], EPSILON);
+		assertEquals(-1.0, decoded[2], EPSILON);
+	}
+
+	@Test
+	public void snorm1010102NormalsStayWithinTheirError() {
+		double[] decoded = new double[4];
+		double worst = 0.0;
+		for(double[] normal : sphere()) {
+			AttributeEncoder.unpackSnorm1010102(AttributeEncoder.packSnorm1010102(normal[0], normal[1], normal[2], 0.0),
+			                                    decoded);
+			for(int c = 0; c < 3; c++) {
+				worst = Math.max(worst, Math.abs(decoded[c] - normal[c]));
+			}
+			assertEquals(0.0, decoded[3], 0.0);
+		}
+		assertTrue("worst error " + worst, worst <= (SNORM10_MAX + EPSILON));
+	}
+
+	@Test
+	public void snorm1010102KeepsTheEndsAndW() {
+		double[] decoded = new double[4];
+		AttributeEncoder.unpackSnorm1010102(AttributeEncoder.packSnorm1010102(-1.0, 1.0, 0.0, -1.0), decoded);
+		assertEquals(-1.0, decoded[0], 0.0);
+		assertEquals(1.0, decoded[1], 0.0);
+		assertEquals(0.0, decoded[2], 0.0);
+		assertEquals(-1.0, decoded[3], 0.0);
+		AttributeEncoder.unpackSnorm1010102(AttributeEncoder.packSnorm1010102(2.0, -2.0, 0.5, 1.0), decoded);
+		assertEquals(1.0, decoded[0], 0.0);
+		assertEquals(-1.0, decoded[1], 0.0);
+		assertEquals(1.0, decoded[3], 0.0);
+	}
+
+	@Test
+	public void snorm16StaysWithinHalfAStep() {
+		double worst = 0.0;
+		for(int i = -SAMPLES; i <= SAMPLES; i++) {
+			double value = i / (double) SAMPLES;
+			worst = Math.max(worst, Math.abs(AttributeEncoder.fromSnorm16(AttributeEncoder.toSnorm16(value)) - value));
+		}
+		assertTrue("worst error " + worst, worst <= (SNORM16_MAX + EPSILON));
+		assertEquals(-1.0, AttributeEncoder.fromSnorm16(Short.MIN_VALUE), 0.0);
+		assertEquals(1.0, AttributeEncoder.fromSnorm16(AttributeEncoder.toSnorm16(3.0)), 0.0);
+	}
+
+	@Test
+	public void unorm8StaysWithinHalfAStep() {
+		double worst = 0.0;
+		for(int i = 0; i <= SAMPLES; i++) {
+			double value = i / (double) SAMPLES;
+			worst = Math.max(worst, Math.abs(AttributeEncoder.fromUnorm8(AttributeEncoder.toUnorm8(value)) - value));
+		}
+		assertTrue("worst error " + worst, worst <= (UNORM8_MAX + EPSILON));
+		for(int b = 0; b <= 0xFF; b++) {
+			assertEquals((byte) b, AttributeEncoder.toUnorm8(AttributeEncoder.fromUnorm8((byte) b)));
+		}
+	}
+
+	@Test
+	public void halfRoundsToTheNearestValue() {
+		for(int bits = 0; bits < 0x7C00; bits++) {
+			float value = AttributeEncoder.fromHalf((short) bits);
+			assertEquals(bits, AttributeEncoder.toHalf(value));
+			assertEquals((short) (bits | 0x8000), AttributeEncoder.toHalf(-value));
+		}
+		double worst = 0.0;
+		for(int i = 1; i <= SAMPLES; i++) {
+			float value = (float) (i * 3.0517578125e-3);
+			float decoded = AttributeEncoder.fromHalf(AttributeEncoder.toHalf(value));
+			worst = Math.max(worst, Math.abs(decoded - value) / value);
+		}
+		// binary16 keeps 11 significant bits
+		assertTrue("worst relative error " + worst, worst <= Math.scalb(1.0, -11));
+		assertEquals(0x7C00, AttributeEncoder.toHalf(1.0e6f));
+	}
+}
@@ -0,0 +1,128 @@
+package org.grgodgames.lib;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Byte line iterator test. Splits text with each line end, mixed and missing, and compares the lines with
+ * what was written.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class ByteLineIteratorTest {
+	private static ByteBuffer bytes(String text) {
+		return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static List<String> lines(ByteBuffer bytes) {
+		ByteLineIterator iterator = new ByteLineIterator(bytes);
+		List<String> lines = new ArrayList<>();
+		while(iterator.next()) {
+			assertEquals(lines.size() + 1L, iterator.getLineNumber());
+			lines.add(iterator.getLine());
+		}
+		return lines;
+	}
+
+	private static void assertLines(String text, String... expected) {
+		assertEquals(text, Arrays.asList(expected), lines(bytes(text)));
+	}
+
+	@Test
+	public void eachLineEndEndsALine() {
+		assertLines("a\nb\n", "a", "b");
+		assertLines("a\r\nb\r\n", "a", "b");
+		assertLines("a\rb\r", "a", "b");
+		assertLines("a\nb\r\nc\rd\n", "a", "b", "c", "d");
+	}
+
+	@Test
+	public void aMissingFinalLineEndKeepsTheLastLine() {
+		assertLines("a\nb", "a", "b");
+		assertLines("a\r\nb", "a", "b");
+		assertLines("a\rb", "a", "b");
+		assertLines("only", "only");
+	}
+
+	@Test
+	public void emptyLinesAreKept() {
+		assertLines("\n", "");
+		assertLines("\n\n", "", "");
+		assertLines("a\n\nb", "a", "", "b");
+		assertLines("\r\r\n", "", "");
+		assertLines("\n\r", "", "");
+		assertLines("a\r\n\r\nb", "a", "", "b");
+	}
+
+	@Test
+	public void anEmptyBufferHasNoLines() {
+		ByteLineIterator iterator = new ByteLineIterator(bytes(""));
+		assertFalse(iterator.next());
+		assertEquals(0L, iterator.getLineNumber());
+		assertFalse(iterator.next());
+	}
+
+	@Test
+	public void boundsAreAbsoluteAndThePositionDoesNotMove() {
+		ByteBuffer bytes = bytes("skip\nab\r\ncd");
+		bytes.position(5);
+		ByteLineIterator iterator = new ByteLineIterator(bytes);
+		assertTrue(iterator.next());
+		assertEquals(5, iterator.getStart());
+		assertEquals(7, iterator.getEnd());
+		assertEquals(2, iterator.length());
+		assertEquals('b', iterator.byteAt(1));
+		assertTrue(iterator.next());
+		assertEquals(9, iterator.getStart());
+		assertEquals("cd", iterator.getLine());
+		assertFalse(iterator.next());
+		assertEquals(5, bytes.position());
+	}
+
+	@Test
+	public void theLimitEndsTheLastLine() {
+		ByteBuffer bytes = bytes("ab\ncd\nef");
+		bytes.limit(5);
+		assertEquals(Arrays.asList("ab", "cd"), lines(bytes));
+	}
+
+	@Test
+	public void aLineEndSplitByTheLimitIsOneLineEnd() {
+		ByteBuffer bytes = bytes("ab\r\ncd");
+		bytes.limit(3);
+		assertEquals(Arrays.asList("ab"), lines(bytes));
+	}
+
+	@Test
+	public void prefixesAndBytesStayInsideTheLine() {
+		ByteLineIterator iterator = new ByteLineIterator(bytes("#version 330\nv 1 2 3"));
+		assertTrue(iterator.next());
+		assertTrue(iterator.startsWith("#version".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse(iterator.startsWith("#version 330\nv".getBytes(StandardCharsets.US_ASCII)));
+		try {
+			iterator.byteAt(iterator.length());
+			fail();
+		} catch(IndexOutOfBoundsException expected) {
+			assertTrue(iterator.next());
+		}
+		assertTrue(iterator.startsWith("v ".getBytes(StandardCharsets.US_ASCII)));
+		assertTrue(iterator.startsWith(new byte[0]));
+	}
+
+	@Test
+	public void linesAreDecodedAsUtf8() {
+		assertLines("caf\u00e9\n\uD83D\uDE00\r\n", "caf\u00e9", "\uD83D\uDE00");
+	}
+}
@@ -0,0 +1,181 @@
+package org.grgodgames.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Chunked deflate test. Writes files of a few sizes, reads them back on a small pool, and damages them in
+ * ways a read has to notice.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class ChunkedDeflateTest {
+	private static final int            CHUNK = 1000;
+	private              File           file;
+	private              ForkJoinPool   pool;
+	private              ChunkedDeflate deflate;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("chunked", ".bin");
+		pool = new ForkJoinPool(3);
+		deflate = new ChunkedDeflate(pool);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+		assertTrue(file.delete());
+	}
+
+	/** Compressible bytes, runs of a few values with noise. */
+	private static ByteBuffer data(int size) {
+		Random random = new Random(size);
+		ByteBuffer data = ByteBuffer.allocate(size);
+		while(data.hasRemaining()) {
+			data.put((byte) ((random.nextInt(8) == 0) ? random.nextInt() : (data.position() / 64)));
+		}
+		data.flip();
+		return data;
+	}
+
+	private void assertRoundTrip(int size, int chunkSize) throws IOException {
+		ByteBuffer data = data(size);
+		deflate.write(data, file, chunkSize, Deflater.BEST_SPEED);
+		assertEquals(0, data.position());
+		ByteBuffer read = deflate.read(file);
+		assertTrue(read.isDirect());
+		assertEquals(data, read);
+	}
+
+	private void assertInvalid(String reason) {
+		try {
+			deflate.read(file);
+			fail(reason);
+		} catch(IOException expected) {
+			assertTrue(expected.getMessage(), expected.getMessage().contains(file.toString()));
+		}
+	}
+
+	private void patch(long position, ByteBuffer bytes) throws IOException {
+		try(RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.getChannel().write(bytes, position);
+		}
+	}
+
+	@Test
+	public void emptyInputRoundTrips() throws IOException {
+		assertRoundTrip(0, CHUNK);
+		assertEquals(ChunkedDeflate.HEADER_SIZE + Long.BYTES, file.length());
+	}
+
+	@Test
+	public void aPartialLastChunkRoundTrips() throws IOException {
+		assertRoundTrip((CHUNK * 7) + 123, CHUNK);
+	}
+
+	@Test
+	public void wholeChunksRoundTrip() throws IOException {
+		assertRoundTrip(CHUNK * 64, CHUNK);
+		assertRoundTrip(1, CHUNK);
+		assertRoundTrip(CHUNK, CHUNK);
+	}
+
+	@Test
+	public void aChunkLargerThanTheDataOnlyTakesTheData() throws IOException {
+		assertRoundTrip(100, Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void readsAreCounted() throws IOException {
+		assertRoundTrip(CHUNK * 3, CHUNK);
+		assertEquals(1L, deflate.getReadCount());
+		assertEquals(CHUNK * 3L, deflate.getInflatedBytes());
+		assertEquals(file.length(), deflate.getCompressedBytes());
+		deflate.resetMetrics();
+		assertEquals(0L, deflate.getReadCount());
+	}
+
+	@Test
+	public void chunkedFilesAreRecognised() throws IOException {
+		assertFalse(ChunkedDeflate.isChunked(file));
+		deflate.write(data(10), file, CHUNK, Deflater.BEST_SPEED);
+		assertTrue(ChunkedDeflate.isChunked(file));
+	}
+
+	@Test
+	public void aTruncatedFileIsRejected() throws IOException {
+		deflate.write(data(CHUNK * 4), file, CHUNK, Deflater.BEST_SPEED);
+		try(RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.setLength(file.length() - 10);
+		}
+		assertInvalid("truncated");
+	}
+
+	@Test
+	public void aCorruptedChunkIsRejected() throws IOException {
+		deflate.write(data(CHUNK * 4), file, CHUNK, Deflater.BEST_SPEED);
+		long table = ChunkedDeflate.HEADER_SIZE + (5L * Long.BYTES);
+		ByteBuffer garbage = ByteBuffer.allocate(16);
+		for(int i = 0; i < garbage.capacity(); i++) {
+			garbage.put(i, (byte) 0xA5);
+		}
+		patch(table + 40, garbage);
+		assertInvalid("corrupted");
+	}
+
+	@Test
+	public void aTableThatSkipsAChunkIsRejected() throws IOException {
+		// the first chunk is made to end where the second does, leaving the second empty
+		deflate.write(data((CHUNK * 2) + 10), file, CHUNK, Deflater.BEST_SPEED);
+		ByteBuffer offsets = ByteBuffer.allocate(3 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		try(RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			in.getChannel().read(offsets, ChunkedDeflate.HEADER_SIZE + Long.BYTES);
+		}
+		ByteBuffer moved = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		moved.putLong(0, offsets.getLong(Long.BYTES));
+		patch(ChunkedDeflate.HEADER_SIZE + Long.BYTES, moved);
+		assertInvalid("skipped");
+	}
+
+	@Test
+	public void aHeaderThatDisagreesWithItselfIsRejected() throws IOException {
+		deflate.write(data(CHUNK * 3), file, CHUNK, Deflater.BEST_SPEED);
+		ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		count.putInt(0, 2);
+		patch(24L, count);
+		assertInvalid("count");
+	}
+
+	@Test
+	public void aHugeChunkSizeInTheHeaderIsBoundedByTheData() throws IOException {
+		deflate.write(data(500), file, CHUNK, Deflater.BEST_SPEED);
+		ByteBuffer chunkSize = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		chunkSize.putInt(0, Integer.MAX_VALUE);
+		patch(12L, chunkSize);
+		assertEquals(data(500), deflate.read(file));
+	}
+
+	@Test
+	public void otherFilesAreRejected() throws IOException {
+		patch(0L, ByteBuffer.wrap(new byte[ChunkedDeflate.HEADER_SIZE]));
+		assertInvalid("magic");
+	}
+}
@@ -0,0 +1,138 @@
+package org.grgodgames.lib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Dirty ranges test. Merges ranges and sends their spans to a recording {@link BufferProvider}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class DirtyRangesTest {
+	private DirtyRanges             ranges;
+	private RecordingBufferProvider provider;
+
+	@Before
+	public void setUp() {
+		ranges = new DirtyRanges();
+		provider = new RecordingBufferProvider();
+	}
+
+	@Test
+	public void disjointRangesStaySortedAndApart() {
+		ranges.add(20, 30);
+		ranges.add(0, 5);
+		ranges.add(10, 12);
+		assertEquals("{[0, 5), [10, 12), [20, 30)}", ranges.toString());
+	}
+
+	@Test
+	public void touchingRangesAreCoalesced() {
+		ranges.add(0, 5);
+		ranges.add(5, 10);
+		ranges.add(15, 20);
+		ranges.add(10, 15);
+		assertEquals("{[0, 20)}", ranges.toString());
+	}
+
+	@Test
+	public void overlappingRangesAreMerged() {
+		ranges.add(10, 20);
+		ranges.add(30, 40);
+		ranges.add(50, 60);
+		ranges.add(15, 55);
+		assertEquals("{[10, 60)}", ranges.toString());
+		ranges.add(12, 18);
+		assertEquals("{[10, 60)}", ranges.toString());
+	}
+
+	@Test
+	public void emptyRangesAreIgnored() {
+		ranges.add(4, 4);
+		ranges.add(9, 3);
+		assertTrue(ranges.isEmpty());
+	}
+
+	@Test
+	public void tooManyRangesCollapseIntoOne() {
+		for(int i = 0; i < 32; i++) {
+			ranges.add(i * 10, (i * 10) + 1);
+		}
+		assertEquals(32, ranges.size());
+		ranges.add(1000, 1001);
+		assertEquals(1, ranges.size());
+		assertEquals(0, ranges.getStart(0));
+		assertEquals(1001, ranges.getEnd(0));
+	}
+
+	@Test
+	public void addAllMergesAnotherSet() {
+		DirtyRanges other = new DirtyRanges();
+		other.add(5, 8);
+		other.add(40, 50);
+		ranges.add(0, 6);
+		ranges.addAll(other);
+		assertEquals("{[0, 8), [40, 50)}", ranges.toString());
+	}
+
+	@Test
+	public void onlyTheChangedSpansOfAStoreAreSent() {
+		ByteBuffer store = BufferUtils.createByteBuffer(100 * 16);
+		ranges.add(2, 4);
+		ranges.add(50, 51);
+		assertEquals(3 * 16, ranges.upload(provider, 7, store, 16));
+
+		assertEquals(2, provider.updateSizes.size());
+		assertEquals(7, (int) provider.updateBuffers.get(0));
+		assertEquals(2L * 16, (long) provider.updateOffsets.get(0));
+		assertEquals(2 * 16, (int) provider.updateSizes.get(0));
+		assertEquals(50L * 16, (long) provider.updateOffsets.get(1));
+		assertEquals(16, (int) provider.updateSizes.get(1));
+		assertEquals(store.capacity(), store.remaining());
+		assertTrue(provider.targets.isEmpty());
+	}
+
+	@Test
+	public void offsetsAndSizesAreInBytesForEveryStore() {
+		DoubleBuffer doubles = BufferUtils.createDoubleBuffer(3 * 10);
+		ShortBuffer shorts = BufferUtils.createShortBuffer(2 * 10);
+		ranges.add(4, 6);
+		assertEquals(2 * 3 * Double.BYTES, ranges.upload(provider, 1, doubles, 3));
+		assertEquals(2 * 2 * Short.BYTES, ranges.upload(provider, 2, shorts, 2));
+
+		assertEquals(4L * 3 * Double.BYTES, (long) provider.updateOffsets.get(0));
+		assertEquals(4L * 2 * Short.BYTES, (long) provider.updateOffsets.get(1));
+		assertEquals((2 * 3 * Double.BYTES) + (2 * 2 * Short.BYTES), provider.getUpdatedBytes());
+		assertEquals(doubles.capacity(), doubles.remaining());
+	}
+
+	@Test
+	public void nothingIsSentWithoutRanges() {
+		assertEquals(0L, ranges.upload(provider, 1, BufferUtils.createByteBuffer(64), 4));
+		assertTrue(provider.updateSizes.isEmpty());
+	}
+
+	@Test
+	public void aFewChangedVertexesOfABigMeshSendLittle() {
+		int vertexes = 100_000;
+		int stride = 28;
+		ByteBuffer store = BufferUtils.createByteBuffer(vertexes * stride);
+		for(int i = 0; i < 300; i++) {
+			ranges.add(5_000 + i, 5_001 + i);
+		}
+		ranges.upload(provider, 1, store, stride);
+		assertEquals(1, provider.updateSizes.size());
+		assertEquals(300L * stride, provider.getUpdatedBytes());
+	}
+}
@@ -0,0 +1,163 @@
+package org.grgodgames.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Io helper test. Reads files below and above the map threshold, and decodes text that is malformed or
+ * needs surrogate pairs.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class IOHelperTest {
+	private static final String SMILE = "\uD83D\uDE00";
+	private              File   file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("text", ".txt");
+	}
+
+	@After
+	public void tearDown() {
+		assertTrue(file.delete());
+	}
+
+	private static byte[] bytesOf(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private static String decode(int... bytes) {
+		byte[] in = new byte[bytes.length];
+		for(int i = 0; i < bytes.length; i++) {
+			in[i] = (byte) bytes[i];
+		}
+		String text = IOHelper.decode(ByteBuffer.wrap(in)).toString();
+		// the same replacements a reader makes, so readText and readFile agree
+		assertEquals(new String(in, StandardCharsets.UTF_8), text);
+		return text;
+	}
+
+	@Test
+	public void smallFilesAreReadOntoTheHeap() throws IOException {
+		byte[] bytes = new byte[1000];
+		new Random(3L).nextBytes(bytes);
+		Files.write(file.toPath(), bytes);
+		ByteBuffer read = IOHelper.readBytes(file);
+		assertFalse(read.isDirect());
+		assertArrayEquals(bytes, bytesOf(read));
+	}
+
+	@Test
+	public void filesFromTheThresholdAreMapped() throws IOException {
+		byte[] bytes = new byte[1000];
+		new Random(4L).nextBytes(bytes);
+		Files.write(file.toPath(), bytes);
+		ByteBuffer read = IOHelper.readBytes(file, bytes.length);
+		assertTrue(read.isDirect());
+		assertTrue(read.isReadOnly());
+		assertArrayEquals(bytes, bytesOf(read));
+		assertFalse(IOHelper.readBytes(file, bytes.length + 1L).isDirect());
+	}
+
+	@Test
+	public void anEmptyFileIsAnEmptyBuffer() throws IOException {
+		assertEquals(0, IOHelper.readBytes(file).remaining());
+		assertEquals(0, IOHelper.readBytes(file, 0L).remaining());
+		assertEquals(0, IOHelper.readText(file).length());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void aNegativeThresholdIsRejected() throws IOException {
+		IOHelper.readBytes(file, -1L);
+	}
+
+	@Test
+	public void textKeepsItsLineEnds() throws IOException {
+		String text = "a\nb\r\nc\rd";
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		assertEquals(text, IOHelper.readText(file).toString());
+	}
+
+	@Test
+	public void supplementaryCharactersDecodeToSurrogatePairs() throws IOException {
+		String text = "x" + SMILE + "\u00e9\u20ac" + SMILE;
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		Files.write(file.toPath(), bytes);
+		CharSequence read = IOHelper.readText(file);
+		assertEquals(text, read.toString());
+		assertTrue(Character.isHighSurrogate(read.charAt(1)));
+		assertTrue(read.length() < bytes.length);
+	}
+
+	@Test
+	public void malformedBytesBecomeReplacementCharacters() {
+		assertEquals("a\uFFFDb", decode('a', 0xFF, 'b'));
+		assertEquals("a\uFFFDb", decode('a', 0xC3, 'b'));
+		assertEquals("\uFFFD\uFFFD", decode(0x80, 0xBF));
+		assertEquals("\uFFFD", decode(0xC0));
+		assertEquals("\uFFFD\uFFFD", decode(0xC0, 0x80));
+		assertTrue(decode(0xED, 0xA0, 0x80).matches("\uFFFD+"));
+	}
+
+	@Test
+	public void aTruncatedSequenceAtTheEndIsReplaced() {
+		assertEquals("a\uFFFD", decode('a', 0xF0, 0x9F, 0x98));
+		assertEquals("a\uFFFD", decode('a', 0xE2, 0x82));
+	}
+
+	@Test
+	public void theWorstCaseFitsInOneCharPerByte() {
+		int[] bytes = new int[4096];
+		Random random = new Random(5L);
+		for(int i = 0; i < bytes.length; i++) {
+			bytes[i] = random.nextInt(256);
+		}
+		try {
+			assertTrue(decode(bytes).length() <= bytes.length);
+		} catch(IllegalStateException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void decodingDoesNotMoveThePosition() {
+		ByteBuffer bytes = ByteBuffer.wrap(("skip" + SMILE).getBytes(StandardCharsets.UTF_8));
+		bytes.position(4);
+		CharBuffer text = IOHelper.decode(bytes);
+		assertEquals(SMILE, text.toString());
+		assertEquals(4, bytes.position());
+	}
+
+	@Test
+	public void linesWalkTheFile() throws IOException {
+		Files.write(file.toPath(), "one\r\ntwo\rthree".getBytes(StandardCharsets.UTF_8));
+		ByteLineIterator lines = IOHelper.lines(IOHelper.readBytes(file, 0L));
+		assertTrue(lines.next());
+		assertEquals("one", lines.getLine());
+		assertTrue(lines.next());
+		assertEquals("two", lines.getLine());
+		assertTrue(lines.next());
+		assertEquals("three", lines.getLine());
+		assertFalse(lines.next());
+	}
+}
@@ -0,0 +1,215 @@
+package org.grgodgames.lib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_SHORT;
+
+/**
+ * The type Instance buffer test. Draws instances through a recording {@link InstanceProvider} and counts the
+ * calls and bytes that would reach the driver.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class InstanceBufferTest {
+	private static final int               LOCATION = 3;
+	private              RecordingInstances provider;
+
+	@Before
+	public void setUp() {
+		provider = new RecordingInstances();
+	}
+
+	@Test
+	public void aThousandInstancesAreOneBufferAndOneDraw() {
+		InstanceBuffer instances = new InstanceBuffer(1000);
+		for(int i = 0; i < 1000; i++) {
+			instances.setTranslation(instances.add(), i, 0, 0);
+		}
+		instances.draw(provider, LOCATION, 0, 0, 36);
+
+		assertEquals(1, provider.sizes.size());
+		assertEquals(1000 * InstanceBuffer.STRIDE, (int) provider.sizes.get(0));
+		assertEquals(1, provider.draws.size());
+		assertEquals("arrays 36 x 1000", provider.draws.get(0));
+		assertEquals(InstanceBuffer.ATTRIBUTES, provider.pointers.size());
+		assertTrue(provider.updateSizes.isEmpty());
+		assertEquals(1, instances.getUploadCount());
+		assertEquals(1000L * InstanceBuffer.STRIDE, instances.getUploadedBytes());
+	}
+
+	@Test
+	public void theAttributesAreEnabledOnlyAroundTheDraw() {
+		InstanceBuffer instances = new InstanceBuffer(4);
+		instances.add();
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		assertEquals("[enable 3 5, arrays 3 x 1, disable 3 5]", provider.calls.toString());
+	}
+
+	@Test
+	public void pointersCoverTheWholeInstance() {
+		InstanceBuffer instances = new InstanceBuffer(1);
+		instances.add();
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		assertEquals("[3 4 @0, 4 4 @16, 5 4 @32, 6 4 @48 normalized, 7 4 @52]", provider.pointers.toString());
+	}
+
+	@Test
+	public void oneChangedInstanceSendsOnlyItsBytes() {
+		InstanceBuffer instances = new InstanceBuffer(100);
+		for(int i = 0; i < 100; i++) {
+			instances.add();
+		}
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		instances.setColor(42, (byte) 1, (byte) 2, (byte) 3, (byte) 4);
+		instances.draw(provider, LOCATION, 0, 0, 3);
+
+		assertEquals(1, provider.sizes.size());
+		assertEquals(1, provider.updateSizes.size());
+		assertEquals(InstanceBuffer.STRIDE, (int) provider.updateSizes.get(0));
+		assertEquals(42L * InstanceBuffer.STRIDE, (long) provider.updateOffsets.get(0));
+		assertEquals(1, (int) provider.updateBuffers.get(0));
+		assertEquals(2, instances.getUploadCount());
+		assertEquals(101L * InstanceBuffer.STRIDE, instances.getUploadedBytes());
+	}
+
+	@Test
+	public void anUnchangedFrameSendsNothing() {
+		InstanceBuffer instances = new InstanceBuffer(10);
+		instances.add();
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		assertEquals(1, provider.sizes.size());
+		assertTrue(provider.updateSizes.isEmpty());
+		assertEquals(2, provider.draws.size());
+	}
+
+	@Test
+	public void growingMakesABiggerBufferAndDeletesTheOld() {
+		InstanceBuffer instances = new InstanceBuffer(2);
+		instances.add();
+		instances.add();
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		instances.add();
+		instances.draw(provider, LOCATION, 0, 0, 3);
+
+		assertEquals(2, provider.sizes.size());
+		assertEquals(4 * InstanceBuffer.STRIDE, (int) provider.sizes.get(1));
+		assertEquals(1, provider.deleted.size());
+		assertEquals(1, (int) provider.deleted.get(0));
+		assertEquals(2 * InstanceBuffer.ATTRIBUTES, provider.pointers.size());
+		assertTrue(provider.updateSizes.isEmpty());
+	}
+
+	@Test
+	public void removingMovesTheLastInstanceAndMarksItsSlot() {
+		InstanceBuffer instances = new InstanceBuffer(3);
+		for(int i = 0; i < 3; i++) {
+			instances.setTranslation(instances.add(), i, 0, 0);
+		}
+		instances.draw(provider, LOCATION, 0, 0, 3);
+
+		assertEquals(2, instances.remove(0));
+		assertEquals(2, instances.getCount());
+		assertEquals(2f, instances.getTranslation(0, 0), 0f);
+		assertEquals(-1, instances.remove(1));
+		instances.draw(provider, LOCATION, 0, 0, 3);
+
+		assertEquals(1, provider.updateSizes.size());
+		assertEquals(0L, (long) provider.updateOffsets.get(0));
+		assertEquals("arrays 3 x 1", provider.draws.get(1));
+	}
+
+	@Test
+	public void indexedMeshesDrawElements() {
+		InstanceBuffer instances = new InstanceBuffer(2);
+		instances.add();
+		instances.add();
+		instances.draw(provider, LOCATION, 60, GL_UNSIGNED_SHORT, 20);
+		assertEquals("elements 60 x 2", provider.draws.get(0));
+	}
+
+	@Test
+	public void nothingIsDrawnWithoutInstances() {
+		InstanceBuffer instances = new InstanceBuffer(2);
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		assertTrue(provider.calls.isEmpty());
+		assertTrue(provider.sizes.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownInstancesAreRejected() {
+		InstanceBuffer instances = new InstanceBuffer(2);
+		instances.add();
+		instances.setColor(1, (byte) 0, (byte) 0, (byte) 0, (byte) 0);
+	}
+
+	@Test
+	public void deleteFreesTheBufferOnce() {
+		InstanceBuffer instances = new InstanceBuffer(2);
+		instances.delete(provider);
+		assertTrue(provider.deleted.isEmpty());
+
+		instances.add();
+		instances.draw(provider, LOCATION, 0, 0, 3);
+		instances.delete(provider);
+		instances.delete(provider);
+		assertEquals(1, provider.deleted.size());
+	}
+
+	@Test
+	public void instancesTakeLessThanSeparateMeshes() {
+		int count = 1000;
+		int cubeBytes = 24 * ((3 * Double.BYTES) + (3 * Double.BYTES) + 4 + (2 * Short.BYTES));
+		InstanceBuffer instances = new InstanceBuffer(count);
+		for(int i = 0; i < count; i++) {
+			instances.add();
+		}
+		instances.draw(provider, LOCATION, 36, GL_UNSIGNED_SHORT, 24);
+
+		long instanced = cubeBytes + provider.sizes.get(0);
+		long separate = (long) count * cubeBytes;
+		assertTrue(instanced * 10 < separate);
+		assertEquals(1, provider.draws.size());
+	}
+
+	/** Records the instanced calls on top of the buffer calls. */
+	private static final class RecordingInstances extends RecordingBufferProvider implements InstanceProvider {
+		final List<String> pointers = new ArrayList<>();
+		final List<String> draws    = new ArrayList<>();
+		final List<String> calls    = new ArrayList<>();
+
+		@Override
+		public void setInstancePointer(int buffer, int location, int size, int type, boolean normalized, int stride,
+		                               long offset) {
+			pointers.add(location + " " + size + " @" + offset + (normalized ? " normalized" : ""));
+		}
+
+		@Override
+		public void setAttributesEnabled(int location, int count, boolean enabled) {
+			calls.add((enabled ? "enable " : "disable ") + location + " " + count);
+		}
+
+		@Override
+		public void drawArraysInstanced(int vertexCount, int instances) {
+			draw("arrays " + vertexCount + " x " + instances);
+		}
+
+		@Override
+		public void drawElementsInstanced(int indexCount, int indexType, long offset, int instances) {
+			draw("elements " + indexCount + " x " + instances);
+		}
+
+		private void draw(String draw) {
+			draws.add(draw);
+			calls.add(draw);
+		}
+	}
+}
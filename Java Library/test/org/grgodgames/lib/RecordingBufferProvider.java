@@ -0,0 +1,79 @@
+package org.grgodgames.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The type Recording buffer provider. Hands out buffer names in order and records every call, with sizes and
+ * offsets in bytes, in place of the buffer objects of a context.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class RecordingBufferProvider implements BufferProvider {
+	/** The target of each created buffer. */
+	public final List<Integer> targets       = new ArrayList<>();
+	/** The size of each created buffer. */
+	public final List<Integer> sizes         = new ArrayList<>();
+	/** The thread each buffer was created on. */
+	public final List<Thread>  threads       = new ArrayList<>();
+	/** The deleted buffers. */
+	public final List<Integer> deleted       = new ArrayList<>();
+	/** The buffer of each update. */
+	public final List<Integer> updateBuffers = new ArrayList<>();
+	/** The offset of each update. */
+	public final List<Long>    updateOffsets = new ArrayList<>();
+	/** The size of each update. */
+	public final List<Integer> updateSizes   = new ArrayList<>();
+
+	@Override
+	public synchronized int create(int target, ByteBuffer data, BufferUsage usage) {
+		targets.add(target);
+		sizes.add(data.remaining());
+		threads.add(Thread.currentThread());
+		return targets.size();
+	}
+
+	@Override
+	public synchronized void update(int target, int buffer, long offset, ByteBuffer data) {
+		record(buffer, offset, data.remaining());
+	}
+
+	@Override
+	public synchronized void update(int target, int buffer, long offset, ShortBuffer data) {
+		record(buffer, offset, data.remaining() * Short.BYTES);
+	}
+
+	@Override
+	public synchronized void update(int target, int buffer, long offset, DoubleBuffer data) {
+		record(buffer, offset, data.remaining() * Double.BYTES);
+	}
+
+	private void record(int buffer, long offset, int size) {
+		updateBuffers.add(buffer);
+		updateOffsets.add(offset);
+		updateSizes.add(size);
+	}
+
+	@Override
+	public synchronized void delete(int buffer) {
+		deleted.add(buffer);
+	}
+
+	/**
+	 * Gets updated bytes.
+	 *
+	 * @return the bytes sent by every update
+	 */
+	public synchronized long getUpdatedBytes() {
+		long bytes = 0L;
+		for(int size : updateSizes) {
+			bytes += size;
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,171 @@
+package org.grgodgames.lib;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Render queue test. Packs keys with {@link SortKey} and sorts them in a {@link RenderQueue} without any
+ * renders, following each draw by the order it was submitted in.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class RenderQueueTest {
+	@Test
+	public void fieldsReadBackFromTheirKeys() {
+		long opaque = SortKey.opaque(3, 17, 250, 9, 0.5);
+		assertEquals(3, SortKey.getLayer(opaque));
+		assertFalse(SortKey.isTranslucent(opaque));
+		assertEquals(17, SortKey.getShader(opaque));
+		assertEquals(250, SortKey.getTexture(opaque));
+
+		long translucent = SortKey.translucent(SortKey.MAX_LAYER, 4095, 16383, 8191, 1.0);
+		assertEquals(SortKey.MAX_LAYER, SortKey.getLayer(translucent));
+		assertTrue(SortKey.isTranslucent(translucent));
+		assertEquals(4095, SortKey.getShader(translucent));
+		assertEquals(16383, SortKey.getTexture(translucent));
+	}
+
+	@Test
+	public void oversizedIdsWrapInsideTheirField() {
+		long base = SortKey.opaque(2, 0, 0, 0, 0.0);
+		assertEquals(base, SortKey.opaque(2, 1 << 12, 0, 0, 0.0));
+		assertEquals(base, SortKey.opaque(2, 0, 1 << 14, 0, 0.0));
+		assertEquals(base, SortKey.opaque(2, 0, 0, 1 << 13, 0.0));
+		assertEquals(SortKey.opaque(2, 0, 0, 0, 1.0), SortKey.opaque(2, 0, 0, 0, 7.0));
+
+		long full = SortKey.opaque(2, -1, -1, -1, 1.0);
+		assertEquals(2, SortKey.getLayer(full));
+		assertFalse(SortKey.isTranslucent(full));
+		assertEquals(4095, SortKey.getShader(full));
+		assertEquals(16383, SortKey.getTexture(full));
+
+		long translucent = SortKey.translucent(2, -1, -1, -1, 0.0);
+		assertEquals(2, SortKey.getLayer(translucent));
+		assertEquals(4095, SortKey.getShader(translucent));
+		assertEquals(16383, SortKey.getTexture(translucent));
+	}
+
+	@Test
+	public void eachFieldOnlyTouchesItsOwnBits() {
+		long shader = SortKey.opaque(0, 0xFFF, 0, 0, 0.0);
+		long texture = SortKey.opaque(0, 0, 0x3FFF, 0, 0.0);
+		long vao = SortKey.opaque(0, 0, 0, 0x1FFF, 0.0);
+		long depth = SortKey.opaque(0, 0, 0, 0, 1.0);
+		assertEquals(0L, shader & texture);
+		assertEquals(0L, texture & vao);
+		assertEquals(0L, vao & depth);
+		assertEquals((1L << 59) - 1, shader | texture | vao | depth);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void layersOutOfRangeAreRejected() {
+		SortKey.opaque(SortKey.MAX_LAYER + 1, 0, 0, 0, 0.0);
+	}
+
+	@Test
+	public void layersComeFirstThenOpaqueThenTranslucent() {
+		RenderQueue queue = new RenderQueue(4);
+		queue.submit(SortKey.translucent(1, 0, 0, 0, 0.0), null);
+		queue.submit(SortKey.opaque(SortKey.MAX_LAYER, 0, 0, 0, 0.0), null);
+		queue.submit(SortKey.opaque(1, 4095, 16383, 8191, 1.0), null);
+		queue.submit(SortKey.translucent(0, 4095, 16383, 8191, 1.0), null);
+		queue.sort();
+		assertOrder(queue, 3, 2, 0, 1);
+	}
+
+	@Test
+	public void opaqueDrawsFrontToBackAndTranslucentBackToFront() {
+		RenderQueue queue = new RenderQueue(6);
+		queue.submit(SortKey.opaque(0, 5, 5, 5, 0.9), null);
+		queue.submit(SortKey.opaque(0, 5, 5, 5, 0.1), null);
+		queue.submit(SortKey.opaque(0, 5, 5, 5, 0.5), null);
+		queue.submit(SortKey.translucent(0, 5, 5, 5, 0.1), null);
+		queue.submit(SortKey.translucent(0, 5, 5, 5, 0.9), null);
+		queue.submit(SortKey.translucent(0, 5, 5, 5, 0.5), null);
+		queue.sort();
+		assertOrder(queue, 1, 2, 0, 4, 5, 3);
+	}
+
+	@Test
+	public void opaqueDrawsGroupByShaderBeforeDepth() {
+		RenderQueue queue = new RenderQueue(4);
+		queue.submit(SortKey.opaque(0, 2, 0, 0, 0.0), null);
+		queue.submit(SortKey.opaque(0, 1, 0, 0, 1.0), null);
+		queue.submit(SortKey.opaque(0, 2, 0, 0, 0.5), null);
+		queue.submit(SortKey.opaque(0, 1, 0, 0, 0.0), null);
+		queue.sort();
+		assertOrder(queue, 3, 1, 0, 2);
+	}
+
+	@Test
+	public void equalKeysKeepTheirSubmissionOrder() {
+		RenderQueue queue = new RenderQueue(1);
+		long a = SortKey.opaque(1, 3, 3, 3, 0.25);
+		long b = SortKey.opaque(1, 3, 3, 3, 0.75);
+		for(int i = 0; i < 100; i++) {
+			queue.submit(((i % 3) == 0) ? b : a, null);
+		}
+		queue.sort();
+		int previous = -1;
+		for(int i = 0; i < queue.size(); i++) {
+			if(queue.getKey(i) != queue.getKey(Math.max(0, i - 1))) {
+				previous = -1;
+			}
+			assertTrue(queue.getSubmission(i) > previous);
+			previous = queue.getSubmission(i);
+		}
+		assertEquals(a, queue.getKey(0));
+		assertEquals(b, queue.getKey(queue.size() - 1));
+	}
+
+	@Test
+	public void randomKeysSortAsUnsignedNumbers() {
+		Random random = new Random(42L);
+		RenderQueue queue = new RenderQueue(16);
+		long[] expected = new long[1000];
+		for(int i = 0; i < expected.length; i++) {
+			expected[i] = random.nextLong();
+			queue.submit(expected[i], null);
+		}
+		queue.sort();
+
+		for(int i = 0; i < expected.length; i++) {
+			expected[i] ^= Long.MIN_VALUE;
+		}
+		Arrays.sort(expected);
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i] ^ Long.MIN_VALUE, queue.getKey(i));
+		}
+	}
+
+	@Test
+	public void clearEmptiesTheQueueForTheNextFrame() {
+		RenderQueue queue = new RenderQueue(2);
+		queue.sort();
+		queue.submit(5L, null);
+		queue.submit(1L, null);
+		queue.clear();
+		assertEquals(0, queue.size());
+		queue.flush();
+
+		queue.submit(9L, null);
+		queue.submit(3L, null);
+		queue.sort();
+		assertOrder(queue, 1, 0);
+	}
+
+	private static void assertOrder(RenderQueue queue, int... submissions) {
+		assertEquals(submissions.length, queue.size());
+		for(int i = 0; i < submissions.length; i++) {
+			assertEquals("draw " + i, submissions[i], queue.getSubmission(i));
+		}
+	}
+}
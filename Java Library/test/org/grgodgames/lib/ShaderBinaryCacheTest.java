@@ -0,0 +1,207 @@
+package org.grgodgames.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Shader binary cache test. Stores and loads entries in a temporary directory through a provider that
+ * keeps binaries in memory.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class ShaderBinaryCacheTest {
+	private static final String VERTEX   = "void main() { gl_Position = vec4(0.0); }\n";
+	private static final String FRAGMENT = "void main() { gl_FragColor = vec4(1.0); }\n";
+	private File                parent;
+	private File                directory;
+	private FakeProvider        provider;
+	private ShaderBinaryCache   cache;
+
+	@Before
+	public void setUp() throws IOException {
+		parent = Files.createTempDirectory("binaries").toFile();
+		directory = new File(parent, "cache");
+		provider = new FakeProvider("Vendor Renderer 1.0");
+		cache = new ShaderBinaryCache(directory, provider);
+	}
+
+	@After
+	public void tearDown() {
+		ShaderPreprocessorTest.delete(parent);
+	}
+
+	/** Link a program from source as a miss would, and store it. */
+	private String compileAndStore(ShaderBinaryCache cache, FakeProvider provider, int program) {
+		String key = cache.key(VERTEX, FRAGMENT);
+		assertFalse(cache.load(program, key));
+		cache.prepare(program);
+		provider.link(program, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		assertTrue(cache.store(program, key));
+		return key;
+	}
+
+	@Test
+	public void theKeyCoversTheDriverAndEverySource() {
+		String key = ShaderBinaryCache.keyOf("driver", VERTEX, FRAGMENT);
+		assertEquals(64, key.length());
+		assertEquals(key, ShaderBinaryCache.keyOf("driver", VERTEX, FRAGMENT));
+		assertNotEquals(key, ShaderBinaryCache.keyOf("other driver", VERTEX, FRAGMENT));
+		assertNotEquals(key, ShaderBinaryCache.keyOf("driver", FRAGMENT, VERTEX));
+		assertNotEquals(ShaderBinaryCache.keyOf("driver", "ab", "c"), ShaderBinaryCache.keyOf("driver", "a", "bc"));
+
+		assertEquals(ShaderBinaryCache.keyOf(provider.driver, VERTEX, FRAGMENT), cache.key(VERTEX, FRAGMENT));
+		cache.key(FRAGMENT, VERTEX);
+		assertEquals(1, provider.driverRequests);
+	}
+
+	@Test
+	public void anotherDriverMissesTheEntry() {
+		compileAndStore(cache, provider, 1);
+		FakeProvider updated = new FakeProvider("Vendor Renderer 1.1");
+		ShaderBinaryCache other = new ShaderBinaryCache(directory, updated);
+		assertFalse(other.load(2, other.key(VERTEX, FRAGMENT)));
+		assertEquals(1, other.getMissCount());
+		assertTrue(updated.loaded.isEmpty());
+	}
+
+	@Test
+	public void aStoredProgramLoadsBack() {
+		String key = compileAndStore(cache, provider, 1);
+		assertEquals(1, provider.retrievable.size());
+		assertTrue(cache.getFile(key).isFile());
+
+		assertTrue(cache.load(2, key));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		ProgramBinary binary = provider.loaded.get(0);
+		assertEquals(FakeProvider.FORMAT, binary.getFormat());
+		assertEquals(provider.binaries.get(1).getData(), binary.getData());
+	}
+
+	@Test
+	public void aChecksumMismatchFallsBackToACompile() throws IOException {
+		String key = compileAndStore(cache, provider, 1);
+		File file = cache.getFile(key);
+		try(RandomAccessFile corrupt = new RandomAccessFile(file, "rw")) {
+			corrupt.seek(corrupt.length() - 1);
+			corrupt.write(0x7F);
+		}
+
+		assertFalse(cache.load(2, key));
+		assertEquals(2, cache.getMissCount());
+		assertTrue(provider.loaded.isEmpty());
+		assertFalse(file.exists());
+		compileAndStore(cache, provider, 2);
+		assertTrue(cache.load(3, key));
+	}
+
+	@Test
+	public void aTruncatedFileIsDiscarded() throws IOException {
+		String key = compileAndStore(cache, provider, 1);
+		File file = cache.getFile(key);
+		try(RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+			truncated.setLength(10L);
+		}
+		assertFalse(cache.load(2, key));
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void aRejectedBinaryIsEvictedAndRecompiled() {
+		String key = compileAndStore(cache, provider, 1);
+		provider.rejecting = true;
+		assertFalse(cache.load(2, key));
+		assertEquals(1, cache.getRejectionCount());
+		assertFalse(cache.getFile(key).exists());
+
+		// the driver takes its own binary of the program compiled again
+		provider.rejecting = false;
+		cache.prepare(2);
+		provider.link(2, new byte[] {9, 10, 11});
+		assertTrue(cache.store(2, key));
+		assertTrue(cache.load(3, key));
+		assertEquals(provider.binaries.get(2).getData(), provider.loaded.get(0).getData());
+	}
+
+	@Test
+	public void programsWithoutABinaryAreNotStored() {
+		String key = cache.key(VERTEX, FRAGMENT);
+		cache.prepare(1);
+		assertFalse(cache.store(1, key));
+		assertFalse(directory.exists());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void keysMustBeHashes() {
+		cache.store(1, "not a key");
+	}
+
+	/** Keeps the binaries of linked programs in memory, and loads any binary in its own format. */
+	static final class FakeProvider implements ProgramBinaryProvider {
+		static final  int                         FORMAT      = 0x1234;
+		private final String                      driver;
+		private final List<Integer>               retrievable = new ArrayList<>();
+		private final Map<Integer, ProgramBinary> binaries    = new HashMap<>();
+		private final List<ProgramBinary>         loaded      = new ArrayList<>();
+		private       int                         driverRequests;
+		private       boolean                     rejecting;
+
+		FakeProvider(String driver) {
+			this.driver = driver;
+		}
+
+		void link(int program, byte[] data) {
+			if(retrievable.contains(program)) {
+				binaries.put(program, new ProgramBinary(FORMAT, ByteBuffer.wrap(data)));
+			}
+		}
+
+		@Override
+		public boolean isSupported() {
+			return true;
+		}
+
+		@Override
+		public String getDriver() {
+			driverRequests++;
+			return driver;
+		}
+
+		@Override
+		public void setRetrievable(int program) {
+			retrievable.add(program);
+		}
+
+		@Override
+		public ProgramBinary getBinary(int program) {
+			return binaries.get(program);
+		}
+
+		@Override
+		public boolean loadBinary(int program, ProgramBinary binary) {
+			if(rejecting || (binary.getFormat() != FORMAT)) {
+				return false;
+			}
+			loaded.add(binary);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package org.grgodgames.lib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Shader compile queue test. Drives a queue frame by frame against a compiler that finishes each program
+ * on a chosen frame, with a chosen result.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class ShaderCompileQueueTest {
+	private static final String BROKEN = "broken";
+
+	@Test
+	public void nothingIsIssuedBeforeTheFirstUpdate() {
+		FakeCompiler compiler = new FakeCompiler(true);
+		ShaderCompileQueue queue = new ShaderCompileQueue(compiler);
+		ShaderCompileJob job = queue.submit("plain", 1, "vertex", "fragment");
+		assertEquals(ShaderCompileState.QUEUED, job.getState());
+		assertTrue(compiler.sources.isEmpty());
+
+		assertEquals(0, queue.update(ShaderCompileQueue.DEFAULT_BUDGET));
+		assertEquals(ShaderCompileState.COMPILING, job.getState());
+		assertEquals(2, compiler.sources.size());
+		assertEquals(1, queue.size());
+	}
+
+	@Test
+	public void parallelJobsFinishOnTheFrameTheDriverIsDone() {
+		FakeCompiler compiler = new FakeCompiler(true);
+		ShaderCompileQueue queue = new ShaderCompileQueue(compiler);
+		compiler.readyOn(1, 3);
+		compiler.readyOn(2, 1);
+		ShaderCompileJob slow = queue.submit("slow", 1, "vertex", "fragment");
+		ShaderCompileJob fast = queue.submit("fast", 2, "vertex", "fragment");
+
+		assertEquals(0, queue.update(0L));
+		compiler.frame++;
+		assertEquals(1, queue.update(0L));
+		assertTrue(fast.isReady());
+		assertEquals(ShaderCompileState.COMPILING, slow.getState());
+		assertTrue(fast.toStage().toCompletableFuture().isDone());
+		assertFalse(slow.toStage().toCompletableFuture().isDone());
+
+		compiler.frame++;
+		assertEquals(0, queue.update(0L));
+		assertEquals(ShaderCompileState.COMPILING, slow.getState());
+		compiler.frame++;
+		assertEquals(1, queue.update(0L));
+		assertTrue(slow.isReady());
+		assertTrue(queue.isEmpty());
+		assertEquals(4, compiler.deleted.size());
+	}
+
+	@Test
+	public void failedJobsKeepTheLogAndDeleteTheirShaders() {
+		FakeCompiler compiler = new FakeCompiler(true);
+		ShaderCompileQueue queue = new ShaderCompileQueue(compiler);
+		compiler.readyOn(1, 1);
+		ShaderCompileJob job = queue.submit("broken", 1, BROKEN, "fragment");
+		queue.update(0L);
+		compiler.frame++;
+		assertEquals(1, queue.update(0L));
+
+		assertEquals(ShaderCompileState.FAILED, job.getState());
+		assertFalse(job.isReady());
+		assertTrue(job.getLog(), job.getLog().startsWith("Vertex shader: log of 1\n"));
+		assertFalse(job.getLog().contains("Fragment shader"));
+		assertTrue(job.getLog().endsWith("Program: log of program 1"));
+		assertEquals(2, compiler.deleted.size());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void cancelledJobsAreReleasedOnTheNextUpdate() {
+		FakeCompiler compiler = new FakeCompiler(true);
+		ShaderCompileQueue queue = new ShaderCompileQueue(compiler);
+		compiler.readyOn(1, 5);
+		ShaderCompileJob issued = queue.submit("issued", 1, "vertex", "fragment");
+		queue.update(0L);
+		ShaderCompileJob queued = queue.submit("queued", 2, "vertex", "fragment");
+
+		assertTrue(issued.cancel());
+		assertTrue(queued.cancel());
+		assertFalse(queued.cancel());
+		assertEquals(0, queue.update(0L));
+		assertEquals(ShaderCompileState.CANCELLED, issued.getState());
+		assertEquals(ShaderCompileState.CANCELLED, queued.getState());
+		assertEquals(2, compiler.sources.size());
+		assertEquals(2, compiler.deleted.size());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void aForegroundCompilerSpreadsJobsOverFrames() {
+		FakeCompiler compiler = new FakeCompiler(false);
+		ShaderCompileQueue queue = new ShaderCompileQueue(compiler);
+		List<ShaderCompileJob> jobs = new ArrayList<>();
+		for(int i = 1; i <= 3; i++) {
+			jobs.add(queue.submit("job " + i, i, "vertex", "fragment"));
+		}
+
+		// a spent budget still moves one job a frame
+		assertEquals(0, queue.update(0L));
+		assertEquals(2, compiler.sources.size());
+		for(int frame = 0; frame < 3; frame++) {
+			assertEquals(1, queue.update(0L));
+			assertTrue(jobs.get(frame).isReady());
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void finishResolvesAJobAtOnce() {
+		FakeCompiler compiler = new FakeCompiler(true);
+		ShaderCompileQueue queue = new ShaderCompileQueue(compiler);
+		compiler.readyOn(1, 10);
+		ShaderCompileJob job = queue.submit("now", 1, "vertex", "fragment");
+		queue.finish(job);
+		assertTrue(job.isReady());
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.update(0L));
+	}
+
+	/**
+	 * Compiles nothing. Each program completes on the frame it was given, 0 by default, and links unless a shader's
+	 * source is {@link #BROKEN}.
+	 */
+	static final class FakeCompiler implements ShaderCompiler {
+		private final boolean               parallel;
+		private final Map<Integer, Integer> readyFrames = new HashMap<>();
+		private final List<CharSequence>    sources     = new ArrayList<>();
+		private final List<Integer>         deleted     = new ArrayList<>();
+		private final Map<Integer, Boolean> linked      = new HashMap<>();
+		private       int                   frame;
+
+		FakeCompiler(boolean parallel) {
+			this.parallel = parallel;
+		}
+
+		void readyOn(int program, int readyFrame) {
+			readyFrames.put(program, readyFrame);
+		}
+
+		@Override
+		public boolean isParallel() {
+			return parallel;
+		}
+
+		@Override
+		public int compileShader(int type, CharSequence source) {
+			sources.add(source);
+			return sources.size();
+		}
+
+		@Override
+		public void linkProgram(int program, int... shaders) {
+			boolean links = true;
+			for(int shader : shaders) {
+				links &= getCompileStatus(shader);
+			}
+			linked.put(program, links);
+		}
+
+		@Override
+		public boolean isComplete(int program) {
+			Integer readyFrame = readyFrames.get(program);
+			return (readyFrame == null) || (frame >= readyFrame);
+		}
+
+		@Override
+		public boolean getCompileStatus(int shader) {
+			return !BROKEN.contentEquals(sources.get(shader - 1));
+		}
+
+		@Override
+		public boolean getLinkStatus(int program) {
+			return linked.get(program);
+		}
+
+		@Override
+		public String getShaderLog(int shader) {
+			return "log of " + shader;
+		}
+
+		@Override
+		public String getProgramLog(int program) {
+			return "log of program " + program;
+		}
+
+		@Override
+		public void deleteShader(int shader) {
+			deleted.add(shader);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package org.grgodgames.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * The type Shader permutations test. Shaders are only made here, never initialized, so no context is needed.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class ShaderPermutationsTest {
+	private File                           directory;
+	private File                           vertex;
+	private File                           fragment;
+	private Factory                        factory;
+	private ShaderPermutations<TestShader> permutations;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("permutations").toFile().getCanonicalFile();
+		vertex = ShaderPreprocessorTest.write(directory, "lit.vert", "void main() {}\n");
+		fragment = ShaderPreprocessorTest.write(directory, "lit.frag", "void main() {}\n");
+		factory = new Factory();
+		permutations = new ShaderPermutations<>(factory);
+	}
+
+	@After
+	public void tearDown() {
+		ShaderPreprocessorTest.delete(directory);
+	}
+
+	@Test
+	public void eachDefineSetIsMadeOnce() throws IOException {
+		Map<String, String> first = new LinkedHashMap<>();
+		first.put("LIGHTS", "4");
+		first.put("FOG", "");
+		Map<String, String> second = new LinkedHashMap<>();
+		second.put("FOG", null);
+		second.put("LIGHTS", "4");
+
+		TestShader shader = permutations.get(vertex, fragment, first);
+		assertSame(shader, permutations.get(vertex, fragment, second));
+		assertSame(shader, permutations.get(new File(directory, "../" + directory.getName() + "/lit.vert"), fragment,
+		                                    first));
+		assertEquals(1, factory.made.size());
+		assertEquals(1, permutations.getMissCount());
+		assertEquals(2, permutations.getHitCount());
+	}
+
+	@Test
+	public void everyCombinationIsItsOwnVariant() throws IOException {
+		String[] flags = {"FOG", "SKINNED", "SHADOWS"};
+		List<TestShader> shaders = new ArrayList<>();
+		for(int mask = 0; mask < (1 << flags.length); mask++) {
+			Map<String, String> defines = new HashMap<>();
+			for(int f = 0; f < flags.length; f++) {
+				if((mask & (1 << f)) != 0) {
+					defines.put(flags[f], "");
+				}
+			}
+			shaders.add(permutations.get(vertex, fragment, defines));
+		}
+		assertEquals(1 << flags.length, permutations.size());
+		for(int i = 0; i < shaders.size(); i++) {
+			for(int j = i + 1; j < shaders.size(); j++) {
+				assertNotSame(shaders.get(i), shaders.get(j));
+			}
+		}
+
+		// the factory sees canonical files and the checked, sorted defines
+		TestShader all = shaders.get(shaders.size() - 1);
+		assertEquals(vertex, all.vertex);
+		assertEquals(fragment, all.fragment);
+		assertEquals("[FOG, SHADOWS, SKINNED]", all.defines.keySet().toString());
+		assertEquals("", all.defines.get("FOG"));
+	}
+
+	@Test
+	public void swappedSourcesAreAnotherVariant() throws IOException {
+		Map<String, String> none = Collections.emptyMap();
+		assertNotSame(permutations.get(vertex, fragment, none), permutations.get(fragment, vertex, none));
+		assertEquals(2, permutations.size());
+	}
+
+	/** Takes shaders without initializing them. */
+	static final class Recorder implements Handler<Shader> {
+		static final Recorder INSTANCE = new Recorder();
+
+		@Override
+		public void init() {
+		}
+
+		@Override
+		public void update(double delta) {
+		}
+
+		@Override
+		public void destroy() {
+		}
+
+		@Override
+		public void tick() {
+		}
+
+		@Override
+		public void addObject(Shader shader) {
+		}
+	}
+
+	/** A shader remembering what it was made from. */
+	static final class TestShader extends Shader {
+		private final File                      vertex;
+		private final File                      fragment;
+		private final SortedMap<String, String> defines;
+
+		TestShader(File vertex, File fragment, SortedMap<String, String> defines) {
+			super(vertex, fragment, defines);
+			this.vertex = vertex;
+			this.fragment = fragment;
+			this.defines = defines;
+		}
+
+		@Override
+		protected Handler<Shader> getHandler() {
+			return Recorder.INSTANCE;
+		}
+
+		@Override
+		public void update(double delta) {
+		}
+
+		@Override
+		public void tick() {
+		}
+	}
+
+	/** Makes a test shader for each variant, recording each one. */
+	static final class Factory implements ShaderPermutations.Factory<TestShader> {
+		private final List<TestShader> made = new ArrayList<>();
+
+		@Override
+		public TestShader create(File vertexSource, File fragmentSource, SortedMap<String, String> defines) {
+			TestShader shader = new TestShader(vertexSource, fragmentSource, defines);
+			made.add(shader);
+			return shader;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package org.grgodgames.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Shader preprocessor test. Expands small sources written to a temporary directory.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class ShaderPreprocessorTest {
+	private static final Map<String, String> NONE = Collections.emptyMap();
+	private File                             directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("shaders").toFile().getCanonicalFile();
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	static void delete(File file) {
+		File[] files = file.listFiles();
+		if(files != null) {
+			for(File child : files) {
+				delete(child);
+			}
+		}
+		assertTrue(file.delete());
+	}
+
+	static File write(File directory, String name, String text) throws IOException {
+		File file = new File(directory, name);
+		File parent = file.getParentFile();
+		if(!parent.isDirectory()) {
+			assertTrue(parent.mkdirs());
+		}
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void includesAreReplacedWithLineDirectives() throws IOException {
+		File root = write(directory, "root.vert", "#version 330\n#include \"common.glsl\"\nvoid main() {}\n");
+		write(directory, "common.glsl", "float f;\n");
+		assertEquals("#version 330\n#line 2 0\n#line 1 1\nfloat f;\n#line 3 0\nvoid main() {}\n",
+		             ShaderPreprocessor.expand(root, NONE));
+	}
+
+	@Test
+	public void includesAreFoundNextToTheIncludingFile() throws IOException {
+		File root = write(directory, "root.frag", "#include \"lib/a.glsl\"\n");
+		write(directory, "lib/a.glsl", "#include \"b.glsl\"\nint a;\n");
+		write(directory, "lib/b.glsl", "int b;\n");
+		write(directory, "b.glsl", "int wrong;\n");
+		assertEquals("#line 1 1\n#line 1 2\nint b;\n#line 2 1\nint a;\n#line 2 0\n",
+		             ShaderPreprocessor.expand(root, NONE));
+	}
+
+	@Test
+	public void includeCyclesExpandEachFileOnce() throws IOException {
+		File root = write(directory, "root.vert", "#include \"a.glsl\"\nvoid main() {}\n");
+		write(directory, "a.glsl", "#include \"b.glsl\"\nint a;\n");
+		write(directory, "b.glsl", "#include \"a.glsl\"\n#include \"b.glsl\"\nint b;\n");
+		String expanded = ShaderPreprocessor.expand(root, NONE);
+		assertEquals("#line 1 1\n#line 1 2\n\n\nint b;\n#line 2 1\nint a;\n#line 2 0\nvoid main() {}\n", expanded);
+	}
+
+	@Test
+	public void aMissingIncludeNamesTheFileAndLine() throws IOException {
+		File root = write(directory, "root.vert", "void main() {}\n#include \"missing.glsl\"\n");
+		try {
+			ShaderPreprocessor.expand(root, NONE);
+			fail("the include was found");
+		} catch(IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith(root + ":2: "));
+		}
+	}
+
+	@Test
+	public void definesGoRightAfterTheVersion() throws IOException {
+		File root = write(directory, "root.vert", "// header\n#version 330 core\nvoid main() {}\n");
+		Map<String, String> defines = new HashMap<>();
+		defines.put("SKINNED", "");
+		defines.put("LIGHTS", "4");
+		assertEquals("// header\n#version 330 core\n#define LIGHTS 4\n#define SKINNED\n#line 3 0\nvoid main() {}\n",
+		             ShaderPreprocessor.expand(root, defines));
+	}
+
+	@Test
+	public void definesGoOnTopWithoutAVersion() throws IOException {
+		File root = write(directory, "root.vert", "void main() {}\n");
+		assertEquals("#define FOG 1\n#line 1 0\nvoid main() {}\n",
+		             ShaderPreprocessor.expand(root, Collections.singletonMap("FOG", "1")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void defineNamesMustBeIdentifiers() {
+		ShaderPreprocessor.toDefines(Collections.singletonMap("2D", ""));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void defineValuesMustBeOneLine() {
+		ShaderPreprocessor.toDefines(Collections.singletonMap("VALUE", "1\n#define OTHER"));
+	}
+
+	@Test
+	public void expansionsAreCachedByFileAndDefines() throws IOException {
+		File root = write(directory, "root.vert", "#include \"common.glsl\"\n");
+		File common = write(directory, "common.glsl", "float f;\n");
+		ShaderPreprocessor preprocessor = new ShaderPreprocessor();
+		String plain = preprocessor.get(root, NONE);
+		assertEquals(plain, preprocessor.get(new File(directory, "./root.vert"), NONE));
+		preprocessor.get(root, Collections.singletonMap("FOG", ""));
+		assertEquals(1, preprocessor.getHitCount());
+		assertEquals(2, preprocessor.getMissCount());
+		assertEquals(2, preprocessor.size());
+
+		List<File> files = preprocessor.getFiles(root, NONE);
+		assertEquals(2, files.size());
+		assertEquals(root, files.get(0));
+		assertEquals(common, files.get(1));
+	}
+
+	@Test
+	public void refreshReadsChangesTheModificationTimeMissed() throws IOException {
+		File root = write(directory, "root.vert", "#include \"common.glsl\"\n");
+		File common = write(directory, "common.glsl", "float f;\n");
+		ShaderPreprocessor preprocessor = new ShaderPreprocessor();
+		String before = preprocessor.get(root, NONE);
+		long modified = common.lastModified();
+		write(directory, "common.glsl", "float g;\n");
+		assertTrue(common.setLastModified(modified));
+		assertEquals(before, preprocessor.get(root, NONE));
+
+		String after = preprocessor.refresh(root, NONE);
+		assertEquals("#line 1 1\nfloat g;\n#line 2 0\n", after);
+		assertEquals(after, preprocessor.get(root, NONE));
+		assertEquals(2, preprocessor.getHitCount());
+		assertEquals(2, preprocessor.getMissCount());
+	}
+}
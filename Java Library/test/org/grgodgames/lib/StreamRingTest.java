@@ -0,0 +1,154 @@
+package org.grgodgames.lib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Stream ring test. Runs a ring against fences that only signal when the test says the GPU got to them.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class StreamRingTest {
+	private static final int                 SEGMENTS     = 3;
+	private static final int                 SEGMENT_SIZE = 256;
+	private              FakeFences          fences;
+	private              StreamRing<Integer> ring;
+
+	@Before
+	public void setUp() {
+		fences = new FakeFences();
+		ring = new StreamRing<>(fences, SEGMENTS, SEGMENT_SIZE);
+	}
+
+	/** Acquire a segment and fence it, as one frame of a render does. */
+	private int frame() {
+		int segment = ring.acquire(SEGMENT_SIZE);
+		ring.release();
+		return segment;
+	}
+
+	@Test
+	public void segmentsAreHandedOutInTurnAndWrapAround() {
+		assertEquals(-1, ring.getCurrent());
+		for(int i = 0; i < (SEGMENTS * 2) + 1; i++) {
+			fences.signalAll();
+			assertEquals(i % SEGMENTS, frame());
+			assertEquals((long) (i % SEGMENTS) * SEGMENT_SIZE, ring.getOffset(ring.getCurrent()));
+		}
+		assertEquals(SEGMENTS * SEGMENT_SIZE, ring.getSize());
+		assertEquals(0, ring.getStalls());
+	}
+
+	@Test
+	public void aSegmentStillReadIsWaitedFor() {
+		for(int i = 0; i < SEGMENTS; i++) {
+			frame();
+		}
+		// the GPU has not finished the first frame
+		assertEquals(0, ring.acquire(SEGMENT_SIZE));
+		assertEquals(1, ring.getStalls());
+		assertEquals(1, fences.awaited.size());
+		assertEquals(fences.inserted.get(0), fences.awaited.get(0));
+		assertTrue(fences.deleted.contains(fences.inserted.get(0)));
+	}
+
+	@Test
+	public void aSignaledSegmentIsReusedWithoutWaiting() {
+		for(int i = 0; i < SEGMENTS; i++) {
+			frame();
+		}
+		fences.signal(fences.inserted.get(0));
+		assertEquals(0, frame());
+		assertEquals(0, ring.getStalls());
+		assertTrue(fences.awaited.isEmpty());
+		assertTrue(fences.deleted.contains(fences.inserted.get(0)));
+		assertEquals(SEGMENTS + 1, fences.inserted.size());
+	}
+
+	@Test
+	public void releasingTwiceReplacesTheFence() {
+		ring.acquire(SEGMENT_SIZE);
+		ring.release();
+		ring.release();
+		assertEquals(2, fences.inserted.size());
+		assertEquals(1, fences.deleted.size());
+		assertEquals(fences.inserted.get(0), fences.deleted.get(0));
+	}
+
+	@Test
+	public void clearDeletesEveryPendingFence() {
+		frame();
+		frame();
+		ring.clear();
+		assertEquals(2, fences.deleted.size());
+		assertEquals(-1, ring.getCurrent());
+		// nothing is left to wait for
+		assertEquals(0, ring.acquire(SEGMENT_SIZE));
+		assertEquals(0, ring.getStalls());
+	}
+
+	@Test
+	public void aWriteThatFitsIsAccepted() {
+		assertEquals(0, ring.acquire(0));
+		assertEquals(1, ring.acquire(SEGMENT_SIZE - 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void aWriteLargerThanASegmentIsRejected() {
+		ring.acquire(SEGMENT_SIZE + 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void aRingNeedsASegment() {
+		new StreamRing<>(fences, 0, SEGMENT_SIZE);
+	}
+
+	/** Numbers its fences and signals them only when told to, or when awaited. */
+	static final class FakeFences implements FenceSource<Integer> {
+		private final List<Integer> inserted = new ArrayList<>();
+		private final List<Integer> awaited  = new ArrayList<>();
+		private final List<Integer> deleted  = new ArrayList<>();
+		private final Set<Integer>  signaled = new HashSet<>();
+
+		void signal(Integer fence) {
+			signaled.add(fence);
+		}
+
+		void signalAll() {
+			signaled.addAll(inserted);
+		}
+
+		@Override
+		public Integer insert() {
+			Integer fence = inserted.size();
+			inserted.add(fence);
+			return fence;
+		}
+
+		@Override
+		public boolean isSignaled(Integer fence) {
+			return signaled.contains(fence);
+		}
+
+		@Override
+		public void await(Integer fence) {
+			awaited.add(fence);
+			signaled.add(fence);
+		}
+
+		@Override
+		public void delete(Integer fence) {
+			deleted.add(fence);
+		}
+	}
+}
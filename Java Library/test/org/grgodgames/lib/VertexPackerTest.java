@@ -0,0 +1,133 @@
+package org.grgodgames.lib;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Vertex packer test. Packs the normals of a sphere into each normal encoding and checks the round trip
+ * error, then the padding of components the source does not have.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class VertexPackerTest {
+	private static final double SHORT_MAX      = 1.0 / (2.0 * Short.MAX_VALUE);
+	private static final double BYTE_MAX       = 1.0 / (2.0 * Byte.MAX_VALUE);
+	private static final double SNORM10_MAX    = 1.0 / 1022.0;
+	/** The largest angle between a normal and its octahedral round trip, in degrees. */
+	private static final double OCTAHEDRAL_MAX = 0.005;
+	private static final double EPSILON        = 1.0e-12;
+
+	/**
+	 * Pack the sphere's normals as the second element of a format, after a float position.
+	 *
+	 * @return the interleaved buffer
+	 */
+	private static ByteBuffer packNormals(VertexFormat format, double[][] normals) {
+		DoubleBuffer source = DoubleBuffer.allocate(normals.length * 3);
+		for(double[] normal : normals) {
+			source.put(normal);
+		}
+		ByteBuffer target = ByteBuffer.allocate(normals.length * format.getStride()).order(ByteOrder.nativeOrder());
+		VertexPacker.pack(format, 1, source, 3, 0, normals.length, target);
+		return target;
+	}
+
+	private static VertexFormat normalFormat(VertexElement normal) {
+		return new VertexFormat(new VertexElement(VertexAttribute.POSITION, ComponentType.FLOAT, 3), normal);
+	}
+
+	private static double worstComponent(ComponentType type, double scale) {
+		VertexFormat format = normalFormat(new VertexElement(VertexAttribute.NORMAL, type, 3));
+		double[][] normals = AttributeEncoderTest.sphere();
+		ByteBuffer target = packNormals(format, normals);
+		double worst = 0.0;
+		for(int v = 0; v < normals.length; v++) {
+			int position = (v * format.getStride()) + format.getOffset(1);
+			for(int c = 0; c < 3; c++) {
+				int at = position + (c * type.getSize());
+				double raw = (type == ComponentType.SHORT) ? target.getShort(at) : target.get(at);
+				worst = Math.max(worst, Math.abs((raw / scale) - normals[v][c]));
+			}
+		}
+		return worst;
+	}
+
+	@Test
+	public void shortNormalsStayWithinHalfAStep() {
+		double worst = worstComponent(ComponentType.SHORT, Short.MAX_VALUE);
+		assertTrue("worst error " + worst, worst <= SHORT_MAX);
+	}
+
+	@Test
+	public void byteNormalsStayWithinHalfAStep() {
+		double worst = worstComponent(ComponentType.BYTE, Byte.MAX_VALUE);
+		assertTrue("worst error " + worst, worst <= BYTE_MAX);
+	}
+
+	@Test
+	public void packedNormalsStayWithinTheirErrorAndZeroW() {
+		VertexFormat format =
+			normalFormat(new VertexElement(VertexAttribute.NORMAL, ComponentType.INT_2_10_10_10_REV, 3));
+		double[][] normals = AttributeEncoderTest.sphere();
+		ByteBuffer target = packNormals(format, normals);
+		double[] decoded = new double[4];
+		double worst = 0.0;
+		for(int v = 0; v < normals.length; v++) {
+			AttributeEncoder.unpackSnorm1010102(target.getInt((v * format.getStride()) + format.getOffset(1)), decoded);
+			for(int c = 0; c < 3; c++) {
+				worst = Math.max(worst, Math.abs(decoded[c] - normals[v][c]));
+			}
+			assertEquals(0.0, decoded[3], EPSILON);
+		}
+		assertTrue("worst error " + worst, worst <= SNORM10_MAX);
+	}
+
+	@Test
+	public void octahedralNormalsStayWithinTheirAngle() {
+		VertexFormat format = normalFormat(VertexElement.octahedralNormal());
+		double[][] normals = AttributeEncoderTest.sphere();
+		ByteBuffer target = packNormals(format, normals);
+		double[] decoded = new double[3];
+		double worst = 0.0;
+		for(int v = 0; v < normals.length; v++) {
+			AttributeEncoder.decodeOctahedral(target.getInt((v * format.getStride()) + format.getOffset(1)), decoded);
+			worst = Math.max(worst, AttributeEncoderTest.angle(normals[v], decoded));
+		}
+		assertTrue("worst angle " + worst, worst < OCTAHEDRAL_MAX);
+	}
+
+	@Test
+	public void positionsPadZWithZeroAndWWithOne() {
+		VertexFormat format = new VertexFormat(new VertexElement(VertexAttribute.POSITION, ComponentType.FLOAT, 4));
+		DoubleBuffer source = DoubleBuffer.wrap(new double[] {1.5, -2.5});
+		ByteBuffer target = ByteBuffer.allocate(format.getStride()).order(ByteOrder.nativeOrder());
+		VertexPacker.pack(format, 0, source, 2, 0, 1, target);
+		assertEquals(1.5, target.getFloat(0), EPSILON);
+		assertEquals(-2.5, target.getFloat(4), EPSILON);
+		assertEquals(0.0, target.getFloat(8), EPSILON);
+		assertEquals(1.0, target.getFloat(12), EPSILON);
+	}
+
+	@Test
+	public void colorsPadAlphaWithOne() {
+		VertexFormat format =
+			new VertexFormat(new VertexElement(VertexAttribute.POSITION, ComponentType.FLOAT, 2),
+			                 new VertexElement(VertexAttribute.COLOR, ComponentType.UNSIGNED_BYTE, 4));
+		ByteBuffer source = ByteBuffer.wrap(new byte[] {(byte) 0x10, (byte) 0x80, (byte) 0xF0});
+		ByteBuffer target = ByteBuffer.allocate(format.getStride()).order(ByteOrder.nativeOrder());
+		VertexPacker.pack(format, 1, source, 3, 0, 1, target);
+		int color = format.getOffset(1);
+		assertEquals(0x10, target.get(color) & 0xFF);
+		assertEquals(0x80, target.get(color + 1) & 0xFF);
+		assertEquals(0xF0, target.get(color + 2) & 0xFF);
+		assertEquals(0xFF, target.get(color + 3) & 0xFF);
+	}
+}
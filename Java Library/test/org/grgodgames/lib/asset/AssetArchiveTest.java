@@ -0,0 +1,283 @@
+package org.grgodgames.lib.asset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Asset archive test. Packs loose files with an {@link AssetPacker}, opens them as an {@link AssetArchive}
+ * and rewrites index records to give names the same hash or to point outside the file.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class AssetArchiveTest {
+	private static final String[] NAMES = {"a", "ab", "abc", "dir/b", "dir/c"};
+	private              File     directory;
+	private              File     archive;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("assets").toFile();
+		archive = new File(directory, "assets.pack");
+	}
+
+	@After
+	public void tearDown() {
+		delete(directory);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if(children != null) {
+			for(File child : children) {
+				delete(child);
+			}
+		}
+		assertTrue(file.delete());
+	}
+
+	private File file(String name, byte[] bytes) throws IOException {
+		File file = new File(directory, "loose/" + name);
+		assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+		Files.write(file.toPath(), bytes);
+		return file;
+	}
+
+	/** Bytes that deflate well. */
+	private static byte[] text(int size) {
+		byte[] bytes = new byte[size];
+		for(int i = 0; i < size; i++) {
+			bytes[i] = (byte) ('a' + ((i / 7) % 5));
+		}
+		return bytes;
+	}
+
+	/** Bytes that do not deflate. */
+	private static byte[] noise(int size, long seed) {
+		byte[] bytes = new byte[size];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] bytesOf(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	/** Pack every name, each entry its own name repeated so reads show which entry they found. */
+	private void packNames() throws IOException {
+		AssetPacker packer = new AssetPacker(false);
+		for(String name : NAMES) {
+			packer.add(name, file(name, (name + name).getBytes(StandardCharsets.UTF_8)));
+		}
+		packer.write(archive);
+	}
+
+	private void patch(long position, ByteBuffer bytes) throws IOException {
+		try(RandomAccessFile out = new RandomAccessFile(archive, "rw")) {
+			out.getChannel().write(bytes, position);
+		}
+	}
+
+	private void patchRecord(int record, int field, ByteBuffer value) throws IOException {
+		value.order(AssetArchive.ORDER);
+		patch(AssetArchive.HEADER_SIZE + ((long) record * AssetArchive.INDEX_ENTRY) + field, value);
+	}
+
+	private void assertInvalid(String reason) {
+		try {
+			AssetArchive.open(archive);
+			fail(reason);
+		} catch(IOException expected) {
+			assertTrue(expected.getMessage(), expected.getMessage().contains(reason));
+		}
+	}
+
+	@Test
+	public void storedAndDeflatedEntriesRoundTrip() throws IOException {
+		byte[] text = text(10_000);
+		byte[] noise = noise(5_000, 1L);
+		AssetPacker packer = new AssetPacker(true);
+		packer.add("models/text.obj", file("text.obj", text));
+		packer.add("textures/noise.bin", file("noise.bin", noise));
+		packer.add("empty", file("empty", new byte[0]));
+		packer.write(archive);
+		assertEquals(0L, archive.length() % AssetArchive.ALIGNMENT);
+
+		AssetArchive opened = AssetArchive.open(archive);
+		assertEquals(3, opened.size());
+		ByteBuffer deflated = opened.read("models/text.obj");
+		ByteBuffer stored = opened.read("textures/noise.bin");
+		assertArrayEquals(text, bytesOf(deflated));
+		assertArrayEquals(noise, bytesOf(stored));
+		assertEquals(0, opened.read("empty").remaining());
+		assertTrue(archive.length() < (text.length + noise.length));
+
+		assertFalse(deflated.isReadOnly());
+		assertTrue(stored.isReadOnly());
+		assertTrue(stored.isDirect());
+		assertTrue(opened.getNames().containsAll(Arrays.asList("models/text.obj", "textures/noise.bin", "empty")));
+		assertEquals(new File(archive, "empty"), opened.getFile("empty"));
+	}
+
+	@Test
+	public void directoriesArePackedByTheirRelativePaths() throws IOException {
+		file("top.txt", text(10));
+		file("sub/inner.txt", text(20));
+		AssetPacker packer = new AssetPacker(false);
+		packer.addDirectory(new File(directory, "loose"));
+		packer.write(archive);
+
+		AssetArchive opened = AssetArchive.open(archive);
+		assertTrue(opened.contains("top.txt"));
+		assertTrue(opened.contains("sub/inner.txt"));
+		assertEquals(20, opened.read("sub/inner.txt").remaining());
+	}
+
+	@Test
+	public void entriesStartAligned() throws IOException {
+		packNames();
+		try(RandomAccessFile in = new RandomAccessFile(archive, "r")) {
+			for(int i = 0; i < NAMES.length; i++) {
+				ByteBuffer offset = ByteBuffer.allocate(Long.BYTES).order(AssetArchive.ORDER);
+				in.getChannel().read(offset, AssetArchive.HEADER_SIZE + (i * AssetArchive.INDEX_ENTRY) + 8);
+				assertEquals(0L, offset.getLong(0) % AssetArchive.ALIGNMENT);
+			}
+		}
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void missingEntriesAreNotFound() throws IOException {
+		packNames();
+		AssetArchive opened = AssetArchive.open(archive);
+		assertFalse(opened.contains("abcd"));
+		opened.read("abcd");
+	}
+
+	@Test
+	public void badNamesAreRejected() throws IOException {
+		AssetPacker packer = new AssetPacker(false);
+		File file = file("x", new byte[1]);
+		packer.add("x", file);
+		try {
+			packer.add("x", file);
+			fail("duplicate");
+		} catch(IllegalArgumentException expected) {
+			assertEquals(1, packer.size());
+		}
+		try {
+			packer.add("", file);
+			fail("empty");
+		} catch(IllegalArgumentException expected) {
+			assertEquals(1, packer.size());
+		}
+	}
+
+	@Test
+	public void namesSharingAHashAreToldApartByTheirBytes() throws IOException {
+		for(String target : NAMES) {
+			packNames();
+			// every record takes the target's hash but keeps its own name, as if all five collided
+			long hash = AssetArchive.hash(target.getBytes(StandardCharsets.UTF_8));
+			for(int i = 0; i < NAMES.length; i++) {
+				ByteBuffer value = ByteBuffer.allocate(Long.BYTES).order(AssetArchive.ORDER);
+				value.putLong(0, hash);
+				patchRecord(i, 0, value);
+			}
+
+			AssetArchive opened = AssetArchive.open(archive);
+			assertEquals(target + target, new String(bytesOf(opened.read(target)), StandardCharsets.UTF_8));
+			for(String other : NAMES) {
+				assertEquals(other, other.equals(target), opened.contains(other));
+			}
+		}
+	}
+
+	@Test
+	public void anEntryPastTheEndIsRejected() throws IOException {
+		packNames();
+		ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+		offset.order(AssetArchive.ORDER).putLong(0, archive.length());
+		patchRecord(2, 8, offset);
+		assertInvalid("an entry lies outside the file");
+	}
+
+	@Test
+	public void aNegativeSizeIsRejected() throws IOException {
+		packNames();
+		ByteBuffer size = ByteBuffer.allocate(Integer.BYTES);
+		size.order(AssetArchive.ORDER).putInt(0, -1);
+		patchRecord(0, 16, size);
+		assertInvalid("an entry lies outside the file");
+	}
+
+	@Test
+	public void aNameOutsideTheNamesIsRejected() throws IOException {
+		packNames();
+		ByteBuffer nameOffset = ByteBuffer.allocate(Integer.BYTES);
+		nameOffset.order(AssetArchive.ORDER).putInt(0, 1 << 20);
+		patchRecord(1, 24, nameOffset);
+		assertInvalid("a name lies outside the names");
+	}
+
+	@Test
+	public void anUnknownMethodIsRejected() throws IOException {
+		packNames();
+		patchRecord(3, 30, ByteBuffer.wrap(new byte[]{7}));
+		assertInvalid("the unknown method 7");
+	}
+
+	@Test
+	public void aStoredEntryMustKeepItsSize() throws IOException {
+		packNames();
+		ByteBuffer size = ByteBuffer.allocate(Integer.BYTES);
+		size.order(AssetArchive.ORDER).putInt(0, 1);
+		patchRecord(0, 20, size);
+		assertInvalid("the unknown method 0");
+	}
+
+	@Test
+	public void anUnsortedIndexIsRejected() throws IOException {
+		packNames();
+		ByteBuffer hash = ByteBuffer.allocate(Long.BYTES);
+		hash.order(AssetArchive.ORDER).putLong(0, Long.MAX_VALUE);
+		patchRecord(0, 0, hash);
+		assertInvalid("the index is not sorted");
+	}
+
+	@Test
+	public void aHeaderThatDisagreesWithTheIndexIsRejected() throws IOException {
+		packNames();
+		ByteBuffer count = ByteBuffer.allocate(Integer.BYTES);
+		count.order(AssetArchive.ORDER).putInt(0, NAMES.length + 1);
+		patch(12L, count);
+		assertInvalid("the index lies outside the file");
+	}
+
+	@Test
+	public void otherFilesAreRejected() throws IOException {
+		Files.write(archive.toPath(), new byte[8]);
+		assertInvalid("shorter than the header");
+		Files.write(archive.toPath(), new byte[AssetArchive.HEADER_SIZE]);
+		assertInvalid("not an asset archive");
+	}
+}
@@ -0,0 +1,171 @@
+package org.grgodgames.lib.asset;
+
+import org.grgodgames.lib.BufferProvider;
+import org.grgodgames.lib.BufferUsage;
+import org.grgodgames.lib.MeshBuffers;
+import org.grgodgames.lib.RecordingBufferProvider;
+import org.grgodgames.lib.mesh.Mesh;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_SHORT;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.GL_ELEMENT_ARRAY_BUFFER;
+
+/**
+ * The type Mesh asset test. Loads a mesh through an {@link AssetLoader} whose uploads run on an
+ * {@link UploadQueue} drained by the test thread, standing in for the render thread, against a recording
+ * {@link BufferProvider}.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class MeshAssetTest {
+	private static final long                    TIMEOUT = TimeUnit.SECONDS.toNanos(10L);
+	private static final String                  QUAD    = "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf 1 2 3\nf 1 3 4\n";
+	private              File                    source;
+	private              UploadQueue             queue;
+	private              AssetLoader             loader;
+	private              RecordingBufferProvider provider;
+
+	@Before
+	public void setUp() throws IOException {
+		source = File.createTempFile("quad", ".obj");
+		Files.write(source.toPath(), QUAD.getBytes(StandardCharsets.US_ASCII));
+		queue = new UploadQueue();
+		loader = new AssetLoader(queue, 1);
+		provider = new RecordingBufferProvider();
+	}
+
+	@After
+	public void tearDown() {
+		loader.shutdown();
+		assertTrue(source.delete());
+	}
+
+	/** Drain the queue on this thread until the load is done. */
+	private void drainUntilDone(CompletionStage<?> stage) throws InterruptedException {
+		long start = System.nanoTime();
+		while(!stage.toCompletableFuture().isDone()) {
+			assertTrue("the load timed out", (System.nanoTime() - start) < TIMEOUT);
+			queue.drain(Long.MAX_VALUE);
+			Thread.sleep(1L);
+		}
+	}
+
+	@Test
+	public void buffersAreOnlyCreatedWhenTheQueueIsDrained() throws Exception {
+		AssetHandle<MeshBuffers> handle = loader.load(source, new MeshAsset(false, provider));
+		long start = System.nanoTime();
+		while(queue.isEmpty()) {
+			assertTrue("the decode timed out", (System.nanoTime() - start) < TIMEOUT);
+			Thread.sleep(1L);
+		}
+		assertEquals(AssetState.UPLOADING, handle.getState());
+		assertTrue(provider.targets.isEmpty());
+
+		drainUntilDone(handle.toStage());
+		assertEquals(AssetState.LOADED, handle.getState());
+		assertEquals(2, provider.targets.size());
+		for(Thread thread : provider.threads) {
+			assertSame(Thread.currentThread(), thread);
+		}
+	}
+
+	@Test
+	public void uploadCreatesAVertexAndAnIndexBuffer() throws Exception {
+		AssetHandle<MeshBuffers> handle = loader.load(source, new MeshAsset(false, provider));
+		drainUntilDone(handle.toStage());
+		MeshBuffers buffers = handle.get();
+		Mesh mesh = buffers.getMesh();
+		assertTrue(buffers.isUploaded());
+
+		assertEquals(GL_ARRAY_BUFFER, (int) provider.targets.get(0));
+		assertEquals(mesh.getVertexCount() * buffers.getFormat().getStride(), (int) provider.sizes.get(0));
+		assertEquals(GL_ELEMENT_ARRAY_BUFFER, (int) provider.targets.get(1));
+		assertEquals(6 * Short.BYTES, (int) provider.sizes.get(1));
+		assertEquals(GL_UNSIGNED_SHORT, buffers.getIndexType());
+		assertEquals(6, buffers.getIndexCount());
+		assertEquals(1, buffers.getVertexBuffer());
+		assertEquals(2, buffers.getIndexBuffer());
+	}
+
+	@Test
+	public void releaseDeletesTheBuffersItReported() throws Exception {
+		MeshAsset type = new MeshAsset(false, provider);
+		AssetHandle<MeshBuffers> handle = loader.load(source, type);
+		drainUntilDone(handle.toStage());
+		MeshBuffers buffers = handle.get();
+		assertEquals(provider.sizes.get(0) + provider.sizes.get(1), type.getGpuSize(buffers));
+
+		type.release(buffers);
+		assertEquals(2, provider.deleted.size());
+		assertTrue(provider.deleted.contains(1));
+		assertTrue(provider.deleted.contains(2));
+		assertFalse(buffers.isUploaded());
+		assertEquals(0L, type.getGpuSize(buffers));
+		type.release(buffers);
+		assertEquals(2, provider.deleted.size());
+	}
+
+	@Test
+	public void aCancelDuringTheUploadReleasesTheBuffers() throws Exception {
+		final List<AssetHandle<MeshBuffers>> handles = new ArrayList<>();
+		RecordingBufferProvider cancelling = new RecordingBufferProvider() {
+			@Override
+			public synchronized int create(int target, ByteBuffer data, BufferUsage usage) {
+				int buffer = super.create(target, data, usage);
+				handles.get(0).cancel();
+				return buffer;
+			}
+		};
+		AssetHandle<MeshBuffers> handle = loader.load(source, new MeshAsset(false, cancelling));
+		handles.add(handle);
+		drainUntilDone(handle.toStage());
+
+		assertEquals(AssetState.CANCELLED, handle.getState());
+		assertEquals(2, cancelling.targets.size());
+		assertEquals(2, cancelling.deleted.size());
+		assertTrue(cancelling.deleted.contains(1));
+		assertTrue(cancelling.deleted.contains(2));
+	}
+
+	@Test
+	public void theCacheCountsTheBuffersAndDeletesThemWhenEvicted() throws Exception {
+		AssetCache cache = new AssetCache(loader, queue, AssetCache.DEFAULT_CPU_BUDGET, 1L << 20);
+		AssetReference<MeshBuffers> reference = cache.acquire(source, new MeshAsset(false, provider));
+		drainUntilDone(reference.toStage());
+		assertEquals(provider.sizes.get(0) + provider.sizes.get(1), cache.getGpuUsage());
+
+		reference.release();
+		assertTrue(provider.deleted.isEmpty());
+		cache.clear();
+		assertTrue(provider.deleted.isEmpty());
+		queue.drain(Long.MAX_VALUE);
+		assertEquals(2, provider.deleted.size());
+		assertEquals(0L, cache.getGpuUsage());
+	}
+
+	@Test
+	public void assetsWithOtherProvidersAreNotEqual() {
+		assertEquals(new MeshAsset(true, provider), new MeshAsset(true, provider));
+		assertFalse(new MeshAsset(true, provider).equals(new MeshAsset(true, new RecordingBufferProvider())));
+		assertFalse(new MeshAsset(true, provider).equals(new MeshAsset(false, provider)));
+	}
+}
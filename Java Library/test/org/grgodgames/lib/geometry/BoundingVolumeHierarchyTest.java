@@ -0,0 +1,196 @@
+package org.grgodgames.lib.geometry;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Bounding volume hierarchy test. Runs random queries against a tree and against a brute force scan of
+ * every triangle, each held in a hierarchy of its own, and expects the same answers. A mesh past
+ * {@link BoundingVolumeHierarchy#PARALLEL_PRIMITIVES} covers the fork join build.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class BoundingVolumeHierarchyTest {
+	private static final int    SMALL_MESH = 2_000;
+	private static final int    LARGE_MESH = BoundingVolumeHierarchy.PARALLEL_PRIMITIVES + 500;
+	private static final int    QUERIES    = 40;
+	private static final double SIZE       = 0.05;
+	private static final double TOLERANCE  = 1.0e-9;
+
+	@Test
+	public void anEmptyTreeFindsNothing() {
+		BoundingVolumeHierarchy tree = new BoundingVolumeHierarchy(new double[0], new int[0]);
+		assertEquals(0, tree.getTriangleCount());
+		assertEquals(0, tree.getNodeCount());
+		assertEquals(-1, tree.firstHit(new double[3], new double[]{0, 0, 1}, Double.POSITIVE_INFINITY, null));
+		assertFalse(tree.anyHit(new double[3], new double[]{0, 0, 1}, Double.POSITIVE_INFINITY));
+		assertEquals(0, tree.overlap(new double[]{-1, -1, -1}, new double[]{1, 1, 1}, new int[4]));
+		assertEquals(-1, tree.nearest(new double[3], Double.POSITIVE_INFINITY, null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void indexesOutOfRangeAreRejected() {
+		new BoundingVolumeHierarchy(new double[9], new int[]{0, 1, 3});
+	}
+
+	@Test
+	public void aHitReportsItsDistanceAndBarycentrics() {
+		double[] positions = {0, 0, 0, 1, 0, 0, 0, 1, 0};
+		BoundingVolumeHierarchy tree = new BoundingVolumeHierarchy(positions, new int[]{0, 1, 2});
+		double[] hit = new double[3];
+		assertEquals(0, tree.firstHit(new double[]{0.25, 0.5, 2}, new double[]{0, 0, -1}, 10.0, hit));
+		assertArrayEquals(new double[]{2.0, 0.25, 0.5}, hit, TOLERANCE);
+		assertEquals(-1, tree.firstHit(new double[]{0.25, 0.5, 2}, new double[]{0, 0, -1}, 1.5, hit));
+		assertEquals(-1, tree.firstHit(new double[]{0.75, 0.75, 2}, new double[]{0, 0, -1}, 10.0, hit));
+	}
+
+	@Test
+	public void aSmallMeshAnswersLikeABruteForceScan() {
+		compareWithScan(new Random(12L), SMALL_MESH);
+	}
+
+	@Test
+	public void aParallelBuildAnswersLikeABruteForceScan() {
+		compareWithScan(new Random(34L), LARGE_MESH);
+	}
+
+	private static void compareWithScan(Random random, int count) {
+		double[] positions = new double[count * 9];
+		for(int t = 0; t < count; t++) {
+			for(int a = 0; a < 3; a++) {
+				double center = random.nextDouble();
+				for(int c = 0; c < 3; c++) {
+					positions[(t * 9) + (c * 3) + a] = center + ((random.nextDouble() - 0.5) * 2.0 * SIZE);
+				}
+			}
+		}
+		int[] indexes = new int[count * 3];
+		for(int i = 0; i < indexes.length; i++) {
+			indexes[i] = i;
+		}
+		BoundingVolumeHierarchy tree = new BoundingVolumeHierarchy(positions, indexes);
+		BoundingVolumeHierarchy[] scan = new BoundingVolumeHierarchy[count];
+		for(int t = 0; t < count; t++) {
+			scan[t] = new BoundingVolumeHierarchy(Arrays.copyOfRange(positions, t * 9, (t + 1) * 9),
+			                                      new int[]{0, 1, 2});
+		}
+		assertEquals(count, tree.getTriangleCount());
+		assertTrue(tree.getNodeCount() <= ((2 * count) - 1));
+
+		for(int q = 0; q < QUERIES; q++) {
+			compareRays(tree, scan, positions, randomPoint(random, 0.5), randomPoint(random, 0.0));
+			compareOverlap(tree, scan, randomPoint(random, 0.0), 0.02 + (random.nextDouble() * 0.2));
+			compareNearest(tree, scan, randomPoint(random, 0.5), (q % 2 == 0) ? Double.POSITIVE_INFINITY : 0.05);
+		}
+	}
+
+	private static double[] randomPoint(Random random, double margin) {
+		double[] point = new double[3];
+		for(int a = 0; a < 3; a++) {
+			point[a] = -margin + (random.nextDouble() * (1.0 + (2.0 * margin)));
+		}
+		return point;
+	}
+
+	private static void compareRays(BoundingVolumeHierarchy tree, BoundingVolumeHierarchy[] scan, double[] positions,
+	                                double[] origin, double[] target) {
+		double[] direction = new double[3];
+		for(int a = 0; a < 3; a++) {
+			direction[a] = target[a] - origin[a];
+		}
+		for(double maxDistance : new double[]{Double.POSITIVE_INFINITY, 0.5}) {
+			int expected = -1;
+			double nearest = maxDistance;
+			double[] hit = new double[3];
+			for(int t = 0; t < scan.length; t++) {
+				if((scan[t].firstHit(origin, direction, maxDistance, hit) == 0) && (hit[0] < nearest)) {
+					nearest = hit[0];
+					expected = t;
+				}
+			}
+			assertEquals(expected, tree.firstHit(origin, direction, maxDistance, hit));
+			assertEquals(expected >= 0, tree.anyHit(origin, direction, maxDistance));
+			if(expected >= 0) {
+				assertEquals(nearest, hit[0], TOLERANCE);
+				assertEquals(nearest, distanceTo(positions, expected, origin, direction), TOLERANCE);
+			}
+		}
+	}
+
+	private static void compareOverlap(BoundingVolumeHierarchy tree, BoundingVolumeHierarchy[] scan,
+	                                   double[] center, double extent) {
+		double[] min = new double[3];
+		double[] max = new double[3];
+		for(int a = 0; a < 3; a++) {
+			min[a] = center[a] - extent;
+			max[a] = center[a] + extent;
+		}
+		int[] expected = new int[scan.length];
+		int found = 0;
+		for(int t = 0; t < scan.length; t++) {
+			if(scan[t].overlap(min, max, new int[1]) == 1) {
+				expected[found++] = t;
+			}
+		}
+		int[] target = new int[scan.length];
+		assertEquals(found, tree.overlap(min, max, target));
+		int[] actual = Arrays.copyOf(target, found);
+		Arrays.sort(actual);
+		assertArrayEquals(Arrays.copyOf(expected, found), actual);
+		assertEquals(found, tree.overlap(min, max, new int[1]));
+	}
+
+	private static void compareNearest(BoundingVolumeHierarchy tree, BoundingVolumeHierarchy[] scan, double[] point,
+	                                   double maxDistance) {
+		double best = maxDistance;
+		double[] closest = new double[3];
+		for(BoundingVolumeHierarchy triangle : scan) {
+			if(triangle.nearest(point, maxDistance, closest) == 0) {
+				best = Math.min(best, distance(point, closest));
+			}
+		}
+		int nearest = tree.nearest(point, maxDistance, closest);
+		if(best == maxDistance) {
+			assertEquals(-1, nearest);
+			return;
+		}
+		assertTrue(nearest >= 0);
+		assertEquals(best, distance(point, closest), TOLERANCE);
+		double[] own = new double[3];
+		assertEquals(0, scan[nearest].nearest(point, Double.POSITIVE_INFINITY, own));
+		assertEquals(best, distance(point, own), TOLERANCE);
+	}
+
+	private static double distance(double[] from, double[] to) {
+		double x = to[0] - from[0];
+		double y = to[1] - from[1];
+		double z = to[2] - from[2];
+		return Math.sqrt((x * x) + (y * y) + (z * z));
+	}
+
+	/** The ray distance to the plane of a triangle, worked out apart from the tree. */
+	private static double distanceTo(double[] positions, int triangle, double[] origin, double[] direction) {
+		int offset = triangle * 9;
+		double[] first = new double[3];
+		double[] second = new double[3];
+		for(int a = 0; a < 3; a++) {
+			first[a] = positions[offset + 3 + a] - positions[offset + a];
+			second[a] = positions[offset + 6 + a] - positions[offset + a];
+		}
+		double nX = (first[1] * second[2]) - (first[2] * second[1]);
+		double nY = (first[2] * second[0]) - (first[0] * second[2]);
+		double nZ = (first[0] * second[1]) - (first[1] * second[0]);
+		double toPlane = ((positions[offset] - origin[0]) * nX) + ((positions[offset + 1] - origin[1]) * nY) +
+		                 ((positions[offset + 2] - origin[2]) * nZ);
+		return toPlane / ((direction[0] * nX) + (direction[1] * nY) + (direction[2] * nZ));
+	}
+}
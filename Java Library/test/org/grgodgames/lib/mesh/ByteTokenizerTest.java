@@ -0,0 +1,128 @@
+package org.grgodgames.lib.mesh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Byte tokenizer test. Reads numbers with the hand written parser and expects the exact double
+ * {@link Double#parseDouble(String)} gives, on both sides of the fast path's limits.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class ByteTokenizerTest {
+	private static ByteTokenizer tokenizer(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		return new ByteTokenizer("test", Channels.newChannel(new ByteArrayInputStream(bytes)));
+	}
+
+	/** Reads each token on one line and compares its bits with the JDK's parse. */
+	private static void assertParsedExactly(String... tokens) throws IOException {
+		ByteTokenizer parser = tokenizer(String.join(" ", tokens) + '\n');
+		assertTrue(parser.nextLine());
+		for(String token : tokens) {
+			double expected = Double.parseDouble(token);
+			double actual = parser.readDouble();
+			assertEquals(token, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+		}
+	}
+
+	private static void assertRejected(String token) {
+		try {
+			ByteTokenizer tokens = tokenizer(token + '\n');
+			tokens.nextLine();
+			tokens.readDouble();
+			fail(token);
+		} catch(IOException expected) {
+			assertTrue(expected.getMessage().contains("line 1"));
+		}
+	}
+
+	@Test
+	public void plainDecimals() throws IOException {
+		assertParsedExactly("0", "1", "-1", "+2", "0.5", "-0.25", ".5", "5.", "0.1", "0.3", "123.456", "007.50");
+	}
+
+	@Test
+	public void signedZeroes() throws IOException {
+		assertParsedExactly("0.0", "-0", "-0.0", "0e10", "-0.000e-5");
+	}
+
+	@Test
+	public void exponents() throws IOException {
+		assertParsedExactly("1e0", "1E5", "1e+5", "1e-5", "2.5e-3", "-7.25E2", "1e22", "1e-22", "3e23", "3e-23",
+		                    "1e308", "1e-320", "1e400", "1e-400", "5e99999999", "123456789012345e7");
+	}
+
+	@Test
+	public void theExactDigitLimit() throws IOException {
+		assertParsedExactly("123456789012345", "1234567890123456", "12345678901234567", "0.123456789012345",
+		                    "0.1234567890123456", "999999999999999", "9999999999999999", "9007199254740993",
+		                    "1.7976931348623157e308", "4.9e-324", "2.2250738585072014E-308");
+	}
+
+	@Test
+	public void digitsPastTheMantissa() throws IOException {
+		assertParsedExactly("123456789012345678901234567890", "0.000000000000000000000000000001",
+		                    "1.00000000000000000000000000001", "3.14159265358979323846264338327950288");
+	}
+
+	@Test
+	public void randomDoublesRoundTrip() throws IOException {
+		Random random = new Random(99L);
+		String[] tokens = new String[2000];
+		for(int i = 0; i < tokens.length; i++) {
+			switch(i % 4) {
+				case 0:
+					tokens[i] = Double.toString(random.nextDouble());
+					break;
+				case 1:
+					tokens[i] = Double.toString(Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE));
+					break;
+				case 2:
+					tokens[i] = String.format(Locale.ROOT, "%.6f", (random.nextDouble() - 0.5) * 1000.0);
+					break;
+				default:
+					tokens[i] = (random.nextInt(1_000_000) + "e" + (random.nextInt(60) - 30));
+					break;
+			}
+			if(tokens[i].contains("Infinity") || tokens[i].contains("NaN")) {
+				tokens[i] = "1";
+			}
+		}
+		assertParsedExactly(tokens);
+	}
+
+	@Test
+	public void tokensEndAtSpacesTabsAndTheLineEnd() throws IOException {
+		ByteTokenizer tokens = tokenizer("1.5\t-2 3e1\r\n4\n");
+		assertTrue(tokens.nextLine());
+		assertEquals(1.5, tokens.readDouble(), 0.0);
+		assertEquals(-2.0, tokens.readDouble(), 0.0);
+		assertEquals(30.0, tokens.readDouble(), 0.0);
+		assertTrue(tokens.nextLine());
+		assertEquals(4.0, tokens.readDouble(), 0.0);
+	}
+
+	@Test
+	public void malformedNumbersAreRejected() {
+		assertRejected("abc");
+		assertRejected(".");
+		assertRejected("-");
+		assertRejected("1e");
+		assertRejected("1e+");
+		assertRejected("1.2.3");
+		assertRejected("--1");
+	}
+}
@@ -0,0 +1,139 @@
+package org.grgodgames.lib.mesh;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Mesh optimizer test. Optimizes grids, in row order and shuffled, and checks the triangles survive and
+ * the simulated cache does no worse.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class MeshOptimizerTest {
+	private static final int GRID = 40;
+
+	/**
+	 * A flat square grid, two triangles per cell.
+	 *
+	 * @param random
+	 *   null for row order, else the source of a shuffled triangle order
+	 *
+	 * @return the mesh
+	 */
+	private static Mesh grid(Random random) {
+		double[] positions = new double[GRID * GRID * 3];
+		for(int y = 0; y < GRID; y++) {
+			for(int x = 0; x < GRID; x++) {
+				int at = ((y * GRID) + x) * 3;
+				positions[at] = x;
+				positions[at + 1] = y;
+			}
+		}
+		List<int[]> triangles = new ArrayList<>();
+		for(int y = 0; y < (GRID - 1); y++) {
+			for(int x = 0; x < (GRID - 1); x++) {
+				int corner = (y * GRID) + x;
+				triangles.add(new int[]{corner, corner + 1, corner + GRID + 1});
+				triangles.add(new int[]{corner, corner + GRID + 1, corner + GRID});
+			}
+		}
+		if(random != null) {
+			Collections.shuffle(triangles, random);
+		}
+		int[] indexes = new int[triangles.size() * 3];
+		for(int t = 0; t < triangles.size(); t++) {
+			System.arraycopy(triangles.get(t), 0, indexes, t * 3, 3);
+		}
+		return new Mesh(3, 0, 0, positions, new double[positions.length], new byte[0], new short[0], indexes);
+	}
+
+	/** Each triangle as its corner positions in winding order, sorted, so renumbered vertexes compare equal. */
+	private static List<String> triangles(Mesh mesh) {
+		double[] positions = mesh.getPositions();
+		int[] indexes = mesh.getIndexes();
+		List<String> triangles = new ArrayList<>();
+		for(int t = 0; t < (indexes.length / 3); t++) {
+			StringBuilder sb = new StringBuilder();
+			for(int c = 0; c < 3; c++) {
+				int at = indexes[(t * 3) + c] * 3;
+				sb.append(positions[at]).append(',').append(positions[at + 1]).append(',').append(positions[at + 2]);
+				sb.append(';');
+			}
+			triangles.add(sb.toString());
+		}
+		Collections.sort(triangles);
+		return triangles;
+	}
+
+	@Test
+	public void everyTriangleIsKeptWithItsWinding() {
+		Mesh mesh = grid(new Random(7L));
+		Mesh optimized = MeshOptimizer.optimize(mesh);
+		assertEquals(mesh.getVertexCount(), optimized.getVertexCount());
+		assertEquals(triangles(mesh), triangles(optimized));
+	}
+
+	@Test
+	public void vertexesAreNumberedInTheOrderTheyAreFetched() {
+		int[] indexes = MeshOptimizer.optimize(grid(new Random(7L))).getIndexes();
+		int next = 0;
+		for(int index : indexes) {
+			assertTrue(index <= next);
+			if(index == next) {
+				next++;
+			}
+		}
+	}
+
+	@Test
+	public void theCacheDoesNoWorseOnAnOrderedGrid() {
+		CacheStatistics[] statistics = new CacheStatistics[2];
+		MeshOptimizer.optimize(grid(null), statistics);
+		assertTrue(statistics[1].getACMR() <= statistics[0].getACMR());
+		assertTrue(statistics[1].getATVR() <= statistics[0].getATVR());
+	}
+
+	@Test
+	public void theCacheDoesMuchBetterOnAShuffledGrid() {
+		CacheStatistics[] statistics = new CacheStatistics[2];
+		Mesh mesh = grid(new Random(7L));
+		MeshOptimizer.optimize(mesh, statistics);
+		assertEquals(MeshOptimizer.analyze(mesh.getIndexes(), mesh.getVertexCount(), MeshOptimizer.CACHE_SIZE)
+		                          .getTransforms(), statistics[0].getTransforms());
+		assertTrue(statistics[0].getACMR() > 2.0);
+		assertTrue(statistics[1].getACMR() < 1.0);
+	}
+
+	@Test
+	public void theResultIsDeterministic() {
+		Mesh first = MeshOptimizer.optimize(grid(new Random(7L)));
+		Mesh second = MeshOptimizer.optimize(grid(new Random(7L)));
+		assertArrayEquals(first.getIndexes(), second.getIndexes());
+		assertArrayEquals(first.getPositions(), second.getPositions(), 0.0);
+	}
+
+	@Test
+	public void clustersStartAtTheFirstTriangleAndEndWithMinusOne() {
+		Mesh mesh = grid(new Random(7L));
+		int[] clusters = new int[(mesh.getIndexes().length / 3) + 1];
+		int[] indexes = MeshOptimizer.optimizeVertexCache(mesh.getIndexes(), mesh.getVertexCount(), clusters);
+		assertEquals(mesh.getIndexes().length, indexes.length);
+		assertEquals(0, clusters[0]);
+		int c = 1;
+		while(clusters[c] >= 0) {
+			assertTrue(clusters[c] > clusters[c - 1]);
+			c++;
+		}
+		assertEquals(-1, clusters[c]);
+	}
+}
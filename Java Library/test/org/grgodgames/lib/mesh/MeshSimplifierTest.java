@@ -0,0 +1,108 @@
+package org.grgodgames.lib.mesh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The type Mesh simplifier test. Simplifies meshes whose error is known and checks what each level reports.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class MeshSimplifierTest {
+	private static final double EPSILON          = 1.0e-9;
+	/** The distance from a corner of a unit octahedron to the far plane of a face it shares a vertex with. */
+	private static final double OCTAHEDRON_ERROR = 2.0 / Math.sqrt(3.0);
+	private static final int    GRID             = 9;
+
+	/**
+	 * A unit octahedron, a closed mesh where any collapse moves a corner by the same distance.
+	 *
+	 * @return the mesh
+	 */
+	private static Mesh octahedron() {
+		double[] positions = {1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1};
+		int[] indexes = {0, 2, 4, 2, 1, 4, 1, 3, 4, 3, 0, 4, 2, 0, 5, 1, 2, 5, 3, 1, 5, 0, 3, 5};
+		return new Mesh(3, 0, 0, positions, new double[positions.length], new byte[0], new short[0], indexes);
+	}
+
+	/**
+	 * A square grid of vertexes at a height.
+	 *
+	 * @param bump
+	 *   the height of the middle, zero for a flat grid and otherwise a paraboloid falling to zero at the border
+	 *
+	 * @return the mesh
+	 */
+	private static Mesh grid(double bump) {
+		double[] positions = new double[GRID * GRID * 3];
+		for(int y = 0; y < GRID; y++) {
+			for(int x = 0; x < GRID; x++) {
+				double u = ((2.0 * x) / (GRID - 1)) - 1.0;
+				double v = ((2.0 * y) / (GRID - 1)) - 1.0;
+				int at = ((y * GRID) + x) * 3;
+				positions[at] = u;
+				positions[at + 1] = v;
+				positions[at + 2] = bump * (1.0 - Math.max(u * u, v * v));
+			}
+		}
+		int[] indexes = new int[(GRID - 1) * (GRID - 1) * 6];
+		int i = 0;
+		for(int y = 0; y < (GRID - 1); y++) {
+			for(int x = 0; x < (GRID - 1); x++) {
+				int corner = (y * GRID) + x;
+				indexes[i++] = corner;
+				indexes[i++] = corner + 1;
+				indexes[i++] = corner + GRID + 1;
+				indexes[i++] = corner;
+				indexes[i++] = corner + GRID + 1;
+				indexes[i++] = corner + GRID;
+			}
+		}
+		return new Mesh(3, 0, 0, positions, new double[positions.length], new byte[0], new short[0], indexes);
+	}
+
+	@Test
+	public void oneCollapseReportsTheDistanceTheCornerMoved() {
+		Mesh mesh = octahedron();
+		double[] error = new double[1];
+		int[] indexes = MeshSimplifier.simplifyIndexes(mesh, mesh.getIndexes(), 6, 1.0, error);
+		assertEquals(18, indexes.length);
+		assertEquals(OCTAHEDRON_ERROR, error[0], EPSILON);
+	}
+
+	@Test
+	public void levelErrorsAreMeasuredFromTheFullMesh() {
+		LevelOfDetail levels = MeshSimplifier.buildLevels(octahedron(), 1.0, 0.75, 0.5);
+		assertEquals(3, levels.getLevelCount());
+		assertEquals(0.0, levels.getError(0), 0.0);
+		assertEquals(OCTAHEDRON_ERROR, levels.getError(1), EPSILON);
+		assertEquals(OCTAHEDRON_ERROR, levels.getError(2), EPSILON);
+		assertEquals(12, levels.getIndexes(2).length);
+	}
+
+	@Test
+	public void slidingWithinAPlaneHasNoError() {
+		LevelOfDetail levels = MeshSimplifier.buildLevels(grid(0.0), 0.1, 0.75, 0.5);
+		assertTrue(levels.getLevelCount() > 1);
+		for(int level = 1; level < levels.getLevelCount(); level++) {
+			assertTrue(levels.getIndexes(level).length < levels.getIndexes(level - 1).length);
+			assertEquals(0.0, levels.getError(level), EPSILON);
+		}
+	}
+
+	@Test
+	public void errorsNeverShrinkAcrossLevels() {
+		double bump = 0.5;
+		LevelOfDetail levels = MeshSimplifier.buildLevels(grid(bump), 1.0, 0.8, 0.6, 0.4);
+		assertTrue(levels.getLevelCount() > 2);
+		assertTrue(levels.getError(1) > 0.0);
+		for(int level = 2; level < levels.getLevelCount(); level++) {
+			assertTrue(levels.getError(level) >= levels.getError(level - 1));
+		}
+		assertTrue(levels.getError(levels.getLevelCount() - 1) <= bump);
+	}
+}
@@ -0,0 +1,107 @@
+package org.grgodgames.lib.mesh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The type Ply importer test. Reads small ASCII files with their elements in either order and tex coords inside
+ * and outside what a mesh stores.
+ *
+ * @author Greg Brown (GrGod123)
+ * @version 1.0.0
+ * @since CORE
+ */
+public class PlyImporterTest {
+	private static final String HEADER   = "ply\nformat ascii 1.0\n";
+	private static final String VERTEXES = "element vertex 4\nproperty float x\nproperty float y\nproperty float z\n" +
+	                                       "property float u\nproperty float v\n";
+	private static final String FACES    = "element face 1\nproperty list uchar int vertex_indices\n";
+	private static final String QUAD     = "0 0 0 0 0\n1 0 0 1 0\n1 1 0 1 1\n0 1 0 0 1\n";
+
+	private static Mesh read(String text) throws IOException {
+		return PlyImporter.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)), "test");
+	}
+
+	@Test
+	public void facesAfterVertexes() throws IOException {
+		Mesh mesh = read(HEADER + VERTEXES + FACES + "end_header\n" + QUAD + "4 0 1 2 3\n");
+		assertEquals(4, mesh.getVertexCount());
+		assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, mesh.getIndexes());
+	}
+
+	@Test
+	public void facesBeforeVertexes() throws IOException {
+		Mesh mesh = read(HEADER + FACES + VERTEXES + "end_header\n4 0 1 2 3\n" + QUAD);
+		assertEquals(4, mesh.getVertexCount());
+		assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, mesh.getIndexes());
+		assertEquals(1.0, mesh.getPositions()[6], 0.0);
+		assertEquals(1.0, mesh.getNormals()[2], 1.0e-9);
+	}
+
+	@Test
+	public void facesBeforeVertexesAreStillChecked() {
+		try {
+			read(HEADER + FACES + VERTEXES + "end_header\n3 0 1 4\n" + QUAD);
+			fail();
+		} catch(IOException expected) {
+			assertTrue(expected.getMessage().contains("missing vertex"));
+		}
+	}
+
+	@Test
+	public void texCoordsAreStoredAtTheScale() throws IOException {
+		Mesh mesh = read(HEADER + VERTEXES + FACES + "end_header\n" + QUAD + "3 0 1 2\n");
+		assertEquals(Mesh.TEX_COORD_SCALE, mesh.getTexCoords()[2]);
+		assertEquals(0, mesh.getTexCoords()[3]);
+	}
+
+	@Test
+	public void texCoordsPastTheLimitAreClampedWithAWarning() throws IOException {
+		final List<LogRecord> records = new ArrayList<>();
+		Handler handler = new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				records.add(record);
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		Logger logger = Logger.getLogger(VertexArrays.class.getName());
+		logger.addHandler(handler);
+		try {
+			String quad = "0 0 0 20 -20\n1 0 0 15.5 0\n1 1 0 1 1\n0 1 0 -16 16\n";
+			Mesh mesh = read(HEADER + VERTEXES + FACES + "end_header\n" + quad + "3 0 1 2\n");
+			short[] texCoords = mesh.getTexCoords();
+			assertEquals(Short.MAX_VALUE, texCoords[0]);
+			assertEquals(Short.MIN_VALUE, texCoords[1]);
+			assertEquals((short) (15.5 * Mesh.TEX_COORD_SCALE), texCoords[2]);
+			assertEquals(Short.MIN_VALUE, texCoords[6]);
+			assertEquals(Short.MAX_VALUE, texCoords[7]);
+		} finally {
+			logger.removeHandler(handler);
+		}
+		assertEquals(1, records.size());
+		assertEquals(Level.WARNING, records.get(0).getLevel());
+		assertTrue(records.get(0).getMessage().startsWith("Clamped 3 tex coord values of test"));
+	}
+}